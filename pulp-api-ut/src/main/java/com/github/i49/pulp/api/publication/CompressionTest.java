@@ -0,0 +1,70 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.api.publication;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.Test;
+
+import com.github.i49.pulp.api.publication.Compression;
+
+/**
+ * Unit tests for {@link Compression}.
+ */
+public class CompressionTest {
+
+	/* deflated */
+	
+	@Test
+	public void deflated_shouldReturnCompressionWithLevel() {
+		Compression c = Compression.deflated(9);
+		assertThat(c.getMethod()).isSameAs(Compression.Method.DEFLATED);
+		assertThat(c.getLevel()).isEqualTo(9);
+	}
+
+	@Test
+	public void deflated_shouldThrowExceptionIfLevelIsOutOfRange() {
+		assertThatThrownBy(()->{
+			Compression.deflated(10);
+		}).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	/* probed */
+	
+	@Test
+	public void probed_shouldReturnCompressionWithLevel() {
+		Compression c = Compression.probed(1);
+		assertThat(c.getMethod()).isSameAs(Compression.Method.PROBED);
+		assertThat(c.getLevel()).isEqualTo(1);
+	}
+
+	/* equals */
+	
+	@Test
+	public void equals_shouldReturnTrueIfMethodAndLevelAreSame() {
+		assertThat(Compression.deflated(5)).isEqualTo(Compression.deflated(5));
+		assertThat(Compression.deflated(5)).isNotEqualTo(Compression.DEFLATED);
+	}
+	
+	/* toString */
+	
+	@Test
+	public void toString_shouldReturnMethodAndLevel() {
+		assertThat(Compression.STORED.toString()).isEqualTo("STORED");
+		assertThat(Compression.deflated(9).toString()).isEqualTo("DEFLATED(9)");
+	}
+}
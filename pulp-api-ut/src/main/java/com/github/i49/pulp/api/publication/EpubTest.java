@@ -19,6 +19,8 @@ package com.github.i49.pulp.api.publication;
 import static org.assertj.core.api.Assertions.*;
 
 import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.junit.Test;
 
@@ -50,6 +52,30 @@ public class EpubTest {
 		assertThat(factory).isNotNull();
 	}
 	
+	@Test
+	public void createReaderFactory_shouldCreateReaderFactoryWithConfig() {
+		Map<String, Object> config = new HashMap<>();
+		config.put(PublicationReaderFactory.MEMORY_MAPPING, Boolean.TRUE);
+		PublicationReaderFactory factory = Epub.createReaderFactory(config);
+		assertThat(factory).isNotNull();
+	}
+
+	@Test
+	public void createReaderFactory_shouldThrowExceptionIfConfigIsNull() {
+		assertThatThrownBy(()->{
+			Epub.createReaderFactory(null);
+		}).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void createReaderFactory_shouldThrowExceptionIfConfigIsInvalid() {
+		Map<String, Object> config = new HashMap<>();
+		config.put(PublicationReaderFactory.MEMORY_MAPPING, "yes");
+		assertThatThrownBy(()->{
+			Epub.createReaderFactory(config);
+		}).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("memoryMapping");
+	}
+	
 	/* createWriterFactory() */
 
 	@Test
@@ -58,6 +84,30 @@ public class EpubTest {
 		assertThat(factory).isNotNull();
 	}
 	
+	@Test
+	public void createWriterFactory_shouldCreateWriterFactoryWithConfig() {
+		Map<String, Object> config = new HashMap<>();
+		config.put(PublicationWriterFactory.PARALLELISM, 4);
+		PublicationWriterFactory factory = Epub.createWriterFactory(config);
+		assertThat(factory).isNotNull();
+	}
+
+	@Test
+	public void createWriterFactory_shouldThrowExceptionIfConfigIsNull() {
+		assertThatThrownBy(()->{
+			Epub.createWriterFactory(null);
+		}).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void createWriterFactory_shouldThrowExceptionIfParallelismIsNotPositive() {
+		Map<String, Object> config = new HashMap<>();
+		config.put(PublicationWriterFactory.PARALLELISM, 0);
+		assertThatThrownBy(()->{
+			Epub.createWriterFactory(config);
+		}).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("parallelism");
+	}
+	
 	/* createResourceBuilderFactory() */
 	
 	@Test
@@ -0,0 +1,183 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.api.publication;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.i49.pulp.api.publication.Epub;
+import com.github.i49.pulp.api.publication.EpubException;
+import com.github.i49.pulp.api.publication.LibraryReader;
+import com.github.i49.pulp.api.publication.LibraryReader.Result;
+import com.github.i49.pulp.api.publication.PublicationReaderFactory;
+
+/**
+ * Unit tests for {@link LibraryReader}.
+ */
+public class LibraryReaderTest {
+
+	private PublicationReaderFactory factory;
+
+	@Before
+	public void setUp() {
+		factory = Epub.createReaderFactory();
+	}
+
+	@Test
+	public void read_shouldReadAllFiles() {
+		Stream<Path> paths = Stream.of(
+				EpubPaths.get("valid-single-rendition.epub"),
+				EpubPaths.get("valid-multiple-renditions.epub"),
+				EpubPaths.get("package-resource-missing.epub"));
+		List<Result> results;
+		try (LibraryReader reader = factory.createLibraryReader(); Stream<Result> stream = reader.read(paths)) {
+			results = stream.collect(Collectors.toList());
+		}
+		assertThat(results).hasSize(3);
+		assertThat(results.stream().filter(r->r.getPublication().isPresent())).hasSize(2);
+		Result failed = results.stream().filter(r->r.getFailure().isPresent()).findFirst().get();
+		assertThat(failed.getPath().getFileName().toString()).isEqualTo("package-resource-missing.epub");
+		assertThat(failed.getFailure().get().getMessage()).contains("missing.png");
+	}
+
+	@Test
+	public void read_shouldReportUnexpectedExceptionAsFailure() {
+		Stream<Path> paths = Stream.of(
+				EpubPaths.get("valid-single-rendition.epub"),
+				null,
+				EpubPaths.get("valid-multiple-renditions.epub"));
+		List<Result> results;
+		try (LibraryReader reader = factory.createLibraryReader(); Stream<Result> stream = reader.read(paths)) {
+			results = stream.collect(Collectors.toList());
+		}
+		assertThat(results).hasSize(3);
+		assertThat(results.stream().filter(r->r.getPublication().isPresent())).hasSize(2);
+		Result failed = results.stream().filter(r->r.getFailure().isPresent()).findFirst().get();
+		assertThat(failed.getFailure().get()).hasCauseInstanceOf(IllegalArgumentException.class);
+	}
+	
+	@Test
+	public void read_shouldPassResultsToConsumer() {
+		Stream<Path> paths = Stream.of(
+				EpubPaths.get("valid-single-rendition.epub"),
+				EpubPaths.get("valid-single-rendition"),
+				EpubPaths.get("valid-zip64.epub"));
+		List<Integer> sizes = Collections.synchronizedList(new ArrayList<>());
+		try (LibraryReader reader = factory.createLibraryReader()) {
+			reader.read(paths, result->{
+				Rendition rendition = result.getPublication().get().getDefaultRendition();
+				try {
+					// The contents can be read while the file is open.
+					sizes.add(rendition.getManifest().get("cover.png").getResource().getContent().length);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+		assertThat(sizes).hasSize(3).allMatch(size->size > 0);
+	}
+
+	@Test
+	public void read_shouldRethrowExceptionFromConsumer() {
+		Stream<Path> paths = Stream.of(
+				EpubPaths.get("valid-single-rendition.epub"),
+				EpubPaths.get("valid-multiple-renditions.epub"));
+		try (LibraryReader reader = factory.createLibraryReader()) {
+			Throwable thrown = catchThrowable(()->{
+				reader.read(paths, result->{
+					throw new IllegalStateException("stopped");
+				});
+			});
+			assertThat(thrown).isInstanceOf(IllegalStateException.class).hasMessage("stopped");
+		}
+	}
+
+	@Test
+	public void read_shouldLimitPendingResults() {
+		Map<String, Object> config = new HashMap<>();
+		config.put(PublicationReaderFactory.LIBRARY_PARALLELISM, 2);
+		PublicationReaderFactory factory = Epub.createReaderFactory(config);
+		AtomicInteger taken = new AtomicInteger();
+		Path path = EpubPaths.get("valid-single-rendition.epub");
+		Stream<Path> paths = Stream.generate(()->path).peek(p->taken.incrementAndGet());
+		try (LibraryReader reader = factory.createLibraryReader(); Stream<Result> stream = reader.read(paths)) {
+			Iterator<Result> it = stream.iterator();
+			assertThat(it.next().getPublication()).isPresent();
+			assertThat(taken.get()).isLessThanOrEqualTo(4);
+		}
+	}
+
+	@Test
+	public void readDirectory_shouldReadAllEpubFiles() throws IOException {
+		Path directory = PublicationWriterTest.outputPath("library");
+		Path subdirectory = Files.createDirectories(directory.resolve("sub"));
+		copy("valid-single-rendition.epub", directory);
+		copy("valid-multiple-renditions.epub", directory);
+		copy("valid-sharing-resources.epub", subdirectory);
+		Files.write(directory.resolve("readme.txt"), "not an EPUB".getBytes());
+		List<String> names;
+		try (LibraryReader reader = factory.createLibraryReader(); Stream<Result> stream = reader.readDirectory(directory)) {
+			names = stream
+					.peek(r->assertThat(r.getFailure()).isEmpty())
+					.map(r->r.getPath().getFileName().toString())
+					.sorted()
+					.collect(Collectors.toList());
+		}
+		assertThat(names).containsExactly(
+				"valid-multiple-renditions.epub",
+				"valid-sharing-resources.epub",
+				"valid-single-rendition.epub");
+	}
+
+	@Test
+	public void readDirectory_shouldThrowExceptionIfDirectoryNotExist() {
+		Path directory = PublicationWriterTest.outputPath("nonexistent-library");
+		try (LibraryReader reader = factory.createLibraryReader()) {
+			Throwable thrown = catchThrowable(()->reader.readDirectory(directory));
+			assertThat(thrown).isInstanceOf(EpubException.class);
+		}
+	}
+
+	@Test
+	public void createReaderFactory_shouldThrowExceptionIfParallelismIsInvalid() {
+		Map<String, Object> config = new HashMap<>();
+		config.put(PublicationReaderFactory.LIBRARY_PARALLELISM, 0);
+		Throwable thrown = catchThrowable(()->Epub.createReaderFactory(config));
+		assertThat(thrown).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static void copy(String name, Path directory) throws IOException {
+		Files.copy(EpubPaths.get(name), directory.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+	}
+}
@@ -18,6 +18,13 @@ package com.github.i49.pulp.api.publication;
 
 import static org.assertj.core.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
@@ -90,4 +97,92 @@ public class PublicationReaderFactoryTest {
 			factory.createReader(path);
 		}).isInstanceOf(EpubException.class).hasMessageContaining("mimetype-directory.epub");
 	}
+	
+	@Test
+	public void createReader_shouldThrowExceptionIfMimetypeIsMissingInDirectory() {
+		Path path = EpubPaths.get("mimetype-missing");
+		assertThatThrownBy(()->{
+			factory.createReader(path);
+		}).isInstanceOf(EpubException.class).hasMessageContaining("mimetype-missing");
+	}
+
+	@Test
+	public void createReader_shouldThrowExceptionIfMimetypeIsWrongInDirectory() {
+		Path path = EpubPaths.get("mimetype-wrong");
+		assertThatThrownBy(()->{
+			factory.createReader(path);
+		}).isInstanceOf(EpubException.class).hasMessageContaining("mimetype-wrong");
+	}
+	
+	@Test
+	public void createStreamReader_shouldThrowExceptionIfStreamIsNull() {
+		assertThatThrownBy(()->{
+			factory.createStreamReader((InputStream)null);
+		}).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void createStreamReader_shouldThrowExceptionIfChannelIsNull() {
+		assertThatThrownBy(()->{
+			factory.createStreamReader((ReadableByteChannel)null);
+		}).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void createBufferReader_shouldThrowExceptionIfBufferIsNull() {
+		assertThatThrownBy(()->{
+			factory.createBufferReader(null);
+		}).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void createBufferReader_shouldThrowExceptionIfBufferIsEmpty() {
+		ByteBuffer buffer = ByteBuffer.allocate(0);
+		assertThatThrownBy(()->{
+			factory.createBufferReader(buffer);
+		}).isInstanceOf(EpubException.class);
+	}
+
+	@Test
+	public void createBufferReader_shouldThrowExceptionIfMimetypeIsWrong() throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(EpubPaths.get("mimetype-wrong.epub")));
+		assertThatThrownBy(()->{
+			factory.createBufferReader(buffer);
+		}).isInstanceOf(EpubException.class).hasMessageContaining("MIME type");
+	}
+
+	@Test
+	public void createRangeReader_shouldThrowExceptionIfChannelIsNull() {
+		assertThatThrownBy(()->{
+			factory.createRangeReader(null);
+		}).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void createRangeReader_shouldThrowExceptionIfMimetypeIsWrong() throws IOException {
+		Path path = EpubPaths.get("mimetype-wrong.epub");
+		try (SeekableByteChannel channel = Files.newByteChannel(path)) {
+			assertThatThrownBy(()->{
+				factory.createRangeReader(channel);
+			}).isInstanceOf(EpubException.class).hasMessageContaining("MIME type");
+		}
+	}
+
+	@Test
+	public void createStreamReader_shouldThrowExceptionIfStreamIsEmpty() {
+		InputStream stream = new ByteArrayInputStream(new byte[0]);
+		assertThatThrownBy(()->{
+			factory.createStreamReader(stream);
+		}).isInstanceOf(EpubException.class);
+	}
+
+	@Test
+	public void createStreamReader_shouldThrowExceptionIfMimetypeIsWrong() throws IOException {
+		Path path = EpubPaths.get("mimetype-wrong.epub");
+		try (InputStream stream = Files.newInputStream(path)) {
+			assertThatThrownBy(()->{
+				factory.createStreamReader(stream);
+			}).isInstanceOf(EpubException.class).hasMessageContaining("MIME type");
+		}
+	}
 }
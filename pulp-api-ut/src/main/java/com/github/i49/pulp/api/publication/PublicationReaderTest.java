@@ -19,17 +19,53 @@ package com.github.i49.pulp.api.publication;
 import static com.github.i49.pulp.api.publication.Assertions.*;
 import static org.assertj.core.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.w3c.dom.Document;
+
+import com.github.i49.pulp.api.metadata.Metadata;
+import com.github.i49.pulp.api.vocabularies.Property;
 
 import com.github.i49.pulp.api.publication.Epub;
 import com.github.i49.pulp.api.publication.EpubParsingException;
 import com.github.i49.pulp.api.publication.Publication;
 import com.github.i49.pulp.api.publication.PublicationReader;
 import com.github.i49.pulp.api.publication.PublicationReaderFactory;
+import com.github.i49.pulp.api.publication.PublicationResource;
 import com.github.i49.pulp.api.publication.Rendition;
 
 /**
@@ -64,6 +100,310 @@ public class PublicationReaderTest {
 		assertThat(rendition.getSpine().getNumberOfPages()).isEqualTo(2);
 	}
 
+	@Test
+	public void read_shouldReadPublicationInZip64Format() throws IOException {
+		Path path = pathTo("valid-zip64.epub");
+		try (PublicationReader reader = factory.createReader(path)) {
+			Publication publication = reader.read();
+			Rendition rendition = publication.getDefaultRendition();
+			assertThat(rendition.getManifest().getNumberOfItems()).isEqualTo(6);
+			assertThat(rendition.getSpine().getNumberOfPages()).isEqualTo(2);
+			PublicationResource resource = rendition.getManifest().get("cover.png").getResource();
+			assertThat(resource.getContent()).isEqualTo(readEntry(path, "EPUB/cover.png"));
+		}
+	}
+
+	@Test
+	public void read_shouldReadPublicationWithMemoryMapping() throws IOException {
+		Map<String, Object> config = new HashMap<>();
+		config.put(PublicationReaderFactory.MEMORY_MAPPING, Boolean.TRUE);
+		PublicationReaderFactory factory = Epub.createReaderFactory(config);
+		Path path = pathTo("valid-single-rendition.epub");
+		try (PublicationReader reader = factory.createReader(path)) {
+			Publication publication = reader.read();
+			Rendition rendition = publication.getDefaultRendition();
+			assertThat(rendition.getManifest().getNumberOfItems()).isEqualTo(6);
+			assertThat(rendition.getSpine().getNumberOfPages()).isEqualTo(2);
+			PublicationResource resource = rendition.getManifest().get("chapter1.xhtml").getResource();
+			assertThat(resource.getContent()).isEqualTo(readEntry(path, "EPUB/chapter1.xhtml"));
+		}
+	}
+
+	@Test
+	public void read_shouldReadPublicationFromDirectory() throws IOException {
+		Path path = pathTo("valid-single-rendition");
+		try (PublicationReader reader = factory.createReader(path)) {
+			Publication publication = reader.read();
+			Rendition rendition = publication.getDefaultRendition();
+			assertThat(rendition.getManifest().getNumberOfItems()).isEqualTo(6);
+			assertThat(rendition.getSpine().getNumberOfPages()).isEqualTo(2);
+			for (String name: new String[] {"chapter1.xhtml", "cover.png", "images/figure1.jpg"}) {
+				PublicationResource resource = rendition.getManifest().get(name).getResource();
+				assertThat(resource.getContent()).isEqualTo(Files.readAllBytes(path.resolve("EPUB").resolve(name)));
+			}
+		}
+	}
+
+	@Test
+	public void read_shouldReadPublicationOfMultipleRenditionsFromDirectory() throws IOException {
+		Path path = pathTo("valid-multiple-renditions");
+		try (PublicationReader reader = factory.createReader(path)) {
+			Publication publication = reader.read();
+			assertThat(publication.getNumberOfRenditions()).isEqualTo(2);
+		}
+	}
+
+	@Test
+	public void read_shouldThrowExceptionIfPackageInDirectoryIsNotWellFormed() {
+		Path path = pathTo("package-not-well-formed");
+		PublicationReader reader = factory.createReader(path);
+		Throwable thrown = catchThrowable(()->{
+			reader.read();
+		});
+		assertThat(thrown).isInstanceOf(EpubParsingException.class);
+	}
+
+	@Test
+	public void read_shouldReadPublicationFromStream() throws IOException {
+		Path path = pathTo("valid-single-rendition.epub");
+		try (InputStream stream = Files.newInputStream(path); PublicationReader reader = factory.createStreamReader(stream)) {
+			Publication publication = reader.read();
+			Rendition rendition = publication.getDefaultRendition();
+			assertThat(rendition.getManifest().getNumberOfItems()).isEqualTo(6);
+			assertThat(rendition.getSpine().getNumberOfPages()).isEqualTo(2);
+			for (String name: new String[] {"chapter1.xhtml", "cover.png", "images/figure1.jpg"}) {
+				PublicationResource resource = rendition.getManifest().get(name).getResource();
+				assertThat(resource.getContent()).isEqualTo(readEntry(path, "EPUB/" + name));
+			}
+		}
+	}
+
+	@Test
+	public void read_shouldReadPublicationFromHeapBuffer() throws IOException {
+		Path path = pathTo("valid-single-rendition.epub");
+		byte[] bytes = Files.readAllBytes(path);
+		// places the EPUB file in the middle of the array.
+		byte[] array = new byte[bytes.length + 200];
+		System.arraycopy(bytes, 0, array, 100, bytes.length);
+		ByteBuffer buffer = ByteBuffer.wrap(array, 100, bytes.length);
+		try (PublicationReader reader = factory.createBufferReader(buffer)) {
+			Publication publication = reader.read();
+			Rendition rendition = publication.getDefaultRendition();
+			assertThat(rendition.getManifest().getNumberOfItems()).isEqualTo(6);
+			for (String name: new String[] {"chapter1.xhtml", "cover.png", "images/figure1.jpg"}) {
+				PublicationResource resource = rendition.getManifest().get(name).getResource();
+				assertThat(resource.getContent()).isEqualTo(readEntry(path, "EPUB/" + name));
+			}
+		}
+		assertThat(buffer.position()).isEqualTo(100);
+		assertThat(buffer.limit()).isEqualTo(100 + bytes.length);
+	}
+
+	@Test
+	public void read_shouldReadPublicationFromDirectBuffer() throws IOException {
+		byte[] bytes = Files.readAllBytes(pathTo("valid-multiple-renditions.epub"));
+		ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+		buffer.put(bytes).flip();
+		try (PublicationReader reader = factory.createBufferReader(buffer)) {
+			Publication publication = reader.read();
+			assertThat(publication.getNumberOfRenditions()).isEqualTo(2);
+		}
+	}
+
+	@Test
+	public void read_shouldReadPublicationFromChannel() throws IOException {
+		Path path = pathTo("valid-multiple-renditions.epub");
+		try (ReadableByteChannel channel = Files.newByteChannel(path); PublicationReader reader = factory.createStreamReader(channel)) {
+			Publication publication = reader.read();
+			assertThat(publication.getNumberOfRenditions()).isEqualTo(2);
+		}
+	}
+
+	@Test
+	public void read_shouldReadPublicationFromSeekableChannel() throws IOException {
+		Path path = pathTo("valid-multiple-renditions.epub");
+		try (SeekableByteChannel channel = Files.newByteChannel(path); PublicationReader reader = factory.createRangeReader(channel)) {
+			Publication publication = reader.read();
+			assertThat(publication.getNumberOfRenditions()).isEqualTo(2);
+			PublicationResource resource = publication.getResource("second/chapter3.xhtml");
+			assertThat(resource.getContent()).isEqualTo(readEntry(path, "second/chapter3.xhtml"));
+		}
+	}
+
+	@Test
+	public void read_shouldFetchOnlyRegionsNeededFromSeekableChannel() throws IOException {
+		// appends a large entry not in the manifest.
+		Path path = PublicationWriterTest.outputPath("large-unused-entry.epub");
+		byte[] large = new byte[4 * 1024 * 1024];
+		new Random(42).nextBytes(large);
+		appendEntry(pathTo("valid-single-rendition.epub"), path, "EPUB/unused.bin", large);
+		
+		try (RangeServingChannel channel = new RangeServingChannel(Files.readAllBytes(path));
+			 PublicationReader reader = factory.createRangeReader(channel)) {
+			Publication publication = reader.read();
+			Rendition rendition = publication.getDefaultRendition();
+			for (String name: new String[] {"chapter1.xhtml", "cover.png", "images/figure1.jpg"}) {
+				PublicationResource resource = rendition.getManifest().get(name).getResource();
+				assertThat(resource.getContent()).isEqualTo(readEntry(path, "EPUB/" + name));
+			}
+			assertThat(channel.getBytesRead()).isLessThan(channel.size() / 4);
+		}
+	}
+
+	@Test
+	public void read_shouldReadPublicationInOtherFileSystem() throws IOException {
+		Path archive = PublicationWriterTest.outputPath("file-system.zip");
+		Files.deleteIfExists(archive);
+		Map<String, String> env = new HashMap<>();
+		env.put("create", "true");
+		URI uri = URI.create("jar:" + archive.toAbsolutePath().toUri());
+		try (FileSystem fs = FileSystems.newFileSystem(uri, env)) {
+			Path path = fs.getPath("/valid-single-rendition.epub");
+			Files.copy(pathTo("valid-single-rendition.epub"), path);
+			try (PublicationReader reader = factory.createReader(path)) {
+				Publication publication = reader.read();
+				Rendition rendition = publication.getDefaultRendition();
+				assertThat(rendition.getManifest().getNumberOfItems()).isEqualTo(6);
+				PublicationResource resource = rendition.getManifest().get("cover.png").getResource();
+				assertThat(resource.getContent()).isEqualTo(readEntry(pathTo("valid-single-rendition.epub"), "EPUB/cover.png"));
+			}
+		}
+	}
+
+	@Test
+	public void read_shouldReportOnlyBytesFetchedAsAvailableFromSeekableChannel() throws IOException {
+		// replaces the cover with a large entry stored without compression.
+		Path path = PublicationWriterTest.outputPath("large-stored-cover.epub");
+		byte[] large = new byte[4 * 1024 * 1024];
+		new Random(42).nextBytes(large);
+		appendEntry(pathTo("valid-single-rendition.epub"), path, "EPUB/cover.png", large);
+		
+		try (RangeServingChannel channel = new RangeServingChannel(Files.readAllBytes(path));
+			 PublicationReader reader = factory.createRangeReader(channel)) {
+			PublicationResource resource = reader.read().getResource("EPUB/cover.png");
+			try (InputStream in = resource.openContent()) {
+				assertThat(in.available()).isLessThan(large.length);
+				assertThat(readAll(in)).isEqualTo(large);
+			}
+		}
+	}
+
+	@Test
+	public void read_shouldReadPublicationFromStreamExceedingMemoryLimit() throws IOException {
+		Map<String, Object> config = new HashMap<>();
+		config.put(PublicationReaderFactory.STREAM_MEMORY_LIMIT, 0);
+		PublicationReaderFactory factory = Epub.createReaderFactory(config);
+		Path path = pathTo("valid-zip64.epub");
+		try (InputStream stream = Files.newInputStream(path); PublicationReader reader = factory.createStreamReader(stream)) {
+			Rendition rendition = reader.read().getDefaultRendition();
+			assertThat(rendition.getManifest().getNumberOfItems()).isEqualTo(6);
+			PublicationResource resource = rendition.getManifest().get("cover.png").getResource();
+			assertThat(resource.getContent()).isEqualTo(readEntry(path, "EPUB/cover.png"));
+		}
+	}
+
+	@Test
+	public void createStreamReader_shouldThrowExceptionIfStreamExceedsSpillLimit() throws IOException {
+		Map<String, Object> config = new HashMap<>();
+		config.put(PublicationReaderFactory.STREAM_MEMORY_LIMIT, 0);
+		config.put(PublicationReaderFactory.STREAM_SPILL_LIMIT, 1024);
+		PublicationReaderFactory factory = Epub.createReaderFactory(config);
+		Path path = pathTo("valid-zip64.epub");
+		try (InputStream stream = Files.newInputStream(path)) {
+			Throwable thrown = catchThrowable(()->factory.createStreamReader(stream));
+			assertThat(thrown).isInstanceOf(EpubException.class);
+		}
+	}
+
+	@Test
+	public void createStreamReader_shouldThrowExceptionIfStreamHasOversizedPinnedEntry() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ZipOutputStream zip = new ZipOutputStream(out)) {
+			// The mimetype is always held in memory.
+			zip.putNextEntry(new ZipEntry("mimetype"));
+			byte[] zeros = new byte[1024 * 1024];
+			for (int i = 0; i < 65; i++) {
+				zip.write(zeros);
+			}
+		}
+		try (InputStream stream = new ByteArrayInputStream(out.toByteArray())) {
+			Throwable thrown = catchThrowable(()->factory.createStreamReader(stream));
+			assertThat(thrown).isInstanceOf(EpubException.class).hasCauseInstanceOf(ZipException.class);
+		}
+	}
+
+	@Test
+	public void read_shouldReadPublicationWithIndexCache() throws IOException {
+		Path directory = Paths.get("target", "index-cache");
+		Map<String, Object> config = new HashMap<>();
+		config.put(PublicationReaderFactory.INDEX_CACHE, Boolean.TRUE);
+		config.put(PublicationReaderFactory.INDEX_CACHE_DIRECTORY, directory);
+		Path path = pathTo("valid-single-rendition.epub");
+		for (int i = 0; i < 2; i++) {
+			// The second factory reads the index stored by the first one.
+			PublicationReaderFactory factory = Epub.createReaderFactory(config);
+			for (int j = 0; j < 2; j++) {
+				try (PublicationReader reader = factory.createReader(path)) {
+					Publication publication = reader.read();
+					Rendition rendition = publication.getDefaultRendition();
+					assertThat(rendition.getManifest().getNumberOfItems()).isEqualTo(6);
+					PublicationResource resource = rendition.getManifest().get("chapter1.xhtml").getResource();
+					assertThat(resource.getContent()).isEqualTo(readEntry(path, "EPUB/chapter1.xhtml"));
+				}
+			}
+		}
+		try (Stream<Path> files = Files.list(directory)) {
+			assertThat(files.filter(p->p.toString().endsWith(".idx")).count()).isGreaterThan(0);
+		}
+	}
+
+	@Test
+	public void read_shouldNotUseIndexCachedBeforeFileIsReplaced() throws IOException {
+		Path directory = Paths.get("target", "index-cache");
+		Map<String, Object> config = new HashMap<>();
+		config.put(PublicationReaderFactory.INDEX_CACHE, Boolean.TRUE);
+		config.put(PublicationReaderFactory.INDEX_CACHE_DIRECTORY, directory);
+		PublicationReaderFactory factory = Epub.createReaderFactory(config);
+		Path path = Paths.get("target", "replaced.epub");
+		
+		Files.copy(pathTo("valid-single-rendition.epub"), path, StandardCopyOption.REPLACE_EXISTING);
+		FileTime lastModified = Files.getLastModifiedTime(path);
+		try (PublicationReader reader = factory.createReader(path)) {
+			assertThat(reader.read().getNumberOfRenditions()).isEqualTo(1);
+		}
+
+		Files.copy(pathTo("valid-multiple-renditions.epub"), path, StandardCopyOption.REPLACE_EXISTING);
+		Files.setLastModifiedTime(path, lastModified);
+		try (PublicationReader reader = factory.createReader(path)) {
+			assertThat(reader.read().getNumberOfRenditions()).isEqualTo(2);
+		}
+		try (PublicationReader reader = Epub.createReaderFactory(config).createReader(path)) {
+			assertThat(reader.read().getNumberOfRenditions()).isEqualTo(2);
+		}
+	}
+
+	@Test
+	public void read_shouldIgnoreBrokenIndexCache() throws IOException {
+		Path directory = Paths.get("target", "broken-index-cache");
+		Map<String, Object> config = new HashMap<>();
+		config.put(PublicationReaderFactory.INDEX_CACHE, Boolean.TRUE);
+		config.put(PublicationReaderFactory.INDEX_CACHE_DIRECTORY, directory);
+		Path path = pathTo("valid-single-rendition.epub");
+		try (PublicationReader reader = Epub.createReaderFactory(config).createReader(path)) {
+			reader.read();
+		}
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path file: (Iterable<Path>)files::iterator) {
+				byte[] bytes = Files.readAllBytes(file);
+				Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+			}
+		}
+		try (PublicationReader reader = Epub.createReaderFactory(config).createReader(path)) {
+			Rendition rendition = reader.read().getDefaultRendition();
+			assertThat(rendition.getManifest().getNumberOfItems()).isEqualTo(6);
+		}
+	}
+
 	@Test
 	public void read_shouldReadPublicationOfMultipleRenditions() {
 		Path path = pathTo("valid-multiple-renditions.epub");
@@ -261,4 +601,478 @@ public class PublicationReaderTest {
 			.hasLocation("EPUB/package.opf")
 			.hasContainerPath(path);
 	}
+
+	@Test
+	public void read_shouldThrowExceptionIfPackageCrcDoesNotMatch() {
+		Path path = pathTo("package-crc-mismatch.epub");
+		PublicationReader reader = factory.createReader(path);
+		Throwable thrown = catchThrowable(()->{
+			reader.read();
+		});
+		assertThat(thrown)
+			.isInstanceOf(EpubParsingException.class)
+			.hasMessageContaining("CRC");
+		assertThat((EpubParsingException)thrown)
+			.hasLocation("EPUB/package.opf")
+			.hasContainerPath(path);
+	}
+	
+	@Test
+	public void read_shouldReadSamePublicationWithoutStreamingParser() {
+		for (String name: new String[] {"valid-single-rendition.epub", "valid-multiple-renditions.epub", "valid-sharing-resources.epub"}) {
+			Path path = pathTo(name);
+			try (PublicationReader streaming = factory.createReader(path);
+				 PublicationReader dom = createDomFactory().createReader(path)) {
+				assertThat(describe(streaming.read())).isEqualTo(describe(dom.read()));
+			}
+		}
+	}
+	
+	@Test
+	public void read_shouldReportSameErrorsWithoutStreamingParser() {
+		String[] names = {
+			"container-empty.epub", "container-not-well-formed.epub", 
+			"container-unrecognized.epub", "container-unsupported.epub", 
+			"package-empty.epub", "package-not-well-formed.epub",
+			"package-unrecognized.epub", "package-unsupported.epub", 
+			"package-item-missing.epub", "package-resource-missing.epub"
+		};
+		for (String name: names) {
+			Path path = pathTo(name);
+			Throwable expected = catchThrowable(()->createDomFactory().createReader(path).read());
+			Throwable actual = catchThrowable(()->factory.createReader(path).read());
+			assertThat(expected).isInstanceOf(EpubParsingException.class);
+			assertThat(actual).isInstanceOf(EpubParsingException.class).hasMessage(expected.getMessage());
+		}
+	}
+	
+	@Test
+	public void read_shouldReportSameErrorsInPackageWithoutStreamingParser() throws IOException {
+		String metadata = "<metadata xmlns:dc=\"http://purl.org/dc/elements/1.1/\">"
+				+ "<dc:identifier id=\"pub-id\">urn:isbn:9780000000001</dc:identifier></metadata>";
+		String manifest = "<manifest><item id=\"c1\" href=\"chapter1.xhtml\" media-type=\"application/xhtml+xml\"/></manifest>";
+		String spine = "<spine><itemref idref=\"c1\"/></spine>";
+		String[] contents = {
+			// the unique identifier is missing.
+			"<package version=\"3.0\" xmlns=\"http://www.idpf.org/2007/opf\">" + metadata + manifest + spine,
+			// the missing spine is reported in preference to the broken item.
+			"<package version=\"3.0\" unique-identifier=\"pub-id\" xmlns=\"http://www.idpf.org/2007/opf\">"
+				+ metadata + "<manifest><item id=\"c1\" media-type=\"application/xhtml+xml\"/></manifest>",
+			"<package version=\"3.0\" unique-identifier=\"pub-id\" xmlns=\"http://www.idpf.org/2007/opf\">"
+				+ metadata + "<guide/>" + manifest + spine,
+			"<package version=\"3.0\" unique-identifier=\"pub-id\" xmlns=\"http://www.idpf.org/2007/opf\">"
+				+ metadata + "<manifest><item id=\"c1\" href=\"chapter1.xhtml\" media-type=\"application/xhtml+xml\"/>"
+				+ "<item id=\"c1\" href=\"chapter1.xhtml\" media-type=\"application/xhtml+xml\"/></manifest>" + spine,
+			"<package version=\"3.0\" unique-identifier=\"pub-id\" xmlns=\"http://www.idpf.org/2007/opf\">"
+				+ metadata + manifest + "<spine><itemref idref=\"c2\"/></spine>",
+			"<package version=\"3.0\" unique-identifier=\"pub-id\" xmlns=\"http://www.idpf.org/2007/opf\">"
+				+ metadata + manifest + "<spine><itemref linear=\"no\"/></spine>",
+			// the document not well-formed is reported in preference to the broken item.
+			"<package version=\"3.0\" unique-identifier=\"pub-id\" xmlns=\"http://www.idpf.org/2007/opf\">"
+				+ metadata + "<manifest><item id=\"c1\" media-type=\"application/xhtml+xml\"/></manifest><spine>",
+		};
+		for (String content: contents) {
+			byte[] epub = createEpub(content + "</package>");
+			Throwable expected = catchThrowable(()->createDomFactory().createBufferReader(ByteBuffer.wrap(epub)).read());
+			Throwable actual = catchThrowable(()->factory.createBufferReader(ByteBuffer.wrap(epub)).read());
+			assertThat(expected).isInstanceOf(EpubParsingException.class);
+			assertThat(actual).isInstanceOf(EpubParsingException.class).hasMessage(expected.getMessage());
+		}
+	}
+	
+	@Test
+	public void read_shouldReadSamePublicationWithLazyManifest() {
+		for (String name: new String[] {"valid-single-rendition.epub", "valid-multiple-renditions.epub", "valid-sharing-resources.epub"}) {
+			Path path = pathTo(name);
+			try (PublicationReader eager = factory.createReader(path);
+				 PublicationReader lazy = createLazyFactory().createReader(path)) {
+				assertThat(describe(lazy.read())).isEqualTo(describe(eager.read()));
+			}
+		}
+	}
+	
+	@Test
+	public void read_shouldShareResourcesBetweenRenditionsWithLazyManifest() {
+		Path path = pathTo("valid-sharing-resources.epub");
+		Publication publication = createLazyFactory().createReader(path).read();
+		Iterator<Rendition> it = publication.iterator();
+		Rendition first = it.next();
+		Rendition second = it.next();
+		int shared = 0;
+		for (Manifest.Item item: first.getManifest()) {
+			PublicationResource resource = item.getResource();
+			assertThat(publication.getResource(resource.getLocation().toString())).isSameAs(resource);
+			for (Manifest.Item other: second.getManifest()) {
+				if (other.getResource().getLocation().equals(resource.getLocation())) {
+					assertThat(other.getResource()).isSameAs(resource);
+					shared++;
+				}
+			}
+		}
+		assertThat(shared).isGreaterThan(0);
+		assertThat(publication.getAllResources()).hasSize(5);
+	}
+	
+	@Test
+	public void read_shouldBuildResourceOnFirstAccessWithLazyManifest() throws IOException {
+		byte[] epub = createEpub("<package version=\"3.0\" unique-identifier=\"pub-id\" xmlns=\"http://www.idpf.org/2007/opf\">"
+				+ "<metadata xmlns:dc=\"http://purl.org/dc/elements/1.1/\">"
+				+ "<dc:identifier id=\"pub-id\">urn:isbn:9780000000001</dc:identifier></metadata>"
+				+ "<manifest><item id=\"c1\" href=\"chapter1.xhtml\" media-type=\"invalid\"/></manifest>"
+				+ "<spine><itemref idref=\"c1\"/></spine></package>");
+		Throwable thrown = catchThrowable(()->factory.createBufferReader(ByteBuffer.wrap(epub)).read());
+		assertThat(thrown).isInstanceOf(EpubParsingException.class);
+		
+		Publication publication = createLazyFactory().createBufferReader(ByteBuffer.wrap(epub)).read();
+		Manifest manifest = publication.getDefaultRendition().getManifest();
+		assertThat(manifest.getNumberOfItems()).isEqualTo(1);
+		assertThat(manifest.contains("chapter1.xhtml")).isTrue();
+		Manifest.Item item = manifest.get("chapter1.xhtml");
+		assertThat(item.getLocation()).isEqualTo(URI.create("chapter1.xhtml"));
+		assertThat(publication.getDefaultRendition().getSpine().get(0).getItem()).isSameAs(item);
+		thrown = catchThrowable(()->item.getResource());
+		assertThat(thrown).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("invalid");
+	}
+	
+	@Test
+	public void read_shouldThrowExceptionIfPackageResourceIsMissingWithLazyManifest() {
+		Path path = pathTo("package-resource-missing.epub");
+		Throwable expected = catchThrowable(()->factory.createReader(path).read());
+		Throwable actual = catchThrowable(()->createLazyFactory().createReader(path).read());
+		assertThat(actual).isInstanceOf(EpubParsingException.class).hasMessage(expected.getMessage());
+	}
+	
+	@Test
+	public void read_shouldParseEvictedDocumentAgainWithDocumentCache() {
+		Path path = pathTo("valid-single-rendition.epub");
+		try (PublicationReader reader = createCachingFactory(1).createReader(path)) {
+			Publication publication = reader.read();
+			XhtmlDocument chapter1 = (XhtmlDocument)publication.getResource("EPUB/chapter1.xhtml");
+			XhtmlDocument chapter2 = (XhtmlDocument)publication.getResource("EPUB/chapter2.xhtml");
+			Document first = chapter1.getDocument();
+			assertThat(chapter1.getDocument()).isSameAs(first);
+			assertThat(chapter2.getDocument()).isNotNull();
+			Document second = chapter1.getDocument();
+			assertThat(second).isNotSameAs(first);
+			assertThat(second.getDocumentElement().getLocalName()).isEqualTo("html");
+			assertThat(chapter1.getTitle()).isNotNull();
+		}
+	}
+	
+	@Test
+	public void read_shouldRetainAssignedDocumentWithDocumentCache() throws IOException {
+		Path path = pathTo("valid-single-rendition.epub");
+		try (PublicationReader reader = createCachingFactory(1).createReader(path)) {
+			Publication publication = reader.read();
+			XmlDocument chapter1 = (XmlDocument)publication.getResource("EPUB/chapter1.xhtml");
+			XmlDocument chapter2 = (XmlDocument)publication.getResource("EPUB/chapter2.xhtml");
+			XmlDocument nav = (XmlDocument)publication.getResource("EPUB/nav.xhtml");
+			Document document = chapter1.getDocument();
+			document.getDocumentElement().setAttribute("class", "modified");
+			chapter1.setDocument(document);
+			chapter2.getDocument();
+			nav.getDocument();
+			assertThat(chapter1.getDocument()).isSameAs(document);
+			assertThat(new String(chapter1.getContent(), StandardCharsets.UTF_8)).contains("class=\"modified\"");
+		}
+	}
+	
+	@Test
+	public void createReaderFactory_shouldThrowExceptionIfDocumentCacheSizeIsInvalid() {
+		Throwable thrown = catchThrowable(()->createCachingFactory(0));
+		assertThat(thrown).isInstanceOf(IllegalArgumentException.class);
+	}
+	
+	/* readMetadata() */
+	
+	@Test
+	public void readMetadata_shouldReadMetadataOfAllRenditions() {
+		Path path = pathTo("valid-multiple-renditions.epub");
+		for (PublicationReaderFactory factory: new PublicationReaderFactory[] {this.factory, createDomFactory()}) {
+			Publication publication = factory.createReader(path).read();
+			Map<URI, Metadata> metadata = factory.createReader(path).readMetadata();
+			
+			assertThat(metadata).hasSize(2);
+			Iterator<URI> it = metadata.keySet().iterator();
+			for (Rendition rendition: publication) {
+				URI location = it.next();
+				assertThat(location).isEqualTo(rendition.getLocation());
+				assertThat(describe(metadata.get(location))).isEqualTo(describe(rendition.getMetadata()));
+			}
+		}
+	}
+	
+	@Test
+	public void readMetadata_shouldNotProcessManifest() {
+		Path path = pathTo("package-resource-missing.epub");
+		for (PublicationReaderFactory factory: new PublicationReaderFactory[] {this.factory, createDomFactory()}) {
+			Map<URI, Metadata> metadata = factory.createReader(path).readMetadata();
+			
+			assertThat(metadata).hasSize(1);
+			assertThat(metadata.get(URI.create("EPUB/package.opf")).size()).isGreaterThan(0);
+		}
+	}
+	
+	@Test
+	public void readMetadata_shouldThrowExceptionIfMetadataIsMissing() throws IOException {
+		byte[] epub = createEpub("<package version=\"3.0\" unique-identifier=\"pub-id\" xmlns=\"http://www.idpf.org/2007/opf\">"
+				+ "<manifest><item id=\"c1\" href=\"chapter1.xhtml\" media-type=\"application/xhtml+xml\"/></manifest>"
+				+ "<spine><itemref idref=\"c1\"/></spine></package>");
+		for (PublicationReaderFactory factory: new PublicationReaderFactory[] {this.factory, createDomFactory()}) {
+			Throwable thrown = catchThrowable(()->{
+				factory.createBufferReader(ByteBuffer.wrap(epub)).readMetadata();
+			});
+			assertThat(thrown)
+				.isInstanceOf(EpubParsingException.class)
+				.hasMessageContaining("metadata");
+			assertThat((EpubParsingException)thrown).hasLocation("EPUB/package.opf");
+		}
+	}
+	
+	/* getArchiveEntries() */
+	
+	@Test
+	public void getArchiveEntries_shouldLocateAllEntries() throws IOException {
+		// writes the images without compression.
+		Path path = PublicationWriterTest.outputPath("archive-entries.epub");
+		try (PublicationReader reader = factory.createReader(pathTo("valid-single-rendition.epub"));
+			 PublicationWriter writer = Epub.createWriterFactory().createWriter(path)) {
+			writer.write(reader.read());
+		}
+		byte[] archive = Files.readAllBytes(path);
+		try (PublicationReader reader = factory.createReader(path); ZipFile zip = new ZipFile(path.toFile())) {
+			Map<String, ArchiveEntry> entries = reader.getArchiveEntries();
+			assertThat(entries.keySet()).containsExactlyElementsOf(
+					zip.stream().filter(e->!e.isDirectory()).map(ZipEntry::getName)::iterator);
+			assertThat(entries.get("EPUB/cover.png").getMethod()).isEqualTo(Compression.Method.STORED);
+			assertThat(entries.get("EPUB/chapter1.xhtml").getMethod()).isEqualTo(Compression.Method.DEFLATED);
+			for (ArchiveEntry entry: entries.values()) {
+				byte[] content = readEntry(path, entry.getName());
+				byte[] data = Arrays.copyOfRange(archive, 
+						(int)entry.getDataOffset(), (int)(entry.getDataOffset() + entry.getCompressedSize()));
+				if (entry.getMethod() == Compression.Method.DEFLATED) {
+					data = readAll(new InflaterInputStream(new ByteArrayInputStream(data), new Inflater(true)));
+				}
+				assertThat(data).isEqualTo(content);
+				assertThat(entry.getSize()).isEqualTo(content.length);
+				CRC32 crc = new CRC32();
+				crc.update(content);
+				assertThat(entry.getCrc()).isEqualTo(crc.getValue());
+			}
+		}
+	}
+	
+	@Test
+	public void getArchiveEntries_shouldReturnEmptyMapForDirectory() {
+		try (PublicationReader reader = factory.createReader(pathTo("valid-single-rendition"))) {
+			assertThat(reader.getArchiveEntries()).isEmpty();
+		}
+	}
+	
+	private static PublicationReaderFactory createDomFactory() {
+		Map<String, Object> config = new HashMap<>();
+		config.put(PublicationReaderFactory.STREAMING_PARSER, Boolean.FALSE);
+		return Epub.createReaderFactory(config);
+	}
+	
+	private static PublicationReaderFactory createLazyFactory() {
+		Map<String, Object> config = new HashMap<>();
+		config.put(PublicationReaderFactory.LAZY_MANIFEST, Boolean.TRUE);
+		return Epub.createReaderFactory(config);
+	}
+	
+	private static PublicationReaderFactory createCachingFactory(int size) {
+		Map<String, Object> config = new HashMap<>();
+		config.put(PublicationReaderFactory.DOCUMENT_CACHE, Boolean.TRUE);
+		config.put(PublicationReaderFactory.DOCUMENT_CACHE_SIZE, size);
+		return Epub.createReaderFactory(config);
+	}
+	
+	/**
+	 * Describes the renditions of the publication as a list of strings to be compared.
+	 */
+	private static List<String> describe(Publication publication) {
+		List<String> lines = new ArrayList<>();
+		for (Rendition rendition: publication) {
+			lines.add(rendition.getLocation().toString());
+			lines.addAll(describe(rendition.getMetadata()));
+			List<String> items = new ArrayList<>();
+			for (Manifest.Item item: rendition.getManifest()) {
+				items.add(item.getLocation() + " " + item.isCoverImage() + " " + item.isNavigation() + " " + item.isScripted());
+			}
+			// The order of the items is not specified.
+			items.sort(null);
+			lines.addAll(items);
+			for (Spine.Page page: rendition.getSpine()) {
+				lines.add(page.getItem().getLocation() + " " + page.isLinear());
+			}
+		}
+		return lines;
+	}
+	
+	/**
+	 * Describes the properties in the metadata as a list of strings to be compared.
+	 */
+	private static List<String> describe(Metadata metadata) {
+		List<String> lines = new ArrayList<>();
+		for (Property<?> property: metadata.find().all()) {
+			lines.add(property.getTerm() + "=" + property.getValue());
+		}
+		return lines;
+	}
+	
+	/**
+	 * Creates an EPUB file containing the specified package document.
+	 */
+	private static byte[] createEpub(String packageDocument) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ZipOutputStream zip = new ZipOutputStream(out)) {
+			byte[] mimetype = "application/epub+zip".getBytes(StandardCharsets.US_ASCII);
+			ZipEntry entry = new ZipEntry("mimetype");
+			entry.setMethod(ZipEntry.STORED);
+			entry.setSize(mimetype.length);
+			CRC32 crc = new CRC32();
+			crc.update(mimetype);
+			entry.setCrc(crc.getValue());
+			zip.putNextEntry(entry);
+			zip.write(mimetype);
+			zip.putNextEntry(new ZipEntry("META-INF/container.xml"));
+			zip.write(("<?xml version=\"1.0\"?>"
+					+ "<container version=\"1.0\" xmlns=\"urn:oasis:names:tc:opendocument:xmlns:container\">"
+					+ "<rootfiles><rootfile full-path=\"EPUB/package.opf\" media-type=\"application/oebps-package+xml\"/></rootfiles>"
+					+ "</container>").getBytes(StandardCharsets.UTF_8));
+			zip.putNextEntry(new ZipEntry("EPUB/package.opf"));
+			zip.write(packageDocument.getBytes(StandardCharsets.UTF_8));
+			zip.putNextEntry(new ZipEntry("EPUB/chapter1.xhtml"));
+			zip.write("<html xmlns=\"http://www.w3.org/1999/xhtml\"/>".getBytes(StandardCharsets.UTF_8));
+		}
+		return out.toByteArray();
+	}
+	
+	/**
+	 * Copies the ZIP file appending an entry stored without compression.
+	 */
+	private static void appendEntry(Path source, Path target, String entryName, byte[] content) throws IOException {
+		try (ZipFile input = new ZipFile(source.toFile());
+			 ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(target))) {
+			Iterator<? extends ZipEntry> it = input.stream().iterator();
+			while (it.hasNext()) {
+				ZipEntry entry = new ZipEntry(it.next());
+				if (entry.getName().equals(entryName)) {
+					// replaced by the entry appended.
+					continue;
+				}
+				entry.setCompressedSize(-1);
+				output.putNextEntry(entry);
+				try (InputStream in = input.getInputStream(entry)) {
+					byte[] buffer = new byte[4096];
+					int len = 0;
+					while ((len = in.read(buffer)) != -1) {
+						output.write(buffer, 0, len);
+					}
+				}
+				output.closeEntry();
+			}
+			ZipEntry entry = new ZipEntry(entryName);
+			entry.setMethod(ZipEntry.STORED);
+			entry.setSize(content.length);
+			CRC32 crc = new CRC32();
+			crc.update(content);
+			entry.setCrc(crc.getValue());
+			output.putNextEntry(entry);
+			output.write(content);
+			output.closeEntry();
+		}
+	}
+	
+	private static byte[] readEntry(Path path, String entryName) throws IOException {
+		try (ZipFile zip = new ZipFile(path.toFile())) {
+			ZipEntry entry = zip.getEntry(entryName);
+			try (InputStream in = zip.getInputStream(entry)) {
+				return readAll(in);
+			}
+		}
+	}
+	
+	private static byte[] readAll(InputStream in) throws IOException {
+		try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+			byte[] buffer = new byte[4096];
+			int len = 0;
+			while ((len = in.read(buffer)) != -1) {
+				out.write(buffer, 0, len);
+			}
+			return out.toByteArray();
+		}
+	}
+	
+	/**
+	 * Read-only channel serving the ranges of a file held in memory,
+	 * which stands in for a remote storage and counts the bytes read.
+	 */
+	private static class RangeServingChannel implements SeekableByteChannel {
+		
+		private final byte[] content;
+		private long position;
+		private long bytesRead;
+		private boolean open = true;
+		
+		RangeServingChannel(byte[] content) {
+			this.content = content;
+		}
+		
+		long getBytesRead() {
+			return bytesRead;
+		}
+		
+		@Override
+		public boolean isOpen() {
+			return open;
+		}
+
+		@Override
+		public void close() {
+			open = false;
+		}
+
+		@Override
+		public int read(ByteBuffer dst) throws IOException {
+			if (!open) {
+				throw new ClosedChannelException();
+			}
+			if (position >= content.length) {
+				return -1;
+			}
+			int length = (int)Math.min(dst.remaining(), content.length - position);
+			dst.put(content, (int)position, length);
+			position += length;
+			bytesRead += length;
+			return length;
+		}
+
+		@Override
+		public int write(ByteBuffer src) {
+			throw new NonWritableChannelException();
+		}
+
+		@Override
+		public long position() {
+			return position;
+		}
+
+		@Override
+		public SeekableByteChannel position(long newPosition) {
+			this.position = newPosition;
+			return this;
+		}
+
+		@Override
+		public long size() {
+			return content.length;
+		}
+
+		@Override
+		public SeekableByteChannel truncate(long size) {
+			throw new NonWritableChannelException();
+		}
+	}
 }
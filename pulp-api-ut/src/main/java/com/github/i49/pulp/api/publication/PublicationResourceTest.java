@@ -18,9 +18,24 @@ package com.github.i49.pulp.api.publication;
 
 import static org.assertj.core.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.junit.Test;
+import org.w3c.dom.Document;
 
 import com.github.i49.pulp.api.publication.CoreMediaType;
 import com.github.i49.pulp.api.publication.Epub;
@@ -144,4 +159,305 @@ public class PublicationResourceTest {
 				.build();
 		assertThat(resource.isForeign()).isFalse();
 	}
+	
+	@Test
+	public void getContent_shouldNotTrustDeclaredSize() throws IOException {
+		byte[] content = new byte[123];
+		ContentSource source = new ContentSource() {
+			@Override
+			public InputStream openSource(URI location) {
+				return new ByteArrayInputStream(content);
+			}
+			@Override
+			public long size(URI location) {
+				// The size declared by a corrupt archive.
+				return Integer.MAX_VALUE - 8;
+			}
+		};
+		PublicationResource resource = newBuilder("image.png").source(source).build();
+		assertThat(resource.getContent()).isEqualTo(content);
+	}
+	
+	@Test
+	public void getContent_shouldReadContentAfterAnotherThreadWasInterrupted() throws Exception {
+		try (PublicationReader reader = Epub.createReader(EpubPaths.get("valid-single-rendition.epub"))) {
+			Publication publication = reader.read();
+			PublicationResource interrupted = publication.getResource("EPUB/chapter1.xhtml");
+			Throwable[] thrown = new Throwable[1];
+			Thread thread = new Thread(()->{
+				Thread.currentThread().interrupt();
+				thrown[0] = catchThrowable(interrupted::getContent);
+			});
+			thread.start();
+			thread.join();
+			assertThat(thrown[0]).isNotNull();
+			
+			PublicationResource resource = publication.getResource("EPUB/cover.png");
+			Path expected = PublicationWriterTest.sourcePath("valid-single-rendition/EPUB/cover.png");
+			assertThat(resource.getContent()).isEqualTo(Files.readAllBytes(expected));
+		}
+	}
+	
+	/* getContentSize() */
+	
+	@Test
+	public void getContentSize_shouldReturnSizeOfBytes() throws IOException {
+		PublicationResource resource = newBuilder("image.png").source(new byte[123]).build();
+		assertThat(resource.getContentSize()).isEqualTo(123);
+	}
+	
+	@Test
+	public void getContentSize_shouldReturnSizeOfFile() throws IOException {
+		Path path = PublicationWriterTest.sourcePath("valid-single-rendition/EPUB/cover.png");
+		PublicationResource resource = newBuilder("cover.png").source(path).build();
+		assertThat(resource.getContentSize()).isEqualTo(Files.size(path));
+	}
+	
+	@Test
+	public void getContentSize_shouldReturnMinusOneIfUnknown() throws IOException {
+		PublicationResource resource = newBuilder("image.png").source(location->new ByteArrayInputStream(new byte[123])).build();
+		assertThat(resource.getContentSize()).isEqualTo(-1);
+		assertThat(resource.getContent()).hasSize(123);
+	}
+	
+	@Test
+	public void getContentSize_shouldReturnSizeOfEntry() throws IOException {
+		Path path = EpubPaths.get("valid-single-rendition.epub");
+		try (PublicationReader reader = Epub.createReader(path)) {
+			PublicationResource resource = reader.read().getResource("EPUB/chapter1.xhtml");
+			assertThat(resource.getContentSize()).isEqualTo(resource.getContent().length);
+		}
+	}
+	
+	/* getContentAsBuffer() */
+	
+	@Test
+	public void getContentAsBuffer_shouldReturnContentOfLargeFile() throws IOException {
+		byte[] content = new byte[1024 * 1024];
+		new Random(42).nextBytes(content);
+		Path path = PublicationWriterTest.outputPath("large-content.bin");
+		Files.write(path, content);
+		PublicationResource resource = newBuilder("large.bin").ofType("application/octet-stream").source(path).build();
+		assertThat(toArray(resource.getContentAsBuffer())).isEqualTo(content);
+	}
+	
+	@Test
+	public void getContentAsBuffer_shouldReturnContentOfEntries() throws IOException {
+		Path path = EpubPaths.get("valid-single-rendition.epub");
+		try (PublicationReader reader = Epub.createReader(path)) {
+			Publication publication = reader.read();
+			for (String location: new String[] {"EPUB/chapter1.xhtml", "EPUB/cover.png", "EPUB/images/figure1.jpg"}) {
+				PublicationResource resource = publication.getResource(location);
+				assertThat(toArray(resource.getContentAsBuffer())).isEqualTo(resource.getContent());
+			}
+		}
+	}
+	
+	@Test
+	public void getContentAsBuffer_shouldReturnModifiedDocument() throws IOException {
+		Path path = EpubPaths.get("valid-single-rendition.epub");
+		try (PublicationReader reader = Epub.createReader(path)) {
+			XmlDocument resource = (XmlDocument)reader.read().getResource("EPUB/chapter1.xhtml");
+			resource.getDocument().getDocumentElement().setAttribute("class", "modified");
+			assertThat(resource.getContentSize()).isEqualTo(-1);
+			assertThat(new String(toArray(resource.getContentAsBuffer()), "UTF-8")).contains("class=\"modified\"");
+		}
+	}
+	
+	/* openContentChannel() */
+	
+	@Test
+	public void openContentChannel_shouldReadContentOfEntry() throws IOException {
+		Path path = EpubPaths.get("valid-single-rendition.epub");
+		try (PublicationReader reader = Epub.createReader(path)) {
+			PublicationResource resource = reader.read().getResource("EPUB/cover.png");
+			try (ReadableByteChannel channel = resource.openContentChannel()) {
+				assertThat(readAll(Channels.newInputStream(channel))).isEqualTo(resource.getContent());
+			}
+		}
+	}
+	
+	/* transferContentTo() */
+	
+	@Test
+	public void transferContentTo_shouldWriteContentOfEntries() throws IOException {
+		Path path = EpubPaths.get("valid-single-rendition.epub");
+		try (PublicationReader reader = Epub.createReader(path)) {
+			Publication publication = reader.read();
+			for (String location: new String[] {"EPUB/chapter1.xhtml", "EPUB/cover.png", "EPUB/images/figure1.jpg"}) {
+				PublicationResource resource = publication.getResource(location);
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				long written = resource.transferContentTo(Channels.newChannel(out));
+				assertThat(out.toByteArray()).isEqualTo(resource.getContent());
+				assertThat(written).isEqualTo(out.size());
+			}
+		}
+	}
+	
+	@Test
+	public void transferContentTo_shouldWriteContentOfStoredEntry() throws IOException {
+		Path path = PublicationWriterTest.outputPath("stored-images.epub");
+		try (PublicationReader reader = Epub.createReader(EpubPaths.get("valid-single-rendition.epub"));
+			 PublicationWriter writer = Epub.createWriterFactory().createWriter(path)) {
+			writer.write(reader.read());
+		}
+		try (ZipFile zip = new ZipFile(path.toFile())) {
+			assertThat(zip.getEntry("EPUB/cover.png").getMethod()).isEqualTo(ZipEntry.STORED);
+		}
+		try (PublicationReader reader = Epub.createReader(path)) {
+			PublicationResource resource = reader.read().getResource("EPUB/cover.png");
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			assertThat(resource.transferContentTo(Channels.newChannel(out))).isEqualTo(resource.getContentSize());
+			assertThat(out.toByteArray()).isEqualTo(resource.getContent());
+		}
+	}
+	
+	@Test
+	public void transferContentTo_shouldWriteContentOfFile() throws IOException {
+		Path path = PublicationWriterTest.sourcePath("valid-single-rendition/EPUB/cover.png");
+		PublicationResource resource = newBuilder("cover.png").source(path).build();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertThat(resource.transferContentTo(Channels.newChannel(out))).isEqualTo(Files.size(path));
+		assertThat(out.toByteArray()).isEqualTo(Files.readAllBytes(path));
+	}
+	
+	/* writeContentTo() */
+	
+	@Test
+	public void writeContentTo_shouldWriteContentOfEntries() throws IOException {
+		Path path = EpubPaths.get("valid-single-rendition.epub");
+		try (PublicationReader reader = Epub.createReader(path)) {
+			Publication publication = reader.read();
+			for (String location: new String[] {"EPUB/chapter1.xhtml", "EPUB/cover.png"}) {
+				PublicationResource resource = publication.getResource(location);
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				resource.writeContentTo(out);
+				assertThat(out.toByteArray()).isEqualTo(resource.getContent());
+			}
+		}
+	}
+	
+	@Test
+	public void writeContentTo_shouldWriteDocumentModified() throws IOException {
+		Path path = EpubPaths.get("valid-single-rendition.epub");
+		try (PublicationReader reader = Epub.createReader(path)) {
+			XmlDocument resource = (XmlDocument)reader.read().getResource("EPUB/chapter1.xhtml");
+			resource.getDocument().getDocumentElement().setAttribute("class", "modified");
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			resource.writeContentTo(out);
+			assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8)).contains("class=\"modified\"");
+			assertThat(out.toByteArray()).isEqualTo(resource.getContent());
+		}
+	}
+	
+	@Test
+	public void writeContentTo_shouldThrowExceptionIfStreamIsNull() {
+		PublicationResource resource = newBuilder("image.png").source(new byte[123]).build();
+		Throwable thrown = catchThrowable(()->resource.writeContentTo(null));
+		assertThat(thrown).isInstanceOf(IllegalArgumentException.class);
+	}
+	
+	/* getArchiveEntry() */
+	
+	@Test
+	public void getArchiveEntry_shouldReturnEntryOfStoredResource() throws IOException {
+		Path path = PublicationWriterTest.outputPath("stored-entry.epub");
+		try (PublicationReader reader = Epub.createReader(EpubPaths.get("valid-single-rendition.epub"));
+			 PublicationWriter writer = Epub.createWriterFactory().createWriter(path)) {
+			writer.write(reader.read());
+		}
+		byte[] archive = Files.readAllBytes(path);
+		try (PublicationReader reader = Epub.createReader(path)) {
+			PublicationResource resource = reader.read().getResource("EPUB/cover.png");
+			ArchiveEntry entry = resource.getArchiveEntry().get();
+			assertThat(entry.getName()).isEqualTo("EPUB/cover.png");
+			assertThat(entry.getMethod()).isEqualTo(Compression.Method.STORED);
+			assertThat(entry.getCompressedSize()).isEqualTo(entry.getSize());
+			int offset = (int)entry.getDataOffset();
+			assertThat(Arrays.copyOfRange(archive, offset, offset + (int)entry.getSize())).isEqualTo(resource.getContent());
+		}
+	}
+	
+	@Test
+	public void getArchiveEntry_shouldReturnEmptyIfDocumentIsLoaded() throws IOException {
+		Path path = EpubPaths.get("valid-single-rendition.epub");
+		try (PublicationReader reader = Epub.createReader(path)) {
+			XmlDocument document = (XmlDocument)reader.read().getResource("EPUB/chapter1.xhtml");
+			assertThat(document.getArchiveEntry()).isPresent();
+			document.getDocument();
+			assertThat(document.getArchiveEntry()).isEmpty();
+		}
+	}
+	
+	@Test
+	public void getArchiveEntry_shouldReturnEmptyForFile() throws IOException {
+		Path path = PublicationWriterTest.sourcePath("valid-single-rendition/EPUB/cover.png");
+		PublicationResource resource = newBuilder("cover.png").source(path).build();
+		assertThat(resource.getArchiveEntry()).isEmpty();
+	}
+	
+	/* getDocument() */
+	
+	@Test
+	public void getDocument_shouldThrowExceptionIfDocumentIsNotWellFormed() {
+		String content = "<html xmlns=\"http://www.w3.org/1999/xhtml\"><body><p></body></html>";
+		XmlDocument resource = (XmlDocument)newBuilder("chapter1.xhtml").source(content.getBytes(StandardCharsets.UTF_8)).build();
+		Throwable thrown = catchThrowable(()->resource.getDocument());
+		assertThat(thrown).isInstanceOf(EpubException.class).hasMessageContaining("chapter1.xhtml");
+	}
+	
+	@Test
+	public void getDocument_shouldResolveEntitiesOfXhtmlWithoutNetwork() {
+		String content = 
+				"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+				"<!DOCTYPE html PUBLIC \"-//W3C//DTD XHTML 1.1//EN\" \"http://www.w3.org/TR/xhtml11/DTD/xhtml11.dtd\">\n" +
+				"<html xmlns=\"http://www.w3.org/1999/xhtml\"><head><title>Chapter&nbsp;1</title></head>" +
+				"<body><p>&copy;&mdash;&alpha;&euro;&amp;</p></body></html>";
+		XmlDocument resource = (XmlDocument)newBuilder("chapter1.xhtml").source(content.getBytes(StandardCharsets.UTF_8)).build();
+		Document document = resource.getDocument();
+		assertThat(document).isNotNull();
+		assertThat(document.getElementsByTagName("title").item(0).getTextContent()).isEqualTo("Chapter\u00a01");
+		assertThat(document.getElementsByTagName("p").item(0).getTextContent()).isEqualTo("\u00a9\u2014\u03b1\u20ac&");
+	}
+	
+	@Test
+	public void getDocument_shouldDeclareNamespaceOfSvg() {
+		String content = 
+				"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+				"<!DOCTYPE svg PUBLIC \"-//W3C//DTD SVG 1.1//EN\" \"http://www.w3.org/Graphics/SVG/1.1/DTD/svg11.dtd\">\n" +
+				"<svg><image xlink:href=\"cover.png\"/></svg>";
+		XmlDocument resource = (XmlDocument)newBuilder("cover.svg").source(content.getBytes(StandardCharsets.UTF_8)).build();
+		Document document = resource.getDocument();
+		assertThat(document).isNotNull();
+		assertThat(document.getDocumentElement().getNamespaceURI()).isEqualTo("http://www.w3.org/2000/svg");
+	}
+	
+	@Test
+	public void getDocument_shouldIgnoreUnknownDtd() {
+		String content = 
+				"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+				"<!DOCTYPE html SYSTEM \"http://unknown.invalid/unknown.dtd\">\n" +
+				"<html xmlns=\"http://www.w3.org/1999/xhtml\"><head><title>Chapter 1</title></head><body/></html>";
+		XmlDocument resource = (XmlDocument)newBuilder("chapter1.xhtml").source(content.getBytes(StandardCharsets.UTF_8)).build();
+		Document document = resource.getDocument();
+		assertThat(document).isNotNull();
+		assertThat(document.getElementsByTagName("title").item(0).getTextContent()).isEqualTo("Chapter 1");
+	}
+	
+	private static byte[] toArray(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return bytes;
+	}
+	
+	private static byte[] readAll(InputStream in) throws IOException {
+		try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+			byte[] buffer = new byte[4096];
+			int len = 0;
+			while ((len = in.read(buffer)) != -1) {
+				out.write(buffer, 0, len);
+			}
+			return out.toByteArray();
+		}
+	}
 }
@@ -18,11 +18,28 @@ package com.github.i49.pulp.api.publication;
 
 import static org.assertj.core.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.w3c.dom.Document;
 
 import com.github.i49.pulp.api.publication.Epub;
 import com.github.i49.pulp.api.publication.Manifest;
@@ -83,4 +100,388 @@ public class PublicationWriterTest {
 
 		assertThat(publication.getDefaultRendition()).isSameAs(rendition);
 	}
+
+	@Test
+	public void write_shouldWriteMimetypeFirstWithoutCompression() throws IOException {
+		Publication publication = Epub.createPublication();
+		Rendition rendition = publication.addRendition();
+		PublicationResourceBuilderFactory f = Epub.createResourceBuilderFactory(rendition.getLocation());
+		f.setSourcePath(sourcePath("valid-single-rendition/EPUB"));
+		Manifest m = rendition.getManifest();
+		m.add(f.newBuilder("chapter1.xhtml").build());
+		rendition.getSpine().append(m.get("chapter1.xhtml"));
+		
+		Path outputPath = outputPath("mimetype-first.epub");
+		try (PublicationWriter writer = factory.createWriter(outputPath)) {
+			writer.write(publication);
+		}
+		
+		try (ZipFile zip = new ZipFile(outputPath.toFile())) {
+			ZipEntry first = zip.entries().nextElement();
+			assertThat(first.getName()).isEqualTo("mimetype");
+			assertThat(first.getMethod()).isEqualTo(ZipEntry.STORED);
+			assertThat(first.getExtra()).isNull();
+			ZipEntry chapter = zip.getEntry("EPUB/chapter1.xhtml");
+			assertThat(chapter.getMethod()).isEqualTo(ZipEntry.DEFLATED);
+			assertThat(chapter.getSize()).isEqualTo(Files.size(sourcePath("valid-single-rendition/EPUB/chapter1.xhtml")));
+		}
+	}
+
+	@Test
+	public void write_shouldWritePublicationReadFromEpub() throws IOException {
+		Path inputPath = EpubPaths.get("valid-single-rendition.epub");
+		Path outputPath = outputPath("resaved.epub");
+		try (PublicationReader reader = Epub.createReader(inputPath)) {
+			Publication publication = reader.read();
+			try (PublicationWriter writer = factory.createWriter(outputPath)) {
+				writer.write(publication);
+			}
+		}
+		
+		try (ZipFile input = new ZipFile(inputPath.toFile()); ZipFile output = new ZipFile(outputPath.toFile())) {
+			for (String name: new String[] {"EPUB/chapter1.xhtml", "EPUB/cover.png", "EPUB/images/figure1.jpg"}) {
+				ZipEntry expected = input.getEntry(name);
+				ZipEntry actual = output.getEntry(name);
+				assertThat(actual.getCrc()).isEqualTo(expected.getCrc());
+				assertThat(actual.getSize()).isEqualTo(expected.getSize());
+				assertThat(readAll(output.getInputStream(actual))).isEqualTo(readAll(input.getInputStream(expected)));
+			}
+		}
+	}
+	
+	@Test
+	public void write_shouldWriteResourcesSharedByRenditionsOnlyOnce() throws IOException {
+		Path inputPath = EpubPaths.get("valid-sharing-resources.epub");
+		Path outputPath = outputPath("resaved-sharing.epub");
+		try (PublicationReader reader = Epub.createReader(inputPath)) {
+			Publication publication = reader.read();
+			try (PublicationWriter writer = factory.createWriter(outputPath)) {
+				writer.write(publication);
+			}
+		}
+		
+		try (ZipFile input = new ZipFile(inputPath.toFile()); ZipFile output = new ZipFile(outputPath.toFile())) {
+			List<String> names = new ArrayList<>();
+			Enumeration<? extends ZipEntry> entries = output.entries();
+			while (entries.hasMoreElements()) {
+				names.add(entries.nextElement().getName());
+			}
+			assertThat(names).doesNotHaveDuplicates().contains("EPUB/chapter1.xhtml", "EPUB/chapter2.xhtml");
+		}
+	}
+	
+	@Test
+	public void write_shouldWriteDocumentModifiedAfterRead() throws IOException {
+		Path inputPath = EpubPaths.get("valid-single-rendition.epub");
+		Path outputPath = outputPath("resaved-modified.epub");
+		try (PublicationReader reader = Epub.createReader(inputPath)) {
+			Publication publication = reader.read();
+			XmlDocument chapter = (XmlDocument)publication.getResource("EPUB/chapter1.xhtml");
+			Document document = chapter.getDocument();
+			document.getDocumentElement().setAttribute("class", "modified");
+			try (PublicationWriter writer = factory.createWriter(outputPath)) {
+				writer.write(publication);
+			}
+		}
+		
+		try (ZipFile output = new ZipFile(outputPath.toFile())) {
+			String content = new String(readAll(output.getInputStream(output.getEntry("EPUB/chapter1.xhtml"))), "UTF-8");
+			assertThat(content).contains("class=\"modified\"");
+		}
+	}
+	
+	@Test
+	public void write_shouldIndentPackageDocument() throws IOException {
+		Path outputPath = outputPath("indented.epub");
+		try (PublicationReader reader = Epub.createReader(EpubPaths.get("valid-single-rendition.epub"));
+			 PublicationWriter writer = factory.createWriter(outputPath)) {
+			writer.write(reader.read());
+		}
+		try (ZipFile output = new ZipFile(outputPath.toFile())) {
+			String content = new String(readAll(output.getInputStream(output.getEntry("EPUB/package.opf"))), "UTF-8");
+			assertThat(content).startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<package ");
+			assertThat(content).contains("\n    <manifest>\n        <item href=\"chapter1.xhtml\" id=\"item1\" media-type=\"application/xhtml+xml\"/>\n");
+			assertThat(content).endsWith("\n    </spine>\n</package>\n");
+		}
+	}
+	
+	@Test
+	public void write_shouldWriteDocumentsWithoutIndentation() throws IOException {
+		Map<String, Object> config = new HashMap<>();
+		config.put(PublicationWriterFactory.INDENT, Boolean.FALSE);
+		PublicationWriterFactory factory = Epub.createWriterFactory(config);
+		Path outputPath = outputPath("not-indented.epub");
+		try (PublicationReader reader = Epub.createReader(EpubPaths.get("valid-single-rendition.epub"));
+			 PublicationWriter writer = factory.createWriter(outputPath)) {
+			writer.write(reader.read());
+		}
+		try (ZipFile output = new ZipFile(outputPath.toFile())) {
+			for (String name: new String[] {"META-INF/container.xml", "EPUB/package.opf"}) {
+				String content = new String(readAll(output.getInputStream(output.getEntry(name))), "UTF-8");
+				// Only the XML declaration is followed by a line break.
+				assertThat(content.indexOf('\n')).isEqualTo(content.lastIndexOf('\n'));
+			}
+		}
+		try (PublicationReader reader = Epub.createReader(outputPath)) {
+			Rendition rendition = reader.read().getDefaultRendition();
+			assertThat(rendition.getManifest().getNumberOfItems()).isEqualTo(6);
+			assertThat(rendition.getManifest().get("cover.png").isCoverImage()).isTrue();
+			assertThat(rendition.getSpine().getNumberOfPages()).isEqualTo(2);
+		}
+	}
+	
+	@Test
+	public void write_shouldWriteResourcesInParallel() throws IOException {
+		Map<String, Object> config = new HashMap<>();
+		config.put(PublicationWriterFactory.PARALLELISM, 4);
+		// forces the compressed data to be moved to temporary files.
+		config.put(PublicationWriterFactory.PARALLEL_MEMORY_LIMIT, 64 * 1024);
+		PublicationWriterFactory parallelFactory = Epub.createWriterFactory(config);
+		
+		Path sourcePath = sourcePath("valid-single-rendition/EPUB"); 
+		Publication publication = Epub.createPublication();
+		Rendition rendition = publication.addRendition();
+		PublicationResourceBuilderFactory f = Epub.createResourceBuilderFactory(rendition.getLocation());
+		f.setSourcePath(sourcePath);
+		Manifest m = rendition.getManifest();
+		m.add(f.newBuilder("chapter1.xhtml").build());
+		m.add(f.newBuilder("chapter2.xhtml").build());
+		m.add(f.newBuilder("nav.xhtml").build()).asNavigation();
+		m.add(f.newBuilder("images/figure1.jpg").build());
+		m.add(f.newBuilder("css/stylesheet.css").build());
+		m.add(f.newBuilder("cover.png").build()).asCoverImage();
+		
+		Path outputPath = outputPath("parallel.epub");
+		try (PublicationWriter writer = parallelFactory.createWriter(outputPath)) {
+			writer.write(publication);
+		}
+		
+		// The resources are written in the order of the manifest.
+		List<String> expectedNames = new ArrayList<>();
+		expectedNames.add("mimetype");
+		expectedNames.add("META-INF/container.xml");
+		expectedNames.add("EPUB/package.opf");
+		for (Manifest.Item item: m) {
+			expectedNames.add(item.getResource().getLocation().getPath());
+		}
+		try (ZipFile zip = new ZipFile(outputPath.toFile())) {
+			List<String> names = new ArrayList<>();
+			Enumeration<? extends ZipEntry> entries = zip.entries();
+			while (entries.hasMoreElements()) {
+				names.add(entries.nextElement().getName());
+			}
+			assertThat(names).isEqualTo(expectedNames);
+			for (Manifest.Item item: m) {
+				ZipEntry entry = zip.getEntry(item.getResource().getLocation().getPath());
+				Path expectedPath = sourcePath.resolve(item.getLocation().getPath());
+				assertThat(readAll(zip.getInputStream(entry))).isEqualTo(Files.readAllBytes(expectedPath));
+			}
+			assertThat(zip.getEntry("EPUB/images/figure1.jpg").getMethod()).isEqualTo(ZipEntry.STORED);
+		}
+	}
+	
+	@Test
+	public void write_shouldNotFinishArchiveIfParallelWriteFailed() {
+		Map<String, Object> config = new HashMap<>();
+		config.put(PublicationWriterFactory.PARALLELISM, 2);
+		PublicationWriterFactory parallelFactory = Epub.createWriterFactory(config);
+		
+		Publication publication = Epub.createPublication();
+		Rendition rendition = publication.addRendition();
+		PublicationResourceBuilderFactory f = Epub.createResourceBuilderFactory(rendition.getLocation());
+		f.setSourcePath(sourcePath("valid-single-rendition/EPUB"));
+		Manifest m = rendition.getManifest();
+		m.add(f.newBuilder("chapter1.xhtml").build());
+		m.add(f.newBuilder("css/broken.css").source(location->{
+			throw new IOException("broken");
+		}).build());
+		m.add(f.newBuilder("chapter2.xhtml").build());
+		
+		Path outputPath = outputPath("parallel-failed.epub");
+		Throwable thrown = catchThrowable(()->{
+			try (PublicationWriter writer = parallelFactory.createWriter(outputPath)) {
+				writer.write(publication);
+			}
+		});
+		assertThat(thrown).isInstanceOf(EpubException.class);
+		// The partial archive has no Central Directory.
+		thrown = catchThrowable(()->new ZipFile(outputPath.toFile()).close());
+		assertThat(thrown).isInstanceOf(IOException.class);
+	}
+	
+	@Test
+	public void write_shouldStoreResourcesAlreadyCompressed() throws IOException {
+		Path outputPath = outputPath("stored.epub");
+		try (PublicationWriter writer = factory.createWriter(outputPath)) {
+			writer.write(buildPublication());
+		}
+		try (ZipFile zip = new ZipFile(outputPath.toFile())) {
+			assertThat(zip.getEntry("EPUB/cover.png").getMethod()).isEqualTo(ZipEntry.STORED);
+			assertThat(zip.getEntry("EPUB/images/figure1.jpg").getMethod()).isEqualTo(ZipEntry.STORED);
+			assertThat(zip.getEntry("EPUB/chapter1.xhtml").getMethod()).isEqualTo(ZipEntry.DEFLATED);
+			assertThat(zip.getEntry("EPUB/css/stylesheet.css").getMethod()).isEqualTo(ZipEntry.DEFLATED);
+			assertThat(readAll(zip.getInputStream(zip.getEntry("EPUB/cover.png"))))
+				.isEqualTo(Files.readAllBytes(sourcePath("valid-single-rendition/EPUB/cover.png")));
+		}
+	}
+
+	@Test
+	public void write_shouldStoreResourcesAlreadyCompressedToStream() throws IOException {
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try (PublicationWriter writer = factory.createWriter(stream)) {
+			writer.write(buildPublication());
+		}
+		Map<String, Integer> methods = new HashMap<>();
+		// ZipInputStream cannot read stored entries followed by data descriptors.
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(stream.toByteArray()))) {
+			ZipEntry entry = null;
+			while ((entry = zip.getNextEntry()) != null) {
+				methods.put(entry.getName(), entry.getMethod());
+				if (entry.getName().equals("EPUB/images/figure1.jpg")) {
+					assertThat(readAll(zip, false))
+						.isEqualTo(Files.readAllBytes(sourcePath("valid-single-rendition/EPUB/images/figure1.jpg")));
+				}
+			}
+		}
+		assertThat(methods.get("EPUB/images/figure1.jpg")).isEqualTo(ZipEntry.STORED);
+		assertThat(methods.get("EPUB/chapter1.xhtml")).isEqualTo(ZipEntry.DEFLATED);
+	}
+	
+	@Test
+	public void write_shouldApplyCompressionPolicySpecified() throws IOException {
+		Map<String, Object> config = new HashMap<>();
+		config.put(PublicationWriterFactory.COMPRESSION_POLICY, (CompressionPolicy)resource->Compression.STORED);
+		PublicationWriterFactory storingFactory = Epub.createWriterFactory(config);
+		Path outputPath = outputPath("all-stored.epub");
+		try (PublicationWriter writer = storingFactory.createWriter(outputPath)) {
+			writer.write(buildPublication());
+		}
+		try (ZipFile zip = new ZipFile(outputPath.toFile())) {
+			assertThat(zip.getEntry("EPUB/chapter1.xhtml").getMethod()).isEqualTo(ZipEntry.STORED);
+			assertThat(zip.getEntry("EPUB/chapter1.xhtml").getSize())
+				.isEqualTo(Files.size(sourcePath("valid-single-rendition/EPUB/chapter1.xhtml")));
+			assertThat(zip.getEntry("EPUB/package.opf").getMethod()).isEqualTo(ZipEntry.DEFLATED);
+		}
+	}
+
+	@Test
+	public void write_shouldStoreIncompressibleResourcesIfProbed() throws IOException {
+		Map<String, Object> config = new HashMap<>();
+		config.put(PublicationWriterFactory.COMPRESSION_PROBE, Boolean.TRUE);
+		PublicationWriterFactory probingFactory = Epub.createWriterFactory(config);
+		
+		byte[] random = new byte[100 * 1024];
+		new Random(42).nextBytes(random);
+		byte[] repeated = new byte[100 * 1024];
+		Arrays.fill(repeated, (byte)'a');
+		
+		Publication publication = buildPublication();
+		Rendition rendition = publication.getDefaultRendition();
+		PublicationResourceBuilderFactory f = Epub.createResourceBuilderFactory(rendition.getLocation());
+		rendition.getManifest().add(f.newBuilder("random.bin").ofType("application/octet-stream").source(random).build());
+		rendition.getManifest().add(f.newBuilder("repeated.bin").ofType("application/octet-stream").source(repeated).build());
+		
+		Path outputPath = outputPath("probed.epub");
+		try (PublicationWriter writer = probingFactory.createWriter(outputPath)) {
+			writer.write(publication);
+		}
+		try (ZipFile zip = new ZipFile(outputPath.toFile())) {
+			assertThat(zip.getEntry("EPUB/random.bin").getMethod()).isEqualTo(ZipEntry.STORED);
+			assertThat(zip.getEntry("EPUB/repeated.bin").getMethod()).isEqualTo(ZipEntry.DEFLATED);
+			assertThat(readAll(zip.getInputStream(zip.getEntry("EPUB/random.bin")))).isEqualTo(random);
+			assertThat(readAll(zip.getInputStream(zip.getEntry("EPUB/repeated.bin")))).isEqualTo(repeated);
+		}
+	}
+	
+	@Test
+	public void write_shouldWritePublicationToDirectory() throws IOException {
+		Map<String, Object> config = new HashMap<>();
+		config.put(PublicationWriterFactory.EXPANDED, Boolean.TRUE);
+		config.put(PublicationWriterFactory.PARALLELISM, 4);
+		PublicationWriterFactory expandingFactory = Epub.createWriterFactory(config);
+		
+		Path inputPath = EpubPaths.get("valid-single-rendition.epub");
+		Path outputPath = outputPath("expanded-output");
+		try (PublicationReader reader = Epub.createReader(inputPath)) {
+			Publication publication = reader.read();
+			try (PublicationWriter writer = expandingFactory.createWriter(outputPath)) {
+				writer.write(publication);
+			}
+		}
+		
+		assertThat(outputPath.resolve("mimetype")).hasContent("application/epub+zip");
+		try (ZipFile input = new ZipFile(inputPath.toFile())) {
+			for (String name: new String[] {"EPUB/chapter1.xhtml", "EPUB/cover.png", "EPUB/images/figure1.jpg"}) {
+				byte[] expected = readAll(input.getInputStream(input.getEntry(name)));
+				assertThat(Files.readAllBytes(outputPath.resolve(name))).isEqualTo(expected);
+			}
+		}
+		try (PublicationReader reader = Epub.createReader(outputPath)) {
+			Publication publication = reader.read();
+			assertThat(publication.getNumberOfRenditions()).isEqualTo(1);
+			assertThat(publication.getResource("EPUB/chapter1.xhtml")).isNotNull();
+		}
+	}
+	
+	@Test
+	public void write_shouldLeaveFilesUnchangedInDirectory() throws IOException {
+		Map<String, Object> config = new HashMap<>();
+		config.put(PublicationWriterFactory.EXPANDED, Boolean.TRUE);
+		PublicationWriterFactory expandingFactory = Epub.createWriterFactory(config);
+		
+		Path outputPath = outputPath("expanded-rewritten");
+		try (PublicationWriter writer = expandingFactory.createWriter(outputPath)) {
+			writer.write(buildPublication());
+		}
+		
+		Path unchanged = outputPath.resolve("EPUB/cover.png");
+		FileTime lastModified = FileTime.fromMillis(0);
+		Files.setLastModifiedTime(unchanged, lastModified);
+		Path broken = outputPath.resolve("EPUB/chapter1.xhtml");
+		byte[] expected = Files.readAllBytes(broken);
+		byte[] garbage = new byte[expected.length];
+		Arrays.fill(garbage, (byte)'x');
+		Files.write(broken, garbage);
+		
+		try (PublicationWriter writer = expandingFactory.createWriter(outputPath)) {
+			writer.write(buildPublication());
+		}
+		
+		assertThat(Files.getLastModifiedTime(unchanged)).isEqualTo(lastModified);
+		assertThat(Files.readAllBytes(broken)).isEqualTo(expected);
+	}
+	
+	private static Publication buildPublication() {
+		Publication publication = Epub.createPublication();
+		Rendition rendition = publication.addRendition();
+		PublicationResourceBuilderFactory f = Epub.createResourceBuilderFactory(rendition.getLocation());
+		f.setSourcePath(sourcePath("valid-single-rendition/EPUB"));
+		Manifest m = rendition.getManifest();
+		m.add(f.newBuilder("chapter1.xhtml").build());
+		m.add(f.newBuilder("nav.xhtml").build()).asNavigation();
+		m.add(f.newBuilder("images/figure1.jpg").build());
+		m.add(f.newBuilder("css/stylesheet.css").build());
+		m.add(f.newBuilder("cover.png").build()).asCoverImage();
+		rendition.getSpine().append(m.get("chapter1.xhtml"));
+		return publication;
+	}
+	
+	private static byte[] readAll(InputStream in) throws IOException {
+		return readAll(in, true);
+	}
+	
+	private static byte[] readAll(InputStream in, boolean close) throws IOException {
+		try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+			byte[] buffer = new byte[4096];
+			int len = 0;
+			while ((len = in.read(buffer)) != -1) {
+				out.write(buffer, 0, len);
+			}
+			return out.toByteArray();
+		} finally {
+			if (close) {
+				in.close();
+			}
+		}
+	}
 }
@@ -0,0 +1,77 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.api.publication;
+
+/**
+ * The location and the size of a resource stored in the ZIP archive of the EPUB container.
+ * 
+ * <p>The data of the entry is placed at {@link #getDataOffset()} of the archive
+ * and occupies {@link #getCompressedSize()} bytes.
+ * If the entry is stored without compression, the data is the content of the resource itself, 
+ * which can be served directly as a range of the archive.
+ * Otherwise the data is a raw DEFLATE stream without any header.</p>
+ * 
+ * <p>Instances of this type are immutable.</p>
+ * 
+ * @see PublicationReader#getArchiveEntries()
+ * @see PublicationResource#getArchiveEntry()
+ */
+public interface ArchiveEntry {
+
+	/**
+	 * Returns the name of this entry, which is the location of the resource in the container.
+	 * 
+	 * @return the name of this entry.
+	 */
+	String getName();
+	
+	/**
+	 * Returns the method by which this entry is compressed.
+	 * 
+	 * @return either {@link Compression.Method#STORED} or {@link Compression.Method#DEFLATED}.
+	 */
+	Compression.Method getMethod();
+	
+	/**
+	 * Returns the offset of the data of this entry from the beginning of the archive.
+	 * The offset points to the byte following the local file header of this entry.
+	 * 
+	 * @return the offset of the data in bytes.
+	 */
+	long getDataOffset();
+	
+	/**
+	 * Returns the size of the data of this entry in the archive.
+	 * 
+	 * @return the size of the data in bytes after compression.
+	 */
+	long getCompressedSize();
+	
+	/**
+	 * Returns the size of the content of this entry.
+	 * 
+	 * @return the size of the content in bytes before compression.
+	 */
+	long getSize();
+	
+	/**
+	 * Returns the CRC-32 checksum of the content of this entry.
+	 * 
+	 * @return the CRC-32 checksum of the content before compression.
+	 */
+	long getCrc();
+}
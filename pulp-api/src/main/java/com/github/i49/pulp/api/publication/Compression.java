@@ -0,0 +1,145 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.api.publication;
+
+/**
+ * The way a {@link PublicationResource} is compressed in the EPUB container.
+ * Instances of this class are immutable.
+ * 
+ * @see CompressionPolicy
+ */
+public final class Compression {
+
+	/**
+	 * The method of the compression.
+	 */
+	public static enum Method {
+		/** The resource is stored without compression. */
+		STORED,
+		/** The resource is compressed with DEFLATE method. */
+		DEFLATED,
+		/** 
+		 * The resource is compressed with DEFLATE method 
+		 * only if a sample at the beginning of the resource can be compressed well. 
+		 * Otherwise the resource is stored without compression.
+		 */
+		PROBED
+	}
+	
+	/**
+	 * The level used when no specific level is given.
+	 */
+	public static final int DEFAULT_LEVEL = -1;
+	
+	/**
+	 * Stores the resource without compression.
+	 */
+	public static final Compression STORED = new Compression(Method.STORED, DEFAULT_LEVEL);
+
+	/**
+	 * Compresses the resource with DEFLATE method at the default level.
+	 */
+	public static final Compression DEFLATED = new Compression(Method.DEFLATED, DEFAULT_LEVEL);
+
+	/**
+	 * Compresses the resource with DEFLATE method at the default level 
+	 * if the resource is expected to be compressible.
+	 */
+	public static final Compression PROBED = new Compression(Method.PROBED, DEFAULT_LEVEL);
+	
+	private final Method method;
+	private final int level;
+	
+	private Compression(Method method, int level) {
+		this.method = method;
+		this.level = level;
+	}
+	
+	/**
+	 * Returns the compression with DEFLATE method at the specified level.
+	 * 
+	 * @param level the compression level from 1 (fastest) to 9 (best compression).
+	 * @return the compression.
+	 * @throws IllegalArgumentException if {@code level} is out of range.
+	 */
+	public static Compression deflated(int level) {
+		checkLevel(level);
+		return new Compression(Method.DEFLATED, level);
+	}
+
+	/**
+	 * Returns the compression with DEFLATE method at the specified level,
+	 * which is applied only if the resource is expected to be compressible.
+	 * 
+	 * @param level the compression level from 1 (fastest) to 9 (best compression).
+	 * @return the compression.
+	 * @throws IllegalArgumentException if {@code level} is out of range.
+	 */
+	public static Compression probed(int level) {
+		checkLevel(level);
+		return new Compression(Method.PROBED, level);
+	}
+	
+	/**
+	 * Returns the method of this compression.
+	 * 
+	 * @return the method of this compression, never be {@code null}.
+	 */
+	public Method getMethod() {
+		return method;
+	}
+	
+	/**
+	 * Returns the level of this compression.
+	 * 
+	 * @return the level from 1 to 9, or {@link #DEFAULT_LEVEL}.
+	 */
+	public int getLevel() {
+		return level;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof Compression)) {
+			return false;
+		}
+		Compression other = (Compression)obj;
+		return method == other.method && level == other.level;
+	}
+
+	@Override
+	public int hashCode() {
+		return method.hashCode() * 31 + level;
+	}
+
+	@Override
+	public String toString() {
+		if (level == DEFAULT_LEVEL || method == Method.STORED) {
+			return method.toString();
+		}
+		return method.toString() + "(" + level + ")";
+	}
+	
+	private static void checkLevel(int level) {
+		if (level < 1 || level > 9) {
+			throw new IllegalArgumentException("level must be in the range from 1 to 9.");
+		}
+	}
+}
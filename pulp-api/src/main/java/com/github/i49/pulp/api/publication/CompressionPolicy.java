@@ -0,0 +1,36 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.api.publication;
+
+/**
+ * A policy choosing how each {@link PublicationResource} is compressed 
+ * when the publication is written into the EPUB container.
+ * 
+ * <p>The policy can be specified by {@link PublicationWriterFactory#COMPRESSION_POLICY}.
+ * The policy may be called by multiple threads at the same time.</p>
+ */
+@FunctionalInterface
+public interface CompressionPolicy {
+
+	/**
+	 * Chooses the compression for the resource.
+	 * 
+	 * @param resource the resource to be written, never be {@code null}.
+	 * @return the compression for the resource, cannot be {@code null}.
+	 */
+	Compression select(PublicationResource resource);
+}
@@ -16,12 +16,22 @@
 
 package com.github.i49.pulp.api.publication;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * Content source that can be used to provide initial content for {@link PublicationResource}.
+ * 
+ * <p>Only {@link #openSource(URI)} is required to be implemented.
+ * The other methods have default implementations built on it,
+ * which can be overridden by the sources able to provide the content more efficiently,
+ * for example, without copying the bytes through arrays.</p>
  */
 @FunctionalInterface
 public interface ContentSource {
@@ -35,4 +45,78 @@ public interface ContentSource {
 	 * @see PublicationResource#getLocation()
 	 */
 	InputStream openSource(URI location) throws IOException;
+	
+	/**
+	 * Opens a channel reading this content source for a {@link PublicationResource}.
+	 * The default implementation returns a channel reading the stream opened by {@link #openSource(URI)}.
+	 * 
+	 * @param location the location of the resource using the content.
+	 * @return {@link ReadableByteChannel} that must be closed by the caller of this method.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	default ReadableByteChannel openChannel(URI location) throws IOException {
+		return Channels.newChannel(openSource(location));
+	}
+	
+	/**
+	 * Returns the whole content of this source as a buffer.
+	 * The buffer returned may share its content with this source, 
+	 * such as a region of a memory-mapped file, and may be read-only.
+	 * The content of the buffer must not be modified by the caller.
+	 * The default implementation reads all bytes from the stream opened by {@link #openSource(URI)}.
+	 * 
+	 * @param location the location of the resource using the content.
+	 * @return the buffer containing the content between its position and limit.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	default ByteBuffer asByteBuffer(URI location) throws IOException {
+		long size = size(location);
+		try (InputStream in = openSource(location); 
+			 ByteArrayOutputStream out = new ByteArrayOutputStream(size >= 0 && size < Integer.MAX_VALUE ? (int)size : 8192)) {
+			byte[] buffer = new byte[8192];
+			int len = 0;
+			while ((len = in.read(buffer)) != -1) {
+				out.write(buffer, 0, len);
+			}
+			return ByteBuffer.wrap(out.toByteArray());
+		}
+	}
+	
+	/**
+	 * Returns the size of the content in bytes if it is known without reading the content.
+	 * The default implementation returns -1.
+	 * 
+	 * @param location the location of the resource using the content.
+	 * @return the size of the content in bytes, or -1 if unknown.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	default long size(URI location) throws IOException {
+		return -1;
+	}
+	
+	/**
+	 * Writes the whole content of this source to the channel.
+	 * The sources backed by files may transfer the bytes without copying them into the application,
+	 * for example by {@link java.nio.channels.FileChannel#transferTo(long, long, WritableByteChannel)}.
+	 * The default implementation copies the bytes read from the channel opened by {@link #openChannel(URI)}.
+	 * 
+	 * @param location the location of the resource using the content.
+	 * @param target the channel to which the content will be written, which is not closed by this method.
+	 * @return the number of bytes written.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	default long transferTo(URI location, WritableByteChannel target) throws IOException {
+		long total = 0;
+		try (ReadableByteChannel in = openChannel(location)) {
+			ByteBuffer buffer = ByteBuffer.allocate(8192);
+			while (in.read(buffer) != -1) {
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					total += target.write(buffer);
+				}
+				buffer.clear();
+			}
+		}
+		return total;
+	}
 }
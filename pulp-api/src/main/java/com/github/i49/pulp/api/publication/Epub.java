@@ -20,6 +20,7 @@ import static com.github.i49.pulp.api.publication.EpubServiceLoader.getService;
 
 import java.net.URI;
 import java.nio.file.Path;
+import java.util.Map;
 
 import com.github.i49.pulp.api.metadata.TermRegistry;
 
@@ -69,6 +70,20 @@ public final class Epub {
 		return getService().createReaderFactory();
 	}
 
+	/**
+	 * Creates an instance of {@link PublicationReaderFactory} configured with the specified properties.
+	 * Properties not recognized by the implementation are ignored.
+	 * 
+	 * @param config the map of configuration properties, cannot be {@code null}.
+	 * @return created publication reader factory.
+	 * @throws IllegalArgumentException if given {@code config} is {@code null}.
+	 * @throws EpubException if API implementation was not found.
+	 * @see PublicationReaderFactory
+	 */
+	public static PublicationReaderFactory createReaderFactory(Map<String, ?> config) {
+		return getService().createReaderFactory(config);
+	}
+
 	/**
 	 * Creates an instance of {@link PublicationResourceBuilderFactory} that can be used to create {@link PublicationResourceBuilder}.
 	 *
@@ -103,6 +118,20 @@ public final class Epub {
 		return getService().createWriterFactory();
 	}
 
+	/**
+	 * Creates an instance of {@link PublicationWriterFactory} configured with the specified properties.
+	 * Properties not recognized by the implementation are ignored.
+	 * 
+	 * @param config the map of configuration properties, cannot be {@code null}.
+	 * @return created publication writer factory.
+	 * @throws IllegalArgumentException if given {@code config} is {@code null}.
+	 * @throws EpubException if API implementation was not found.
+	 * @see PublicationWriterFactory
+	 */
+	public static PublicationWriterFactory createWriterFactory(Map<String, ?> config) {
+		return getService().createWriterFactory(config);
+	}
+
 	public static TermRegistry getPropertyTermRegistry() {
 		return getService().getPropertyTermRegistry();
 	}
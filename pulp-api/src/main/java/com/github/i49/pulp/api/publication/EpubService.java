@@ -17,6 +17,7 @@
 package com.github.i49.pulp.api.publication;
 
 import java.net.URI;
+import java.util.Map;
 
 import com.github.i49.pulp.api.metadata.TermRegistry;
 
@@ -40,6 +41,15 @@ public interface EpubService {
 	 */
 	PublicationReaderFactory createReaderFactory();
 
+	/**
+	 * Creates an instance of factory that can be used to produce {@link PublicationReader}.
+	 * 
+	 * @param config the map of configuration properties for the factory, cannot be {@code null}.
+	 * @return an instance of publication reader factory.
+	 * @throws IllegalArgumentException if given {@code config} is {@code null}.
+	 */
+	PublicationReaderFactory createReaderFactory(Map<String, ?> config);
+
 	/**
 	 * Creates an instance of factory that can be used to produce {@link PublicationResourceBuilder}.
 	 * 
@@ -55,6 +65,15 @@ public interface EpubService {
 	 * @return an instance of publication writer factory.
 	 */
 	PublicationWriterFactory createWriterFactory();
+
+	/**
+	 * Creates an instance of factory that can be used to produce {@link PublicationWriter}.
+	 * 
+	 * @param config the map of configuration properties for the factory, cannot be {@code null}.
+	 * @return an instance of publication writer factory.
+	 * @throws IllegalArgumentException if given {@code config} is {@code null}.
+	 */
+	PublicationWriterFactory createWriterFactory(Map<String, ?> config);
 	
 	/**
 	 * Returns the registry of property terms.
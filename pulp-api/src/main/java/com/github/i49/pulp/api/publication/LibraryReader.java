@@ -0,0 +1,123 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.api.publication;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * A reader of many EPUB files in parallel, such as the files in a library.
+ * 
+ * <p>The files are read by a pool of threads sharing the configuration and the service of the factory.
+ * The number of the threads can be specified by {@link PublicationReaderFactory#LIBRARY_PARALLELISM}.
+ * The files are taken from the source only when the threads are ready to read them,
+ * and at most twice as many results as the threads are held at a time,
+ * so that the memory used by the reader is kept constant regardless of the number of the files.</p>
+ * 
+ * <p>The files which cannot be read are reported as the failures of their results
+ * and do not stop the reading of the other files.</p>
+ * 
+ * @see PublicationReaderFactory#createLibraryReader()
+ */
+public interface LibraryReader extends Closeable {
+
+	/**
+	 * Reads the EPUB files specified by the paths.
+	 * The results are returned in the order of completion, which is not always the order of the paths.
+	 * The file of each result is closed before the result is returned, 
+	 * so the contents of the resources in the publications cannot be read.
+	 * Closing the returned stream closes the stream of the paths.
+	 * 
+	 * @param paths the paths to the EPUB files or the directories where EPUB files are expanded.
+	 * @return the stream of the results.
+	 * @throws IllegalArgumentException if {@code paths} is {@code null}.
+	 */
+	Stream<Result> read(Stream<Path> paths);
+
+	/**
+	 * Reads the EPUB files specified by the paths, passing the results to the consumer.
+	 * The consumer is called by the threads of this reader concurrently while the file of the result is still open,
+	 * so that the contents of the resources in the publication can be read by the consumer.
+	 * This method returns after all the results are consumed.
+	 * If the consumer throws an exception, no more files are read and the exception is rethrown by this method.
+	 * 
+	 * @param paths the paths to the EPUB files or the directories where EPUB files are expanded.
+	 * @param consumer the consumer of the results, which must be safe for use by multiple concurrent threads.
+	 * @throws IllegalArgumentException if any of the arguments is {@code null}.
+	 */
+	void read(Stream<Path> paths, Consumer<? super Result> consumer);
+
+	/**
+	 * Reads all the files with the extension ".epub" in the directory and its subdirectories.
+	 * 
+	 * @param directory the directory to search for the EPUB files.
+	 * @return the stream of the results, which must be closed to release the directory.
+	 * @throws IllegalArgumentException if {@code directory} is {@code null}.
+	 * @throws EpubException if an I/O error has occurred while opening the directory.
+	 * @see #read(Stream)
+	 */
+	Stream<Result> readDirectory(Path directory);
+
+	/**
+	 * Reads all the files with the extension ".epub" in the directory and its subdirectories,
+	 * passing the results to the consumer.
+	 * 
+	 * @param directory the directory to search for the EPUB files.
+	 * @param consumer the consumer of the results, which must be safe for use by multiple concurrent threads.
+	 * @throws IllegalArgumentException if any of the arguments is {@code null}.
+	 * @throws EpubException if an I/O error has occurred while opening the directory.
+	 * @see #read(Stream, Consumer)
+	 */
+	void readDirectory(Path directory, Consumer<? super Result> consumer);
+	
+	/**
+	 * Stops the threads of this reader.
+	 * The files being read are not waited for.
+	 */
+	@Override
+	void close();
+	
+	/**
+	 * The result of reading an EPUB file.
+	 */
+	static interface Result {
+		
+		/**
+		 * Returns the path to the file read.
+		 * 
+		 * @return the path to the file.
+		 */
+		Path getPath();
+		
+		/**
+		 * Returns the publication read from the file.
+		 * 
+		 * @return the publication, or empty if the file cannot be read.
+		 */
+		Optional<Publication> getPublication();
+		
+		/**
+		 * Returns the failure which has occurred while reading the file.
+		 * 
+		 * @return the failure, or empty if the file was read successfully.
+		 */
+		Optional<EpubException> getFailure();
+	}
+}
@@ -18,6 +18,10 @@ package com.github.i49.pulp.api.publication;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+
+import com.github.i49.pulp.api.metadata.Metadata;
 
 public interface PublicationReader  extends Closeable {
 
@@ -36,4 +40,28 @@ public interface PublicationReader  extends Closeable {
 	 * @throws EpubException if the publication cannot be read due to some error such as {@link IOException}.
 	 */
 	Publication read();
+	
+	/**
+	 * Reads only the metadata of the renditions in the publication.
+	 * Each package document is read up to the end of its {@code metadata} element,
+	 * and neither the manifest nor the spine is processed,
+	 * so that the other items in the container are never touched.
+	 * 
+	 * @return the metadata keyed by the locations of the package documents, 
+	 *         in the order of the renditions.
+	 * @throws EpubException if the metadata cannot be read due to some error such as {@link IOException}.
+	 */
+	Map<URI, Metadata> readMetadata();
+	
+	/**
+	 * Returns the entries of all the items stored in the ZIP archive of the container,
+	 * which can be used to serve the items directly from the archive.
+	 * All the entries are located at once by this method.
+	 * The entries using the compression methods other than STORED and DEFLATED are not included.
+	 * 
+	 * @return the entries keyed by their names in the order of the archive, 
+	 *         or an empty map if the container is not read from a ZIP archive.
+	 * @throws EpubException if the entries cannot be located due to some error such as {@link IOException}.
+	 */
+	Map<String, ArchiveEntry> getArchiveEntries();
 }
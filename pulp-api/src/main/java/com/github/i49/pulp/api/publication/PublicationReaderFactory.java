@@ -16,20 +16,219 @@
 
 package com.github.i49.pulp.api.publication;
 
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Path;
+import java.util.Map;
 
 /**
  * A factory type for creating instances of {@link PublicationReader}.
+ * 
+ * <p>The factory can be configured with the properties defined in this type
+ * when it is created by {@link Epub#createReaderFactory(Map)}.</p>
  */
 public interface PublicationReaderFactory {
 
+	/**
+	 * Configuration property to read EPUB files by mapping them into memory.
+	 * The value of this property must be a {@link Boolean}. The default value is {@code false}.
+	 */
+	static final String MEMORY_MAPPING = "com.github.i49.pulp.api.publication.PublicationReaderFactory.memoryMapping";
+	
+	/**
+	 * Configuration property to specify the maximum size in bytes of the EPUB files to be mapped into memory.
+	 * The files larger than this size are read without mapping.
+	 * The value of this property must be a {@link Number}. The default value is 256 MiB.
+	 * This property is effective only when {@link #MEMORY_MAPPING} is enabled.
+	 */
+	static final String MEMORY_MAPPING_LIMIT = "com.github.i49.pulp.api.publication.PublicationReaderFactory.memoryMappingLimit";
+
+	/**
+	 * Configuration property to cache the indices of the entries parsed from the EPUB files.
+	 * The index of a file is reused while the size, the last modified time, 
+	 * and the end of the file are not changed.
+	 * The value of this property must be a {@link Boolean}. The default value is {@code false}.
+	 */
+	static final String INDEX_CACHE = "com.github.i49.pulp.api.publication.PublicationReaderFactory.indexCache";
+
+	/**
+	 * Configuration property to specify the maximum number of the EPUB files whose indices are cached in memory.
+	 * The least recently used indices are evicted first when the limit is exceeded.
+	 * The value of this property must be a positive {@link Number}. The default value is 64.
+	 * This property is effective only when {@link #INDEX_CACHE} is enabled.
+	 */
+	static final String INDEX_CACHE_SIZE = "com.github.i49.pulp.api.publication.PublicationReaderFactory.indexCacheSize";
+
+	/**
+	 * Configuration property to specify the directory where the cached indices are stored as files,
+	 * so that they can be reused after the process is restarted.
+	 * The value of this property must be a {@link Path}. 
+	 * By default the indices are cached only in memory.
+	 * This property is effective only when {@link #INDEX_CACHE} is enabled.
+	 */
+	static final String INDEX_CACHE_DIRECTORY = "com.github.i49.pulp.api.publication.PublicationReaderFactory.indexCacheDirectory";
+
+	/**
+	 * Configuration property to specify the maximum size in bytes of the resources held in memory
+	 * while reading EPUB files from streams.
+	 * The resources exceeding this size are temporarily stored in files until the reader is closed.
+	 * The container document and the package documents are always held in memory regardless of this property.
+	 * The value of this property must be a {@link Number}. The default value is 16 MiB.
+	 */
+	static final String STREAM_MEMORY_LIMIT = "com.github.i49.pulp.api.publication.PublicationReaderFactory.streamMemoryLimit";
+
+	/**
+	 * Configuration property to specify the maximum total size in bytes of the temporary files
+	 * storing the resources while reading EPUB files from streams.
+	 * The EPUB file whose resources exceed this size cannot be read.
+	 * The value of this property must be a {@link Number}. The default value is 1 GiB.
+	 */
+	static final String STREAM_SPILL_LIMIT = "com.github.i49.pulp.api.publication.PublicationReaderFactory.streamSpillLimit";
+
+	/**
+	 * Configuration property to parse the container document and the package documents 
+	 * in a single forward pass without building their DOM trees.
+	 * Disabling this property falls back to the parsers building the DOM trees, 
+	 * which report the same errors.
+	 * The value of this property must be a {@link Boolean}. The default value is {@code true}.
+	 */
+	static final String STREAMING_PARSER = "com.github.i49.pulp.api.publication.PublicationReaderFactory.streamingParser";
+
+	/**
+	 * Configuration property to build the publication resources in the manifests 
+	 * only when they are first accessed through the manifest items,
+	 * so that the cost of reading a publication is proportional to the resources actually used.
+	 * The existence of the resources in the container is still checked when the publication is read,
+	 * while the other problems of the resources, such as malformed media types,
+	 * are reported when they are first accessed.
+	 * The value of this property must be a {@link Boolean}. The default value is {@code false}.
+	 */
+	static final String LAZY_MANIFEST = "com.github.i49.pulp.api.publication.PublicationReaderFactory.lazyManifest";
+
+	/**
+	 * Configuration property to specify the number of the threads 
+	 * reading EPUB files in parallel by {@link LibraryReader}.
+	 * The value of this property must be a positive {@link Number}. 
+	 * The default value is the number of the processors available.
+	 */
+	static final String LIBRARY_PARALLELISM = "com.github.i49.pulp.api.publication.PublicationReaderFactory.libraryParallelism";
+
+	/**
+	 * Configuration property to hold the DOM trees parsed from the XML documents of each publication read
+	 * in a cache of bounded size, instead of holding them in the documents until the publication is discarded.
+	 * The trees evicted from the cache are parsed again when they are requested next time,
+	 * so the changes made to the tree returned by {@link XmlDocument#getDocument()}
+	 * are retained only after the tree is assigned by {@link XmlDocument#setDocument(org.w3c.dom.Document)}.
+	 * The trees assigned are never evicted.
+	 * The value of this property must be a {@link Boolean}. The default value is {@code false}.
+	 */
+	static final String DOCUMENT_CACHE = "com.github.i49.pulp.api.publication.PublicationReaderFactory.documentCache";
+
+	/**
+	 * Configuration property to specify the maximum number of the DOM trees cached for each publication.
+	 * The least recently used trees are evicted first when the limit is exceeded.
+	 * The value of this property must be a positive {@link Number}. The default value is 64.
+	 * This property is effective only when {@link #DOCUMENT_CACHE} is enabled.
+	 */
+	static final String DOCUMENT_CACHE_SIZE = "com.github.i49.pulp.api.publication.PublicationReaderFactory.documentCacheSize";
+
+	/**
+	 * Configuration property to specify the maximum total size in bytes 
+	 * of the XML documents whose DOM trees are cached for each publication.
+	 * The size of each document is measured by its content in the EPUB file, not by its DOM tree.
+	 * The least recently used trees are evicted first when the limit is exceeded.
+	 * The value of this property must be a {@link Number}. The default value is 16 MiB.
+	 * This property is effective only when {@link #DOCUMENT_CACHE} is enabled.
+	 */
+	static final String DOCUMENT_CACHE_MEMORY_LIMIT = "com.github.i49.pulp.api.publication.PublicationReaderFactory.documentCacheMemoryLimit";
+
 	/**
 	 * Creates an instance of {@link PublicationReader}.
+	 * If the specified path is a directory, 
+	 * the publication is read from the files expanded in the directory.
+	 * If the specified path belongs to a file system other than the default one,
+	 * the file is read in the same way as {@link #createRangeReader(SeekableByteChannel)}.
 	 * 
-	 * @param path the location where the file to be read is located.
+	 * @param path the location where the file or the directory to be read is located.
 	 * @return created instance of {@link PublicationReader}.
 	 * @throws IllegalArgumentException if given {@code path} is {@code null}.
 	 * @throws EpubException if an I/O error has occurred.
 	 */
 	PublicationReader createReader(Path path);
+
+	/**
+	 * Creates an instance of {@link PublicationReader} reading from a stream.
+	 * The whole EPUB file is read through the stream only once when this method is called.
+	 * The stream is not closed by this method.
+	 * 
+	 * @param stream the stream providing the EPUB file.
+	 * @return created instance of {@link PublicationReader}.
+	 * @throws IllegalArgumentException if given {@code stream} is {@code null}.
+	 * @throws EpubException if an I/O error has occurred.
+	 * @see #STREAM_MEMORY_LIMIT
+	 * @see #STREAM_SPILL_LIMIT
+	 */
+	PublicationReader createStreamReader(InputStream stream);
+
+	/**
+	 * Creates an instance of {@link PublicationReader} reading from a buffer in memory.
+	 * The bytes between the position and the limit of the buffer are read as an EPUB file,
+	 * and neither the position nor the limit of the buffer is changed by the reader.
+	 * The buffer can be either a heap buffer or a direct buffer.
+	 * The content of the buffer must not be modified while the reader or the publication read is in use.
+	 * 
+	 * @param buffer the buffer holding the EPUB file.
+	 * @return created instance of {@link PublicationReader}.
+	 * @throws IllegalArgumentException if given {@code buffer} is {@code null}.
+	 * @throws EpubException if the buffer does not hold a valid EPUB file.
+	 */
+	PublicationReader createBufferReader(ByteBuffer buffer);
+
+	/**
+	 * Creates an instance of {@link PublicationReader} reading from a channel.
+	 * The whole EPUB file is read through the channel only once when this method is called.
+	 * The channel is not closed by this method.
+	 * 
+	 * @param channel the channel providing the EPUB file.
+	 * @return created instance of {@link PublicationReader}.
+	 * @throws IllegalArgumentException if given {@code channel} is {@code null}.
+	 * @throws EpubException if an I/O error has occurred.
+	 * @see #STREAM_MEMORY_LIMIT
+	 * @see #STREAM_SPILL_LIMIT
+	 */
+	PublicationReader createStreamReader(ReadableByteChannel channel);
+
+	/**
+	 * Creates an instance of {@link PublicationReader} reading from a channel with random access.
+	 * Unlike {@link #createStreamReader(ReadableByteChannel)}, which reads the whole channel only once,
+	 * the reader created by this method reads the channel on demand.
+	 * Only the regions of the EPUB file actually needed are read from the channel,
+	 * which are the end of the file, the central directory of the ZIP archive, 
+	 * and the resources whose contents are requested.
+	 * The regions are read ahead in blocks and the adjacent regions are read at once,
+	 * which is suitable for channels where each read is expensive, 
+	 * such as a channel fetching the ranges of a file in a remote storage.
+	 * 
+	 * <p>The channel is not closed by the reader, 
+	 * and must remain open while the reader or the publication read is in use.
+	 * The position of the channel is changed by the reader.</p>
+	 * 
+	 * @param channel the channel providing the EPUB file.
+	 * @return created instance of {@link PublicationReader}.
+	 * @throws IllegalArgumentException if given {@code channel} is {@code null}.
+	 * @throws EpubException if an I/O error has occurred.
+	 */
+	PublicationReader createRangeReader(SeekableByteChannel channel);
+
+	/**
+	 * Creates an instance of {@link LibraryReader} reading many EPUB files in parallel
+	 * with the readers created by this factory.
+	 * The reader must be closed to stop its threads.
+	 * 
+	 * @return created instance of {@link LibraryReader}.
+	 * @see #LIBRARY_PARALLELISM
+	 */
+	LibraryReader createLibraryReader();
 }
@@ -18,7 +18,12 @@ package com.github.i49.pulp.api.publication;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Optional;
 
 /**
  * A resource that contains content or instructions that contribute to
@@ -109,4 +114,68 @@ public interface PublicationResource {
 	 * @throws IOException if an I/O error has occurred.
 	 */
 	byte[] getContent() throws IOException;
+	
+	/**
+	 * Opens a new {@link ReadableByteChannel} that provides the content of this resource.
+	 * 
+	 * @return a new channel, which should be closed by the caller of this method.
+	 * @throws IOException if an I/O error has occurred.
+	 * @see ContentSource#openChannel(URI)
+	 */
+	ReadableByteChannel openContentChannel() throws IOException;
+	
+	/**
+	 * Returns the content of this resource as a buffer.
+	 * The buffer may share its content with the content source, 
+	 * such as a region of a memory-mapped file, and may be read-only.
+	 * The content of the buffer must not be modified by the caller.
+	 * 
+	 * @return the buffer containing the content between its position and limit.
+	 * @throws IOException if an I/O error has occurred.
+	 * @see ContentSource#asByteBuffer(URI)
+	 */
+	ByteBuffer getContentAsBuffer() throws IOException;
+	
+	/**
+	 * Returns the size of the content of this resource if it is known without reading the content.
+	 * 
+	 * @return the size of the content in bytes, or -1 if unknown.
+	 * @throws IOException if an I/O error has occurred.
+	 * @see ContentSource#size(URI)
+	 */
+	long getContentSize() throws IOException;
+	
+	/**
+	 * Writes the content of this resource to the channel.
+	 * The content stored in files may be transferred without being copied into the application.
+	 * 
+	 * @param target the channel to which the content will be written, which is not closed by this method.
+	 * @return the number of bytes written.
+	 * @throws IOException if an I/O error has occurred.
+	 * @see ContentSource#transferTo(URI, WritableByteChannel)
+	 */
+	long transferContentTo(WritableByteChannel target) throws IOException;
+	
+	/**
+	 * Writes the content of this resource to the stream.
+	 * The content modified in memory, such as the document of {@link XmlDocument},
+	 * is written directly to the stream without being copied into intermediate buffers.
+	 * 
+	 * @param out the stream to which the content will be written, which is not closed by this method.
+	 * @throws IllegalArgumentException if {@code out} is {@code null}.
+	 * @throws IOException if an I/O error has occurred.
+	 * @see #transferContentTo(WritableByteChannel)
+	 */
+	void writeContentTo(OutputStream out) throws IOException;
+	
+	/**
+	 * Returns the entry of the ZIP archive from which the content of this resource is read.
+	 * The content can be served directly from the range of the archive given by the entry.
+	 * 
+	 * @return the entry of the archive, or empty if the content of this resource 
+	 *         is not read as it is from a ZIP archive, for example, when the content was modified.
+	 * @throws IOException if an I/O error has occurred while locating the entry.
+	 * @see PublicationReader#getArchiveEntries()
+	 */
+	Optional<ArchiveEntry> getArchiveEntry() throws IOException;
 }
@@ -18,12 +18,74 @@ package com.github.i49.pulp.api.publication;
 
 import java.io.OutputStream;
 import java.nio.file.Path;
+import java.util.Map;
 
 /**
  * A factory type for creating instances of {@link PublicationWriter}.
+ * 
+ * <p>The factory can be configured with the properties defined in this type
+ * when it is created by {@link Epub#createWriterFactory(Map)}.</p>
  */
 public interface PublicationWriterFactory {
 
+	/**
+	 * Configuration property to specify the number of worker threads compressing the resources in parallel.
+	 * The resources are written to the EPUB file in the order of the manifest regardless of this property.
+	 * The value of this property must be a positive {@link Number}. 
+	 * The default value is 1, which means the resources are compressed by the calling thread.
+	 */
+	static final String PARALLELISM = "com.github.i49.pulp.api.publication.PublicationWriterFactory.parallelism";
+
+	/**
+	 * Configuration property to specify the maximum size in bytes of the compressed data 
+	 * held in memory while waiting to be written.
+	 * The data exceeding this size are temporarily stored in files.
+	 * The value of this property must be a {@link Number}. The default value is 64 MiB.
+	 * This property is effective only when {@link #PARALLELISM} is greater than 1.
+	 */
+	static final String PARALLEL_MEMORY_LIMIT = "com.github.i49.pulp.api.publication.PublicationWriterFactory.parallelMemoryLimit";
+
+	/**
+	 * Configuration property to specify the {@link CompressionPolicy} choosing how each resource is compressed.
+	 * The value of this property must be an instance of {@link CompressionPolicy}. 
+	 * The default policy stores the resources of the media types already compressed, 
+	 * such as JPEG, PNG, GIF, WOFF, MP3 and MP4, and compresses the other resources with DEFLATE method.
+	 * The package documents and the container documents are always compressed 
+	 * regardless of this property.
+	 */
+	static final String COMPRESSION_POLICY = "com.github.i49.pulp.api.publication.PublicationWriterFactory.compressionPolicy";
+
+	/**
+	 * Configuration property to specify whether the default {@link CompressionPolicy} probes
+	 * the resources of the unknown media types or not.
+	 * If enabled, such resources are compressed only if a sample at the beginning of each resource
+	 * can be compressed well.
+	 * The value of this property must be a {@link Boolean}. The default value is {@code false}.
+	 * This property is ignored if {@link #COMPRESSION_POLICY} is specified.
+	 * 
+	 * @see Compression#PROBED
+	 */
+	static final String COMPRESSION_PROBE = "com.github.i49.pulp.api.publication.PublicationWriterFactory.compressionProbe";
+
+	/**
+	 * Configuration property to write publications as directories expanded instead of EPUB files.
+	 * If enabled, {@link #createWriter(Path)} creates the directory at the path if it does not exist,
+	 * and writes each resource to a file without compression.
+	 * The files already existing with the same content are left untouched.
+	 * The resources are written in parallel by the number of threads specified by {@link #PARALLELISM}.
+	 * The value of this property must be a {@link Boolean}. The default value is {@code false}.
+	 * This property does not affect {@link #createWriter(OutputStream)}.
+	 */
+	static final String EXPANDED = "com.github.i49.pulp.api.publication.PublicationWriterFactory.expanded";
+
+	/**
+	 * Configuration property to specify whether the elements of the container documents 
+	 * and the package documents are indented or not.
+	 * The documents without indentation are smaller, and have the same content except for the whitespace.
+	 * The value of this property must be a {@link Boolean}. The default value is {@code true}.
+	 */
+	static final String INDENT = "com.github.i49.pulp.api.publication.PublicationWriterFactory.indent";
+
 	/**
 	 * Creates an instance of {@link PublicationWriter}.
 	 * 
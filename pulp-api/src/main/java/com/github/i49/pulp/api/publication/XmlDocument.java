@@ -26,6 +26,7 @@ public interface XmlDocument extends PublicationResource {
 	/**
 	 * Returns the content of this resource as an XML document.
 	 * @return an XML document.
+	 * @throws EpubException if the content of this resource cannot be read or is not well-formed.
 	 */
 	Document getDocument();
 	
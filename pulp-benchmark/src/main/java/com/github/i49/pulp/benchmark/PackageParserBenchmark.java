@@ -0,0 +1,109 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.i49.pulp.api.publication.Epub;
+import com.github.i49.pulp.api.publication.Publication;
+import com.github.i49.pulp.api.publication.PublicationReader;
+import com.github.i49.pulp.api.publication.PublicationReaderFactory;
+
+/**
+ * Benchmarks reading a publication having a large manifest
+ * with the streaming parser, compared with the parser building the DOM trees.
+ * The EPUB file is held in memory so that the parsing dominates.
+ * Reading with the lazy manifest, which builds no resources until accessed, is also measured.
+ * Running with {@code -prof gc} shows the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PackageParserBenchmark {
+
+	@Param({"1000", "5000"})
+	private int items;
+	
+	private byte[] epub;
+	private PublicationReaderFactory streamingFactory;
+	private PublicationReaderFactory domFactory;
+	private PublicationReaderFactory lazyFactory;
+	
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		Path path = Files.createTempFile("pulp-benchmark", ".epub");
+		try {
+			new SyntheticEpub(this.items, 0, 0, 0).write(path);
+			this.epub = Files.readAllBytes(path);
+		} finally {
+			Files.delete(path);
+		}
+		this.streamingFactory = createFactory(true, false);
+		this.domFactory = createFactory(false, false);
+		this.lazyFactory = createFactory(true, true);
+	}
+	
+	@Benchmark
+	public Publication readWithStreamingParser() {
+		return read(this.streamingFactory);
+	}
+
+	@Benchmark
+	public Publication readWithDomParser() {
+		return read(this.domFactory);
+	}
+	
+	@Benchmark
+	public Publication readWithLazyManifest() {
+		return read(this.lazyFactory);
+	}
+	
+	private Publication read(PublicationReaderFactory factory) {
+		try (PublicationReader reader = factory.createBufferReader(ByteBuffer.wrap(this.epub))) {
+			return reader.read();
+		}
+	}
+	
+	private static PublicationReaderFactory createFactory(boolean streaming, boolean lazy) {
+		Map<String, Object> config = new HashMap<>();
+		config.put(PublicationReaderFactory.STREAMING_PARSER, streaming);
+		config.put(PublicationReaderFactory.LAZY_MANIFEST, lazy);
+		return Epub.createReaderFactory(config);
+	}
+}
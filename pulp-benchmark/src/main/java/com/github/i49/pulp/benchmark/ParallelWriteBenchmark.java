@@ -0,0 +1,105 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.i49.pulp.api.publication.ContentSource;
+import com.github.i49.pulp.api.publication.Epub;
+import com.github.i49.pulp.api.publication.Manifest;
+import com.github.i49.pulp.api.publication.Publication;
+import com.github.i49.pulp.api.publication.PublicationReader;
+import com.github.i49.pulp.api.publication.PublicationResource;
+import com.github.i49.pulp.api.publication.PublicationWriter;
+import com.github.i49.pulp.api.publication.PublicationWriterFactory;
+import com.github.i49.pulp.api.publication.Rendition;
+
+/**
+ * Benchmarks writing a publication with the resources compressed by multiple threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParallelWriteBenchmark {
+
+	@Param({"1", "2", "4"})
+	private int parallelism;
+	
+	private Path input;
+	private Path output;
+	private Publication publication;
+	private PublicationReader reader;
+	private PublicationWriterFactory factory;
+	
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		this.input = Files.createTempFile("pulp-benchmark", ".epub");
+		this.output = Files.createTempFile("pulp-benchmark", ".epub");
+		new SyntheticEpub(200, 32 * 1024, 100, 256 * 1024).write(this.input);
+		
+		this.reader = Epub.createReader(this.input);
+		this.publication = reader.read();
+		for (Rendition rendition: publication) {
+			for (Manifest.Item item: rendition.getManifest()) {
+				PublicationResource resource = item.getResource();
+				ContentSource original = resource.getContentSource();
+				// hides the container behind the content source to force recompression.
+				resource.setContentSource(location->original.openSource(location));
+			}
+		}
+		
+		Map<String, Object> config = new HashMap<>();
+		config.put(PublicationWriterFactory.PARALLELISM, this.parallelism);
+		this.factory = Epub.createWriterFactory(config);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		this.reader.close();
+		Files.deleteIfExists(this.input);
+		Files.deleteIfExists(this.output);
+	}
+	
+	@Benchmark
+	public void write() {
+		try (PublicationWriter writer = this.factory.createWriter(this.output)) {
+			writer.write(this.publication);
+		}
+	}
+}
@@ -0,0 +1,61 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.benchmark;
+
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.github.i49.pulp.impl.zip.ZipLoader;
+
+/**
+ * Measures the bytes fetched by {@link ZipLoader} reading through a channel,
+ * compared with the size of the EPUB file.
+ * 
+ * <p>This program is not a JMH benchmark and can be run as follows:</p>
+ * <pre>
+ * $ java -cp target/benchmarks.jar com.github.i49.pulp.benchmark.RangeReadFootprint
+ * </pre>
+ */
+public class RangeReadFootprint {
+
+	public static void main(String[] args) throws IOException {
+		Path path = Files.createTempFile("pulp-benchmark", ".epub");
+		try {
+			new SyntheticEpub(100, 16 * 1024, 40, 256 * 1024).write(path);
+			try (SeekableByteChannel channel = Files.newByteChannel(path);
+				 ZipLoader loader = ZipLoader.create(channel, StandardCharsets.UTF_8)) {
+				System.out.println("File size: " + Files.size(path) + " bytes, entries: " + loader.getNumberOfEntries());
+				report("Opened", loader);
+				loader.load("META-INF/container.xml");
+				loader.load("EPUB/package.opf");
+				report("Package document loaded", loader);
+				loader.load("EPUB/chapter1.xhtml");
+				loader.load("EPUB/chapter2.xhtml");
+				report("Two chapters loaded", loader);
+			}
+		} finally {
+			Files.deleteIfExists(path);
+		}
+	}
+	
+	private static void report(String stage, ZipLoader loader) {
+		System.out.println(stage + ": " + loader.getNumberOfFetches() + " fetches, " + loader.getBytesFetched() + " bytes");
+	}
+}
@@ -0,0 +1,108 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.i49.pulp.api.publication.ContentSource;
+import com.github.i49.pulp.api.publication.Epub;
+import com.github.i49.pulp.api.publication.Manifest;
+import com.github.i49.pulp.api.publication.Publication;
+import com.github.i49.pulp.api.publication.PublicationReader;
+import com.github.i49.pulp.api.publication.PublicationResource;
+import com.github.i49.pulp.api.publication.PublicationWriter;
+import com.github.i49.pulp.api.publication.Rendition;
+
+/**
+ * Benchmarks saving a publication read from an EPUB file without modifying its resources.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ResaveBenchmark {
+
+	private Path input;
+	private Path output;
+	
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		this.input = Files.createTempFile("pulp-benchmark", ".epub");
+		this.output = Files.createTempFile("pulp-benchmark", ".epub");
+		new SyntheticEpub(200, 32 * 1024, 100, 256 * 1024).write(this.input);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(this.input);
+		Files.deleteIfExists(this.output);
+	}
+	
+	/**
+	 * Saves the resources by copying the compressed data as it is.
+	 */
+	@Benchmark
+	public void resaveWithRawCopy() {
+		try (PublicationReader reader = Epub.createReader(this.input)) {
+			Publication publication = reader.read();
+			write(publication);
+		}
+	}
+
+	/**
+	 * Saves the resources by decompressing and compressing them again.
+	 */
+	@Benchmark
+	public void resaveWithRecompression() {
+		try (PublicationReader reader = Epub.createReader(this.input)) {
+			Publication publication = reader.read();
+			for (Rendition rendition: publication) {
+				for (Manifest.Item item: rendition.getManifest()) {
+					PublicationResource resource = item.getResource();
+					ContentSource original = resource.getContentSource();
+					// hides the container behind the content source.
+					resource.setContentSource(location->original.openSource(location));
+				}
+			}
+			write(publication);
+		}
+	}
+	
+	private void write(Publication publication) {
+		try (PublicationWriter writer = Epub.createWriter(this.output)) {
+			writer.write(publication);
+		}
+	}
+}
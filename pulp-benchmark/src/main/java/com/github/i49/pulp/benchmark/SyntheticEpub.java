@@ -0,0 +1,152 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Generator of EPUB files used as the input of the benchmarks.
+ */
+public class SyntheticEpub {
+
+	private final int chapters;
+	private final int chapterSize;
+	private final int images;
+	private final int imageSize;
+	
+	/**
+	 * Constructs this generator.
+	 * 
+	 * @param chapters the number of XHTML documents.
+	 * @param chapterSize the approximate size of each document in bytes.
+	 * @param images the number of JPEG images, which are filled with random bytes.
+	 * @param imageSize the size of each image in bytes.
+	 */
+	public SyntheticEpub(int chapters, int chapterSize, int images, int imageSize) {
+		this.chapters = chapters;
+		this.chapterSize = chapterSize;
+		this.images = images;
+		this.imageSize = imageSize;
+	}
+	
+	/**
+	 * Writes the EPUB file.
+	 * 
+	 * @param path the path to the file to write.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	public void write(Path path) throws IOException {
+		Random random = new Random(42);
+		try (OutputStream out = Files.newOutputStream(path); ZipOutputStream zip = new ZipOutputStream(out)) {
+			writeStored(zip, "mimetype", "application/epub+zip".getBytes(StandardCharsets.US_ASCII));
+			writeDeflated(zip, "META-INF/container.xml", containerDocument());
+			writeDeflated(zip, "EPUB/package.opf", packageDocument());
+			writeDeflated(zip, "EPUB/nav.xhtml", chapter(0, 0));
+			for (int i = 1; i <= chapters; i++) {
+				writeDeflated(zip, "EPUB/chapter" + i + ".xhtml", chapter(i, chapterSize));
+			}
+			byte[] image = new byte[imageSize];
+			for (int i = 1; i <= images; i++) {
+				random.nextBytes(image);
+				writeDeflated(zip, "EPUB/images/image" + i + ".jpg", image);
+			}
+		}
+	}
+
+	private byte[] containerDocument() {
+		return ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+			+ "<container version=\"1.0\" xmlns=\"urn:oasis:names:tc:opendocument:xmlns:container\">\n"
+			+ "<rootfiles>\n"
+			+ "<rootfile full-path=\"EPUB/package.opf\" media-type=\"application/oebps-package+xml\"/>\n"
+			+ "</rootfiles>\n"
+			+ "</container>\n").getBytes(StandardCharsets.UTF_8);
+	}
+	
+	private byte[] packageDocument() {
+		StringBuilder b = new StringBuilder();
+		b.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		b.append("<package unique-identifier=\"pub-id\" version=\"3.0\" xmlns=\"http://www.idpf.org/2007/opf\">\n");
+		b.append("<metadata xmlns:dc=\"http://purl.org/dc/elements/1.1/\">\n");
+		b.append("<dc:identifier id=\"pub-id\">urn:uuid:a8f7f81f-2f89-48f3-95d1-b4dcc8b0456c</dc:identifier>\n");
+		b.append("<dc:title>Synthetic</dc:title>\n");
+		b.append("<dc:language>en</dc:language>\n");
+		b.append("<meta property=\"dcterms:modified\">2017-04-02T11:56:36Z</meta>\n");
+		b.append("</metadata>\n");
+		b.append("<manifest>\n");
+		b.append("<item href=\"nav.xhtml\" id=\"nav\" media-type=\"application/xhtml+xml\" properties=\"nav\"/>\n");
+		for (int i = 1; i <= chapters; i++) {
+			b.append("<item href=\"chapter").append(i).append(".xhtml\" id=\"chapter").append(i)
+			 .append("\" media-type=\"application/xhtml+xml\"/>\n");
+		}
+		for (int i = 1; i <= images; i++) {
+			b.append("<item href=\"images/image").append(i).append(".jpg\" id=\"image").append(i)
+			 .append("\" media-type=\"image/jpeg\"/>\n");
+		}
+		b.append("</manifest>\n");
+		b.append("<spine>\n");
+		for (int i = 1; i <= chapters; i++) {
+			b.append("<itemref idref=\"chapter").append(i).append("\"/>\n");
+		}
+		b.append("</spine>\n");
+		b.append("</package>\n");
+		return b.toString().getBytes(StandardCharsets.UTF_8);
+	}
+	
+	private static byte[] chapter(int number, int size) {
+		StringBuilder b = new StringBuilder();
+		b.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		b.append("<!DOCTYPE html>\n");
+		b.append("<html xmlns=\"http://www.w3.org/1999/xhtml\">\n");
+		b.append("<head><title>Chapter ").append(number).append("</title></head>\n");
+		b.append("<body>\n");
+		int paragraph = 0;
+		while (b.length() < size) {
+			b.append("<p>Paragraph ").append(++paragraph)
+			 .append(" of chapter ").append(number)
+			 .append(". Lorem ipsum dolor sit amet, consectetur adipiscing elit.</p>\n");
+		}
+		b.append("</body>\n");
+		b.append("</html>\n");
+		return b.toString().getBytes(StandardCharsets.UTF_8);
+	}
+	
+	private static void writeStored(ZipOutputStream zip, String name, byte[] content) throws IOException {
+		ZipEntry entry = new ZipEntry(name);
+		CRC32 crc = new CRC32();
+		crc.update(content);
+		entry.setMethod(ZipEntry.STORED);
+		entry.setSize(content.length);
+		entry.setCrc(crc.getValue());
+		zip.putNextEntry(entry);
+		zip.write(content);
+		zip.closeEntry();
+	}
+
+	private static void writeDeflated(ZipOutputStream zip, String name, byte[] content) throws IOException {
+		zip.putNextEntry(new ZipEntry(name));
+		zip.write(content);
+		zip.closeEntry();
+	}
+}
@@ -0,0 +1,120 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import com.github.i49.pulp.impl.xml.XmlServices;
+
+/**
+ * Benchmarks the overhead of parsing and serializing a content document,
+ * comparing the builders and the serializers reused by each thread
+ * with the ones created for each document.
+ * The overhead dominates the small documents such as the chapters of a large book.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class XmlServicesBenchmark {
+
+	@Param({"10", "1000"})
+	private int paragraphs;
+
+	private byte[] content;
+	private Document document;
+	private DocumentBuilderFactory builderFactory;
+	private TransformerFactory transformerFactory;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException, SAXException {
+		StringBuilder b = new StringBuilder();
+		b.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		b.append("<html xmlns=\"http://www.w3.org/1999/xhtml\"><head><title>Chapter</title></head><body>\n");
+		for (int i = 0; i < this.paragraphs; i++) {
+			b.append("<p>Paragraph ").append(i).append(" of the chapter.</p>\n");
+		}
+		b.append("</body></html>\n");
+		this.content = b.toString().getBytes(StandardCharsets.UTF_8);
+		this.document = XmlServices.getBuilder().parse(new ByteArrayInputStream(this.content));
+		this.builderFactory = DocumentBuilderFactory.newInstance();
+		this.builderFactory.setNamespaceAware(true);
+		this.transformerFactory = TransformerFactory.newInstance();
+	}
+
+	@Benchmark
+	public Document parseWithNewBuilder() throws ParserConfigurationException, IOException, SAXException {
+		DocumentBuilder builder = this.builderFactory.newDocumentBuilder();
+		return builder.parse(new ByteArrayInputStream(this.content));
+	}
+
+	@Benchmark
+	public Document parseWithReusedBuilder() throws IOException, SAXException {
+		DocumentBuilder builder = XmlServices.getBuilder();
+		return builder.parse(new ByteArrayInputStream(this.content));
+	}
+
+	@Benchmark
+	public byte[] serializeWithNewTransformer() throws TransformerException {
+		Transformer t = this.transformerFactory.newTransformer();
+		t.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+		t.setOutputProperty(OutputKeys.INDENT, "yes");
+		t.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+		t.setOutputProperty(OutputKeys.METHOD, "xml");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		t.transform(new DOMSource(this.document), new StreamResult(out));
+		return out.toByteArray();
+	}
+
+	@Benchmark
+	public byte[] serializeWithReusedSerializer() throws IOException, TransformerException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		XmlServices.getSerializer().serialize(out, this.document);
+		return out.toByteArray();
+	}
+}
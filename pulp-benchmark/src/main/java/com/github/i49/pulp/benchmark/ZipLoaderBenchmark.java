@@ -0,0 +1,202 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.benchmark;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.i49.pulp.impl.zip.ZipLoader;
+
+/**
+ * Benchmarks reading all entries of a ZIP archive
+ * through the channel and memory-mapped modes of {@link ZipLoader},
+ * compared with the former stream-based implementation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ZipLoaderBenchmark {
+
+	private static final int NUMBER_OF_ENTRIES = 200;
+	
+	@Param({"16384", "262144"})
+	private int entrySize;
+	
+	private Path path;
+	private long[] positions;
+	private ZipLoader channelLoader;
+	private ZipLoader mappedLoader;
+	
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		this.path = Files.createTempFile("pulp-benchmark", ".zip");
+		this.positions = writeArchive(this.path, this.entrySize);
+		this.channelLoader = ZipLoader.create(path, StandardCharsets.UTF_8);
+		this.mappedLoader = ZipLoader.create(path, StandardCharsets.UTF_8, Long.MAX_VALUE);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		this.channelLoader.close();
+		this.mappedLoader.close();
+		Files.deleteIfExists(this.path);
+	}
+	
+	@Benchmark
+	public void loadWithChannel(Blackhole blackhole) throws IOException {
+		loadAll(this.channelLoader, blackhole);
+	}
+
+	@Benchmark
+	public void loadWithMapping(Blackhole blackhole) throws IOException {
+		loadAll(this.mappedLoader, blackhole);
+	}
+
+	@Benchmark
+	public void loadBufferWithMapping(Blackhole blackhole) throws IOException {
+		ZipLoader loader = this.mappedLoader;
+		for (int i = 0; i < loader.getNumberOfEntries(); i++) {
+			ByteBuffer buffer = loader.loadBuffer(loader.getEntryName(i));
+			blackhole.consume(buffer.get(buffer.limit() - 1));
+		}
+	}
+	
+	/**
+	 * Reads each entry by skipping to its local file header 
+	 * and then decoding it with {@link ZipInputStream}, as the loader formerly did.
+	 */
+	@Benchmark
+	public void loadWithZipInputStream(Blackhole blackhole) throws IOException {
+		byte[] buffer = new byte[8192];
+		for (long position: this.positions) {
+			InputStream stream = Files.newInputStream(this.path);
+			stream.skip(position);
+			try (ZipInputStream in = new ZipInputStream(stream)) {
+				in.getNextEntry();
+				int len = 0;
+				while ((len = in.read(buffer)) != -1) {
+					blackhole.consume(len);
+				}
+			}
+		}
+	}
+
+	private static void loadAll(ZipLoader loader, Blackhole blackhole) throws IOException {
+		byte[] buffer = new byte[8192];
+		for (int i = 0; i < loader.getNumberOfEntries(); i++) {
+			try (InputStream in = loader.openToLoad(loader.getEntryName(i))) {
+				int len = 0;
+				while ((len = in.read(buffer)) != -1) {
+					blackhole.consume(len);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Writes an archive whose entries alternate between STORED random data,
+	 * which resembles images, and DEFLATED text.
+	 * 
+	 * @return the offsets of the local file headers.
+	 */
+	private static long[] writeArchive(Path path, int entrySize) throws IOException {
+		long[] positions = new long[NUMBER_OF_ENTRIES];
+		Random random = new Random(42);
+		byte[] binary = new byte[entrySize];
+		byte[] text = new byte[entrySize];
+		for (int i = 0; i < text.length; i++) {
+			text[i] = (byte)('a' + random.nextInt(8));
+		}
+		try (CountingOutputStream out = new CountingOutputStream(Files.newOutputStream(path)); 
+			 ZipOutputStream zip = new ZipOutputStream(out)) {
+			for (int i = 0; i < NUMBER_OF_ENTRIES; i++) {
+				positions[i] = out.getCount();
+				ZipEntry entry = new ZipEntry("entry" + i);
+				if (i % 2 == 0) {
+					random.nextBytes(binary);
+					CRC32 crc = new CRC32();
+					crc.update(binary);
+					entry.setMethod(ZipEntry.STORED);
+					entry.setSize(binary.length);
+					entry.setCrc(crc.getValue());
+					zip.putNextEntry(entry);
+					zip.write(binary);
+				} else {
+					zip.putNextEntry(entry);
+					zip.write(text);
+				}
+				zip.closeEntry();
+			}
+		}
+		return positions;
+	}
+	
+	private static class CountingOutputStream extends FilterOutputStream {
+		
+		private long count;
+		
+		CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+		
+		long getCount() {
+			return count;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+	}
+}
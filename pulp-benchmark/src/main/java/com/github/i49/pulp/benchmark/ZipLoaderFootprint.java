@@ -0,0 +1,104 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import com.github.i49.pulp.impl.zip.ZipLoader;
+
+/**
+ * Measures the heap retained by {@link ZipLoader} for each entry of the ZIP file.
+ * 
+ * <p>This program is not a JMH benchmark and can be run as follows:</p>
+ * <pre>
+ * $ java -cp target/benchmarks.jar com.github.i49.pulp.benchmark.ZipLoaderFootprint
+ * </pre>
+ */
+public class ZipLoaderFootprint {
+
+	private static final int NUMBER_OF_ENTRIES = 10000;
+	private static final int NUMBER_OF_LOADERS = 50;
+	
+	public static void main(String[] args) throws IOException {
+		Path path = Files.createTempFile("pulp-benchmark", ".zip");
+		try {
+			writeArchive(path);
+			List<ZipLoader> loaders = new ArrayList<>();
+			try {
+				long before = usedMemory();
+				for (int i = 0; i < NUMBER_OF_LOADERS; i++) {
+					ZipLoader loader = ZipLoader.create(path, StandardCharsets.UTF_8);
+					// resolves the entries once as the readers do.
+					for (int j = 0; j < loader.getNumberOfEntries(); j += 100) {
+						loader.getContentSize(loader.getEntryName(j));
+					}
+					loaders.add(loader);
+				}
+				long after = usedMemory();
+				long entries = (long)NUMBER_OF_LOADERS * NUMBER_OF_ENTRIES;
+				System.out.println("Loaders: " + NUMBER_OF_LOADERS + ", entries per loader: " + NUMBER_OF_ENTRIES);
+				System.out.println("Retained bytes per entry: " + (after - before) / entries);
+			} finally {
+				for (ZipLoader loader: loaders) {
+					loader.close();
+				}
+			}
+		} finally {
+			Files.deleteIfExists(path);
+		}
+	}
+	
+	private static void writeArchive(Path path) throws IOException {
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path)); 
+			 ZipOutputStream zip = new ZipOutputStream(out)) {
+			byte[] content = new byte[0];
+			CRC32 crc = new CRC32();
+			for (int i = 0; i < NUMBER_OF_ENTRIES; i++) {
+				ZipEntry entry = new ZipEntry(String.format("EPUB/text/chapter-%05d.xhtml", i));
+				entry.setMethod(ZipEntry.STORED);
+				entry.setSize(0);
+				entry.setCrc(crc.getValue());
+				zip.putNextEntry(entry);
+				zip.write(content);
+				zip.closeEntry();
+			}
+		}
+	}
+	
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
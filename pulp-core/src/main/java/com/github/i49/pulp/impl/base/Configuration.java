@@ -0,0 +1,110 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.base;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The configuration properties given to the factories.
+ * Properties not recognized by the implementation are silently ignored.
+ */
+public class Configuration {
+	
+	private final Map<String, ?> properties;
+	
+	/**
+	 * Creates an empty configuration.
+	 * 
+	 * @return created configuration.
+	 */
+	public static Configuration empty() {
+		return new Configuration(Collections.emptyMap());
+	}
+
+	/**
+	 * Creates a configuration containing the specified properties.
+	 * 
+	 * @param properties the map of configuration properties.
+	 * @return created configuration.
+	 */
+	public static Configuration of(Map<String, ?> properties) {
+		return new Configuration(new HashMap<>(properties));
+	}
+	
+	private Configuration(Map<String, ?> properties) {
+		this.properties = properties;
+	}
+	
+	/**
+	 * Returns the value of the property as a boolean.
+	 * 
+	 * @param name the name of the property.
+	 * @param defaultValue the value to be returned if the property is not specified.
+	 * @return the value of the property.
+	 * @throws IllegalArgumentException if the value of the property is not a {@link Boolean}.
+	 */
+	public boolean getBoolean(String name, boolean defaultValue) {
+		return get(name, Boolean.class, defaultValue);
+	}
+	
+	/**
+	 * Returns the value of the property as a long integer.
+	 * 
+	 * @param name the name of the property.
+	 * @param defaultValue the value to be returned if the property is not specified.
+	 * @return the value of the property.
+	 * @throws IllegalArgumentException if the value of the property is not a {@link Number}.
+	 */
+	public long getLong(String name, long defaultValue) {
+		return get(name, Number.class, defaultValue).longValue();
+	}
+	
+	/**
+	 * Returns the value of the property as an integer.
+	 * 
+	 * @param name the name of the property.
+	 * @param defaultValue the value to be returned if the property is not specified.
+	 * @return the value of the property.
+	 * @throws IllegalArgumentException if the value of the property is not a {@link Number}.
+	 */
+	public int getInt(String name, int defaultValue) {
+		return get(name, Number.class, defaultValue).intValue();
+	}
+	
+	/**
+	 * Returns the value of the property.
+	 * 
+	 * @param <T> the type of the value.
+	 * @param name the name of the property.
+	 * @param type the expected type of the value.
+	 * @param defaultValue the value to be returned if the property is not specified.
+	 * @return the value of the property.
+	 * @throws IllegalArgumentException if the value of the property is not of the expected type.
+	 */
+	public <T> T get(String name, Class<T> type, T defaultValue) {
+		Object value = properties.get(name);
+		if (value == null) {
+			return defaultValue;
+		}
+		if (!type.isInstance(value)) {
+			throw new IllegalArgumentException(Messages.CONFIGURATION_PROPERTY_INVALID(name, value));
+		}
+		return type.cast(value);
+	}
+}
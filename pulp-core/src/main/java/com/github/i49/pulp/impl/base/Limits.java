@@ -0,0 +1,31 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.base;
+
+/**
+ * Provides the limits shared by the implementation.
+ */
+public final class Limits {
+
+	/**
+	 * The maximum size of arrays allocated safely by most VMs.
+	 */
+	public static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+	private Limits() {
+	}
+}
@@ -28,6 +28,20 @@ public final class Messages {
 	private static final String BUNDLE_BASE_NAME = Messages.class.getPackage().getName() + ".messages";
 	private static final ResourceBundle bundle = ResourceBundle.getBundle(BUNDLE_BASE_NAME);
 
+	/* base package */
+	
+	public static String CONFIGURATION_PROPERTY_INVALID(String name, Object value) {
+		return format("CONFIGURATION_PROPERTY_INVALID", name, value);
+	}
+
+	public static String STREAM_CLOSED() {
+		return format("STREAM_CLOSED");
+	}
+
+	public static String STREAM_MARK_UNSUPPORTED() {
+		return format("STREAM_MARK_UNSUPPORTED");
+	}
+	
 	/* publication package */
 	
 	public static String RENDITION_ALREADY_EXISTS(String location) {
@@ -62,6 +76,10 @@ public final class Messages {
 		return format("RESOURCE_LOCATION_NOT_LOCAL", location);
 	}
 	
+	public static String RESOURCE_DOCUMENT_UNREADABLE(URI location) {
+		return format("RESOURCE_DOCUMENT_UNREADABLE", location);
+	}
+	
 	public static String MEDIA_TYPE_NOT_DETECTED(String pathname) {
 		return format("MEDIA_TYPE_NOT_DETECTED", pathname);
 	}
@@ -97,6 +115,42 @@ public final class Messages {
 	public static String CONTAINER_CORRUPT(Path path) {
 		return format("CONTAINER_CORRUPT", path);
 	}
+
+	public static String CONTAINER_STREAM_IO_FAILURE() {
+		return format("CONTAINER_STREAM_IO_FAILURE");
+	}
+
+	public static String CONTAINER_STREAM_CORRUPT() {
+		return format("CONTAINER_STREAM_CORRUPT");
+	}
+
+	public static String CONTAINER_BUFFER_CORRUPT() {
+		return format("CONTAINER_BUFFER_CORRUPT");
+	}
+
+	public static String CONTAINER_CHANNEL_IO_FAILURE() {
+		return format("CONTAINER_CHANNEL_IO_FAILURE");
+	}
+
+	public static String CONTAINER_CHANNEL_CORRUPT() {
+		return format("CONTAINER_CHANNEL_CORRUPT");
+	}
+
+	public static String CONTAINER_ITEM_NOT_FOUND(String location, Path path) {
+		return format("CONTAINER_ITEM_NOT_FOUND", location, path);
+	}
+
+	public static String CONTAINER_ITEM_TOO_LARGE(String location, long size) {
+		return format("CONTAINER_ITEM_TOO_LARGE", location, size);
+	}
+
+	public static String CONTAINER_ITEM_OUTSIDE(String location, Path path) {
+		return format("CONTAINER_ITEM_OUTSIDE", location, path);
+	}
+	
+	public static String COMPRESSION_POLICY_RESULT_MISSING(URI location) {
+		return format("COMPRESSION_POLICY_RESULT_MISSING", location);
+	}
 	
 	public static String CONTAINER_MIMETYPE_MISSING(Path path) {
 		return format("CONTAINER_MIMETYPE_MISSING", path);
@@ -109,6 +163,50 @@ public final class Messages {
 	public static String CONTAINER_MIMETYPE_UNEXPECTED(Path path, String mimetype) {
 		return format("CONTAINER_MIMETYPE_UNEXPECTED", path, mimetype);
 	}
+
+	public static String CONTAINER_STREAM_MIMETYPE_MISSING() {
+		return format("CONTAINER_STREAM_MIMETYPE_MISSING");
+	}
+
+	public static String CONTAINER_STREAM_MIMETYPE_UNEXPECTED(String mimetype) {
+		return format("CONTAINER_STREAM_MIMETYPE_UNEXPECTED", mimetype);
+	}
+
+	public static String CONTAINER_BUFFER_MIMETYPE_MISSING() {
+		return format("CONTAINER_BUFFER_MIMETYPE_MISSING");
+	}
+
+	public static String CONTAINER_BUFFER_MIMETYPE_MISLOCATED() {
+		return format("CONTAINER_BUFFER_MIMETYPE_MISLOCATED");
+	}
+
+	public static String CONTAINER_BUFFER_MIMETYPE_UNEXPECTED(String mimetype) {
+		return format("CONTAINER_BUFFER_MIMETYPE_UNEXPECTED", mimetype);
+	}
+
+	public static String CONTAINER_CHANNEL_MIMETYPE_MISSING() {
+		return format("CONTAINER_CHANNEL_MIMETYPE_MISSING");
+	}
+
+	public static String CONTAINER_CHANNEL_MIMETYPE_MISLOCATED() {
+		return format("CONTAINER_CHANNEL_MIMETYPE_MISLOCATED");
+	}
+
+	public static String CONTAINER_CHANNEL_MIMETYPE_UNEXPECTED(String mimetype) {
+		return format("CONTAINER_CHANNEL_MIMETYPE_UNEXPECTED", mimetype);
+	}
+
+	public static String LIBRARY_DIRECTORY_IO_FAILURE(Path path) {
+		return format("LIBRARY_DIRECTORY_IO_FAILURE", path);
+	}
+
+	public static String LIBRARY_FILE_READ_FAILURE(Path path) {
+		return format("LIBRARY_FILE_READ_FAILURE", path);
+	}
+
+	public static String LIBRARY_READ_INTERRUPTED() {
+		return format("LIBRARY_READ_INTERRUPTED");
+	}
 	
 	public static String METADATA_PROPERTY_PREFIX_IGNORED(String prefix) {
 		return format("METADATA_PROPERTY_PREFIX_IGNORED", prefix);
@@ -152,6 +250,10 @@ public final class Messages {
 		return format("XML_TRANSFORMER_MISCONFIGURED");
 	}
 
+	public static String XML_CATALOG_ENTRY_MISSING(String name) {
+		return format("XML_CATALOG_ENTRY_MISSING", name);
+	}
+
 	public static String XML_ELEMENT_MISSING(String fileName, String parentName, Set<String> missing) {
 		return format("XML_ELEMENT_MISSING", fileName, element(parentName), elements(missing));
 	}
@@ -189,13 +291,81 @@ public final class Messages {
 		return format("END_OF_CENTRAL_DIRECTORY_NOT_FOUND");
 	}
 
+	public static String END_OF_CENTRAL_DIRECTORY_BROKEN() {
+		return format("END_OF_CENTRAL_DIRECTORY_BROKEN");
+	}
+	
 	public static String CENTRAL_DIRECTORY_ENTRY_BROKEN() {
 		return format("CENTRAL_DIRECTORY_ENTRY_BROKEN");
 	}
+
+	public static String CENTRAL_DIRECTORY_TOO_LARGE(long length) {
+		return format("CENTRAL_DIRECTORY_TOO_LARGE", length);
+	}
+
+	public static String ZIP64_END_OF_CENTRAL_DIRECTORY_BROKEN() {
+		return format("ZIP64_END_OF_CENTRAL_DIRECTORY_BROKEN");
+	}
 	
 	public static String ZIP_ENTRY_NOT_FOUND(String entryName, Path zipName) {
 		return format("ZIP_ENTRY_NOT_FOUND", entryName, zipName);
 	}
+
+	public static String ZIP_ENTRY_DUPLICATE(String entryName) {
+		return format("ZIP_ENTRY_DUPLICATE", entryName);
+	}
+	
+	public static String ZIP_STREAM_ENTRY_NOT_FOUND(String entryName) {
+		return format("ZIP_STREAM_ENTRY_NOT_FOUND", entryName);
+	}
+
+	public static String ZIP_STREAM_SPILL_LIMIT_EXCEEDED(String entryName, long limit) {
+		return format("ZIP_STREAM_SPILL_LIMIT_EXCEEDED", entryName, limit);
+	}
+
+	public static String ZIP_STREAM_PINNED_LIMIT_EXCEEDED(String entryName, long limit) {
+		return format("ZIP_STREAM_PINNED_LIMIT_EXCEEDED", entryName, limit);
+	}
+
+	public static String ZIP_ARCHIVE_ENTRY_NOT_FOUND(String entryName) {
+		return format("ZIP_ARCHIVE_ENTRY_NOT_FOUND", entryName);
+	}
+	
+	public static String ZIP_ENTRY_METHOD_UNSUPPORTED(String entryName, int method) {
+		return format("ZIP_ENTRY_METHOD_UNSUPPORTED", entryName, method);
+	}
+
+	public static String LOCAL_FILE_HEADER_BROKEN(String entryName) {
+		return format("LOCAL_FILE_HEADER_BROKEN", entryName);
+	}
+
+	public static String ZIP_ENTRY_TOO_LARGE(String entryName, long size) {
+		return format("ZIP_ENTRY_TOO_LARGE", entryName, size);
+	}
+
+	public static String ZIP_ENTRY_SIZE_MISMATCH(String entryName, long expected) {
+		return format("ZIP_ENTRY_SIZE_MISMATCH", entryName, expected);
+	}
+
+	public static String ZIP_ENTRY_CRC_MISMATCH(String entryName, long expected, long actual) {
+		return format("ZIP_ENTRY_CRC_MISMATCH", entryName, Long.toHexString(expected), Long.toHexString(actual));
+	}
+
+	public static String ZIP_ENTRY_CORRUPTED(String entryName) {
+		return format("ZIP_ENTRY_CORRUPTED", entryName);
+	}
+
+	public static String ZIP_ENTRY_UNEXPECTED_END() {
+		return format("ZIP_ENTRY_UNEXPECTED_END");
+	}
+
+	public static String ZIP_ENTRY_STORED_TOO_LARGE(String entryName) {
+		return format("ZIP_ENTRY_STORED_TOO_LARGE", entryName);
+	}
+
+	public static String ZIP_INDEX_CACHE_BROKEN() {
+		return format("ZIP_INDEX_CACHE_BROKEN");
+	}
 	
 	/**
 	 * Formats a message.
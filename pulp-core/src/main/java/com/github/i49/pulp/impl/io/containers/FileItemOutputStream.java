@@ -0,0 +1,223 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.io.containers;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import com.github.i49.pulp.impl.base.Messages;
+
+/**
+ * Output stream writing an item of the container to a file.
+ *
+ * <p>While the content is written, it is compared with the file already existing,
+ * and the file is left untouched if the content is the same.
+ * Otherwise the content is written to a temporary file in the same directory,
+ * which replaces the existing file when this stream is closed.</p>
+ */
+class FileItemOutputStream extends OutputStream {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final Random random = new Random();
+
+	private final Path file;
+	// the file existing before written, or null if not exist or already differed.
+	private FileChannel existing;
+	private long existingSize;
+	// the number of bytes written which are the same as the existing file.
+	private long matched;
+	private ByteBuffer comparing;
+	private Path tempFile;
+	private OutputStream out;
+	private boolean closed;
+
+	/**
+	 * Constructs this stream.
+	 *
+	 * @param file the file to be written.
+	 * @throws IOException if an I/O error has occurred while opening the existing file.
+	 */
+	FileItemOutputStream(Path file) throws IOException {
+		this.file = file;
+		try {
+			this.existing = FileChannel.open(file, StandardOpenOption.READ);
+			this.existingSize = this.existing.size();
+			this.comparing = ByteBuffer.allocate(BUFFER_SIZE);
+		} catch (NoSuchFileException e) {
+			this.existing = null;
+		}
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[] {(byte)b}, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (closed) {
+			throw new IOException(Messages.STREAM_CLOSED());
+		}
+		if (off < 0 || len < 0 || len > b.length - off) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (out == null) {
+			if (compare(b, off, len)) {
+				matched += len;
+				return;
+			}
+			diverge();
+		}
+		out.write(b, off, len);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		try {
+			if (out == null) {
+				if (existing != null && matched == existingSize) {
+					existing.close();
+					return;
+				}
+				// The new content is shorter than the existing file.
+				diverge();
+			}
+			out.close();
+			try {
+				Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException | RuntimeException e) {
+			abandon();
+			throw e;
+		} finally {
+			closed = true;
+		}
+	}
+
+	/**
+	 * Compares the bytes with the existing file at the current position.
+	 *
+	 * @return {@code true} if all the bytes are the same as the existing file.
+	 */
+	private boolean compare(byte[] b, int off, int len) throws IOException {
+		if (existing == null || matched + len > existingSize) {
+			return false;
+		}
+		long position = matched;
+		while (len > 0) {
+			comparing.clear();
+			comparing.limit(Math.min(len, comparing.capacity()));
+			while (comparing.hasRemaining()) {
+				if (existing.read(comparing, position + comparing.position()) < 0) {
+					throw new EOFException();
+				}
+			}
+			comparing.flip();
+			int length = comparing.limit();
+			for (int i = 0; i < length; i++) {
+				if (comparing.get(i) != b[off + i]) {
+					return false;
+				}
+			}
+			position += length;
+			off += length;
+			len -= length;
+		}
+		return true;
+	}
+
+	/**
+	 * Starts writing to the temporary file,
+	 * copying the bytes already written from the existing file.
+	 */
+	private void diverge() throws IOException {
+		FileChannel channel = null;
+		try {
+			channel = createTempFile();
+			if (existing != null) {
+				long position = 0;
+				while (position < matched) {
+					long transferred = existing.transferTo(position, matched - position, channel);
+					if (transferred <= 0) {
+						throw new EOFException();
+					}
+					position += transferred;
+				}
+				existing.close();
+				existing = null;
+			}
+			out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+		} catch (IOException | RuntimeException e) {
+			if (channel != null && out == null) {
+				channel.close();
+			}
+			abandon();
+			throw e;
+		}
+	}
+
+	/**
+	 * Creates the temporary file next to the target file.
+	 * Unlike {@link Files#createTempFile}, the file is created with the default permissions,
+	 * which are kept after it replaces the target file.
+	 */
+	private FileChannel createTempFile() throws IOException {
+		for (;;) {
+			Path path = file.resolveSibling("." + file.getFileName() + "." + Long.toUnsignedString(random.nextLong(), 36) + ".tmp");
+			try {
+				FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+				tempFile = path;
+				return channel;
+			} catch (FileAlreadyExistsException e) {
+				// tries another name.
+			}
+		}
+	}
+
+	private void abandon() throws IOException {
+		try {
+			if (existing != null) {
+				existing.close();
+			}
+			if (out != null) {
+				out.close();
+			}
+		} finally {
+			if (tempFile != null) {
+				Files.deleteIfExists(tempFile);
+			}
+		}
+	}
+}
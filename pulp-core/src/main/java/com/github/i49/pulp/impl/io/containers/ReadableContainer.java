@@ -18,8 +18,12 @@ package com.github.i49.pulp.impl.io.containers;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
 
+import com.github.i49.pulp.api.publication.ArchiveEntry;
 import com.github.i49.pulp.api.publication.ContentSource;
 
 /**
@@ -50,7 +54,29 @@ public abstract class ReadableContainer extends AbstractContainer {
 	 */
 	public abstract byte[] readItem(String location) throws IOException;
 	
+	/**
+	 * Reads an item from this container as a buffer.
+	 * The buffer returned may be a read-only view of the container.
+	 * 
+	 * @param location the location of the item in the container.
+	 * @return the buffer containing the bytes read.
+	 * @throws IOException if I/O error has occurred while reading the item.
+	 */
+	public abstract ByteBuffer readItemAsBuffer(String location) throws IOException;
+	
 	public abstract InputStream openItemToRead(String location) throws IOException;
 	
 	public abstract ContentSource getContentSource(String location);
+	
+	/**
+	 * Returns the entries of all the items stored in the ZIP archive of this container.
+	 * The default implementation returns an empty map.
+	 * 
+	 * @return the entries keyed by their names in the order of the archive, 
+	 *         or an empty map if this container is not a ZIP archive.
+	 * @throws IOException if I/O error has occurred while locating the entries.
+	 */
+	public Map<String, ArchiveEntry> getArchiveEntries() throws IOException {
+		return Collections.emptyMap();
+	}
 }
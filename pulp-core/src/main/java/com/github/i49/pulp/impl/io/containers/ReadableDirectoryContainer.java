@@ -0,0 +1,205 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.io.containers;
+
+import static com.github.i49.pulp.impl.base.Limits.MAX_ARRAY_SIZE;
+
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.github.i49.pulp.api.publication.ContentSource;
+import com.github.i49.pulp.api.publication.EpubException;
+import com.github.i49.pulp.impl.base.Messages;
+import com.github.i49.pulp.impl.publication.FileContentSource;
+import com.github.i49.pulp.impl.publication.StandardMediaType;
+
+/**
+ * The container of the EPUB publication expanded in a directory.
+ *
+ * <p>The files in the directory are listed only once when this container is constructed,
+ * and the items are read directly from the files through {@link FileChannel}s.</p>
+ */
+public class ReadableDirectoryContainer extends ReadableContainer {
+
+	// the files in the directory keyed by their locations in the container.
+	private final Map<String, Path> files;
+	private final ContentSource contentSource;
+
+	/**
+	 * Constructs this container.
+	 *
+	 * @param path the path to the directory.
+	 * @throws IOException if I/O error has occurred while listing the files in the directory.
+	 */
+	public ReadableDirectoryContainer(Path path) throws IOException {
+		super(path);
+		this.files = listFiles(path);
+		this.contentSource = new DirectoryContentSource();
+	}
+
+	@Override
+	public void validate() throws IOException {
+		if (!contains(MIMETYPE_LOCATION)) {
+			throw new EpubException(Messages.CONTAINER_MIMETYPE_MISSING(getPath()));
+		}
+		String mimetype = new String(readItem(MIMETYPE_LOCATION), StandardCharsets.US_ASCII);
+		if (!StandardMediaType.APPLICATION_EPUB_ZIP.toString().equals(mimetype)) {
+			throw new EpubException(Messages.CONTAINER_MIMETYPE_UNEXPECTED(getPath(), mimetype));
+		}
+	}
+
+	@Override
+	public boolean contains(String location) {
+		return files.containsKey(location);
+	}
+
+	@Override
+	public byte[] readItem(String location) throws IOException {
+		ByteBuffer buffer = readItemAsBuffer(location);
+		return buffer.array();
+	}
+
+	@Override
+	public ByteBuffer readItemAsBuffer(String location) throws IOException {
+		try (FileChannel channel = openChannel(location)) {
+			long size = channel.size();
+			if (size > MAX_ARRAY_SIZE) {
+				throw new IOException(Messages.CONTAINER_ITEM_TOO_LARGE(location, size));
+			}
+			ByteBuffer buffer = ByteBuffer.allocate((int)size);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0) {
+					throw new EOFException();
+				}
+			}
+			buffer.flip();
+			return buffer;
+		}
+	}
+
+	@Override
+	public InputStream openItemToRead(String location) throws IOException {
+		return Channels.newInputStream(openChannel(location));
+	}
+
+	@Override
+	public ContentSource getContentSource(String location) {
+		// Returns a shared source.
+		return contentSource;
+	}
+
+	@Override
+	public void close() throws IOException {
+		// Nothing to release.
+	}
+
+	private FileChannel openChannel(String location) throws IOException {
+		return FileChannel.open(findFile(location), StandardOpenOption.READ);
+	}
+	
+	private Path findFile(String location) throws FileNotFoundException {
+		Path file = files.get(location);
+		if (file == null) {
+			throw new FileNotFoundException(Messages.CONTAINER_ITEM_NOT_FOUND(location, getPath()));
+		}
+		return file;
+	}
+
+	/**
+	 * Lists all regular files in the directory.
+	 *
+	 * @param directory the root directory of the container.
+	 * @return the files keyed by their locations in the container.
+	 * @throws IOException if I/O error has occurred.
+	 */
+	private static Map<String, Path> listFiles(Path directory) throws IOException {
+		Map<String, Path> files = new HashMap<>();
+		Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+				if (attributes.isRegularFile()) {
+					files.put(locationOf(directory.relativize(file)), file);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		return files;
+	}
+
+	/**
+	 * {@link ContentSource} providing the contents of the files in this container.
+	 */
+	private class DirectoryContentSource implements ContentSource {
+		
+		@Override
+		public InputStream openSource(URI location) throws IOException {
+			return openItemToRead(location.getPath());
+		}
+		
+		@Override
+		public ReadableByteChannel openChannel(URI location) throws IOException {
+			return ReadableDirectoryContainer.this.openChannel(location.getPath());
+		}
+		
+		@Override
+		public ByteBuffer asByteBuffer(URI location) throws IOException {
+			return fileSource(location).asByteBuffer(location);
+		}
+		
+		@Override
+		public long size(URI location) throws IOException {
+			return Files.size(findFile(location.getPath()));
+		}
+		
+		@Override
+		public long transferTo(URI location, WritableByteChannel target) throws IOException {
+			return fileSource(location).transferTo(location, target);
+		}
+		
+		private ContentSource fileSource(URI location) throws FileNotFoundException {
+			return new FileContentSource(findFile(location.getPath()));
+		}
+	}
+
+	private static String locationOf(Path relativePath) {
+		StringBuilder b = new StringBuilder();
+		for (Path name: relativePath) {
+			if (b.length() > 0) {
+				b.append('/');
+			}
+			b.append(name.toString());
+		}
+		return b.toString();
+	}
+}
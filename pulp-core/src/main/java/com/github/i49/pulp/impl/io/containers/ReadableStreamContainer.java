@@ -0,0 +1,178 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.io.containers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.xml.stream.XMLStreamException;
+
+import com.github.i49.pulp.api.publication.ContentSource;
+import com.github.i49.pulp.api.publication.EpubException;
+import com.github.i49.pulp.impl.base.Messages;
+import com.github.i49.pulp.impl.publication.StandardMediaType;
+import com.github.i49.pulp.impl.xml.ElementCursor;
+import com.github.i49.pulp.impl.xml.XmlServices;
+import com.github.i49.pulp.impl.zip.ZipStreamLoader;
+
+/**
+ * The ZIP-based container read from a stream in a single pass.
+ *
+ * <p>All items are read when this container is constructed.
+ * The container document and the package documents are held in memory,
+ * and the other items are held in memory up to the specified limit
+ * and stored in temporary files beyond the limit.
+ * The package documents are the rootfiles declared in the container document,
+ * which are held in memory only when they follow the container document in the stream.</p>
+ */
+public class ReadableStreamContainer extends ReadableContainer {
+
+	// the locations of the package documents declared in the container document.
+	private final Set<String> rootfiles = new HashSet<>();
+	private final ZipStreamLoader loader;
+	private final ContentSource contentSource;
+
+	/**
+	 * Constructs this container.
+	 * The stream given is not closed by this container.
+	 *
+	 * @param stream the stream providing the container.
+	 * @param memoryLimit the maximum number of bytes of the items held in memory.
+	 * @param spillLimit the maximum number of bytes of the items stored in temporary files.
+	 * @throws IOException if I/O error has occurred while reading the stream.
+	 */
+	public ReadableStreamContainer(InputStream stream, long memoryLimit, long spillLimit) throws IOException {
+		super(null);
+		this.loader = ZipStreamLoader.create(stream, memoryLimit, spillLimit, new RootfilePinningPolicy());
+		this.contentSource = new StreamContentSource();
+	}
+
+	@Override
+	public void validate() throws IOException {
+		if (loader.getNumberOfEntries() == 0 || !MIMETYPE_LOCATION.equals(loader.getEntryName(0))) {
+			throw new EpubException(Messages.CONTAINER_STREAM_MIMETYPE_MISSING());
+		}
+		String mimetype = new String(loader.load(MIMETYPE_LOCATION), StandardCharsets.US_ASCII);
+		if (!StandardMediaType.APPLICATION_EPUB_ZIP.toString().equals(mimetype)) {
+			throw new EpubException(Messages.CONTAINER_STREAM_MIMETYPE_UNEXPECTED(mimetype));
+		}
+	}
+
+	@Override
+	public boolean contains(String location) {
+		return loader.findEntry(location);
+	}
+
+	@Override
+	public byte[] readItem(String location) throws IOException {
+		return loader.load(location);
+	}
+
+	@Override
+	public ByteBuffer readItemAsBuffer(String location) throws IOException {
+		return loader.loadBuffer(location);
+	}
+
+	@Override
+	public InputStream openItemToRead(String location) throws IOException {
+		return loader.openToLoad(location);
+	}
+
+	@Override
+	public ContentSource getContentSource(String location) {
+		// Returns a shared source.
+		return contentSource;
+	}
+
+	@Override
+	public void close() throws IOException {
+		loader.close();
+	}
+
+	/**
+	 * {@link ZipStreamLoader.PinningPolicy} holding the container document
+	 * and the package documents declared in it in memory.
+	 */
+	private class RootfilePinningPolicy implements ZipStreamLoader.PinningPolicy {
+		
+		@Override
+		public boolean isPinned(String entryName) {
+			return MIMETYPE_LOCATION.equals(entryName) ||
+				   CONTAINER_DOCUMENT_LOCATION.equals(entryName) ||
+				   rootfiles.contains(entryName);
+		}
+		
+		@Override
+		public void loaded(String entryName, InputStream content) throws IOException {
+			if (!CONTAINER_DOCUMENT_LOCATION.equals(entryName)) {
+				return;
+			}
+			try {
+				ElementCursor cursor = XmlServices.newCursor(content, entryName);
+				try {
+					int rootDepth = cursor.getDepth();
+					while (cursor.nextChild(rootDepth)) {
+						if (isContainerElement(cursor, "rootfiles")) {
+							int parentDepth = cursor.getDepth();
+							while (cursor.nextChild(parentDepth)) {
+								String fullPath = cursor.getAttribute("full-path");
+								if (isContainerElement(cursor, "rootfile") && fullPath != null) {
+									rootfiles.add(fullPath);
+								}
+							}
+						}
+					}
+				} finally {
+					cursor.close();
+				}
+			} catch (XMLStreamException e) {
+				// The broken document is reported when it is parsed by the reader.
+			}
+		}
+		
+		private boolean isContainerElement(ElementCursor cursor, String localName) {
+			return localName.equals(cursor.getLocalName()) && 
+				   ContainerDocumentProcessor.NAMESPACE_URI.equals(cursor.getNamespaceURI());
+		}
+	}
+	
+	/**
+	 * {@link ContentSource} providing the contents held by this container.
+	 */
+	private class StreamContentSource implements ContentSource {
+		
+		@Override
+		public InputStream openSource(URI location) throws IOException {
+			return loader.openToLoad(location.getPath());
+		}
+		
+		@Override
+		public ByteBuffer asByteBuffer(URI location) throws IOException {
+			return loader.loadBuffer(location.getPath());
+		}
+		
+		@Override
+		public long size(URI location) throws IOException {
+			return loader.getContentSize(location.getPath());
+		}
+	}
+}
@@ -16,17 +16,25 @@
 
 package com.github.i49.pulp.impl.io.containers;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+import com.github.i49.pulp.api.publication.ArchiveEntry;
 import com.github.i49.pulp.api.publication.ContentSource;
 import com.github.i49.pulp.api.publication.EpubException;
 import com.github.i49.pulp.impl.base.Messages;
+import com.github.i49.pulp.impl.publication.ArchivedContentSource;
 import com.github.i49.pulp.impl.publication.StandardMediaType;
+import com.github.i49.pulp.impl.zip.ZipIndexCache;
 import com.github.i49.pulp.impl.zip.ZipLoader;
 
 /**
@@ -34,8 +42,16 @@ import com.github.i49.pulp.impl.zip.ZipLoader;
  */
 public class ReadableZipContainer extends ReadableContainer {
 	
-	private static final int BUFFER_SIZE = 128 * 1024;
+	/**
+	 * The origins of the ZIP file.
+	 */
+	private static enum Origin {
+		FILE,
+		BUFFER,
+		CHANNEL
+	}
 	
+	private final Origin origin;
 	private final ZipLoader loader;
 	private final ZipContentSource contentSource;
 	
@@ -46,23 +62,82 @@ public class ReadableZipContainer extends ReadableContainer {
 	 * @throws IOException if I/O error has occurred while opening the ZIP file.
 	 */
 	public ReadableZipContainer(Path path) throws IOException {
+		this(path, 0);
+	}
+	
+	/**
+	 * Constructs this container which maps the ZIP file into memory 
+	 * if the file is not larger than the specified size.
+	 * 
+	 * @param path the path to the container.
+	 * @param maxMappedSize the maximum size of the file in bytes to be memory-mapped.
+	 *                      Zero means that the file will never be mapped.
+	 * @throws IOException if I/O error has occurred while opening the ZIP file.
+	 */
+	public ReadableZipContainer(Path path, long maxMappedSize) throws IOException {
+		this(path, maxMappedSize, null);
+	}
+	
+	/**
+	 * Constructs this container which reuses the index of the ZIP file
+	 * if found in the specified cache.
+	 * 
+	 * @param path the path to the container.
+	 * @param maxMappedSize the maximum size of the file in bytes to be memory-mapped.
+	 *                      Zero means that the file will never be mapped.
+	 * @param indexCache the cache of the indices of ZIP files, can be {@code null}.
+	 * @throws IOException if I/O error has occurred while opening the ZIP file.
+	 */
+	public ReadableZipContainer(Path path, long maxMappedSize, ZipIndexCache indexCache) throws IOException {
 		super(path);
-		this.loader = ZipLoader.create(path, StandardCharsets.UTF_8);
+		this.origin = Origin.FILE;
+		this.loader = ZipLoader.create(path, StandardCharsets.UTF_8, maxMappedSize, indexCache);
+		this.contentSource = new ZipContentSource();
+	}
+
+	/**
+	 * Constructs this container reading the ZIP file held in the buffer.
+	 * The bytes between the position and the limit of the buffer are used.
+	 * The path of this container is {@code null}.
+	 * 
+	 * @param buffer the buffer holding the whole ZIP file.
+	 * @throws IOException if I/O error has occurred while reading the ZIP file.
+	 */
+	public ReadableZipContainer(ByteBuffer buffer) throws IOException {
+		super(null);
+		this.origin = Origin.BUFFER;
+		this.loader = ZipLoader.create(buffer, StandardCharsets.UTF_8);
+		this.contentSource = new ZipContentSource();
+	}
+
+	/**
+	 * Constructs this container reading the ZIP file through the channel.
+	 * Only the regions of the file needed are read from the channel.
+	 * The channel is not closed by this container.
+	 * The path of this container is {@code null}.
+	 * 
+	 * @param channel the channel of the ZIP file.
+	 * @throws IOException if I/O error has occurred while reading the ZIP file.
+	 */
+	public ReadableZipContainer(SeekableByteChannel channel) throws IOException {
+		super(null);
+		this.origin = Origin.CHANNEL;
+		this.loader = ZipLoader.create(channel, StandardCharsets.UTF_8);
 		this.contentSource = new ZipContentSource();
 	}
 
 	@Override
 	public void validate() throws IOException {
 		if (!loader.findEntry(MIMETYPE_LOCATION)) {
-			throw new EpubException(Messages.CONTAINER_MIMETYPE_MISSING(getPath()));
+			throw new EpubException(mimetypeMissing());
 		}
 		String entryName = loader.getEntryName(0);
 		if (!MIMETYPE_LOCATION.equals(entryName)) {
-			throw new EpubException(Messages.CONTAINER_MIMETYPE_MISLOCATED(getPath()));
+			throw new EpubException(mimetypeMislocated());
 		}
 		String mimetype = new String(loader.load(MIMETYPE_LOCATION), StandardCharsets.US_ASCII);
 		if (!StandardMediaType.APPLICATION_EPUB_ZIP.toString().equals(mimetype)) {
-			throw new EpubException(Messages.CONTAINER_MIMETYPE_UNEXPECTED(getPath(), mimetype));
+			throw new EpubException(mimetypeUnexpected(mimetype));
 		}
 	}
 	
@@ -73,15 +148,12 @@ public class ReadableZipContainer extends ReadableContainer {
 	
 	@Override
 	public byte[] readItem(String location) throws IOException {
-		try (InputStream in = loader.openToLoad(location)) {
-			ByteArrayOutputStream out = new ByteArrayOutputStream();
-			byte[] buffer = new byte[BUFFER_SIZE];
-			int len = 0;
-			while ((len = in.read(buffer)) != -1) {
-				out.write(buffer, 0, len);
-			}
-			return out.toByteArray();
-		}
+		return loader.load(location);
+	}
+
+	@Override
+	public ByteBuffer readItemAsBuffer(String location) throws IOException {
+		return loader.loadBuffer(location);
 	}
 
 	@Override
@@ -95,21 +167,114 @@ public class ReadableZipContainer extends ReadableContainer {
 		return contentSource;
 	}
 	
+	/**
+	 * {@inheritDoc}
+	 * The local file headers of all the entries are read by this method.
+	 * The entries of the directories are not included.
+	 */
+	@Override
+	public Map<String, ArchiveEntry> getArchiveEntries() throws IOException {
+		int total = loader.getNumberOfEntries();
+		Map<String, ArchiveEntry> entries = new LinkedHashMap<>(total * 4 / 3 + 1);
+		for (int i = 0; i < total; i++) {
+			String name = loader.getEntryName(i);
+			if (name.endsWith("/") || entries.containsKey(name)) {
+				continue;
+			}
+			ArchiveEntry entry = ZipArchiveEntry.locate(loader, name);
+			if (entry != null) {
+				entries.put(name, entry);
+			}
+		}
+		return Collections.unmodifiableMap(entries);
+	}
+	
 	@Override
-	public void close() {
-		// Nothing to do.
+	public void close() throws IOException {
+		loader.close();
+	}
+	
+	private String mimetypeMissing() {
+		switch (origin) {
+		case BUFFER:
+			return Messages.CONTAINER_BUFFER_MIMETYPE_MISSING();
+		case CHANNEL:
+			return Messages.CONTAINER_CHANNEL_MIMETYPE_MISSING();
+		default:
+			return Messages.CONTAINER_MIMETYPE_MISSING(getPath());
+		}
+	}
+	
+	private String mimetypeMislocated() {
+		switch (origin) {
+		case BUFFER:
+			return Messages.CONTAINER_BUFFER_MIMETYPE_MISLOCATED();
+		case CHANNEL:
+			return Messages.CONTAINER_CHANNEL_MIMETYPE_MISLOCATED();
+		default:
+			return Messages.CONTAINER_MIMETYPE_MISLOCATED(getPath());
+		}
+	}
+	
+	private String mimetypeUnexpected(String mimetype) {
+		switch (origin) {
+		case BUFFER:
+			return Messages.CONTAINER_BUFFER_MIMETYPE_UNEXPECTED(mimetype);
+		case CHANNEL:
+			return Messages.CONTAINER_CHANNEL_MIMETYPE_UNEXPECTED(mimetype);
+		default:
+			return Messages.CONTAINER_MIMETYPE_UNEXPECTED(getPath(), mimetype);
+		}
 	}
 	
 	/**
 	 * Concrete class of {@link ContentSource} that will load resource content
 	 * from this ZIP container.
 	 */
-	private class ZipContentSource implements ContentSource {
+	class ZipContentSource implements ArchivedContentSource {
+		
+		/**
+		 * Returns the loader of the ZIP file providing the content.
+		 * 
+		 * @return the loader of the ZIP file.
+		 */
+		ZipLoader getLoader() {
+			return loader;
+		}
 		
 		@Override
 		public InputStream openSource(URI location) throws IOException {
 			String entryName = location.getPath();
 			return loader.openToLoad(entryName);
 		}
+		
+		/**
+		 * {@inheritDoc}
+		 * The entry stored without compression in the memory-mapped ZIP file
+		 * is returned as a read-only view of the file.
+		 */
+		@Override
+		public ByteBuffer asByteBuffer(URI location) throws IOException {
+			return loader.loadBuffer(location.getPath());
+		}
+		
+		@Override
+		public long size(URI location) throws IOException {
+			return loader.getContentSize(location.getPath());
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 * The entry stored without compression is transferred directly from the ZIP file.
+		 */
+		@Override
+		public long transferTo(URI location, WritableByteChannel target) throws IOException {
+			return loader.transferTo(location.getPath(), target);
+		}
+		
+		@Override
+		public ArchiveEntry getArchiveEntry(URI location) throws IOException {
+			return ZipArchiveEntry.locate(loader, location.getPath());
+		}
 	}
 }
@@ -17,11 +17,18 @@
 package com.github.i49.pulp.impl.io.containers;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.URI;
 import java.nio.file.Path;
 
+import com.github.i49.pulp.api.publication.Compression;
+import com.github.i49.pulp.api.publication.ContentSource;
+
 public abstract class WriteableContainer extends AbstractContainer {
 	
+	private static final int BUFFER_SIZE = 128 * 1024;
+	
 	protected WriteableContainer(Path path) {
 		super(path);
 	}
@@ -29,4 +36,62 @@ public abstract class WriteableContainer extends AbstractContainer {
 	public abstract void writeItem(String location, byte[] content) throws IOException;
 	
 	public abstract OutputStream openItemToWrite(String location) throws IOException;
+	
+	/**
+	 * Opens an item to write with the specified compression.
+	 * This container ignores the compression by default.
+	 * 
+	 * @param location the location of the item in this container.
+	 * @param compression the compression of the item.
+	 * @return the stream to write the item, which must be closed by the caller.
+	 * @throws IOException if I/O error has occurred while opening the item.
+	 */
+	public OutputStream openItemToWrite(String location, Compression compression) throws IOException {
+		return openItemToWrite(location);
+	}
+	
+	/**
+	 * Copies an item from the content source without decoding it, if possible.
+	 * This container does not support copying by default.
+	 * 
+	 * @param location the location of the item in this container.
+	 * @param source the content source of the item.
+	 * @param sourceLocation the location of the item in the content source.
+	 * @param compression the compression requested for the item.
+	 * @return {@code true} if the item was copied, {@code false} if the item must be written as usual.
+	 * @throws IOException if I/O error has occurred while copying the item.
+	 */
+	public boolean copyItem(String location, ContentSource source, URI sourceLocation, Compression compression) throws IOException {
+		return false;
+	}
+	
+	/**
+	 * Writes an item with the content provided by the content source.
+	 * The item may be written asynchronously, and the content source may be opened 
+	 * by a thread other than the calling thread.
+	 * 
+	 * @param location the location of the item in this container.
+	 * @param source the content source of the item.
+	 * @param sourceLocation the location passed to the content source.
+	 * @param compression the compression of the item.
+	 * @throws IOException if I/O error has occurred while writing the item.
+	 * @see #flush()
+	 */
+	public void writeItem(String location, ContentSource source, URI sourceLocation, Compression compression) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try (InputStream in = source.openSource(sourceLocation); OutputStream out = openItemToWrite(location, compression)) {
+			int len = 0;
+			while ((len = in.read(buffer)) != -1) {
+				out.write(buffer, 0, len);
+			}
+		}
+	}
+	
+	/**
+	 * Waits until all the items written asynchronously are written.
+	 * 
+	 * @throws IOException if I/O error has occurred while writing any item.
+	 */
+	public void flush() throws IOException {
+	}
 }
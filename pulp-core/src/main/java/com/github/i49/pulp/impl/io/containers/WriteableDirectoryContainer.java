@@ -0,0 +1,203 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.io.containers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.i49.pulp.api.publication.Compression;
+import com.github.i49.pulp.api.publication.ContentSource;
+import com.github.i49.pulp.impl.base.Messages;
+
+/**
+ * The container writing the EPUB publication expanded in a directory.
+ *
+ * <p>Each item is written to a file without compression.
+ * The files having the same content as the item are left untouched.
+ * The items provided by content sources are written in parallel
+ * if more than one thread is specified.</p>
+ *
+ * <p>The methods of this class must be called by a single thread.</p>
+ */
+public class WriteableDirectoryContainer extends WriteableContainer {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final AtomicInteger threadNumber = new AtomicInteger();
+
+	private final Path directory;
+	// the threads writing the items, or null if disabled.
+	private final ExecutorService workers;
+	// limits the number of items waiting to be written.
+	private final Semaphore backlog;
+	private final int maxBacklog;
+	private volatile IOException failure;
+
+	/**
+	 * Constructs this container.
+	 * The directory is created if it does not exist.
+	 *
+	 * @param path the path to the directory.
+	 * @param parallelism the number of threads writing the items.
+	 * @throws IOException if I/O error has occurred while creating the directory.
+	 */
+	public WriteableDirectoryContainer(Path path, int parallelism) throws IOException {
+		super(path);
+		this.directory = Files.createDirectories(path).toAbsolutePath().normalize();
+		if (parallelism > 1) {
+			this.workers = Executors.newFixedThreadPool(parallelism, WriteableDirectoryContainer::newThread);
+		} else {
+			this.workers = null;
+		}
+		this.maxBacklog = parallelism * 4;
+		this.backlog = new Semaphore(this.maxBacklog);
+	}
+
+	@Override
+	public void writeItem(String location, byte[] content) throws IOException {
+		try (OutputStream out = openItemToWrite(location)) {
+			out.write(content);
+		}
+	}
+
+	@Override
+	public OutputStream openItemToWrite(String location) throws IOException {
+		checkFailure();
+		Path file = resolve(location);
+		Files.createDirectories(file.getParent());
+		return new FileItemOutputStream(file);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The compression is ignored by this container.
+	 */
+	@Override
+	public OutputStream openItemToWrite(String location, Compression compression) throws IOException {
+		return openItemToWrite(location);
+	}
+
+	@Override
+	public void writeItem(String location, ContentSource source, URI sourceLocation, Compression compression) throws IOException {
+		if (workers == null) {
+			copy(location, source, sourceLocation);
+			return;
+		}
+		checkFailure();
+		acquireBacklog(1);
+		try {
+			workers.execute(()->{
+				try {
+					if (failure == null) {
+						copy(location, source, sourceLocation);
+					}
+				} catch (IOException e) {
+					recordFailure(e);
+				} catch (RuntimeException e) {
+					recordFailure(new IOException(e));
+				} finally {
+					backlog.release();
+				}
+			});
+		} catch (RuntimeException e) {
+			backlog.release();
+			throw e;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		if (workers != null) {
+			// Waits until all the tasks release their permits.
+			acquireBacklog(maxBacklog);
+			backlog.release(maxBacklog);
+		}
+		checkFailure();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			if (workers != null) {
+				workers.shutdownNow();
+			}
+		}
+	}
+
+	private void copy(String location, ContentSource source, URI sourceLocation) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try (InputStream in = source.openSource(sourceLocation); OutputStream out = openItemToWrite(location)) {
+			int len = 0;
+			while ((len = in.read(buffer)) != -1) {
+				out.write(buffer, 0, len);
+			}
+		}
+	}
+
+	/**
+	 * Resolves the location of the item to the file in the directory.
+	 *
+	 * @param location the location of the item.
+	 * @return the path to the file.
+	 * @throws IOException if the location points outside of the directory.
+	 */
+	private Path resolve(String location) throws IOException {
+		Path file = directory.resolve(location).normalize();
+		if (!file.startsWith(directory) || file.equals(directory)) {
+			throw new IOException(Messages.CONTAINER_ITEM_OUTSIDE(location, directory));
+		}
+		return file;
+	}
+
+	private void acquireBacklog(int permits) throws IOException {
+		try {
+			backlog.acquire(permits);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+	}
+
+	private void recordFailure(IOException e) {
+		if (failure == null) {
+			failure = e;
+		}
+	}
+
+	private void checkFailure() throws IOException {
+		IOException e = failure;
+		if (e != null) {
+			throw e;
+		}
+	}
+
+	private static Thread newThread(Runnable r) {
+		Thread thread = new Thread(r, "pulp-directory-writer-" + threadNumber.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	}
+}
@@ -16,71 +16,173 @@
 
 package com.github.i49.pulp.impl.io.containers;
 
-import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.nio.file.Files;
+import java.net.URI;
 import java.nio.file.Path;
-import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+
+import com.github.i49.pulp.api.publication.Compression;
+import com.github.i49.pulp.api.publication.ContentSource;
+import com.github.i49.pulp.impl.zip.ParallelZipWriter;
+import com.github.i49.pulp.impl.zip.ZipLoader;
+import com.github.i49.pulp.impl.zip.ZipWriter;
 
 public class WriteableZipContainer extends WriteableContainer {
 
-	private final ZipOutputStream zstream;
+	private final ZipWriter writer;
+	// the writer compressing the items in parallel, or null if disabled.
+	private final ParallelZipWriter parallelWriter;
 	
 	public WriteableZipContainer(Path path) throws IOException {
-		super(path);
-		this.zstream = new ZipOutputStream(Files.newOutputStream(path));
+		this(path, 1, 0);
 	}
 
 	public WriteableZipContainer(OutputStream stream) {
+		this(stream, 1, 0);
+	}
+
+	/**
+	 * Constructs this container.
+	 * 
+	 * @param path the path of the ZIP file to be written.
+	 * @param parallelism the number of threads compressing the items.
+	 * @param memoryLimit the maximum size in bytes of the compressed data held in memory.
+	 * @throws IOException if I/O error has occurred while creating the file.
+	 */
+	public WriteableZipContainer(Path path, int parallelism, long memoryLimit) throws IOException {
+		super(path);
+		this.writer = new ZipWriter(path);
+		this.parallelWriter = createParallelWriter(this.writer, parallelism, memoryLimit);
+	}
+
+	/**
+	 * Constructs this container.
+	 * 
+	 * @param stream the stream to which the ZIP file will be written.
+	 * @param parallelism the number of threads compressing the items.
+	 * @param memoryLimit the maximum size in bytes of the compressed data held in memory.
+	 */
+	public WriteableZipContainer(OutputStream stream, int parallelism, long memoryLimit) {
 		super(null);
-		this.zstream = new ZipOutputStream(stream);
+		this.writer = new ZipWriter(stream);
+		this.parallelWriter = createParallelWriter(this.writer, parallelism, memoryLimit);
 	}
 
 	@Override
 	public void writeItem(String pathname, byte[] content) throws IOException {
-		ZipEntry entry = new ZipEntry(pathname);
-		entry.setCrc(computeCRC(content));
-		entry.setSize(content.length);
-		entry.setMethod(ZipEntry.STORED);
-		this.zstream.putNextEntry(entry);
-		this.zstream.write(content);
-		this.zstream.closeEntry();
-		this.zstream.flush();
+		if (this.parallelWriter != null) {
+			this.parallelWriter.writeStored(pathname, content);
+		} else {
+			this.writer.writeStored(pathname, content);
+		}
 	}
 
 	@Override
 	public OutputStream openItemToWrite(String pathname) throws IOException {
-		ZipEntry entry = new ZipEntry(pathname);
-		entry.setMethod(ZipEntry.DEFLATED);
-		this.zstream.putNextEntry(entry);
-		return new EntryOutputStream(this.zstream);
+		return openItemToWrite(pathname, Compression.DEFLATED);
+	}
+
+	@Override
+	public OutputStream openItemToWrite(String pathname, Compression compression) throws IOException {
+		int level = level(compression);
+		switch (compression.getMethod()) {
+		case STORED:
+			return (this.parallelWriter != null) ? 
+					this.parallelWriter.openStored(pathname) : this.writer.openStored(pathname);
+		case PROBED:
+			return (this.parallelWriter != null) ? 
+					this.parallelWriter.openProbed(pathname, level) : this.writer.openProbed(pathname, level);
+		default:
+			return (this.parallelWriter != null) ? 
+					this.parallelWriter.openDeflated(pathname, level) : this.writer.openDeflated(pathname, level);
+		}
+	}
+
+	/**
+	 * Compresses the item by one of the worker threads if parallel compression is enabled.
+	 */
+	@Override
+	public void writeItem(String location, ContentSource source, URI sourceLocation, Compression compression) throws IOException {
+		if (this.parallelWriter == null) {
+			super.writeItem(location, source, sourceLocation, compression);
+			return;
+		}
+		ParallelZipWriter.ContentOpener opener = ()->source.openSource(sourceLocation);
+		switch (compression.getMethod()) {
+		case STORED:
+			this.parallelWriter.submitStored(location, opener);
+			break;
+		case PROBED:
+			this.parallelWriter.submitProbed(location, level(compression), opener);
+			break;
+		default:
+			this.parallelWriter.submitDeflated(location, level(compression), opener);
+			break;
+		}
+	}
+
+	/**
+	 * Copies the compressed data of the item as it is 
+	 * if the content source is an entry of another ZIP container
+	 * and the entry was compressed with the method requested.
+	 * The compression level of the original entry is retained.
+	 */
+	@Override
+	public boolean copyItem(String location, ContentSource source, URI sourceLocation, Compression compression) throws IOException {
+		if (!(source instanceof ReadableZipContainer.ZipContentSource)) {
+			return false;
+		}
+		ZipLoader loader = ((ReadableZipContainer.ZipContentSource)source).getLoader();
+		String entryName = sourceLocation.getPath();
+		if (!isCompatible(loader.getCompressionMethod(entryName), compression)) {
+			return false;
+		}
+		if (this.parallelWriter != null) {
+			this.parallelWriter.copyEntry(loader, entryName, location);
+		} else {
+			this.writer.copyEntry(loader, entryName, location);
+		}
+		return true;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		if (this.parallelWriter != null) {
+			this.parallelWriter.flush();
+		}
 	}
 
 	@Override
 	public void close() throws IOException {
-		this.zstream.close();
+		if (this.parallelWriter != null) {
+			this.parallelWriter.close();
+		} else {
+			this.writer.close();
+		}
 	}
 	
-	private static long computeCRC(byte[] content) {
-		CRC32 crc = new CRC32();
-		crc.update(content);
-		return crc.getValue();
+	private static int level(Compression compression) {
+		int level = compression.getLevel();
+		return (level == Compression.DEFAULT_LEVEL) ? Deflater.DEFAULT_COMPRESSION : level;
 	}
 	
-	private static class EntryOutputStream extends FilterOutputStream {
-
-		public EntryOutputStream(OutputStream out) {
-			super(out);
+	private static boolean isCompatible(int method, Compression compression) {
+		switch (compression.getMethod()) {
+		case STORED:
+			return method == ZipEntry.STORED;
+		case DEFLATED:
+			return method == ZipEntry.DEFLATED;
+		default:
+			return method == ZipEntry.STORED || method == ZipEntry.DEFLATED;
 		}
-
-		@Override
-		public void close() throws IOException {
-			ZipOutputStream stream = (ZipOutputStream)out;
-			stream.closeEntry();
-			stream.flush();
+	}
+	
+	private static ParallelZipWriter createParallelWriter(ZipWriter writer, int parallelism, long memoryLimit) {
+		if (parallelism <= 1) {
+			return null;
 		}
+		return new ParallelZipWriter(writer, parallelism, memoryLimit);
 	}
 }
@@ -0,0 +1,105 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.io.containers;
+
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+
+import com.github.i49.pulp.api.publication.ArchiveEntry;
+import com.github.i49.pulp.api.publication.Compression;
+import com.github.i49.pulp.impl.zip.ZipLoader;
+
+/**
+ * An implementation of {@link ArchiveEntry} located by {@link ZipLoader}.
+ */
+class ZipArchiveEntry implements ArchiveEntry {
+
+	private final String name;
+	private final Compression.Method method;
+	private final long dataOffset;
+	private final long compressedSize;
+	private final long size;
+	private final long crc;
+	
+	/**
+	 * Locates the entry in the ZIP file.
+	 * 
+	 * @param loader the loader of the ZIP file.
+	 * @param name the name of the entry.
+	 * @return the entry located, or {@code null} if the entry is compressed by the method not supported.
+	 * @throws IOException if an I/O error has occurred while reading the local file header.
+	 */
+	static ZipArchiveEntry locate(ZipLoader loader, String name) throws IOException {
+		Compression.Method method;
+		switch (loader.getCompressionMethod(name)) {
+		case ZipEntry.STORED:
+			method = Compression.Method.STORED;
+			break;
+		case ZipEntry.DEFLATED:
+			method = Compression.Method.DEFLATED;
+			break;
+		default:
+			return null;
+		}
+		return new ZipArchiveEntry(name, method, loader.getDataOffset(name), 
+				loader.getCompressedSize(name), loader.getContentSize(name), loader.getCrc(name));
+	}
+	
+	private ZipArchiveEntry(String name, Compression.Method method, long dataOffset, long compressedSize, long size, long crc) {
+		this.name = name;
+		this.method = method;
+		this.dataOffset = dataOffset;
+		this.compressedSize = compressedSize;
+		this.size = size;
+		this.crc = crc;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public Compression.Method getMethod() {
+		return method;
+	}
+
+	@Override
+	public long getDataOffset() {
+		return dataOffset;
+	}
+
+	@Override
+	public long getCompressedSize() {
+		return compressedSize;
+	}
+
+	@Override
+	public long getSize() {
+		return size;
+	}
+
+	@Override
+	public long getCrc() {
+		return crc;
+	}
+
+	@Override
+	public String toString() {
+		return name + " (" + method + ", offset=" + dataOffset + ", compressed=" + compressedSize + ", size=" + size + ")";
+	}
+}
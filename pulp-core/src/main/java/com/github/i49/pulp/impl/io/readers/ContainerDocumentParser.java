@@ -20,12 +20,15 @@ import static com.github.i49.pulp.impl.xml.XmlAssertions.assertOn;
 
 import java.util.Iterator;
 
+import javax.xml.stream.XMLStreamException;
+
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
 import com.github.i49.pulp.api.publication.Publication;
 import com.github.i49.pulp.api.publication.Rendition;
 import com.github.i49.pulp.impl.io.containers.ContainerDocumentProcessor;
+import com.github.i49.pulp.impl.xml.ElementCursor;
 
 interface ContainerDocumentParser extends ContainerDocumentProcessor {
 
@@ -40,5 +43,30 @@ interface ContainerDocumentParser extends ContainerDocumentProcessor {
 		return rootElement.getAttribute("version");
 	}
 	
+	/**
+	 * Probes the version of the specification.
+	 * 
+	 * @param cursor the cursor positioned at the root element of the document.
+	 * @return the version of the specification.
+	 */
+	static String probe(ElementCursor cursor) {
+		
+		assertOn(cursor)
+		.hasName("container", NAMESPACE_URI)
+		.hasNonEmptyAttribute("version");
+		
+		return cursor.getAttribute("version");
+	}
+	
 	Iterator<Rendition> parse(Document document, Publication publication);
+
+	/**
+	 * Parses the container document in a single forward pass.
+	 * 
+	 * @param cursor the cursor positioned at the root element of the document.
+	 * @param publication the publication to which the renditions will be added.
+	 * @return the iterator creating the renditions found.
+	 * @throws XMLStreamException if the document is not well-formed.
+	 */
+	Iterator<Rendition> parse(ElementCursor cursor, Publication publication) throws XMLStreamException;
 }
@@ -23,12 +23,15 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 
+import javax.xml.stream.XMLStreamException;
+
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
 import com.github.i49.pulp.api.publication.Publication;
 import com.github.i49.pulp.api.publication.Rendition;
 import com.github.i49.pulp.impl.publication.StandardMediaType;
+import com.github.i49.pulp.impl.xml.ElementCursor;
 import com.github.i49.pulp.impl.xml.Nodes;
 
 /**
@@ -36,7 +39,8 @@ import com.github.i49.pulp.impl.xml.Nodes;
  */
 class ContainerDocumentParser1 implements ContainerDocumentParser {
 
-	private final List<Element> rootfiles = new ArrayList<>();
+	// the locations of the package documents.
+	private final List<String> rootfiles = new ArrayList<>();
 	
 	@Override
 	public Iterator<Rendition> parse(Document document, Publication publication) {
@@ -46,6 +50,16 @@ class ContainerDocumentParser1 implements ContainerDocumentParser {
 		parseRootfiles(it.next());
 		return new RenditionIterator(publication);
 	}
+	
+	@Override
+	public Iterator<Rendition> parse(ElementCursor cursor, Publication publication) throws XMLStreamException {
+		cursor.forEachChild(new String[] {"rootfiles"}, index->{
+			if (index == 0) {
+				parseRootfiles(cursor);
+			}
+		});
+		return new RenditionIterator(publication);
+	}
 		
 	protected void parseRootfiles(Element rootfiles) {
 		assertOn(rootfiles).hasName("rootfiles", NAMESPACE_URI).contains("rootfile");
@@ -55,17 +69,27 @@ class ContainerDocumentParser1 implements ContainerDocumentParser {
 		}
 	}
 	
+	protected void parseRootfiles(ElementCursor cursor) throws XMLStreamException {
+		assertOn(cursor).hasName("rootfiles", NAMESPACE_URI);
+		cursor.forEachChild(new String[] {"rootfile"}, index->{
+			assertOn(cursor).hasName("rootfile", NAMESPACE_URI)
+			                .hasNonEmptyAttribute("media-type")
+			                .hasNonEmptyAttribute("full-path");
+			addRootfile(cursor.getAttribute("media-type"), cursor.getAttribute("full-path"));
+		});
+	}
+	
 	protected void parseRootfile(Element rootfile) {
 		assertOn(rootfile).hasName("rootfile", NAMESPACE_URI)
 		                  .hasNonEmptyAttribute("media-type")
 		                  .hasNonEmptyAttribute("full-path");
-		String mediaType = rootfile.getAttribute("media-type");
+		addRootfile(rootfile.getAttribute("media-type"), rootfile.getAttribute("full-path"));
+	}
+	
+	protected void addRootfile(String mediaType, String location) {
 		String expectedMediaType = StandardMediaType.APPLICATION_OEBPS_PACKAGE_XML.toString();
 		if (expectedMediaType.equals(mediaType)) {
-			String location = rootfile.getAttribute("full-path");
-			if (location != null) {
-				this.rootfiles.add(rootfile);
-			}
+			this.rootfiles.add(location);
 		}
 	}
 	
@@ -88,13 +112,12 @@ class ContainerDocumentParser1 implements ContainerDocumentParser {
 			if (this.nextIndex >= rootfiles.size()) {
 				throw new NoSuchElementException();
 			}
-			Element e = rootfiles.get(this.nextIndex++);	
-			return createRendition(e);
+			String location = rootfiles.get(this.nextIndex++);	
+			return createRendition(location);
 		}
 		
-		protected Rendition createRendition(Element rootfile) {
-			String location = rootfile.getAttribute("full-path");
+		protected Rendition createRendition(String location) {
 			return this.publication.addRendition(location);
 		}
 	}
-}
\ No newline at end of file
+}
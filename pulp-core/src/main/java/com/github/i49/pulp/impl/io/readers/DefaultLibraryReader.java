@@ -0,0 +1,308 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.io.readers;
+
+import static com.github.i49.pulp.impl.base.Preconditions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.github.i49.pulp.api.publication.EpubException;
+import com.github.i49.pulp.api.publication.LibraryReader;
+import com.github.i49.pulp.api.publication.Publication;
+import com.github.i49.pulp.api.publication.PublicationReader;
+import com.github.i49.pulp.api.publication.PublicationReaderFactory;
+import com.github.i49.pulp.impl.base.Messages;
+
+/**
+ * The default implementation of {@link LibraryReader}.
+ *
+ * <p>The files are read by the tasks of a {@link ForkJoinPool},
+ * all of which share the same factory creating the readers.
+ * The number of the tasks submitted but not consumed yet is limited,
+ * and the next path is taken from the source only after a result was consumed.</p>
+ */
+public class DefaultLibraryReader implements LibraryReader {
+
+	private static final String EXTENSION = ".epub";
+	private static final AtomicInteger threadNumber = new AtomicInteger();
+
+	private final PublicationReaderFactory factory;
+	private final ForkJoinPool pool;
+	// the maximum number of the files being read or waiting to be consumed.
+	private final int maxPending;
+
+	/**
+	 * Constructs this reader.
+	 *
+	 * @param factory the factory of the readers, which must be safe for use by multiple concurrent threads.
+	 * @param parallelism the number of the threads reading the files.
+	 */
+	public DefaultLibraryReader(PublicationReaderFactory factory, int parallelism) {
+		this.factory = factory;
+		this.pool = new ForkJoinPool(parallelism, DefaultLibraryReader::newThread, null, true);
+		this.maxPending = parallelism * 2;
+	}
+
+	@Override
+	public Stream<Result> read(Stream<Path> paths) {
+		checkNotNull(paths, "paths");
+		Iterator<Result> results = new ResultIterator(paths.iterator());
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(results, Spliterator.NONNULL), false)
+				.onClose(paths::close);
+	}
+
+	@Override
+	public void read(Stream<Path> paths, Consumer<? super Result> consumer) {
+		checkNotNull(paths, "paths");
+		checkNotNull(consumer, "consumer");
+		Semaphore backlog = new Semaphore(maxPending);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Iterator<Path> it = paths.iterator();
+		try {
+			while (failure.get() == null && it.hasNext()) {
+				Path path = it.next();
+				acquire(backlog, 1);
+				try {
+					pool.execute(()->{
+						try {
+							if (failure.get() == null) {
+								readPublication(path, result->{
+									consumer.accept(result);
+									return null;
+								});
+							}
+						} catch (RuntimeException | Error e) {
+							failure.compareAndSet(null, e);
+						} finally {
+							backlog.release();
+						}
+					});
+				} catch (RuntimeException e) {
+					backlog.release();
+					throw e;
+				}
+			}
+		} finally {
+			// Waits until all the tasks release their permits.
+			acquire(backlog, maxPending);
+			backlog.release(maxPending);
+		}
+		rethrow(failure.get());
+	}
+
+	@Override
+	public Stream<Result> readDirectory(Path directory) {
+		return read(listFiles(directory));
+	}
+
+	@Override
+	public void readDirectory(Path directory, Consumer<? super Result> consumer) {
+		checkNotNull(consumer, "consumer");
+		try (Stream<Path> paths = listFiles(directory)) {
+			read(paths, consumer);
+		}
+	}
+
+	@Override
+	public void close() {
+		pool.shutdownNow();
+	}
+
+	/**
+	 * Reads a publication and passes the result to the handler while the file is open.
+	 *
+	 * @param path the path to the file.
+	 * @param handler the handler of the result.
+	 * @return the value returned by the handler.
+	 */
+	private <T> T readPublication(Path path, Function<? super Result, T> handler) {
+		PublicationReader reader;
+		try {
+			reader = factory.createReader(path);
+		} catch (RuntimeException e) {
+			return handler.apply(new DefaultResult(path, null, toEpubException(path, e)));
+		}
+		try {
+			Result result;
+			try {
+				result = new DefaultResult(path, reader.read(), null);
+			} catch (RuntimeException e) {
+				result = new DefaultResult(path, null, toEpubException(path, e));
+			}
+			return handler.apply(result);
+		} finally {
+			try {
+				reader.close();
+			} catch (RuntimeException e) {
+				// The file already read is not affected.
+			}
+		}
+	}
+
+	/**
+	 * Converts the exception thrown while reading a file into the failure of its result,
+	 * so that the unexpected problem of a file does not stop reading the other files.
+	 *
+	 * @param path the path of the file.
+	 * @param e the exception thrown.
+	 * @return the failure of the result.
+	 */
+	private static EpubException toEpubException(Path path, RuntimeException e) {
+		if (e instanceof EpubException) {
+			return (EpubException)e;
+		}
+		return new EpubException(Messages.LIBRARY_FILE_READ_FAILURE(path), e);
+	}
+
+	private static Stream<Path> listFiles(Path directory) {
+		checkNotNull(directory, "directory");
+		try {
+			return Files.walk(directory).filter(DefaultLibraryReader::isEpubFile);
+		} catch (IOException e) {
+			throw new EpubException(Messages.LIBRARY_DIRECTORY_IO_FAILURE(directory), e);
+		}
+	}
+
+	private static boolean isEpubFile(Path path) {
+		Path name = path.getFileName();
+		return name != null && name.toString().toLowerCase().endsWith(EXTENSION) && Files.isRegularFile(path);
+	}
+
+	private static void acquire(Semaphore semaphore, int permits) {
+		try {
+			semaphore.acquire(permits);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new EpubException(Messages.LIBRARY_READ_INTERRUPTED(), e);
+		}
+	}
+
+	private static void rethrow(Throwable e) {
+		if (e instanceof RuntimeException) {
+			throw (RuntimeException)e;
+		} else if (e instanceof Error) {
+			throw (Error)e;
+		}
+	}
+
+	private static ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+		ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+		thread.setName("pulp-library-reader-" + threadNumber.incrementAndGet());
+		return thread;
+	}
+
+	/**
+	 * Iterator over the results in the order of completion,
+	 * which submits the next files as the results are consumed.
+	 */
+	private class ResultIterator implements Iterator<Result> {
+
+		private final Iterator<Path> paths;
+		private final CompletionService<Result> completion;
+		private int pending;
+
+		ResultIterator(Iterator<Path> paths) {
+			this.paths = paths;
+			this.completion = new ExecutorCompletionService<>(pool);
+			this.pending = 0;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (pending < maxPending && paths.hasNext()) {
+				Path path = paths.next();
+				completion.submit(()->readPublication(path, Function.identity()));
+				pending++;
+			}
+			return pending > 0;
+		}
+
+		@Override
+		public Result next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			try {
+				Result result = completion.take().get();
+				pending--;
+				return result;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new EpubException(Messages.LIBRARY_READ_INTERRUPTED(), e);
+			} catch (ExecutionException e) {
+				pending--;
+				rethrow(e.getCause());
+				throw new EpubException(e.getMessage(), e.getCause());
+			}
+		}
+	}
+
+	/**
+	 * The default implementation of {@link LibraryReader.Result}.
+	 */
+	private static class DefaultResult implements Result {
+
+		private final Path path;
+		private final Publication publication;
+		private final EpubException failure;
+
+		DefaultResult(Path path, Publication publication, EpubException failure) {
+			this.path = path;
+			this.publication = publication;
+			this.failure = failure;
+		}
+
+		@Override
+		public Path getPath() {
+			return path;
+		}
+
+		@Override
+		public Optional<Publication> getPublication() {
+			return Optional.ofNullable(publication);
+		}
+
+		@Override
+		public Optional<EpubException> getFailure() {
+			return Optional.ofNullable(failure);
+		}
+
+		@Override
+		public String toString() {
+			return path.toString();
+		}
+	}
+}
@@ -20,40 +20,167 @@ import static com.github.i49.pulp.impl.base.Preconditions.*;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.util.Map;
 import java.util.zip.ZipException;
 
 import com.github.i49.pulp.api.publication.EpubException;
 import com.github.i49.pulp.api.publication.EpubService;
+import com.github.i49.pulp.api.publication.LibraryReader;
 import com.github.i49.pulp.api.publication.PublicationReader;
 import com.github.i49.pulp.api.publication.PublicationReaderFactory;
+import com.github.i49.pulp.impl.base.Configuration;
 import com.github.i49.pulp.impl.base.Messages;
 import com.github.i49.pulp.impl.io.containers.ReadableContainer;
+import com.github.i49.pulp.impl.io.containers.ReadableDirectoryContainer;
+import com.github.i49.pulp.impl.io.containers.ReadableStreamContainer;
 import com.github.i49.pulp.impl.io.containers.ReadableZipContainer;
+import com.github.i49.pulp.impl.publication.DocumentCache;
+import com.github.i49.pulp.impl.zip.ZipIndexCache;
 
 /**
  * The default implementation of {@link PublicationReaderFactory}.
+ *
+ * <p>This factory is safe for use by multiple concurrent threads,
+ * which is required by the library readers sharing it.</p>
  */
 public class DefaultPublicationReaderFactory implements PublicationReaderFactory {
 
+	private static final long DEFAULT_MEMORY_MAPPING_LIMIT = 256 * 1024 * 1024;
+	private static final int DEFAULT_INDEX_CACHE_SIZE = 64;
+	private static final long DEFAULT_STREAM_MEMORY_LIMIT = 16 * 1024 * 1024;
+	private static final long DEFAULT_STREAM_SPILL_LIMIT = 1024 * 1024 * 1024;
+	private static final int DEFAULT_DOCUMENT_CACHE_SIZE = 64;
+	private static final long DEFAULT_DOCUMENT_CACHE_MEMORY_LIMIT = 16 * 1024 * 1024;
+	
 	private final EpubService service;
+	// the maximum size of the files to be memory-mapped, or zero if disabled.
+	private final long maxMappedSize;
+	// the cache of the ZIP indices, or null if disabled.
+	private final ZipIndexCache indexCache;
+	// the maximum size of the resources held in memory while reading streams.
+	private final long streamMemoryLimit;
+	// the maximum size of the resources stored in temporary files while reading streams.
+	private final long streamSpillLimit;
+	// whether the documents are parsed without building DOM trees.
+	private final boolean streamingParser;
+	// whether the resources in the manifests are built on the first access.
+	private final boolean lazyManifest;
+	// the number of the threads reading files in parallel by the library readers.
+	private final int libraryParallelism;
+	// the maximum number of the DOM trees cached for each publication, or zero if disabled.
+	private final int documentCacheSize;
+	// the maximum total size of the documents whose DOM trees are cached for each publication.
+	private final long documentCacheMemoryLimit;
 	
 	/**
 	 * Constructs this factory.
 	 * 
 	 * @param service the EPUB service.
+	 * @param config the configuration properties of this factory.
+	 * @throws IllegalArgumentException if any of the properties has invalid value.
 	 */
-	public DefaultPublicationReaderFactory(EpubService service) {
+	public DefaultPublicationReaderFactory(EpubService service, Map<String, ?> config) {
 		assert(service != null);
+		assert(config != null);
 		this.service = service;
+		Configuration c = Configuration.of(config);
+		if (c.getBoolean(MEMORY_MAPPING, false)) {
+			this.maxMappedSize = c.getLong(MEMORY_MAPPING_LIMIT, DEFAULT_MEMORY_MAPPING_LIMIT);
+		} else {
+			this.maxMappedSize = 0;
+		}
+		if (c.getBoolean(INDEX_CACHE, false)) {
+			int capacity = c.getInt(INDEX_CACHE_SIZE, DEFAULT_INDEX_CACHE_SIZE);
+			if (capacity < 1) {
+				throw new IllegalArgumentException(Messages.CONFIGURATION_PROPERTY_INVALID(INDEX_CACHE_SIZE, capacity));
+			}
+			this.indexCache = new ZipIndexCache(capacity, c.get(INDEX_CACHE_DIRECTORY, Path.class, null));
+		} else {
+			this.indexCache = null;
+		}
+		this.streamMemoryLimit = c.getLong(STREAM_MEMORY_LIMIT, DEFAULT_STREAM_MEMORY_LIMIT);
+		if (this.streamMemoryLimit < 0) {
+			throw new IllegalArgumentException(Messages.CONFIGURATION_PROPERTY_INVALID(STREAM_MEMORY_LIMIT, this.streamMemoryLimit));
+		}
+		this.streamSpillLimit = c.getLong(STREAM_SPILL_LIMIT, DEFAULT_STREAM_SPILL_LIMIT);
+		if (this.streamSpillLimit < 0) {
+			throw new IllegalArgumentException(Messages.CONFIGURATION_PROPERTY_INVALID(STREAM_SPILL_LIMIT, this.streamSpillLimit));
+		}
+		this.streamingParser = c.getBoolean(STREAMING_PARSER, true);
+		this.lazyManifest = c.getBoolean(LAZY_MANIFEST, false);
+		this.libraryParallelism = c.getInt(LIBRARY_PARALLELISM, Runtime.getRuntime().availableProcessors());
+		if (this.libraryParallelism < 1) {
+			throw new IllegalArgumentException(Messages.CONFIGURATION_PROPERTY_INVALID(LIBRARY_PARALLELISM, this.libraryParallelism));
+		}
+		if (c.getBoolean(DOCUMENT_CACHE, false)) {
+			this.documentCacheSize = c.getInt(DOCUMENT_CACHE_SIZE, DEFAULT_DOCUMENT_CACHE_SIZE);
+			if (this.documentCacheSize < 1) {
+				throw new IllegalArgumentException(Messages.CONFIGURATION_PROPERTY_INVALID(DOCUMENT_CACHE_SIZE, this.documentCacheSize));
+			}
+			this.documentCacheMemoryLimit = c.getLong(DOCUMENT_CACHE_MEMORY_LIMIT, DEFAULT_DOCUMENT_CACHE_MEMORY_LIMIT);
+			if (this.documentCacheMemoryLimit < 0) {
+				throw new IllegalArgumentException(Messages.CONFIGURATION_PROPERTY_INVALID(DOCUMENT_CACHE_MEMORY_LIMIT, this.documentCacheMemoryLimit));
+			}
+		} else {
+			this.documentCacheSize = 0;
+			this.documentCacheMemoryLimit = 0;
+		}
 	}
 	
 	@Override
 	public PublicationReader createReader(Path path) {
 		checkNotNull(path, "path");
 		ReadableContainer container = openContainer(path);
-		return new EpubPublicationReader(container, this.service);
+		return createReader(container);
+	}
+	
+	@Override
+	public PublicationReader createStreamReader(InputStream stream) {
+		checkNotNull(stream, "stream");
+		ReadableContainer container = openContainer(stream);
+		return createReader(container);
+	}
+
+	@Override
+	public PublicationReader createBufferReader(ByteBuffer buffer) {
+		checkNotNull(buffer, "buffer");
+		ReadableContainer container = openContainer(buffer);
+		return createReader(container);
+	}
+	
+	@Override
+	public PublicationReader createStreamReader(ReadableByteChannel channel) {
+		checkNotNull(channel, "channel");
+		return createStreamReader(Channels.newInputStream(channel));
+	}
+	
+	@Override
+	public PublicationReader createRangeReader(SeekableByteChannel channel) {
+		checkNotNull(channel, "channel");
+		ReadableContainer container = openContainer(channel);
+		return createReader(container);
+	}
+	
+	@Override
+	public LibraryReader createLibraryReader() {
+		return new DefaultLibraryReader(this, this.libraryParallelism);
+	}
+	
+	private PublicationReader createReader(ReadableContainer container) {
+		DocumentCache documentCache = null;
+		if (this.documentCacheSize > 0) {
+			// Each publication has its own cache, which is discarded with the publication.
+			documentCache = new DocumentCache(this.documentCacheSize, this.documentCacheMemoryLimit);
+		}
+		return new EpubPublicationReader(container, this.service, this.streamingParser, this.lazyManifest, documentCache);
 	}
 	
 	/**
@@ -65,14 +192,22 @@ public class DefaultPublicationReaderFactory implements PublicationReaderFactory
 	 */
 	private ReadableContainer openContainer(Path path) {
 		try {
+			if (Files.isDirectory(path)) {
+				return openDirectoryContainer(path);
+			}
 			long size = Files.size(path);
 			if (size == 0) {
 				throw new EpubException(Messages.CONTAINER_EMPTY(path));
 			}
-			ReadableContainer container = new ReadableZipContainer(path);
-			container.validate();
+			ReadableContainer container = new ReadableZipContainer(path, this.maxMappedSize, this.indexCache);
+			try {
+				container.validate();
+			} catch (IOException | RuntimeException e) {
+				container.close();
+				throw e;
+			}
 			return container;
-		} catch (FileNotFoundException e) {
+		} catch (FileNotFoundException | NoSuchFileException e) {
 			throw new EpubException(Messages.CONTAINER_NOT_FOUND(path), e);
 		} catch (ZipException e) {
 			throw new EpubException(Messages.CONTAINER_CORRUPT(path), e);
@@ -80,4 +215,93 @@ public class DefaultPublicationReaderFactory implements PublicationReaderFactory
 			throw new EpubException(Messages.CONTAINER_IO_FAILURE(path), e);
 		}
 	}
+
+	/**
+	 * Opens the abstract container expanded in the specified directory.
+	 * 
+	 * @param path the path to the directory.
+	 * @return opened abstract container.
+	 * @throws IOException if an I/O error has occurred while listing the files in the directory.
+	 */
+	private static ReadableContainer openDirectoryContainer(Path path) throws IOException {
+		ReadableContainer container = new ReadableDirectoryContainer(path);
+		try {
+			container.validate();
+		} catch (IOException | RuntimeException e) {
+			container.close();
+			throw e;
+		}
+		return container;
+	}
+	
+	/**
+	 * Reads the abstract container from the specified stream.
+	 * 
+	 * @param stream the stream providing the container.
+	 * @return read abstract container.
+	 * @throws EpubException if a problem has occurred while reading the container.
+	 */
+	private ReadableContainer openContainer(InputStream stream) {
+		try {
+			ReadableContainer container = new ReadableStreamContainer(stream, this.streamMemoryLimit, this.streamSpillLimit);
+			try {
+				container.validate();
+			} catch (IOException | RuntimeException e) {
+				container.close();
+				throw e;
+			}
+			return container;
+		} catch (ZipException e) {
+			throw new EpubException(Messages.CONTAINER_STREAM_CORRUPT(), e);
+		} catch (IOException e) {
+			throw new EpubException(Messages.CONTAINER_STREAM_IO_FAILURE(), e);
+		}
+	}
+
+	/**
+	 * Opens the abstract container held in the specified buffer.
+	 * 
+	 * @param buffer the buffer holding the container.
+	 * @return opened abstract container.
+	 * @throws EpubException if a problem has occurred while opening the container.
+	 */
+	private static ReadableContainer openContainer(ByteBuffer buffer) {
+		try {
+			ReadableContainer container = new ReadableZipContainer(buffer);
+			try {
+				container.validate();
+			} catch (IOException | RuntimeException e) {
+				container.close();
+				throw e;
+			}
+			return container;
+		} catch (IOException e) {
+			// The buffer in memory fails only when it is corrupt.
+			throw new EpubException(Messages.CONTAINER_BUFFER_CORRUPT(), e);
+		}
+	}
+
+	/**
+	 * Opens the abstract container read through the specified channel.
+	 * 
+	 * @param channel the channel providing the container.
+	 * @return opened abstract container.
+	 * @throws EpubException if a problem has occurred while opening the container.
+	 */
+	private static ReadableContainer openContainer(SeekableByteChannel channel) {
+		try {
+			ReadableContainer container = new ReadableZipContainer(channel);
+			try {
+				container.validate();
+			} catch (IOException | RuntimeException e) {
+				container.close();
+				throw e;
+			}
+			return container;
+		} catch (ZipException e) {
+			throw new EpubException(Messages.CONTAINER_CHANNEL_CORRUPT(), e);
+		} catch (IOException e) {
+			throw new EpubException(Messages.CONTAINER_CHANNEL_IO_FAILURE(), e);
+		}
+	}
 }
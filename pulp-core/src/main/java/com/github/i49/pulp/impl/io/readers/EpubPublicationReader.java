@@ -19,16 +19,23 @@ package com.github.i49.pulp.impl.io.readers;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
-import javax.xml.parsers.DocumentBuilder;
+import javax.xml.stream.XMLStreamException;
 
 import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
 
+import com.github.i49.pulp.api.metadata.Metadata;
+import com.github.i49.pulp.api.publication.ArchiveEntry;
 import com.github.i49.pulp.api.publication.EpubException;
 import com.github.i49.pulp.api.publication.EpubParsingException;
 import com.github.i49.pulp.api.publication.EpubService;
+import com.github.i49.pulp.api.publication.Manifest;
 import com.github.i49.pulp.api.publication.Publication;
 import com.github.i49.pulp.api.publication.PublicationReader;
 import com.github.i49.pulp.api.publication.PublicationResource;
@@ -38,6 +45,10 @@ import com.github.i49.pulp.api.publication.Rendition;
 import com.github.i49.pulp.impl.base.Messages;
 import com.github.i49.pulp.impl.io.containers.AbstractContainer;
 import com.github.i49.pulp.impl.io.containers.ReadableContainer;
+import com.github.i49.pulp.impl.publication.DefaultPublicationResourceBuilderFactory;
+import com.github.i49.pulp.impl.publication.DocumentCache;
+import com.github.i49.pulp.impl.publication.LazyManifest;
+import com.github.i49.pulp.impl.xml.ElementCursor;
 import com.github.i49.pulp.impl.xml.XmlServices;
 
 /**
@@ -47,7 +58,12 @@ public class EpubPublicationReader implements PublicationReader, RenditionResour
 
 	private final ReadableContainer container;
 	private final EpubService service;
-	private final DocumentBuilder documentBuilder;
+	// whether the documents are parsed without building DOM trees.
+	private final boolean streaming;
+	// whether the resources in the manifests are built on the first access.
+	private final boolean lazyManifest;
+	// the cache of the DOM trees parsed from the XML documents, or null if disabled.
+	private final DocumentCache documentCache;
 
 	private String currentLocation;
 	
@@ -55,10 +71,13 @@ public class EpubPublicationReader implements PublicationReader, RenditionResour
 	private Rendition currentRendition;
 	private PublicationResourceBuilderFactory currentResourceFactory;
 	
-	public EpubPublicationReader(ReadableContainer loader, EpubService service) {
+	public EpubPublicationReader(ReadableContainer loader, EpubService service, boolean streaming, boolean lazyManifest, 
+			DocumentCache documentCache) {
 		this.container = loader;
 		this.service = service;
-		this.documentBuilder = XmlServices.newBuilder();
+		this.streaming = streaming;
+		this.lazyManifest = lazyManifest;
+		this.documentCache = documentCache;
 	}
 
 	@Override
@@ -70,6 +89,24 @@ public class EpubPublicationReader implements PublicationReader, RenditionResour
 		}
 	}
 
+	@Override
+	public Map<URI, Metadata> readMetadata() {
+		try {
+			return parseAllMetadata();
+		} catch (Exception e) {
+			throw new EpubParsingException(e.getMessage(), e, currentLocation, container.getPath());
+		}
+	}
+
+	@Override
+	public Map<String, ArchiveEntry> getArchiveEntries() {
+		try {
+			return container.getArchiveEntries();
+		} catch (IOException e) {
+			throw new EpubException(Messages.CONTAINER_IO_FAILURE(container.getPath()), e);
+		}
+	}
+
 	@Override
 	public void close() {
 		try {
@@ -88,19 +125,37 @@ public class EpubPublicationReader implements PublicationReader, RenditionResour
 		return this.publication;
 	}
 	
+	protected Map<URI, Metadata> parseAllMetadata() throws IOException, SAXException {
+		// The publication only holds the renditions, whose manifests are left empty.
+		Publication publication = createPublication();
+		Map<URI, Metadata> metadata = new LinkedHashMap<>();
+		Iterator<Rendition> it = parseContainerDocument(publication);
+		while (it.hasNext()) {
+			Rendition rendition = it.next();
+			parseRenditionMetadata(rendition);
+			metadata.put(rendition.getLocation(), rendition.getMetadata());
+		}
+		return Collections.unmodifiableMap(metadata);
+	}
+	
 	protected Publication createPublication() {
 		return service.createPublication();
 	}
 	
 	protected Iterator<Rendition> parseContainerDocument(Publication publication) throws IOException, SAXException {
 		String location = AbstractContainer.CONTAINER_DOCUMENT_LOCATION;
+		if (this.streaming) {
+			return parseXmlStream(location, cursor->{
+				ContainerDocumentParser parser = createContainerDocumentParser(ContainerDocumentParser.probe(cursor));
+				return parser.parse(cursor, publication);
+			});
+		}
 		Document document = readXmlDocument(location);
-		ContainerDocumentParser parser = createContainerDocumentParser(document);
+		ContainerDocumentParser parser = createContainerDocumentParser(ContainerDocumentParser.probe(document));
 		return parser.parse(document, publication);
 	}
 	
-	protected ContainerDocumentParser createContainerDocumentParser(Document document) {
-		String version = ContainerDocumentParser.probe(document);
+	protected ContainerDocumentParser createContainerDocumentParser(String version) {
 		if ("1.0".equals(version)) {
 			return new ContainerDocumentParser1();
 		}
@@ -109,15 +164,45 @@ public class EpubPublicationReader implements PublicationReader, RenditionResour
 	
 	protected void buildRendition(Rendition rendition) throws IOException, SAXException {
 		this.currentRendition = rendition;
-		this.currentResourceFactory = this.service.createResourceBuilderFactory(rendition.getLocation());
+		this.currentResourceFactory = createResourceFactory(rendition);
 		String location = rendition.getLocation().getPath();
+		if (this.streaming) {
+			parseXmlStream(location, cursor->{
+				PackageDocumentParser parser = createPackageDocumentParser(PackageDocumentParser.probe(cursor));
+				parser.parse(cursor, rendition, this.service, this);
+				return rendition;
+			});
+			return;
+		}
 		Document document = readXmlDocument(location);
-		PackageDocumentParser parser = createPackageDocumentParser(document);
+		PackageDocumentParser parser = createPackageDocumentParser(PackageDocumentParser.probe(document));
 		parser.parse(document, rendition, this.service, this);
 	}
 	
-	protected PackageDocumentParser createPackageDocumentParser(Document document) {
-		String version = PackageDocumentParser.probe(document);
+	protected PublicationResourceBuilderFactory createResourceFactory(Rendition rendition) {
+		PublicationResourceBuilderFactory factory = this.service.createResourceBuilderFactory(rendition.getLocation());
+		if (this.documentCache != null && factory instanceof DefaultPublicationResourceBuilderFactory) {
+			((DefaultPublicationResourceBuilderFactory)factory).setDocumentCache(this.documentCache);
+		}
+		return factory;
+	}
+	
+	protected void parseRenditionMetadata(Rendition rendition) throws IOException, SAXException {
+		String location = rendition.getLocation().getPath();
+		if (this.streaming) {
+			parseXmlStream(location, false, cursor->{
+				PackageDocumentParser parser = createPackageDocumentParser(PackageDocumentParser.probe(cursor));
+				parser.parseMetadata(cursor, rendition, this.service);
+				return rendition;
+			});
+			return;
+		}
+		Document document = readXmlDocument(location);
+		PackageDocumentParser parser = createPackageDocumentParser(PackageDocumentParser.probe(document));
+		parser.parseMetadata(document, rendition, this.service);
+	}
+	
+	protected PackageDocumentParser createPackageDocumentParser(String version) {
 		if ("3.0".equals(version)) {
 			return new PackageDocumentParser3();
 		}
@@ -127,11 +212,51 @@ public class EpubPublicationReader implements PublicationReader, RenditionResour
 	private Document readXmlDocument(String location) throws IOException, SAXException {
 		setCurrentLocation(location);
 		try (InputStream in = container.openItemToRead(location)) {
-			Document document = documentBuilder.parse(in); 
+			// The container and package documents do not need any DTD.
+			Document document = XmlServices.getBuilder(false).parse(in); 
 			document.setDocumentURI(location);
 			return document;
 		}
 	}
+	
+	private <T> T parseXmlStream(String location, StreamParser<T> parser) throws IOException, SAXParseException {
+		return parseXmlStream(location, true, parser);
+	}
+	
+	/**
+	 * Parses the XML document in a single forward pass.
+	 * The problems found by the parser are reported after the whole document was read,
+	 * because the document not well-formed must be reported as such in preference to them.
+	 * 
+	 * @param location the location of the document.
+	 * @param whole {@code true} if the rest of the document is read after parsed successfully,
+	 *              {@code false} if it is left unread.
+	 * @param parser the parser of the document.
+	 * @return the result of the parser.
+	 * @throws IOException if an I/O error has occurred.
+	 * @throws SAXParseException if the document is not well-formed.
+	 */
+	private <T> T parseXmlStream(String location, boolean whole, StreamParser<T> parser) throws IOException, SAXParseException {
+		setCurrentLocation(location);
+		try (InputStream in = container.openItemToRead(location)) {
+			ElementCursor cursor = XmlServices.newCursor(in, location);
+			T result;
+			try {
+				result = parser.parse(cursor);
+			} catch (RuntimeException e) {
+				cursor.finish();
+				throw e;
+			}
+			if (whole) {
+				cursor.finish();
+			} else {
+				cursor.close();
+			}
+			return result;
+		} catch (XMLStreamException e) {
+			throw XmlServices.toParseException(e, location);
+		}
+	}
 
 	private void setCurrentLocation(String location) {
 		this.currentLocation = location;
@@ -144,12 +269,29 @@ public class EpubPublicationReader implements PublicationReader, RenditionResour
 		if (this.publication.containsResource(path)) {
 			return this.publication.getResource(path);
 		} else {
-			return buildResource(location, href, mediaType);
+			return buildResource(this.currentResourceFactory, location, href, mediaType);
 		}
 	}
 	
-	private PublicationResource buildResource(URI location, String href, String mediaType) {
-		PublicationResourceBuilder builder = this.currentResourceFactory.newBuilder(href);
+	/**
+	 * {@inheritDoc}
+	 * If the manifest is lazy, only the existence of the resource in the container is checked here.
+	 */
+	@Override
+	public Manifest.Item addItem(Manifest manifest, String href, String mediaType) {
+		if (!this.lazyManifest || !(manifest instanceof LazyManifest)) {
+			return RenditionResourceFinder.super.addItem(manifest, href, mediaType);
+		}
+		URI location = this.currentRendition.resolve(href);
+		if (!location.isAbsolute() && !this.container.contains(location.getPath())) {
+			throw new EpubException(Messages.RESOURCE_MISSING(location));
+		}
+		PublicationResourceBuilderFactory factory = this.currentResourceFactory;
+		return ((LazyManifest)manifest).addLazily(location, ()->buildResource(factory, location, href, mediaType));
+	}
+	
+	private PublicationResource buildResource(PublicationResourceBuilderFactory factory, URI location, String href, String mediaType) {
+		PublicationResourceBuilder builder = factory.newBuilder(href);
 		builder.ofType(mediaType);
 		if (location.isAbsolute()) {
 			builder.source(location);
@@ -163,4 +305,15 @@ public class EpubPublicationReader implements PublicationReader, RenditionResour
 		}
 		return builder.build();
 	}
+	
+	/**
+	 * Parser of the XML document read by {@link ElementCursor}.
+	 *
+	 * @param <T> the type of the result.
+	 */
+	@FunctionalInterface
+	private static interface StreamParser<T> {
+		
+		T parse(ElementCursor cursor) throws XMLStreamException;
+	}
 }
@@ -20,8 +20,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
-import org.w3c.dom.Element;
-
 import com.github.i49.pulp.api.vocabularies.Term;
 
 /**
@@ -30,38 +28,54 @@ import com.github.i49.pulp.api.vocabularies.Term;
 class MetadataEntry {
 
 	private final Term term;
-	private final Element element;
+	private final String tagName;
+	// the attributes which are null if not specified.
+	private final String id;
+	private final String refines;
+	private final String scheme;
+	private final String value;
 	private List<MetadataEntry> refiners;
 	
-	MetadataEntry(Term term, Element element) {
+	/**
+	 * Constructs this entry.
+	 * 
+	 * @param term the term of the property.
+	 * @param tagName the name of the element.
+	 * @param id the id attribute, or {@code null}.
+	 * @param refines the refines attribute, or {@code null}.
+	 * @param scheme the scheme attribute, or {@code null}.
+	 * @param value the text content of the element.
+	 */
+	MetadataEntry(Term term, String tagName, String id, String refines, String scheme, String value) {
 		assert(term != null);
-		assert(element != null);
+		assert(tagName != null);
+		assert(value != null);
 		this.term = term;
-		this.element = element;
+		this.tagName = tagName;
+		this.id = id;
+		this.refines = refines;
+		this.scheme = scheme;
+		this.value = value.trim();
 	}
 	
 	Term getTerm() {
 		return term;
 	}
 	
-	Element getElement() {
-		return element;
-	}
-	
 	boolean hasId() {
-		return getElement().hasAttribute("id");
+		return id != null;
 	}
 	
 	String getId() {
-		return getElement().getAttribute("id");
+		return id;
 	}
 	
 	boolean isRefining() {
-		return getElement().hasAttribute("refines");
+		return refines != null;
 	}
 	
 	String getRefiningTarget() {
-		return getElement().getAttribute("refines").trim();
+		return refines.trim();
 	}
 	
 	void refine(MetadataEntry entry) {
@@ -75,16 +89,16 @@ class MetadataEntry {
 	 * @return the value of this entry.
 	 */
 	String getValue() {
-		return getElement().getTextContent().trim();
+		return value;
 	}
 	
 	/**
 	 * Returns the scheme of the value.
 	 * 
-	 * @return the scheme of the value.
+	 * @return the scheme of the value, or an empty string if not specified.
 	 */
 	String getScheme() {
-		return getElement().getAttribute("scheme").trim();
+		return (scheme != null) ? scheme.trim() : "";
 	}
 	
 	/**
@@ -110,7 +124,7 @@ class MetadataEntry {
 	@Override
 	public String toString() {
 		StringBuilder b = new StringBuilder();
-		b.append(element.getTagName()).append("=").append(getValue());
+		b.append(tagName).append("=").append(getValue());
 		return b.toString();
 	}
 }
@@ -16,10 +16,13 @@
 
 package com.github.i49.pulp.impl.io.readers;
 
+import javax.xml.stream.XMLStreamException;
+
 import org.w3c.dom.Element;
 
 import com.github.i49.pulp.api.vocabularies.StandardVocabulary;
 import com.github.i49.pulp.impl.io.containers.EpubVocabulary;
+import com.github.i49.pulp.impl.xml.ElementCursor;
 
 /**
  * Base parser interface for the metadata defined in EPUB specification
@@ -35,4 +38,12 @@ interface MetadataParser {
 	 * @param element the metadata element.
 	 */
 	void parse(Element element);
+
+	/**
+	 * Parses the metadata element and its descendants in a single forward pass.
+	 * 
+	 * @param cursor the cursor positioned at the metadata element.
+	 * @throws XMLStreamException if the document is not well-formed.
+	 */
+	void parse(ElementCursor cursor) throws XMLStreamException;
 }
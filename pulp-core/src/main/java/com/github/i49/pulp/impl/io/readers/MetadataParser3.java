@@ -27,6 +27,8 @@ import java.util.function.Function;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
+import javax.xml.stream.XMLStreamException;
+
 import org.w3c.dom.Element;
 
 import com.github.i49.pulp.api.metadata.Metadata;
@@ -52,6 +54,7 @@ import com.github.i49.pulp.impl.base.Messages;
 import com.github.i49.pulp.impl.base.ReverseEnumMap;
 import com.github.i49.pulp.impl.vocabularies.epub.MetaPropertyTerm;
 import com.github.i49.pulp.impl.vocabularies.marc.Marc;
+import com.github.i49.pulp.impl.xml.ElementCursor;
 import com.github.i49.pulp.impl.xml.Nodes;
 
 /**
@@ -112,7 +115,16 @@ class MetadataParser3 implements MetadataParser {
 	
 	@Override
 	public void parse(Element element) {
-		for (MetadataEntry entry: fetchMetadataEntries(element)) {
+		handleMetadataEntries(fetchMetadataEntries(element));
+	}
+	
+	@Override
+	public void parse(ElementCursor cursor) throws XMLStreamException {
+		handleMetadataEntries(fetchMetadataEntries(cursor));
+	}
+	
+	private void handleMetadataEntries(List<MetadataEntry> entries) {
+		for (MetadataEntry entry: entries) {
 			if (!entry.isRefining()) {
 				handleMetadataEntry(entry);
 			}
@@ -131,27 +143,64 @@ class MetadataParser3 implements MetadataParser {
 		return linkEntries(entries);
 	}
 	
+	private List<MetadataEntry> fetchMetadataEntries(ElementCursor cursor) throws XMLStreamException {
+		List<MetadataEntry> entries = new ArrayList<>();
+		int depth = cursor.getDepth();
+		while (cursor.nextChild(depth)) {
+			MetadataEntry entry = createEntry(cursor);
+			if (entry != null) {
+				entries.add(entry);
+			}
+		}
+		return linkEntries(entries);
+	}
+	
 	private MetadataEntry createEntry(Element element) {
-		String namespace = element.getNamespaceURI();
+		Optional<Term> term = findTerm(element.getNamespaceURI(), element.getLocalName(), element.getAttribute("property"));
+		if (!term.isPresent()) {
+			return null;
+		}
+		return new MetadataEntry(term.get(), element.getTagName(), 
+				getAttribute(element, "id"), getAttribute(element, "refines"), getAttribute(element, "scheme"),
+				element.getTextContent());
+	}
+	
+	private MetadataEntry createEntry(ElementCursor cursor) throws XMLStreamException {
+		String property = cursor.getAttribute("property");
+		Optional<Term> term = findTerm(cursor.getNamespaceURI(), cursor.getLocalName(), (property != null) ? property : "");
+		if (!term.isPresent()) {
+			return null;
+		}
+		// The attributes must be read before the cursor moves to the text.
+		String tagName = cursor.getTagName();
+		String id = cursor.getAttribute("id");
+		String refines = cursor.getAttribute("refines");
+		String scheme = cursor.getAttribute("scheme");
+		return new MetadataEntry(term.get(), tagName, id, refines, scheme, cursor.getTextContent());
+	}
+	
+	/**
+	 * Finds the term of the property represented by an element.
+	 * 
+	 * @param namespace the namespace of the element.
+	 * @param localName the local name of the element.
+	 * @param property the property attribute of the element, or an empty string.
+	 * @return the term found.
+	 */
+	private Optional<Term> findTerm(String namespace, String localName, String property) {
 		if (NAMESPACE_URI.equals(namespace)) {
-			if ("meta".equals(element.getLocalName())) {
-				String name = element.getAttribute("property").trim();
+			if ("meta".equals(localName)) {
+				String name = property.trim();
 				if (name.isEmpty()) {
 					log.warning(Messages.METADATA_META_WITHOUT_PROPERTY_INGNORED());
-					return null;
-				}
-				Optional<Term> term = this.curieParser.parse(name);
-				if (term.isPresent()) {
-					return new MetadataEntry(term.get(), element);
+					return Optional.empty();
 				}
+				return this.curieParser.parse(name);
 			}
 		} else if (DC_NAMESPACE_URI.equals(namespace)) {
-			Optional<Term> term = curieParser.parse(element.getLocalName(), StandardVocabulary.DCMES);
-			if (term.isPresent()) {
-				return new MetadataEntry(term.get(), element);
-			}
+			return curieParser.parse(localName, StandardVocabulary.DCMES);
 		}
-		return null;
+		return Optional.empty();
 	}
 	
 	private List<MetadataEntry> linkEntries(List<MetadataEntry> entries) {
@@ -336,6 +385,10 @@ class MetadataParser3 implements MetadataParser {
 		return term.get() == Marc.RELATORS;
 	}
 
+	private static String getAttribute(Element element, String name) {
+		return element.hasAttribute(name) ? element.getAttribute(name) : null;
+	}
+
 	private static Optional<TitleType> findTitleType(String value) {
 		return titleTypes.get(value);
 	}
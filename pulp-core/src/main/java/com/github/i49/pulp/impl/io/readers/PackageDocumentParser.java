@@ -18,12 +18,15 @@ package com.github.i49.pulp.impl.io.readers;
 
 import static com.github.i49.pulp.impl.xml.XmlAssertions.assertOn;
 
+import javax.xml.stream.XMLStreamException;
+
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
 import com.github.i49.pulp.api.publication.EpubService;
 import com.github.i49.pulp.api.publication.Rendition;
 import com.github.i49.pulp.impl.io.containers.PackageDocumentProcessor;
+import com.github.i49.pulp.impl.xml.ElementCursor;
 
 /**
  * Parser for parsing a package document that contains the information about a EPUB rendition.
@@ -47,6 +50,21 @@ interface PackageDocumentParser extends PackageDocumentProcessor {
 		return rootElement.getAttribute("version");
 	}
 	
+	/**
+	 * Probes the version of the specification.
+	 * 
+	 * @param cursor the cursor positioned at the root element of the document.
+	 * @return the version of the specification.
+	 */
+	static String probe(ElementCursor cursor) {
+		
+		assertOn(cursor)
+		.hasName("package", NAMESPACE_URI)
+		.hasNonEmptyAttribute("version");
+		
+		return cursor.getAttribute("version");
+	}
+	
 	/**
 	 * Parses the package document.
 	 * 
@@ -56,4 +74,36 @@ interface PackageDocumentParser extends PackageDocumentProcessor {
 	 * @param resourceFinder the finder to find the resources required by the rendition.
 	 */
 	void parse(Document document, Rendition rendition, EpubService service, RenditionResourceFinder resourceFinder);
+
+	/**
+	 * Parses the package document in a single forward pass.
+	 * 
+	 * @param cursor the cursor positioned at the root element of the package document.
+	 * @param rendition the rendition to build.
+	 * @param service the service which will provide API components.
+	 * @param resourceFinder the finder to find the resources required by the rendition.
+	 * @throws XMLStreamException if the document is not well-formed.
+	 */
+	void parse(ElementCursor cursor, Rendition rendition, EpubService service, RenditionResourceFinder resourceFinder)
+			throws XMLStreamException;
+
+	/**
+	 * Parses only the metadata in the package document.
+	 * 
+	 * @param document the package document.
+	 * @param rendition the rendition whose metadata will be built.
+	 * @param service the service which will provide API components.
+	 */
+	void parseMetadata(Document document, Rendition rendition, EpubService service);
+
+	/**
+	 * Parses only the metadata in the package document.
+	 * The cursor is left at the end of the metadata, and the rest of the document is not read.
+	 * 
+	 * @param cursor the cursor positioned at the root element of the package document.
+	 * @param rendition the rendition whose metadata will be built.
+	 * @param service the service which will provide API components.
+	 * @throws XMLStreamException if the document is not well-formed.
+	 */
+	void parseMetadata(ElementCursor cursor, Rendition rendition, EpubService service) throws XMLStreamException;
 }
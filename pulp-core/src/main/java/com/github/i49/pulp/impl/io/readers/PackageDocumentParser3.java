@@ -23,6 +23,8 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
+import javax.xml.stream.XMLStreamException;
+
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
@@ -31,12 +33,12 @@ import com.github.i49.pulp.api.metadata.TermRegistry;
 import com.github.i49.pulp.api.publication.EpubException;
 import com.github.i49.pulp.api.publication.EpubService;
 import com.github.i49.pulp.api.publication.Manifest;
-import com.github.i49.pulp.api.publication.PublicationResource;
 import com.github.i49.pulp.api.publication.Rendition;
 import com.github.i49.pulp.api.publication.Spine.Page;
 import com.github.i49.pulp.api.vocabularies.Vocabulary;
 import com.github.i49.pulp.impl.base.Messages;
 import com.github.i49.pulp.impl.io.containers.PrefixRegistry;
+import com.github.i49.pulp.impl.xml.ElementCursor;
 import com.github.i49.pulp.impl.xml.Nodes;
 
 /**
@@ -70,6 +72,54 @@ class PackageDocumentParser3 implements PackageDocumentParser {
 		parseRoot(document.getDocumentElement());
 	}
 	
+	@Override
+	public void parse(
+			ElementCursor cursor,
+			Rendition rendition,
+			EpubService service,
+			RenditionResourceFinder resourceFinder) throws XMLStreamException {
+		
+		this.termRegistry = service.getPropertyTermRegistry();
+		this.rendition = rendition;
+		this.resourceFinder = resourceFinder;
+		
+		parseRoot(cursor);
+	}
+	
+	@Override
+	public void parseMetadata(Document document, Rendition rendition, EpubService service) {
+		
+		this.termRegistry = service.getPropertyTermRegistry();
+		this.rendition = rendition;
+		
+		Element rootElement = document.getDocumentElement();
+		
+		assertOn(rootElement)
+			.hasNonEmptyAttribute("unique-identifier")
+			.contains("metadata");
+		
+		parseRootAttributes(rootElement);
+		
+		Element element = Nodes.children(rootElement, NAMESPACE_URI).next();
+		assertOn(element).hasName("metadata");
+		parseMetadata(element);
+	}
+	
+	@Override
+	public void parseMetadata(ElementCursor cursor, Rendition rendition, EpubService service) throws XMLStreamException {
+		
+		this.termRegistry = service.getPropertyTermRegistry();
+		this.rendition = rendition;
+		
+		assertOn(cursor).hasNonEmptyAttribute("unique-identifier");
+		
+		parseRootAttributes(cursor.getAttribute("unique-identifier"), cursor.getAttribute("prefix"));
+		
+		cursor.firstChild("metadata");
+		assertOn(cursor).hasName("metadata");
+		parseMetadata(cursor);
+	}
+	
 	protected void parseRoot(Element rootElement) {
 
 		assertOn(rootElement)
@@ -82,9 +132,7 @@ class PackageDocumentParser3 implements PackageDocumentParser {
 
 		Element element = it.next();
 		assertOn(element).hasName("metadata");
-	
-		MetadataParser metadataParser = createMetadataParser(rendition.getMetadata());
-		metadataParser.parse(element);
+		parseMetadata(element);
 
 		element = it.next();
 		assertOn(element).hasName("manifest");
@@ -95,12 +143,45 @@ class PackageDocumentParser3 implements PackageDocumentParser {
 		parseSpine(element);
 	}
 	
+	protected void parseRoot(ElementCursor cursor) throws XMLStreamException {
+		
+		assertOn(cursor).hasNonEmptyAttribute("unique-identifier");
+		
+		String uniqueIdentifier = cursor.getAttribute("unique-identifier");
+		String prefixes = cursor.getAttribute("prefix");
+		
+		cursor.forEachChild(new String[] {"metadata", "manifest", "spine"}, index->{
+			switch (index) {
+			case 0:
+				// The attributes are parsed after all the children required were found.
+				parseRootAttributes(uniqueIdentifier, prefixes);
+				assertOn(cursor).hasName("metadata");
+				parseMetadata(cursor);
+				break;
+			case 1:
+				assertOn(cursor).hasName("manifest");
+				parseManifest(cursor);
+				break;
+			case 2:
+				assertOn(cursor).hasName("spine");
+				parseSpine(cursor);
+				break;
+			default:
+				break;
+			}
+		});
+	}
+	
 	protected void parseRootAttributes(Element rootElement) {
-		this.uniqueIdentifier = rootElement.getAttribute("unique-identifier").trim();
+		String prefixes = rootElement.hasAttribute("prefix") ? rootElement.getAttribute("prefix") : null;
+		parseRootAttributes(rootElement.getAttribute("unique-identifier"), prefixes);
+	}
+	
+	protected void parseRootAttributes(String uniqueIdentifier, String prefixes) {
+		this.uniqueIdentifier = uniqueIdentifier.trim();
 		
-		if (rootElement.hasAttribute("prefix")) {
-			String prefixes = rootElement.getAttribute("prefix").trim();
-			parsePrefixes(prefixes);
+		if (prefixes != null) {
+			parsePrefixes(prefixes.trim());
 		}
 	}
 	
@@ -127,6 +208,14 @@ class PackageDocumentParser3 implements PackageDocumentParser {
 		this.prefixRegistry.put(prefix , v);
 	}
 	
+	protected void parseMetadata(Element element) {
+		createMetadataParser(this.rendition.getMetadata()).parse(element);
+	}
+	
+	protected void parseMetadata(ElementCursor cursor) throws XMLStreamException {
+		createMetadataParser(this.rendition.getMetadata()).parse(cursor);
+	}
+	
 	protected MetadataParser createMetadataParser(Metadata metadata) {
 		CurieParser curieParser= new CurieParser(this.prefixRegistry, this.termRegistry);
 		return new MetadataParser3(metadata, this.uniqueIdentifier, curieParser);
@@ -140,20 +229,36 @@ class PackageDocumentParser3 implements PackageDocumentParser {
 			               .hasNonEmptyAttribute("id")
 			               .hasNonEmptyAttribute("href")
 			               .hasNonEmptyAttribute("media-type");
-			String id = child.getAttribute("id");
-			String href = child.getAttribute("href");
-			String mediaType = child.getAttribute("media-type");
-			Manifest.Item item = addManifestItem(href, mediaType);
-			if (child.hasAttribute("properties")) {
-				addProperties(item, child.getAttribute("properties"));
+			String properties = child.hasAttribute("properties") ? child.getAttribute("properties") : null;
+			parseManifestItem(child.getAttribute("id"), child.getAttribute("href"), child.getAttribute("media-type"), properties);
+		}
+	}
+	
+	protected void parseManifest(ElementCursor cursor) throws XMLStreamException {
+		int depth = cursor.getDepth();
+		while (cursor.nextChild(depth)) {
+			if (!NAMESPACE_URI.equals(cursor.getNamespaceURI())) {
+				continue;
 			}
-			registerItemWithMap(id, item);
+			assertOn(cursor).hasName("item")
+			                .hasNonEmptyAttribute("id")
+			                .hasNonEmptyAttribute("href")
+			                .hasNonEmptyAttribute("media-type");
+			parseManifestItem(cursor.getAttribute("id"), cursor.getAttribute("href"), 
+					cursor.getAttribute("media-type"), cursor.getAttribute("properties"));
 		}
 	}
 	
+	protected void parseManifestItem(String id, String href, String mediaType, String properties) {
+		Manifest.Item item = addManifestItem(href, mediaType);
+		if (properties != null) {
+			addProperties(item, properties);
+		}
+		registerItemWithMap(id, item);
+	}
+	
 	protected Manifest.Item addManifestItem(String href, String mediaType) {
-		PublicationResource resource = this.resourceFinder.findResource(href, mediaType);
-		return this.rendition.getManifest().add(resource);
+		return this.resourceFinder.addItem(this.rendition.getManifest(), href, mediaType);
 	}
 	
 	protected void addProperties(Manifest.Item item, String properties) {
@@ -174,15 +279,30 @@ class PackageDocumentParser3 implements PackageDocumentParser {
 			Element child = it.next();
 			assertOn(child).hasName("itemref")
 			               .hasNonEmptyAttribute("idref");
-			String idref = child.getAttribute("idref");
-			Manifest.Item item = items.get(idref);
-			if (item == null) {
-				throw new EpubException(Messages.MANIFEST_ITEM_ID_MISSING(idref));
-			}
-			Page page = this.rendition.getSpine().append(item);
-			if ("no".equals(child.getAttribute("linear"))) {
-				page.linear(false);
+			parseSpineItem(child.getAttribute("idref"), child.getAttribute("linear"));
+		}
+	}
+	
+	protected void parseSpine(ElementCursor cursor) throws XMLStreamException {
+		int depth = cursor.getDepth();
+		while (cursor.nextChild(depth)) {
+			if (!NAMESPACE_URI.equals(cursor.getNamespaceURI())) {
+				continue;
 			}
+			assertOn(cursor).hasName("itemref")
+			                .hasNonEmptyAttribute("idref");
+			parseSpineItem(cursor.getAttribute("idref"), cursor.getAttribute("linear"));
+		}
+	}
+	
+	protected void parseSpineItem(String idref, String linear) {
+		Manifest.Item item = items.get(idref);
+		if (item == null) {
+			throw new EpubException(Messages.MANIFEST_ITEM_ID_MISSING(idref));
+		}
+		Page page = this.rendition.getSpine().append(item);
+		if ("no".equals(linear)) {
+			page.linear(false);
 		}
 	}
 	
@@ -16,6 +16,7 @@
 
 package com.github.i49.pulp.impl.io.readers;
 
+import com.github.i49.pulp.api.publication.Manifest;
 import com.github.i49.pulp.api.publication.PublicationResource;
 
 /**
@@ -31,4 +32,17 @@ interface RenditionResourceFinder {
 	 * @return the resource found.
 	 */
 	PublicationResource findResource(String href, String mediaType);
+	
+	/**
+	 * Adds the item of the resource required by the rendition to the manifest.
+	 * By default the resource is found by {@link #findResource(String, String)}.
+	 * 
+	 * @param manifest the manifest of the rendition.
+	 * @param href the location of the resource relative to the package document.
+	 * @param mediaType the media type of the resource.
+	 * @return the item added.
+	 */
+	default Manifest.Item addItem(Manifest manifest, String href, String mediaType) {
+		return manifest.add(findResource(href, mediaType));
+	}
 }
@@ -16,78 +16,70 @@
 
 package com.github.i49.pulp.impl.io.writers;
 
-import javax.xml.parsers.DocumentBuilder;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import javax.xml.stream.XMLStreamException;
 
 import com.github.i49.pulp.api.publication.Publication;
 import com.github.i49.pulp.api.publication.Rendition;
 import com.github.i49.pulp.impl.io.containers.ContainerDocumentProcessor;
 import com.github.i49.pulp.impl.publication.StandardMediaType;
+import com.github.i49.pulp.impl.xml.ElementWriter;
 
 /**
  * A generator for generating {@code ContainerDocument}.
+ * The document is written directly to the stream without building the document tree.
  */
 class ContainerDocumentGenerator implements ContainerDocumentProcessor {
 
 	private static final String VERSION = "1.0";
 	
-	private final DocumentBuilder documentBuilder;
+	private final ElementWriter writer;
 	private Publication publication;
-	private Document document;
 	
-	ContainerDocumentGenerator(DocumentBuilder documentBuilder) {
-		this.documentBuilder = documentBuilder;
+	ContainerDocumentGenerator(ElementWriter writer) {
+		this.writer = writer;
 	}
 
 	/**
 	 * Generates a container document.
 	 *  
 	 * @param publication the publication to be written.
-	 * @return generated container document.
+	 * @throws XMLStreamException if an error has occurred while writing the document.
 	 */
-	Document generateDocument(Publication publication) {
+	void generateDocument(Publication publication) throws XMLStreamException {
 		this.publication = publication;
-		this.document = this.documentBuilder.newDocument();
-		this.document.appendChild(container());
-		return this.document;
+		writer.startDocument();
+		container();
+		writer.endDocument();
 	}
 	
 	/**
-	 * Creates a container element at the document root.
-	 * 
-	 * @return created element.
+	 * Writes a container element at the document root.
 	 */
-	private Element container() {
-		Element container = document.createElementNS(NAMESPACE_URI, "container");
-		container.setAttribute("version", VERSION);
-		container.appendChild(rootfiles());
-		return container;
+	private void container() throws XMLStreamException {
+		writer.startElement("container");
+		writer.attribute("version", VERSION);
+		writer.defaultNamespace(NAMESPACE_URI);
+		rootfiles();
+		writer.endElement();
 	}
 	
 	/**
-	 * Creates a rootfiles element. 
-	 * 
-	 * @return created element.
+	 * Writes a rootfiles element. 
 	 */
-	private Element rootfiles() {
-		Element rootfiles = document.createElementNS(NAMESPACE_URI, "rootfiles");
+	private void rootfiles() throws XMLStreamException {
+		writer.startElement("rootfiles");
 		for (Rendition rendition: this.publication) {
-			rootfiles.appendChild(rootfile(rendition));
+			rootfile(rendition);
 		}
-		return rootfiles;
+		writer.endElement();
 	}
 	
 	/**
-	 * Creates a rootfile element.
-	 *  
-	 * @return created element.
+	 * Writes a rootfile element.
 	 */
-	private Element rootfile(Rendition rendition) {
-		Element rootfile = document.createElementNS(NAMESPACE_URI, "rootfile");
-		rootfile.setAttribute("full-path", rendition.getLocation().getPath());
-		rootfile.setAttribute("media-type", StandardMediaType.APPLICATION_OEBPS_PACKAGE_XML.toString());
-		return rootfile;
+	private void rootfile(Rendition rendition) throws XMLStreamException {
+		writer.emptyElement("rootfile");
+		writer.attribute("full-path", rendition.getLocation().getPath());
+		writer.attribute("media-type", StandardMediaType.APPLICATION_OEBPS_PACKAGE_XML.toString());
 	}
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.io.writers;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.github.i49.pulp.api.publication.Compression;
+import com.github.i49.pulp.api.publication.CompressionPolicy;
+import com.github.i49.pulp.api.publication.PublicationResource;
+
+/**
+ * The default implementation of {@link CompressionPolicy}.
+ * 
+ * <p>This policy stores the resources of the media types already compressed,
+ * and compresses the other resources with DEFLATE method.
+ * The resources of the media types unknown to this policy can be optionally probed.</p>
+ */
+class DefaultCompressionPolicy implements CompressionPolicy {
+
+	/**
+	 * Media types whose contents are already compressed.
+	 */
+	private static final Set<String> COMPRESSED_MEDIA_TYPES = new HashSet<>(Arrays.asList(
+		"image/gif",
+		"image/jpeg",
+		"image/png",
+		"image/webp",
+		"application/font-woff",
+		"font/woff",
+		"font/woff2",
+		"audio/mpeg",
+		"audio/mp4",
+		"audio/ogg",
+		"audio/opus",
+		"audio/aac",
+		"video/mp4",
+		"video/webm",
+		"video/ogg",
+		"application/zip",
+		"application/gzip",
+		"application/epub+zip"
+	));
+	
+	/**
+	 * Media types whose contents are known to be compressible.
+	 */
+	private static final Set<String> COMPRESSIBLE_TYPES = new HashSet<>(Arrays.asList(
+		"text", 
+		"application/xhtml+xml",
+		"application/javascript",
+		"application/x-dtbncx+xml",
+		"application/smil+xml",
+		"application/pls+xml",
+		"application/font-sfnt",
+		"image/svg+xml"
+	));
+	
+	private final boolean probe;
+	
+	/**
+	 * Constructs this policy.
+	 * 
+	 * @param probe {@code true} if the resources of unknown media types should be probed.
+	 */
+	DefaultCompressionPolicy(boolean probe) {
+		this.probe = probe;
+	}
+
+	@Override
+	public Compression select(PublicationResource resource) {
+		String type = resource.getMediaType().getType();
+		String mediaType = type + "/" + resource.getMediaType().getSubtype();
+		if (COMPRESSED_MEDIA_TYPES.contains(mediaType)) {
+			return Compression.STORED;
+		}
+		if (!probe || COMPRESSIBLE_TYPES.contains(type) || COMPRESSIBLE_TYPES.contains(mediaType)) {
+			return Compression.DEFLATED;
+		}
+		return Compression.PROBED;
+	}
+}
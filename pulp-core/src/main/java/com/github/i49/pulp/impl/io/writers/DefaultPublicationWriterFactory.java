@@ -21,12 +21,16 @@ import static com.github.i49.pulp.impl.base.Preconditions.*;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.Path;
+import java.util.Map;
 
+import com.github.i49.pulp.api.publication.CompressionPolicy;
 import com.github.i49.pulp.api.publication.EpubException;
 import com.github.i49.pulp.api.publication.PublicationWriter;
 import com.github.i49.pulp.api.publication.PublicationWriterFactory;
+import com.github.i49.pulp.impl.base.Configuration;
 import com.github.i49.pulp.impl.base.Messages;
 import com.github.i49.pulp.impl.io.containers.WriteableContainer;
+import com.github.i49.pulp.impl.io.containers.WriteableDirectoryContainer;
 import com.github.i49.pulp.impl.io.containers.WriteableZipContainer;
 
 /**
@@ -34,7 +38,42 @@ import com.github.i49.pulp.impl.io.containers.WriteableZipContainer;
  */
 public class DefaultPublicationWriterFactory implements PublicationWriterFactory {
 
-	public DefaultPublicationWriterFactory() {
+	private static final long DEFAULT_PARALLEL_MEMORY_LIMIT = 64 * 1024 * 1024;
+	
+	// the number of threads compressing the resources.
+	private final int parallelism;
+	// the maximum size of the compressed data held in memory.
+	private final long memoryLimit;
+	private final CompressionPolicy compressionPolicy;
+	// whether the publications are written as directories.
+	private final boolean expanded;
+	// whether the generated documents are indented.
+	private final boolean indent;
+	
+	/**
+	 * Constructs this factory.
+	 * 
+	 * @param config the configuration properties of this factory.
+	 * @throws IllegalArgumentException if any of the properties has invalid value.
+	 */
+	public DefaultPublicationWriterFactory(Map<String, ?> config) {
+		assert(config != null);
+		Configuration c = Configuration.of(config);
+		this.parallelism = c.getInt(PARALLELISM, 1);
+		if (this.parallelism < 1) {
+			throw new IllegalArgumentException(Messages.CONFIGURATION_PROPERTY_INVALID(PARALLELISM, this.parallelism));
+		}
+		this.memoryLimit = c.getLong(PARALLEL_MEMORY_LIMIT, DEFAULT_PARALLEL_MEMORY_LIMIT);
+		if (this.memoryLimit < 0) {
+			throw new IllegalArgumentException(Messages.CONFIGURATION_PROPERTY_INVALID(PARALLEL_MEMORY_LIMIT, this.memoryLimit));
+		}
+		CompressionPolicy policy = c.get(COMPRESSION_POLICY, CompressionPolicy.class, null);
+		if (policy == null) {
+			policy = new DefaultCompressionPolicy(c.getBoolean(COMPRESSION_PROBE, false));
+		}
+		this.compressionPolicy = policy;
+		this.expanded = c.getBoolean(EXPANDED, false);
+		this.indent = c.getBoolean(INDENT, true);
 	}
 	
 	@Override
@@ -42,16 +81,21 @@ public class DefaultPublicationWriterFactory implements PublicationWriterFactory
 		checkNotNull(path, "path");
 		WriteableContainer container = null;
 		try {
-			container = new WriteableZipContainer(path);
+			if (this.expanded) {
+				container = new WriteableDirectoryContainer(path, this.parallelism);
+			} else {
+				container = new WriteableZipContainer(path, this.parallelism, this.memoryLimit);
+			}
 		} catch (IOException e) {
 			throw new EpubException(Messages.CONTAINER_IO_FAILURE(path), e);
 		}
-		return new EpubPublicationWriter3(container);
+		return new EpubPublicationWriter3(container, this.compressionPolicy, this.indent);
 	}
 
 	@Override
 	public PublicationWriter createWriter(OutputStream stream) {
 		checkNotNull(stream, "stream");
-		return new EpubPublicationWriter3(new WriteableZipContainer(stream));
+		WriteableContainer container = new WriteableZipContainer(stream, this.parallelism, this.memoryLimit);
+		return new EpubPublicationWriter3(container, this.compressionPolicy, this.indent);
 	}
 }
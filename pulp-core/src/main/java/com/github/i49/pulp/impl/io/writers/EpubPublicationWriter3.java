@@ -19,14 +19,15 @@ package com.github.i49.pulp.impl.io.writers;
 import static com.github.i49.pulp.impl.base.Preconditions.checkNotNull;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Set;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.transform.TransformerException;
-
-import org.w3c.dom.Document;
+import javax.xml.stream.XMLStreamException;
 
+import com.github.i49.pulp.api.publication.Compression;
+import com.github.i49.pulp.api.publication.CompressionPolicy;
+import com.github.i49.pulp.api.publication.ContentSource;
 import com.github.i49.pulp.api.publication.EpubException;
 import com.github.i49.pulp.api.publication.Manifest;
 import com.github.i49.pulp.api.publication.Publication;
@@ -36,8 +37,9 @@ import com.github.i49.pulp.api.publication.Rendition;
 import com.github.i49.pulp.impl.base.Messages;
 import com.github.i49.pulp.impl.io.containers.AbstractContainer;
 import com.github.i49.pulp.impl.io.containers.WriteableContainer;
+import com.github.i49.pulp.impl.publication.ModifiableContent;
 import com.github.i49.pulp.impl.publication.StandardMediaType;
-import com.github.i49.pulp.impl.xml.DocumentSerializer;
+import com.github.i49.pulp.impl.xml.ElementWriter;
 import com.github.i49.pulp.impl.xml.XmlServices;
 
 /**
@@ -46,15 +48,14 @@ import com.github.i49.pulp.impl.xml.XmlServices;
 class EpubPublicationWriter3 implements PublicationWriter {
 
 	private final WriteableContainer container;
-	private final DocumentBuilder documentBuilder;
-	private final DocumentSerializer documentSerializer;
-	
-	private static final int BUFFER_SIZE = 128 * 1024;
+	private final CompressionPolicy compressionPolicy;
+	// whether the generated documents are indented.
+	private final boolean indent;
 	
-	public EpubPublicationWriter3(WriteableContainer saver) {
+	public EpubPublicationWriter3(WriteableContainer saver, CompressionPolicy compressionPolicy, boolean indent) {
 		this.container = saver;
-		this.documentBuilder = XmlServices.newBuilder();
-		this.documentSerializer = XmlServices.newSerializer();
+		this.compressionPolicy = compressionPolicy;
+		this.indent = indent;
 	}
 
 	@Override
@@ -80,18 +81,21 @@ class EpubPublicationWriter3 implements PublicationWriter {
 		writeMimeType();
 		writeContainerDocument(publication);
 		writeAllRenditions(publication);
+		container.flush();
 	}
 	
 	private void writeAllRenditions(Publication publication) throws Exception {
+		// The resources shared by the renditions are written only once.
+		Set<String> written = new HashSet<>();
 		for (Rendition rendition: publication) {
-			writeRendition(rendition);
+			writeRendition(rendition, written);
 		}
 	}
 	
-	private void writeRendition(Rendition rendition) throws Exception {
+	private void writeRendition(Rendition rendition, Set<String> written) throws Exception {
 		rendition.getMetadata().fillMissingProperties();
 		writePackageDocument(rendition);
-		writeAllResources(rendition);
+		writeAllResources(rendition, written);
 	}
 	
 	private void writeMimeType() throws Exception {
@@ -99,45 +103,53 @@ class EpubPublicationWriter3 implements PublicationWriter {
 		container.writeItem(AbstractContainer.MIMETYPE_LOCATION, content);
 	}
 	
-	private void writeContainerDocument(Publication publication) {
-		ContainerDocumentGenerator generator = new ContainerDocumentGenerator(documentBuilder);
-		Document document = generator.generateDocument(publication);
-		writeXmlDocument(AbstractContainer.CONTAINER_DOCUMENT_LOCATION, document);
+	private void writeContainerDocument(Publication publication) throws IOException, XMLStreamException {
+		try (OutputStream out = container.openItemToWrite(AbstractContainer.CONTAINER_DOCUMENT_LOCATION);
+			 ElementWriter writer = XmlServices.newWriter(out, indent)) {
+			new ContainerDocumentGenerator(writer).generateDocument(publication);
+		}
 	}
 
-	private void writePackageDocument(Rendition rendition) {
-		PackageDocumentGenerator generator = new PackageDocumentGenerator(documentBuilder); 
-		Document document = generator.generateDocument(rendition);
-		writeXmlDocument(rendition.getLocation().getPath(), document);
+	private void writePackageDocument(Rendition rendition) throws IOException, XMLStreamException {
+		try (OutputStream out = container.openItemToWrite(rendition.getLocation().getPath());
+			 ElementWriter writer = XmlServices.newWriter(out, indent)) {
+			new PackageDocumentGenerator(writer).generateDocument(rendition);
+		}
 	}
 
-	private void writeAllResources(Rendition rendition) throws Exception {
+	private void writeAllResources(Rendition rendition, Set<String> written) throws Exception {
 		for (Manifest.Item item: rendition.getManifest()) {
-			writeResource(item);
+			if (written.add(item.getResource().getLocation().getPath())) {
+				writeResource(item);
+			}
 		}
 	}
 	
 	private void writeResource(Manifest.Item item) throws IOException {
 		PublicationResource resource = item.getResource();
 		String location = resource.getLocation().getPath();
-		byte[] buffer = new byte[BUFFER_SIZE];
-		try (InputStream in = resource.openContent(); OutputStream out = container.openItemToWrite(location)) {
-			int len = 0;
-			while ((len = in.read(buffer)) != -1) {
-				out.write(buffer, 0, len);
+		ContentSource source = resource.getContentSource();
+		Compression compression = compressionPolicy.select(resource);
+		if (compression == null) {
+			throw new EpubException(Messages.COMPRESSION_POLICY_RESULT_MISSING(resource.getLocation()));
+		}
+		if (source != null && !isModified(resource)) {
+			// The content not modified since read from another container can be copied as it is.
+			if (!container.copyItem(location, source, resource.getLocation(), compression)) {
+				container.writeItem(location, source, resource.getLocation(), compression);
 			}
+			return;
+		}
+		// The document modified in memory is serialized directly into the entry.
+		try (OutputStream out = container.openItemToWrite(location, compression)) {
+			resource.writeContentTo(out);
 		}
 	}
 	
-	private void writeXmlDocument(String location, Document document) {
-		try (OutputStream out = container.openItemToWrite(location)) {
-			documentSerializer.serialize(out, document);
-		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		} catch (TransformerException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+	private static boolean isModified(PublicationResource resource) {
+		if (resource instanceof ModifiableContent) {
+			return ((ModifiableContent)resource).isModified();
 		}
+		return false;
 	}
 }
@@ -24,26 +24,28 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-import javax.xml.parsers.DocumentBuilder;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import javax.xml.stream.XMLStreamException;
 
 import com.github.i49.pulp.api.metadata.Metadata;
 import com.github.i49.pulp.api.publication.Manifest;
 import com.github.i49.pulp.api.publication.Rendition;
 import com.github.i49.pulp.api.publication.Spine;
+import com.github.i49.pulp.api.vocabularies.Property;
 import com.github.i49.pulp.api.vocabularies.dc.Contributor;
 import com.github.i49.pulp.api.vocabularies.dc.Creator;
+import com.github.i49.pulp.api.vocabularies.dc.Date;
 import com.github.i49.pulp.api.vocabularies.dc.Identifier;
 import com.github.i49.pulp.api.vocabularies.dc.Language;
 import com.github.i49.pulp.api.vocabularies.dc.Publisher;
 import com.github.i49.pulp.api.vocabularies.dc.Title;
+import com.github.i49.pulp.api.vocabularies.dcterms.Modified;
 import com.github.i49.pulp.impl.io.containers.PackageDocumentProcessor;
+import com.github.i49.pulp.impl.xml.ElementWriter;
 
 /**
  * A generator class to generate a document which carries bibliographical 
  * and structural metadata about a given rendition.
+ * The document is written directly to the stream without building the document tree.
  */
 class PackageDocumentGenerator implements PackageDocumentProcessor {
 
@@ -51,19 +53,20 @@ class PackageDocumentGenerator implements PackageDocumentProcessor {
 	private static final String UNIQUE_IDENTIFIER = "pub-id";
 	private static final String ID_PREFIX = "item";
 	
-	private final DocumentBuilder documentBuilder;
+	private final ElementWriter writer;
 	private Rendition rendition;
 	private URI packageBase;
 
-	private Document document;
 	private Map<Manifest.Item, String> itemIds = new HashMap<>();
 	private int nextNumber;
 	
 	/**
 	 * Construct this generator.
+	 * 
+	 * @param writer the writer of the document.
 	 */
-	PackageDocumentGenerator(DocumentBuilder documentBuilder) {
-		this.documentBuilder = documentBuilder;
+	PackageDocumentGenerator(ElementWriter writer) {
+		this.writer = writer;
 		this.nextNumber = 1;
 	}
 	
@@ -71,133 +74,127 @@ class PackageDocumentGenerator implements PackageDocumentProcessor {
 	 * Generates a package document.
 	 * 
 	 * @param rendition the rendition to be written.
-	 * @return generated package document.
+	 * @throws XMLStreamException if an error has occurred while writing the document.
 	 */
-	Document generateDocument(Rendition rendition) {
+	void generateDocument(Rendition rendition) throws XMLStreamException {
 		
 		this.rendition = rendition;
 		this.packageBase = rendition.getLocation().resolve(".");
 
-		document = this.documentBuilder.newDocument();
+		writer.startDocument();
 
-		Element root = document.createElementNS(NAMESPACE_URI, "package");
-		root.setAttribute("version", VERSION);
-		root.setAttribute("unique-identifier", UNIQUE_IDENTIFIER);
+		writer.startElement("package");
+		writer.attribute("unique-identifier", UNIQUE_IDENTIFIER);
+		writer.attribute("version", VERSION);
+		writer.defaultNamespace(NAMESPACE_URI);
 	
-		root.appendChild(metadata());
-		root.appendChild(manifest());
-		root.appendChild(spine());
+		metadata();
+		manifest();
+		spine();
 		
-		document.appendChild(root);
-		return document;
+		writer.endElement();
+		writer.endDocument();
 	}
 	
 	/**
-	 * Creates a metadata element.
+	 * Writes a metadata element.
 	 * <p>The following metadata must be included.</p>
 	 * <ul>
 	 * <li>identifier</li>
 	 * <li>title</li>
 	 * <li>language</li>
 	 * </ul>
-	 * @return created metadata element.
 	 */
-	private Element metadata() {
+	private void metadata() throws XMLStreamException {
 		Metadata meta = rendition.getMetadata();
 
-		Element e = document.createElementNS(NAMESPACE_URI, "metadata");
-		e.setAttribute("xmlns:dc", DC_NAMESPACE_URI);
+		writer.startElement("metadata");
+		writer.namespace("dc", DC_NAMESPACE_URI);
 
-		addIdentifiers(e, meta);
-		addTitles(e, meta);
-		addLanguages(e, meta);
-		addCreators(e, meta);
-		addContributors(e, meta);
-		addPublishers(e, meta);
-		addDate(e, meta);
-		addLastModified(e, meta);
+		addIdentifiers(meta);
+		addTitles(meta);
+		addLanguages(meta);
+		addCreators(meta);
+		addContributors(meta);
+		addPublishers(meta);
+		addDate(meta);
+		addLastModified(meta);
 
-		return e;
+		writer.endElement();
 	}
 	
-	private void addIdentifiers(Element parent, Metadata metadata) {
-		boolean first = true;
-		for (Identifier p: metadata.find().identifier()) {
-			Element e = createMetadataEntry("dc:identifier", p.getValueAsString());
-			if (first) {
-				first = false;
-				e.setAttribute("id", UNIQUE_IDENTIFIER);
-				parent.appendChild(e);
-			}
+	private void addIdentifiers(Metadata metadata) throws XMLStreamException {
+		List<Identifier> identifiers = metadata.find().identifier();
+		if (!identifiers.isEmpty()) {
+			writer.startElement("dc:identifier");
+			writer.attribute("id", UNIQUE_IDENTIFIER);
+			writer.text(identifiers.get(0).getValueAsString());
+			writer.endElement();
 		}
 	}
 	
-	private void addTitles(Element parent, Metadata metadata) {
+	private void addTitles(Metadata metadata) throws XMLStreamException {
 		for (Title p: metadata.find().title()) {
-			Element e = createMetadataEntry("dc:title", p.getValueAsString());
-			parent.appendChild(e);
+			addMetadataEntry("dc:title", p);
 		}
 	}
 
-	private void addLanguages(Element parent, Metadata metadata) {
+	private void addLanguages(Metadata metadata) throws XMLStreamException {
 		for (Language p: metadata.find().language()) {
-			Element e = createMetadataEntry("dc:language", p.getValueAsString());
-			parent.appendChild(e);
+			addMetadataEntry("dc:language", p);
 		}
 	}
 	
-	private void addCreators(Element parent, Metadata metadata) {
+	private void addCreators(Metadata metadata) throws XMLStreamException {
 		for (Creator p: metadata.find().creator()) {
-			Element e = createMetadataEntry("dc:creator", p.getValueAsString());
-			parent.appendChild(e);
+			addMetadataEntry("dc:creator", p);
 		}
 	}
 
-	private void addContributors(Element parent, Metadata metadata) {
+	private void addContributors(Metadata metadata) throws XMLStreamException {
 		for (Contributor p: metadata.find().contributor()) {
-			Element e = createMetadataEntry("dc:contributor", p.getValueAsString());
-			parent.appendChild(e);
+			addMetadataEntry("dc:contributor", p);
 		}
 	}
 	
-	private void addPublishers(Element parent, Metadata metadata) {
+	private void addPublishers(Metadata metadata) throws XMLStreamException {
 		for (Publisher p: metadata.find().publisher()) {
-			Element e = createMetadataEntry("dc:publisher", p.getValueAsString());
-			parent.appendChild(e);
+			addMetadataEntry("dc:publisher", p);
 		}
 	}
 	
-	private void addDate(Element parent, Metadata metadata) {
-		metadata.find().date().stream().findFirst().ifPresent(p->{
-			Element e = createMetadataEntry("dc:date", p.getValueAsString());
-			parent.appendChild(e);
-		});
+	private void addDate(Metadata metadata) throws XMLStreamException {
+		List<Date> dates = metadata.find().date();
+		if (!dates.isEmpty()) {
+			addMetadataEntry("dc:date", dates.get(0));
+		}
 	}
 
-	private void addLastModified(Element parent, Metadata metadata) {
-		metadata.find().modified().stream().findFirst().ifPresent(p->{
-			Element e = createMetadataEntry("meta", p.getValueAsString());
-			e.setAttribute("property", "dcterms:modified");
-			parent.appendChild(e);
-		});
+	private void addLastModified(Metadata metadata) throws XMLStreamException {
+		List<Modified> modified = metadata.find().modified();
+		if (!modified.isEmpty()) {
+			writer.startElement("meta");
+			writer.attribute("property", "dcterms:modified");
+			writer.text(modified.get(0).getValueAsString());
+			writer.endElement();
+		}
 	}
 	
-	private Element createMetadataEntry(String name, String value) {
-		Element e = document.createElement(name);
-		e.appendChild(document.createTextNode(value));
-		return e;
+	private void addMetadataEntry(String name, Property<?> property) throws XMLStreamException {
+		writer.startElement(name);
+		writer.text(property.getValueAsString());
+		writer.endElement();
 	}
 	
 	/**
-	 * Creates a manifest element.
-	 * @return created manifest element.
+	 * Writes a manifest element.
 	 */
-	private Element manifest() {
-		Element manifest = document.createElementNS(NAMESPACE_URI, "manifest");
+	private void manifest() throws XMLStreamException {
+		writer.startElement("manifest");
 		for (Manifest.Item item: sortItems(rendition.getManifest())) {
-			manifest.appendChild(item(item));
+			item(item);
 		}
-		return manifest;
+		writer.endElement();
 	}
 	
 	private Iterable<Manifest.Item> sortItems(Manifest manifest) {
@@ -210,27 +207,24 @@ class PackageDocumentGenerator implements PackageDocumentProcessor {
 	}
 	
 	/**
-	 * Creates an item element in manifest. 
-	 * @param resource the resource for which an item will be created.
-	 * @return created item element.
+	 * Writes an item element in manifest. 
+	 * @param item the item for which an element will be written.
 	 */
-	private Element item(Manifest.Item item) {
+	private void item(Manifest.Item item) throws XMLStreamException {
 		String id = nextItemId();
 		this.itemIds.put(item, id);
 		
 		URI href = this.packageBase.relativize(item.getLocation()); 
 		
-		Element element = document.createElementNS(NAMESPACE_URI, "item");
-		element.setAttribute("id", id);
-		element.setAttribute("href", href.toString());
-		element.setAttribute("media-type", item.getResource().getMediaType().toString());
+		writer.emptyElement("item");
+		writer.attribute("href", href.toString());
+		writer.attribute("id", id);
+		writer.attribute("media-type", item.getResource().getMediaType().toString());
 		
 		String properties = itemProperties(item);
 		if (properties != null) {
-			element.setAttribute("properties", properties);
+			writer.attribute("properties", properties);
 		}
-
-		return element;
 	}
 	
 	private String itemProperties(Manifest.Item item) {
@@ -245,30 +239,27 @@ class PackageDocumentGenerator implements PackageDocumentProcessor {
 	}
 
 	/**
-	 * Creates a spine element.
-	 * @return created spine element.
+	 * Writes a spine element.
 	 */
-	private Element spine() {
-		Element spine = document.createElementNS(NAMESPACE_URI, "spine");
+	private void spine() throws XMLStreamException {
+		writer.startElement("spine");
 		for (Spine.Page page: rendition.getSpine()) {
-			spine.appendChild(itemref(page));
+			itemref(page);
 		}
-		return spine;
+		writer.endElement();
 	}
 	
 	/**
-	 * Creates an itemref element in spine. 
+	 * Writes an itemref element in spine. 
 	 * @param page the page to be added to the spine.
-	 * @return created itemref element.
 	 */
-	private Element itemref(Spine.Page page) {
-		Element itemref = document.createElementNS(NAMESPACE_URI, "itemref");
+	private void itemref(Spine.Page page) throws XMLStreamException {
+		writer.emptyElement("itemref");
 		String idref = this.itemIds.get(page.getItem());
-		itemref.setAttribute("idref", idref);
+		writer.attribute("idref", idref);
 		if (!page.isLinear()) {
-			itemref.setAttribute("linear", "no");
+			writer.attribute("linear", "no");
 		}
-		return itemref;
 	}
 	
 	/**
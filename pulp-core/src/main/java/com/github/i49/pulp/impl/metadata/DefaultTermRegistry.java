@@ -35,6 +35,10 @@ import com.github.i49.pulp.impl.vocabularies.marc.Marc;
 
 /**
  * The default implementation of {@link TermRegistry}.
+ * 
+ * <p>Instances of this class are safe for use by multiple concurrent threads.
+ * All the methods are synchronized, because the terms and the vocabularies not predefined
+ * are registered by the readers parsing the publications in parallel.</p>
  */
 public class DefaultTermRegistry implements TermRegistry {
 	
@@ -56,7 +60,7 @@ public class DefaultTermRegistry implements TermRegistry {
 	}
 	
 	@Override
-	public boolean containsTerm(Term term) {
+	public synchronized boolean containsTerm(Term term) {
 		checkNotNull(term, "term");
 		Vocabulary v = term.getVocabulary();
 		if (!vocabularyMap.containsValue(v)) {
@@ -67,7 +71,7 @@ public class DefaultTermRegistry implements TermRegistry {
 	}
 
 	@Override
-	public boolean containsTerm(URI uri, String name) {
+	public synchronized boolean containsTerm(URI uri, String name) {
 		checkNotNull(uri, "uri");
 		checkNotNull(name, "name");
 		Vocabulary v = this.vocabularyMap.get(uri);
@@ -78,25 +82,25 @@ public class DefaultTermRegistry implements TermRegistry {
 	}
 	
 	@Override
-	public boolean containsVocabulary(URI uri) {
+	public synchronized boolean containsVocabulary(URI uri) {
 		checkNotNull(uri, "uri");
 		return this.vocabularyMap.containsKey(uri);
 	}
 	
 	@Override
-	public boolean containsVocabulary(Vocabulary vocabulary) {
+	public synchronized boolean containsVocabulary(Vocabulary vocabulary) {
 		checkNotNull(vocabulary, "vocabulary");
 		return this.vocabularyMap.containsValue(vocabulary);
 	}
 	
 	@Override
-	public Optional<Vocabulary> findVocabulary(URI uri) {
+	public synchronized Optional<Vocabulary> findVocabulary(URI uri) {
 		checkNotNull(uri, "uri");
 		return Optional.ofNullable(this.vocabularyMap.get(uri));
 	}
 
 	@Override
-	public Optional<Term> findTerm(URI uri, String name) {
+	public synchronized Optional<Term> findTerm(URI uri, String name) {
 		checkNotNull(uri, "uri");
 		checkNotNull(name, "name");
 		Vocabulary v = this.vocabularyMap.get(uri);
@@ -108,7 +112,7 @@ public class DefaultTermRegistry implements TermRegistry {
 	}
 
 	@Override
-	public Optional<Term> findTerm(Vocabulary vocabulary, String name) {
+	public synchronized Optional<Term> findTerm(Vocabulary vocabulary, String name) {
 		checkNotNull(vocabulary, "vocabulary");
 		checkNotNull(name, "name");
 		Map<String, Term> terms = this.termMap.get(vocabulary);
@@ -119,7 +123,7 @@ public class DefaultTermRegistry implements TermRegistry {
 	}
 	
 	@Override
-	public Term getTerm(Vocabulary vocabulary, String name) {
+	public synchronized Term getTerm(Vocabulary vocabulary, String name) {
 		checkNotNull(vocabulary, "vocabulary");
 		checkNotNull(name, "name");
 		if (!containsVocabulary(vocabulary)) {
@@ -136,7 +140,7 @@ public class DefaultTermRegistry implements TermRegistry {
 	}
 
 	@Override
-	public Vocabulary getVocabulary(URI uri) {
+	public synchronized Vocabulary getVocabulary(URI uri) {
 		checkNotNull(uri, "uri");
 		Vocabulary v = this.vocabularyMap.get(uri);
 		if (v == null) {
@@ -147,7 +151,7 @@ public class DefaultTermRegistry implements TermRegistry {
 	}
 
 	@Override
-	public <T extends Enum<T> & Term> void registerAllTerms(Class<T> type) {
+	public synchronized <T extends Enum<T> & Term> void registerAllTerms(Class<T> type) {
 		checkNotNull(type, "type");
 		for (Term t: type.getEnumConstants()) {
 			registerTerm(t);
@@ -155,7 +159,7 @@ public class DefaultTermRegistry implements TermRegistry {
 	}
 
 	@Override
-	public <T extends Enum<T> & Vocabulary> void registerAllVocabularies(Class<T> type) {
+	public synchronized <T extends Enum<T> & Vocabulary> void registerAllVocabularies(Class<T> type) {
 		checkNotNull(type, "type");
 		for (Vocabulary v: type.getEnumConstants()) {
 			registerVocabulary(v);
@@ -163,7 +167,7 @@ public class DefaultTermRegistry implements TermRegistry {
 	}
 	
 	@Override
-	public void registerTerm(Term term) {
+	public synchronized void registerTerm(Term term) {
 		checkNotNull(term, "term");
 		if (containsTerm(term)) {
 			// TODO:
@@ -177,7 +181,7 @@ public class DefaultTermRegistry implements TermRegistry {
 	}
 
 	@Override
-	public void registerVocabulary(Vocabulary vocabulary) {
+	public synchronized void registerVocabulary(Vocabulary vocabulary) {
 		checkNotNull(vocabulary, "vocabulary");
 		if (containsVocabulary(vocabulary)) {
 			// TODO:
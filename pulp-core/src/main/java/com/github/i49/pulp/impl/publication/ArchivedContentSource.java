@@ -0,0 +1,38 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.publication;
+
+import java.io.IOException;
+import java.net.URI;
+
+import com.github.i49.pulp.api.publication.ArchiveEntry;
+import com.github.i49.pulp.api.publication.ContentSource;
+
+/**
+ * {@link ContentSource} reading the contents from the entries of a ZIP archive.
+ */
+public interface ArchivedContentSource extends ContentSource {
+
+	/**
+	 * Returns the entry of the archive providing the content for a resource.
+	 * 
+	 * @param location the location of the resource using the content.
+	 * @return the entry of the archive, or {@code null} if the entry cannot be served directly.
+	 * @throws IOException if an I/O error has occurred while locating the entry.
+	 */
+	ArchiveEntry getArchiveEntry(URI location) throws IOException;
+}
@@ -17,13 +17,21 @@
 package com.github.i49.pulp.impl.publication;
 
 import static com.github.i49.pulp.impl.base.Preconditions.*;
+import static com.github.i49.pulp.impl.base.Limits.MAX_ARRAY_SIZE;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.Optional;
 
+import com.github.i49.pulp.api.publication.ArchiveEntry;
 import com.github.i49.pulp.api.publication.ContentSource;
 import com.github.i49.pulp.api.publication.CoreMediaType;
 import com.github.i49.pulp.api.publication.MediaType;
@@ -32,10 +40,13 @@ import com.github.i49.pulp.api.publication.PublicationResource;
 /**
  * A skeletal class implementing {@link PublicaionResource}.
  */
-class BasicPublicationResource implements PublicationResource {
+class BasicPublicationResource implements PublicationResource, ModifiableContent {
 
 	private static final EnumSet<CoreMediaType> CORE_MEDIA_TYPES = EnumSet.allOf(CoreMediaType.class);
 	private static final int BUFFER_SIZE = 64 * 1024;
+	// the maximum size of the array allocated up front for the size declared by the content source,
+	// which may come from a corrupt archive.
+	private static final int MAX_INITIAL_SIZE = 8 * 1024 * 1024;
 
 	private final PublicationResourceLocation location;
 	private final MediaType mediaType;
@@ -90,26 +101,102 @@ class BasicPublicationResource implements PublicationResource {
 	
 	@Override
 	public InputStream openContent() throws IOException {
-		if (this.source == null) {
-			throw new IllegalStateException();
-		}
-		return this.source.openSource(getLocation());
+		return getRequiredSource().openSource(getLocation());
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * The content of this resource always comes from its content source.
+	 */
+	@Override
+	public boolean isModified() {
+		return false;
 	}
 	
 	@Override
 	public byte[] getContent() throws IOException {
-		byte[] buffer = new byte[BUFFER_SIZE];
-		try (InputStream in = openContent(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-			int len = 0;
-			while ((len = in.read(buffer)) != -1) {
-				out.write(buffer, 0, len);
-			}
-			return out.toByteArray();
+		long size = getContentSize();
+		try (InputStream in = openContent()) {
+			// Allocates the array of the exact size if known and not too large.
+			// The larger content grows the array while being read.
+			int initialSize = (size >= 0) ? (int)Math.min(size, MAX_INITIAL_SIZE) : BUFFER_SIZE;
+			return readAll(in, initialSize);
+		}
+	}
+	
+	@Override
+	public ReadableByteChannel openContentChannel() throws IOException {
+		return getRequiredSource().openChannel(getLocation());
+	}
+	
+	@Override
+	public ByteBuffer getContentAsBuffer() throws IOException {
+		return getRequiredSource().asByteBuffer(getLocation());
+	}
+	
+	@Override
+	public long getContentSize() throws IOException {
+		return getRequiredSource().size(getLocation());
+	}
+	
+	@Override
+	public long transferContentTo(WritableByteChannel target) throws IOException {
+		checkNotNull(target, "target");
+		return getRequiredSource().transferTo(getLocation(), target);
+	}
+	
+	@Override
+	public void writeContentTo(OutputStream out) throws IOException {
+		checkNotNull(out, "out");
+		transferContentTo(Channels.newChannel(out));
+	}
+	
+	@Override
+	public Optional<ArchiveEntry> getArchiveEntry() throws IOException {
+		ContentSource source = getRequiredSource();
+		if (source instanceof ArchivedContentSource) {
+			return Optional.ofNullable(((ArchivedContentSource)source).getArchiveEntry(getLocation()));
 		}
+		return Optional.empty();
 	}
 
 	@Override
 	public String toString() {
 		return getLocation().toString();
 	}
+	
+	private ContentSource getRequiredSource() {
+		if (this.source == null) {
+			throw new IllegalStateException();
+		}
+		return this.source;
+	}
+	
+	/**
+	 * Reads all bytes from the stream.
+	 * 
+	 * @param in the stream to read.
+	 * @param initialSize the initial size of the array, which is returned as is if the size is exact.
+	 * @return the bytes read.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	private static byte[] readAll(InputStream in, int initialSize) throws IOException {
+		byte[] content = new byte[initialSize];
+		int offset = 0;
+		for (;;) {
+			if (offset == content.length) {
+				int b = in.read();
+				if (b < 0) {
+					return content;
+				}
+				content = Arrays.copyOf(content, (int)Math.min(Math.max(content.length * 2L, BUFFER_SIZE), MAX_ARRAY_SIZE));
+				content[offset++] = (byte)b;
+			}
+			int len = in.read(content, offset, content.length - offset);
+			if (len < 0) {
+				return Arrays.copyOf(content, offset);
+			}
+			offset += len;
+		}
+	}
 }
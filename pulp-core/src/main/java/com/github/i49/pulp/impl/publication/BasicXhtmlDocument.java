@@ -28,7 +28,11 @@ class BasicXhtmlDocument extends BasicXmlDocument implements XhtmlDocument {
 	public static final String NAMESPACE_URI = "http://www.w3.org/1999/xhtml";
 	
 	public BasicXhtmlDocument(PublicationResourceLocation location) {
-		super(location, CoreMediaType.APPLICATION_XHTML_XML);
+		this(location, null);
+	}
+
+	public BasicXhtmlDocument(PublicationResourceLocation location, DocumentCache cache) {
+		super(location, CoreMediaType.APPLICATION_XHTML_XML, cache);
 	}
 
 	@Override
@@ -16,11 +16,18 @@
 
 package com.github.i49.pulp.impl.publication;
 
+import static com.github.i49.pulp.impl.base.Preconditions.*;
+
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Optional;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.transform.TransformerException;
@@ -28,17 +35,37 @@ import javax.xml.transform.TransformerException;
 import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
+import com.github.i49.pulp.api.publication.ArchiveEntry;
+import com.github.i49.pulp.api.publication.EpubException;
 import com.github.i49.pulp.api.publication.MediaType;
 import com.github.i49.pulp.api.publication.XmlDocument;
+import com.github.i49.pulp.impl.base.Messages;
 import com.github.i49.pulp.impl.xml.DocumentSerializer;
 import com.github.i49.pulp.impl.xml.XmlServices;
 
+/**
+ * The publication resource which content is an XML document.
+ *
+ * <p>The document assigned by {@link #setDocument(Document)} is held by this resource
+ * until another document is assigned, and is written instead of the content source.
+ * If a {@link DocumentCache} is given, the document parsed from the content source 
+ * is held by the cache, which may evict it and parse it again on demand.
+ * Otherwise the document parsed is held by this resource as if it were assigned.</p>
+ */
 class BasicXmlDocument extends BasicPublicationResource implements XmlDocument {
 
+	// the document assigned or parsed without the cache.
 	private Document document;
+	// the cache of the documents parsed, or null if disabled.
+	private final DocumentCache cache;
 	
 	public BasicXmlDocument(PublicationResourceLocation location, MediaType mediaType) {
+		this(location, mediaType, null);
+	}
+	
+	public BasicXmlDocument(PublicationResourceLocation location, MediaType mediaType, DocumentCache cache) {
 		super(location, mediaType);
+		this.cache = cache;
 	}
 	
 	@Override
@@ -46,42 +73,159 @@ class BasicXmlDocument extends BasicPublicationResource implements XmlDocument {
 		if (this.document == null) {
 			return super.openContent();
 		}
-		try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+		return new ByteArrayInputStream(serializeDocument());
+	}
+	
+	@Override
+	public ReadableByteChannel openContentChannel() throws IOException {
+		if (this.document == null) {
+			return super.openContentChannel();
+		}
+		return Channels.newChannel(openContent());
+	}
+	
+	@Override
+	public ByteBuffer getContentAsBuffer() throws IOException {
+		if (this.document == null) {
+			return super.getContentAsBuffer();
+		}
+		return ByteBuffer.wrap(serializeDocument());
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * The size of the document once loaded or assigned is unknown until it is serialized.
+	 */
+	@Override
+	public long getContentSize() throws IOException {
+		if (this.document == null) {
+			return super.getContentSize();
+		}
+		return -1;
+	}
+	
+	@Override
+	public long transferContentTo(WritableByteChannel target) throws IOException {
+		if (this.document == null) {
+			return super.transferContentTo(target);
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(serializeDocument());
+		long size = buffer.remaining();
+		while (buffer.hasRemaining()) {
+			target.write(buffer);
+		}
+		return size;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * The document once loaded or assigned is serialized directly to the stream.
+	 */
+	@Override
+	public void writeContentTo(OutputStream out) throws IOException {
+		if (this.document == null) {
+			super.writeContentTo(out);
+			return;
+		}
+		checkNotNull(out, "out");
+		try {
 			writeDocument(out);
-			return new ByteArrayInputStream(out.toByteArray());
 		} catch (TransformerException e) {
-			// TODO Auto-generated catch block
-			return null;
+			throw new IOException(e);
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * The document once loaded or assigned is not served from the archive.
+	 */
+	@Override
+	public Optional<ArchiveEntry> getArchiveEntry() throws IOException {
+		if (this.document == null) {
+			return super.getArchiveEntry();
 		}
+		return Optional.empty();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * If the cache is enabled, the changes made to the document returned 
+	 * are retained only after the document is assigned by {@link #setDocument(Document)}.
+	 */
 	@Override
 	public Document getDocument() {
-		if (this.document == null) {
-			try {
-				this.document = readDocument();
-			} catch (IOException | SAXException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
-			}
+		if (this.document != null) {
+			return this.document;
+		}
+		if (this.cache == null) {
+			this.document = loadDocument();
+			return this.document;
 		}
-		return this.document;
+		Document cached = this.cache.get(this);
+		if (cached == null) {
+			cached = loadDocument();
+			this.cache.put(this, cached, getSourceSize());
+		}
+		return cached;
 	}
 	
 	@Override
 	public void setDocument(Document document) {
 		this.document = document;
+		if (this.cache != null) {
+			this.cache.remove(this);
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * The document assigned, or loaded without the cache, is written instead of the content source.
+	 */
+	@Override
+	public boolean isModified() {
+		return this.document != null;
+	}
+	
+	/**
+	 * Parses the document from the content source.
+	 * 
+	 * @return the document parsed.
+	 * @throws EpubException if the content source cannot be read or parsed.
+	 */
+	private Document loadDocument() {
+		try {
+			return readDocument();
+		} catch (IOException | SAXException e) {
+			throw new EpubException(Messages.RESOURCE_DOCUMENT_UNREADABLE(getLocation()), e);
+		}
+	}
+	
+	private long getSourceSize() {
+		try {
+			return super.getContentSize();
+		} catch (IOException e) {
+			return -1;
+		}
 	}
 	
 	protected Document readDocument() throws IOException, SAXException {
 		try (InputStream in = super.openContent()) {
-			DocumentBuilder builder = XmlServices.newBuilder();
+			DocumentBuilder builder = XmlServices.getBuilder();
 			return builder.parse(in);
 		}
 	}
 	
+	private byte[] serializeDocument() throws IOException {
+		try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+			writeDocument(out);
+			return out.toByteArray();
+		} catch (TransformerException e) {
+			throw new IOException(e);
+		}
+	}
+	
 	protected void writeDocument(OutputStream out) throws IOException, TransformerException {
-		DocumentSerializer serializer = XmlServices.newSerializer();
+		DocumentSerializer serializer = XmlServices.getSerializer();
 		serializer.serialize(out, this.document);
 		out.flush();
 	}
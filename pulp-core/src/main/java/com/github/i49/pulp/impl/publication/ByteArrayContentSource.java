@@ -0,0 +1,67 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.publication;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import com.github.i49.pulp.api.publication.ContentSource;
+
+/**
+ * {@link ContentSource} that provides the content held in a byte array.
+ * The array is shared and never copied by this source.
+ */
+class ByteArrayContentSource implements ContentSource {
+
+	private final byte[] bytes;
+
+	ByteArrayContentSource(byte[] bytes) {
+		this.bytes = bytes;
+	}
+
+	@Override
+	public InputStream openSource(URI location) {
+		return new ByteArrayInputStream(bytes);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The buffer returned is a read-only view of the array.
+	 */
+	@Override
+	public ByteBuffer asByteBuffer(URI location) {
+		return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+	}
+
+	@Override
+	public long size(URI location) {
+		return bytes.length;
+	}
+
+	@Override
+	public long transferTo(URI location, WritableByteChannel target) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		while (buffer.hasRemaining()) {
+			target.write(buffer);
+		}
+		return bytes.length;
+	}
+}
@@ -31,6 +31,7 @@ public class DefaultPublicationResourceBuilderFactory implements PublicationReso
 	private final PublicationResourceLocation baseURI;
 	private final MediaTypeRegistry typeRegistry;
 	private Path[] sourcePath = NO_PATHS;
+	private DocumentCache documentCache;
 	
 	public DefaultPublicationResourceBuilderFactory(URI baseURI, MediaTypeRegistry typeRegistry) {
 		assert(baseURI != null && typeRegistry != null);
@@ -50,11 +51,20 @@ public class DefaultPublicationResourceBuilderFactory implements PublicationReso
 		this.sourcePath = paths;
 	}
 
+	/**
+	 * Assigns the cache of the DOM trees to the XML documents built by this factory.
+	 * 
+	 * @param documentCache the cache of the DOM trees, or {@code null} to hold the trees in the documents.
+	 */
+	public void setDocumentCache(DocumentCache documentCache) {
+		this.documentCache = documentCache;
+	}
+
 	@Override
 	public PublicationResourceBuilder newBuilder(String location) {
 		checkNotNull(location, "location");
 		PublicationResourceLocation resolved = resolve(location);
-		return new GenericPublicationResourceBuilder(resolved, location, this.sourcePath, this.typeRegistry);
+		return new GenericPublicationResourceBuilder(resolved, location, this.sourcePath, this.typeRegistry, this.documentCache);
 	}
 	
 	/**
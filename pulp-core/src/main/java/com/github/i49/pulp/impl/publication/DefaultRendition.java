@@ -23,9 +23,11 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.function.Supplier;
 
 import com.github.i49.pulp.api.metadata.Metadata;
 import com.github.i49.pulp.api.publication.EpubException;
@@ -118,9 +120,10 @@ public class DefaultRendition implements Rendition {
 	/**
 	 * The default implementation of {@code Manifest}.
 	 */
-	private class DefaultManifest implements Manifest {
+	private class DefaultManifest implements LazyManifest {
 		
-		private final Map<PublicationResource, Item> resourceItemMap = new HashMap<>();
+		// the items keyed by the locations of their resources relative to the container root.
+		private final Map<URI, DefaultItem> locationItemMap = new LinkedHashMap<>();
 		// cover image of the rendition
 		private Item coverImage;
 		// navigation document of the rendition
@@ -128,34 +131,28 @@ public class DefaultRendition implements Rendition {
 
 		@Override
 		public int getNumberOfItems() {
-			return resourceItemMap.size();
+			return locationItemMap.size();
 		}
 	
 		@Override
 		public boolean contains(Item item) {
 			checkNotNull(item, "item");
-			return resourceItemMap.containsValue(item);
+			if (!(item instanceof DefaultItem)) {
+				return false;
+			}
+			return locationItemMap.get(((DefaultItem)item).resourceLocation) == item;
 		}
 		
 		@Override
 		public boolean contains(String location) {
 			checkNotNull(location, "location");
-			URI resolved = resolve(location);
-			if (!registry.contains(resolved)) {
-				return false;
-			}
-			PublicationResource resource = registry.get(resolved);
-			return resourceItemMap.containsKey(resource);
+			return locationItemMap.containsKey(resolve(location));
 		}
 		
 		@Override
 		public Item get(String location) {
 			checkNotNull(location, "location");
-			Item item = null;
-			PublicationResource resource = registry.get(resolve(location));
-			if (resource != null) {
-				item = resourceItemMap.get(resource);
-			}
+			Item item = locationItemMap.get(resolve(location));
 			if (item == null) {
 				throw new NoSuchElementException(Messages.MANIFEST_ITEM_MISSING(location));
 			}
@@ -165,28 +162,41 @@ public class DefaultRendition implements Rendition {
 		@Override
 		public Item add(PublicationResource resource) {
 			checkNotNull(resource, "resource");
-			if (resourceItemMap.containsKey(resource)) {
-				throw new EpubException(Messages.RESOURCE_ALREADY_EXISTS_IN_MANIFEST(resource.getLocation()));
+			URI location = resource.getLocation();
+			DefaultItem existing = locationItemMap.get(location);
+			if (existing != null && existing.getResource() == resource) {
+				throw new EpubException(Messages.RESOURCE_ALREADY_EXISTS_IN_MANIFEST(location));
 			}
 			registry.register(resource);
-			return addNewItem(resource);
+			return addNewItem(location, resource);
+		}
+		
+		@Override
+		public Item addLazily(URI location, Supplier<PublicationResource> supplier) {
+			checkNotNull(location, "location");
+			checkNotNull(supplier, "supplier");
+			if (locationItemMap.containsKey(location)) {
+				throw new EpubException(Messages.RESOURCE_ALREADY_EXISTS_IN_MANIFEST(location));
+			}
+			registry.registerLazily(location, supplier);
+			return addNewItem(location, null);
 		}
 
 		@Override
 		public boolean remove(Item item) {
 			checkNotNull(item, "item");
-			if (!resourceItemMap.containsValue(item)) {
+			if (!contains(item)) {
 				return false;
 			}
 			PublicationResource resource = item.getResource();
-			resourceItemMap.remove(resource);
+			locationItemMap.remove(resource.getLocation());
 			registry.unregister(resource);
 			return true;
 		}
 
 		@Override
 		public Iterator<Item> iterator() {
-			return Collections.unmodifiableCollection(resourceItemMap.values()).iterator();
+			return Collections.<Item>unmodifiableCollection(locationItemMap.values()).iterator();
 		}
 		
 		@Override
@@ -217,10 +227,9 @@ public class DefaultRendition implements Rendition {
 			}
 		}
 
-		private Item addNewItem(PublicationResource resource) {
-			URI location = relativize(resource.getLocation());
-			Item item = new DefaultItem(location, resource);
-			resourceItemMap.put(resource, item);
+		private Item addNewItem(URI resourceLocation, PublicationResource resource) {
+			DefaultItem item = new DefaultItem(relativize(resourceLocation), resourceLocation, resource);
+			locationItemMap.put(resourceLocation, item);
 			return item;
 		}
 	}
@@ -231,22 +240,31 @@ public class DefaultRendition implements Rendition {
 	private class DefaultItem implements Manifest.Item {
 		
 		private final URI location;
-		private final PublicationResource resource;
+		// the location of the resource relative to the container root.
+		private final URI resourceLocation;
+		// the resource referenced, or null if not built yet.
+		private PublicationResource resource;
 		private boolean scripted;
 		
 		/**
 		 * Constructs this item.
 		 * @param location the location of this item.
-		 * @param resource the publication resource referenced by this item.
+		 * @param resourceLocation the location of the resource relative to the container root.
+		 * @param resource the publication resource referenced by this item, 
+		 *                 or {@code null} if the resource is registered lazily.
 		 */
-		private DefaultItem(URI location, PublicationResource resource) {
+		private DefaultItem(URI location, URI resourceLocation, PublicationResource resource) {
 			this.location = location;
+			this.resourceLocation = resourceLocation;
 			this.resource = resource;
 			this.scripted = false;
 		}
 
 		@Override
 		public PublicationResource getResource() {
+			if (resource == null) {
+				resource = registry.get(resourceLocation);
+			}
 			return resource;
 		}
 
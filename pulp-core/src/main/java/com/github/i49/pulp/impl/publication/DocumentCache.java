@@ -0,0 +1,147 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.publication;
+
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.w3c.dom.Document;
+
+/**
+ * Cache of the DOM trees parsed from the XML documents of a publication.
+ *
+ * <p>The trees are kept up to the specified number of the documents
+ * and the specified total size of their contents,
+ * and the least recently used ones are evicted first when either of the limits is exceeded.
+ * The trees are also softly referenced, so that the garbage collector can clear them under memory pressure.
+ * The evicted trees are parsed again from the content sources when they are requested next time.</p>
+ *
+ * <p>Only the trees which are not modified can be held in this cache.
+ * The trees assigned to the documents are held by the documents themselves.</p>
+ *
+ * <p>Instances of this class are safe for use by multiple concurrent threads.</p>
+ */
+public class DocumentCache {
+
+	private final int capacity;
+	private final long memoryLimit;
+	private final Map<BasicXmlDocument, CachedTree> trees;
+	// the total size of the contents of the trees cached.
+	private long totalSize;
+
+	/**
+	 * Constructs this cache.
+	 *
+	 * @param capacity the maximum number of the trees kept in this cache.
+	 * @param memoryLimit the maximum total size in bytes of the contents of the trees kept in this cache.
+	 * @throws IllegalArgumentException if {@code capacity} is not positive or {@code memoryLimit} is negative.
+	 */
+	public DocumentCache(int capacity, long memoryLimit) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be positive.");
+		}
+		if (memoryLimit < 0) {
+			throw new IllegalArgumentException("memoryLimit must not be negative.");
+		}
+		this.capacity = capacity;
+		this.memoryLimit = memoryLimit;
+		this.trees = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	/**
+	 * Returns the number of the trees currently kept in this cache.
+	 *
+	 * @return the number of the trees.
+	 */
+	public synchronized int size() {
+		return trees.size();
+	}
+
+	/**
+	 * Returns the tree cached for the document.
+	 *
+	 * @param document the document which owns the tree.
+	 * @return the cached tree, or {@code null} if the tree was not cached or already evicted.
+	 */
+	synchronized Document get(BasicXmlDocument document) {
+		CachedTree cached = trees.get(document);
+		if (cached == null) {
+			return null;
+		}
+		Document tree = cached.tree.get();
+		if (tree == null) {
+			// cleared by the garbage collector.
+			remove(document);
+		}
+		return tree;
+	}
+
+	/**
+	 * Adds the tree parsed for the document to this cache.
+	 * The tree whose content is larger than the memory limit is not cached at all.
+	 *
+	 * @param document the document which owns the tree.
+	 * @param tree the tree parsed from the content of the document.
+	 * @param size the size of the content in bytes, or -1 if unknown.
+	 */
+	synchronized void put(BasicXmlDocument document, Document tree, long size) {
+		remove(document);
+		long weight = Math.max(size, 0);
+		if (weight > memoryLimit) {
+			return;
+		}
+		trees.put(document, new CachedTree(tree, weight));
+		totalSize += weight;
+		evict();
+	}
+
+	/**
+	 * Removes the tree of the document from this cache.
+	 *
+	 * @param document the document which owns the tree.
+	 */
+	synchronized void remove(BasicXmlDocument document) {
+		CachedTree removed = trees.remove(document);
+		if (removed != null) {
+			totalSize -= removed.size;
+		}
+	}
+
+	private void evict() {
+		Iterator<CachedTree> it = trees.values().iterator();
+		while (it.hasNext() && (trees.size() > capacity || totalSize > memoryLimit)) {
+			totalSize -= it.next().size;
+			it.remove();
+		}
+	}
+
+	/**
+	 * The tree held in the cache.
+	 */
+	private static class CachedTree {
+
+		final SoftReference<Document> tree;
+		final long size;
+
+		CachedTree(Document tree, long size) {
+			this.tree = new SoftReference<>(tree);
+			this.size = size;
+		}
+	}
+}
@@ -20,6 +20,8 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
 import com.github.i49.pulp.api.publication.ContentSource;
 
@@ -48,4 +50,19 @@ public class EmptyContentSource implements ContentSource {
 	public InputStream openSource(URI location) throws IOException {
 		return new ByteArrayInputStream(CONTENT);
 	}
+
+	@Override
+	public ByteBuffer asByteBuffer(URI location) {
+		return ByteBuffer.wrap(CONTENT);
+	}
+
+	@Override
+	public long size(URI location) {
+		return 0;
+	}
+
+	@Override
+	public long transferTo(URI location, WritableByteChannel target) {
+		return 0;
+	}
 }
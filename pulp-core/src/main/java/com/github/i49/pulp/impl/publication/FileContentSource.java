@@ -0,0 +1,114 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.publication;
+
+import static com.github.i49.pulp.impl.base.Limits.MAX_ARRAY_SIZE;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.github.i49.pulp.api.publication.ContentSource;
+import com.github.i49.pulp.impl.base.Messages;
+
+/**
+ * {@link ContentSource} that provides the content of a file.
+ *
+ * <p>The content is transferred through {@link FileChannel#transferTo(long, long, WritableByteChannel)}
+ * when available, and large files are mapped into memory when requested as a buffer.</p>
+ */
+public class FileContentSource implements ContentSource {
+
+	// the minimum size of the files to be mapped into memory.
+	private static final long MAPPING_THRESHOLD = 256 * 1024;
+
+	private final Path path;
+
+	/**
+	 * Constructs this source.
+	 *
+	 * @param path the path to the file providing the content.
+	 */
+	public FileContentSource(Path path) {
+		this.path = path;
+	}
+
+	@Override
+	public InputStream openSource(URI location) throws IOException {
+		return Files.newInputStream(path);
+	}
+
+	@Override
+	public ReadableByteChannel openChannel(URI location) throws IOException {
+		return Files.newByteChannel(path);
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer(URI location) throws IOException {
+		try (SeekableByteChannel channel = Files.newByteChannel(path)) {
+			long size = channel.size();
+			if (channel instanceof FileChannel && size >= MAPPING_THRESHOLD) {
+				// The mapping remains valid after the channel is closed.
+				return ((FileChannel)channel).map(FileChannel.MapMode.READ_ONLY, 0, size);
+			}
+			if (size > MAX_ARRAY_SIZE) {
+				throw new IOException(Messages.CONTAINER_ITEM_TOO_LARGE(path.toString(), size));
+			}
+			ByteBuffer buffer = ByteBuffer.allocate((int)size);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0) {
+					throw new EOFException();
+				}
+			}
+			buffer.flip();
+			return buffer;
+		}
+	}
+
+	@Override
+	public long size(URI location) throws IOException {
+		return Files.size(path);
+	}
+
+	@Override
+	public long transferTo(URI location, WritableByteChannel target) throws IOException {
+		try (SeekableByteChannel channel = Files.newByteChannel(path)) {
+			if (!(channel instanceof FileChannel)) {
+				return ContentSource.super.transferTo(location, target);
+			}
+			FileChannel fileChannel = (FileChannel)channel;
+			long size = fileChannel.size();
+			long position = 0;
+			while (position < size) {
+				long transferred = fileChannel.transferTo(position, size - position, target);
+				if (transferred <= 0) {
+					throw new EOFException();
+				}
+				position += transferred;
+			}
+			return size;
+		}
+	}
+}
@@ -18,7 +18,6 @@ package com.github.i49.pulp.impl.publication;
 
 import static com.github.i49.pulp.impl.base.Preconditions.*;
 
-import java.io.ByteArrayInputStream;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -40,6 +39,7 @@ class GenericPublicationResourceBuilder implements PublicationResourceBuilder {
 	private final String localPath;
 	private final Path[] sourcePath;
 	private final MediaTypeRegistry typeRegistry;
+	private final DocumentCache documentCache;
 	
 	private ContentSource source;
 	private MediaType mediaType;
@@ -53,17 +53,20 @@ class GenericPublicationResourceBuilder implements PublicationResourceBuilder {
 	 * @param localPath the user specified path.
 	 * @param sourcePath the paths used to find the content source.
 	 * @param typeRegistry the media type registry.
+	 * @param documentCache the cache of the XML documents parsed, can be {@code null}.
 	 */
 	GenericPublicationResourceBuilder(
 			PublicationResourceLocation location, 
 			String localPath, 
 			Path[] sourcePath,
-			MediaTypeRegistry typeRegistry) {
+			MediaTypeRegistry typeRegistry,
+			DocumentCache documentCache) {
 	
 		this.location = location;
 		this.localPath = localPath;
 		this.sourcePath = sourcePath;
 		this.typeRegistry = typeRegistry;
+		this.documentCache = documentCache;
 		
 		this.source = null;
 		this.mediaType = null;
@@ -91,7 +94,7 @@ class GenericPublicationResourceBuilder implements PublicationResourceBuilder {
 	@Override
 	public PublicationResourceBuilder source(Path path) {
 		checkNotNull(path, "path");
-		return source(path.toUri());
+		return source(new FileContentSource(path));
 	}
 
 	@Override
@@ -103,7 +106,7 @@ class GenericPublicationResourceBuilder implements PublicationResourceBuilder {
 	@Override
 	public PublicationResourceBuilder source(byte[] bytes) {
 		checkNotNull(bytes, "bytes");
-		return source((location)->new ByteArrayInputStream(bytes));
+		return source(new ByteArrayContentSource(bytes));
 	}
 	
 	@Override
@@ -166,9 +169,7 @@ class GenericPublicationResourceBuilder implements PublicationResourceBuilder {
 		for (Path path: this.sourcePath) {
 			Path source = path.resolve(localPath);
 			if (Files.exists(source)) {
-				return (location)->{
-					return Files.newInputStream(source);
-				};
+				return new FileContentSource(source);
 			}
 		}
 		throw new EpubException(Messages.CONTENT_SOURCE_MISSING(location.toURI()));
@@ -179,10 +180,10 @@ class GenericPublicationResourceBuilder implements PublicationResourceBuilder {
 	}
 	
 	protected PublicationResource createXmlDocument(MediaType mediaType) {
-		return new BasicXmlDocument(location, mediaType);
+		return new BasicXmlDocument(location, mediaType, documentCache);
 	}
 	
 	protected PublicationResource createXhtmlDocument() {
-		return new BasicXhtmlDocument(location);
+		return new BasicXhtmlDocument(location, documentCache);
 	}
 }
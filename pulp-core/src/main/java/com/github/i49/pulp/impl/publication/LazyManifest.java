@@ -0,0 +1,41 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.publication;
+
+import java.net.URI;
+import java.util.function.Supplier;
+
+import com.github.i49.pulp.api.publication.EpubException;
+import com.github.i49.pulp.api.publication.Manifest;
+import com.github.i49.pulp.api.publication.PublicationResource;
+
+/**
+ * {@link Manifest} holding the items whose publication resources are built on the first access.
+ */
+public interface LazyManifest extends Manifest {
+
+	/**
+	 * Adds an item whose publication resource will be built when it is first accessed.
+	 * If the publication already has the resource at the location, the resource is shared.
+	 * 
+	 * @param location the location of the resource relative to the root directory of the container.
+	 * @param supplier the supplier building the resource at the location.
+	 * @return an item of this manifest.
+	 * @throws EpubException if the resource at the location already exists in this manifest.
+	 */
+	Item addLazily(URI location, Supplier<PublicationResource> supplier);
+}
@@ -0,0 +1,30 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.publication;
+
+/**
+ * Publication resource which content can be modified after the content source was assigned.
+ */
+public interface ModifiableContent {
+
+	/**
+	 * Returns whether the content of this resource differs from its content source or not.
+	 * 
+	 * @return {@code true} if the content was possibly modified, {@code false} otherwise.
+	 */
+	boolean isModified();
+}
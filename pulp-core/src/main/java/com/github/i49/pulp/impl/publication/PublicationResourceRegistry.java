@@ -24,6 +24,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import com.github.i49.pulp.api.publication.EpubException;
 import com.github.i49.pulp.api.publication.PublicationResource;
@@ -31,6 +32,9 @@ import com.github.i49.pulp.impl.base.Messages;
 
 /**
  * The registry that maintains all resources used by a publication. 
+ * 
+ * <p>The resources can be registered lazily with their suppliers,
+ * which are built when they are first requested from this registry.</p>
  */
 class PublicationResourceRegistry {
 
@@ -53,7 +57,7 @@ class PublicationResourceRegistry {
 	 * @return the number of resources.
 	 */
 	public int getNumberOfResources() {
-		return resourceSet.size();
+		return locationMap.size();
 	}
 
 	/**
@@ -121,7 +125,7 @@ class PublicationResourceRegistry {
 		if (entry == null) {
 			throw new NoSuchElementException(Messages.RESOURCE_MISSING(location));
 		}
-		return entry.getResource();
+		return resolve(entry);
 	}
 
 	/**
@@ -138,13 +142,31 @@ class PublicationResourceRegistry {
 			locationMap.put(location, entry);
 			resourceSet.add(resource);
 		} else {
-			if (entry.getResource() != resource) {
+			if (resolve(entry) != resource) {
 				throw new EpubException(Messages.RESOURCE_ALREADY_EXISTS_IN_PUBLICATION(location));
 			}
 			entry.addReference();
 		}
 	}
 	
+	/**
+	 * Registers the resource which will be built by the supplier when it is first requested.
+	 * If a resource is already registered at the location, the resource is shared instead.
+	 * 
+	 * @param location the location of the resource relative to the root directory of the container, 
+	 *                 cannot be {@code null}.
+	 * @param supplier the supplier building the resource at the location, cannot be {@code null}.
+	 */
+	public void registerLazily(URI location, Supplier<PublicationResource> supplier) {
+		assert(location != null && supplier != null);
+		Entry entry = locationMap.get(location);
+		if (entry == null) {
+			locationMap.put(location, new Entry(supplier));
+		} else {
+			entry.addReference();
+		}
+	}
+	
 	/**
 	 * Unregister a resource from this registry.
 	 * 
@@ -165,12 +187,30 @@ class PublicationResourceRegistry {
 	
 	/**
 	 * Returns all resources in this registry.
+	 * The resources registered lazily are built by this method.
 	 * 
 	 * @return the set containing all resources. 
 	 */
 	public Set<PublicationResource> getAllResources() {
+		for (Entry entry: locationMap.values()) {
+			resolve(entry);
+		}
 		return immutableSet;
 	}
+	
+	/**
+	 * Returns the resource of the entry, building it if not built yet.
+	 * 
+	 * @param entry the entry of this registry.
+	 * @return the resource of the entry.
+	 */
+	private PublicationResource resolve(Entry entry) {
+		if (entry.getResource() == null) {
+			PublicationResource resource = entry.build();
+			resourceSet.add(resource);
+		}
+		return entry.getResource();
+	}
 
 	/**
 	 * An entry of this registry.
@@ -178,6 +218,8 @@ class PublicationResourceRegistry {
 	private static class Entry {
 		
 		private PublicationResource resource;
+		// the supplier of the resource not built yet.
+		private Supplier<PublicationResource> supplier;
 		private int usingRenditions;
 		
 		private Entry(PublicationResource resource) {
@@ -185,10 +227,26 @@ class PublicationResourceRegistry {
 			this.usingRenditions = 1;
 		}
 		
+		private Entry(Supplier<PublicationResource> supplier) {
+			this.supplier = supplier;
+			this.usingRenditions = 1;
+		}
+		
+		/**
+		 * Returns the resource of this entry.
+		 * 
+		 * @return the resource, or {@code null} if not built yet.
+		 */
 		public PublicationResource getResource() {
 			return resource;
 		}
 		
+		public PublicationResource build() {
+			this.resource = supplier.get();
+			this.supplier = null;
+			return resource;
+		}
+		
 		public int addReference() {
 			return ++usingRenditions;
 		}
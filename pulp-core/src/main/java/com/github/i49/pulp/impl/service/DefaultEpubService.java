@@ -19,6 +19,8 @@ package com.github.i49.pulp.impl.service;
 import static com.github.i49.pulp.impl.base.Preconditions.*;
 
 import java.net.URI;
+import java.util.Collections;
+import java.util.Map;
 
 import com.github.i49.pulp.api.metadata.Metadata;
 import com.github.i49.pulp.api.metadata.TermRegistry;
@@ -53,7 +55,13 @@ class DefaultEpubService implements EpubService {
 
 	@Override
 	public PublicationReaderFactory createReaderFactory() {
-		return new DefaultPublicationReaderFactory(this);
+		return new DefaultPublicationReaderFactory(this, Collections.emptyMap());
+	}
+	
+	@Override
+	public PublicationReaderFactory createReaderFactory(Map<String, ?> config) {
+		checkNotNull(config, "config");
+		return new DefaultPublicationReaderFactory(this, config);
 	}
 	
 	@Override
@@ -64,7 +72,13 @@ class DefaultEpubService implements EpubService {
 
 	@Override
 	public PublicationWriterFactory createWriterFactory() {
-		return new DefaultPublicationWriterFactory();
+		return new DefaultPublicationWriterFactory(Collections.emptyMap());
+	}
+
+	@Override
+	public PublicationWriterFactory createWriterFactory(Map<String, ?> config) {
+		checkNotNull(config, "config");
+		return new DefaultPublicationWriterFactory(config);
 	}
 
 	@Override
@@ -17,6 +17,7 @@
 package com.github.i49.pulp.impl.service;
 
 import java.net.URI;
+import java.util.Map;
 
 import com.github.i49.pulp.api.metadata.TermRegistry;
 import com.github.i49.pulp.api.publication.EpubService;
@@ -49,6 +50,11 @@ public class EpubServiceProxy implements EpubService {
 		return SINGLETON.createReaderFactory();
 	}
 
+	@Override
+	public PublicationReaderFactory createReaderFactory(Map<String, ?> config) {
+		return SINGLETON.createReaderFactory(config);
+	}
+
 	@Override
 	public PublicationResourceBuilderFactory createResourceBuilderFactory(URI baseURI) {
 		return SINGLETON.createResourceBuilderFactory(baseURI);
@@ -59,6 +65,11 @@ public class EpubServiceProxy implements EpubService {
 		return SINGLETON.createWriterFactory();
 	}
 
+	@Override
+	public PublicationWriterFactory createWriterFactory(Map<String, ?> config) {
+		return SINGLETON.createWriterFactory(config);
+	}
+
 	@Override
 	public TermRegistry getPropertyTermRegistry() {
 		return SINGLETON.getPropertyTermRegistry();
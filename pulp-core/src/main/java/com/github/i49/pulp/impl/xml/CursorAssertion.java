@@ -0,0 +1,69 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.xml;
+
+import static com.github.i49.pulp.impl.base.Messages.*;
+
+/**
+ * Assertion on the element at which {@link ElementCursor} is positioned.
+ * The messages are the same as {@link ElementAssertion}.
+ */
+public class CursorAssertion extends AbstractAssertion {
+
+	private final ElementCursor actual;
+	
+	CursorAssertion(ElementCursor actual) {
+		this.actual = actual;
+	}
+	
+	public CursorAssertion hasName(String localName) {
+		return hasName(localName, actual.getNamespaceURI());
+	}
+	
+	public CursorAssertion hasName(String localName, String namespaceURI) {
+		if (!match(localName, namespaceURI)) {
+			failWithMessage(XML_ELEMENT_UNEXPECTED(actual.getDocumentURI(), actual.getLocalName(), localName));
+		}
+		return this;
+	}
+	
+	public CursorAssertion hasAttribute(String localName) {
+		if (actual.getAttribute(localName) == null) {
+			failWithMessage(XML_ATTRIBUTE_MISSING(actual.getDocumentURI(), actual.getLocalName(), localName));
+		}
+		return this;
+	}
+	
+	public CursorAssertion hasNonEmptyAttribute(String localName) {
+		hasAttribute(localName);
+		if (actual.getAttribute(localName).isEmpty()) {
+			failWithMessage(XML_ATTRIBUTE_EMPTY(actual.getDocumentURI(), actual.getLocalName(), localName));
+		}
+		return this;
+	}
+	
+	private boolean match(String localName, String namespaceURI) {
+		if (!actual.getLocalName().equals(localName)) {
+			return false;
+		}
+		if (namespaceURI == null) {
+			return actual.getNamespaceURI() == null;
+		} else {
+			return namespaceURI.equals(actual.getNamespaceURI());
+		}
+	}
+}
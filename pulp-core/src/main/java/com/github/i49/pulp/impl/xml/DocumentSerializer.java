@@ -19,6 +19,7 @@ package com.github.i49.pulp.impl.xml;
 import java.io.IOException;
 import java.io.OutputStream;
 
+import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.dom.DOMSource;
@@ -38,6 +39,7 @@ public class DocumentSerializer {
 	
 	public DocumentSerializer(Transformer transformer) {
 		this.transformer = transformer;
+		configure();
 	}
 
 	public void serialize(OutputStream stream, Document document) throws IOException, TransformerException {
@@ -46,4 +48,20 @@ public class DocumentSerializer {
 		StreamResult target = new StreamResult(stream);
 		this.transformer.transform(source, target);
 	}
+
+	/**
+	 * Resets this serializer to the initial state, so that it can be reused for another document.
+	 */
+	public void reset() {
+		this.transformer.reset();
+		configure();
+	}
+
+	private void configure() {
+		Transformer t = this.transformer;
+		t.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+		t.setOutputProperty(OutputKeys.INDENT, "yes");
+		t.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+		t.setOutputProperty(OutputKeys.METHOD, "xml");
+	}
 }
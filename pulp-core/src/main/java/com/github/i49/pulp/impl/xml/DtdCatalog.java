@@ -0,0 +1,153 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.xml;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.i49.pulp.impl.base.Messages;
+
+/**
+ * The catalog of the DTDs and the entity sets bundled in this library.
+ *
+ * <p>The DTDs are identified by their public identifiers or system identifiers,
+ * and the bundled files are read only once and cached for all threads.
+ * The bundled DTDs declare the character entities and the namespaces of the root elements,
+ * but do not declare the elements, which are not needed by the non-validating parsers.</p>
+ */
+final class DtdCatalog {
+
+	private static final String XHTML_DTD = "xhtml.dtd";
+	private static final String XHTML_LAT1 = "xhtml-lat1.ent";
+	private static final String XHTML_SYMBOL = "xhtml-symbol.ent";
+	private static final String XHTML_SPECIAL = "xhtml-special.ent";
+	private static final String SVG_DTD = "svg.dtd";
+	private static final String NCX_DTD = "ncx.dtd";
+	private static final String OEB_DOCUMENT_DTD = "oeb-document.dtd";
+
+	private static final String[] ENTITY_SETS = { XHTML_LAT1, XHTML_SYMBOL, XHTML_SPECIAL };
+
+	// the names of the bundled files keyed by public identifiers.
+	private static final Map<String, String> publicIds = new HashMap<>();
+	// the names of the bundled files keyed by system identifiers.
+	private static final Map<String, String> systemIds = new HashMap<>();
+	// the contents of the bundled files read.
+	private static final Map<String, byte[]> contents = new ConcurrentHashMap<>();
+	// all the entity sets concatenated.
+	private static volatile byte[] characterEntities;
+
+	static {
+		add(XHTML_DTD, "-//W3C//DTD XHTML 1.0 Strict//EN", "http://www.w3.org/TR/xhtml1/DTD/xhtml1-strict.dtd");
+		add(XHTML_DTD, "-//W3C//DTD XHTML 1.0 Transitional//EN", "http://www.w3.org/TR/xhtml1/DTD/xhtml1-transitional.dtd");
+		add(XHTML_DTD, "-//W3C//DTD XHTML 1.0 Frameset//EN", "http://www.w3.org/TR/xhtml1/DTD/xhtml1-frameset.dtd");
+		add(XHTML_DTD, "-//W3C//DTD XHTML 1.1//EN", "http://www.w3.org/TR/xhtml11/DTD/xhtml11.dtd");
+		add(XHTML_DTD, "-//W3C//DTD XHTML Basic 1.0//EN", "http://www.w3.org/TR/xhtml-basic/xhtml-basic10.dtd");
+		add(XHTML_DTD, "-//W3C//DTD XHTML Basic 1.1//EN", "http://www.w3.org/TR/xhtml-basic/xhtml-basic11.dtd");
+		add(XHTML_LAT1, "-//W3C//ENTITIES Latin 1 for XHTML//EN", "http://www.w3.org/TR/xhtml1/DTD/xhtml-lat1.ent");
+		add(XHTML_SYMBOL, "-//W3C//ENTITIES Symbols for XHTML//EN", "http://www.w3.org/TR/xhtml1/DTD/xhtml-symbol.ent");
+		add(XHTML_SPECIAL, "-//W3C//ENTITIES Special for XHTML//EN", "http://www.w3.org/TR/xhtml1/DTD/xhtml-special.ent");
+		add(SVG_DTD, "-//W3C//DTD SVG 1.0//EN", "http://www.w3.org/TR/2001/REC-SVG-20010904/DTD/svg10.dtd");
+		add(SVG_DTD, "-//W3C//DTD SVG 1.1//EN", "http://www.w3.org/Graphics/SVG/1.1/DTD/svg11.dtd");
+		add(SVG_DTD, "-//W3C//DTD SVG 1.1 Basic//EN", "http://www.w3.org/Graphics/SVG/1.1/DTD/svg11-basic.dtd");
+		add(SVG_DTD, "-//W3C//DTD SVG 1.1 Tiny//EN", "http://www.w3.org/Graphics/SVG/1.1/DTD/svg11-tiny.dtd");
+		add(NCX_DTD, "-//NISO//DTD ncx 2005-1//EN", "http://www.daisy.org/z3986/2005/ncx-2005-1.dtd");
+		add(OEB_DOCUMENT_DTD, "+//ISBN 0-9673008-1-9//DTD OEB 1.0.1 Document//EN", "http://openebook.org/dtds/oeb-1.0.1/oebdoc101.dtd");
+		add(OEB_DOCUMENT_DTD, "+//ISBN 0-9673008-1-9//DTD OEB 1.2 Document//EN", "http://openebook.org/dtds/oeb-1.2/oebdoc12.dtd");
+	}
+
+	/**
+	 * Finds the bundled file for the identifiers of an external entity.
+	 * The public identifier takes precedence over the system identifier.
+	 *
+	 * @param publicId the public identifier of the entity, may be {@code null}.
+	 * @param systemId the system identifier of the entity, may be {@code null}.
+	 * @return the content of the bundled file, or {@code null} if the entity is not in this catalog.
+	 * @throws IOException if an I/O error has occurred while reading the bundled file.
+	 */
+	static byte[] find(String publicId, String systemId) throws IOException {
+		String name = null;
+		if (publicId != null) {
+			name = publicIds.get(publicId);
+		}
+		if (name == null && systemId != null) {
+			name = systemIds.get(normalize(systemId));
+		}
+		return (name != null) ? read(name) : null;
+	}
+
+	/**
+	 * Returns all the character entities of XHTML as the content of a DTD.
+	 *
+	 * @return the content of the DTD declaring the character entities only.
+	 * @throws IOException if an I/O error has occurred while reading the bundled files.
+	 */
+	static byte[] getCharacterEntities() throws IOException {
+		byte[] content = characterEntities;
+		if (content == null) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			for (String name: ENTITY_SETS) {
+				out.write(read(name));
+			}
+			content = out.toByteArray();
+			characterEntities = content;
+		}
+		return content;
+	}
+
+	private static byte[] read(String name) throws IOException {
+		byte[] content = contents.get(name);
+		if (content == null) {
+			try (InputStream in = DtdCatalog.class.getResourceAsStream("dtd/" + name)) {
+				if (in == null) {
+					throw new FileNotFoundException(Messages.XML_CATALOG_ENTRY_MISSING(name));
+				}
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				byte[] buffer = new byte[8192];
+				int len;
+				while ((len = in.read(buffer)) != -1) {
+					out.write(buffer, 0, len);
+				}
+				content = out.toByteArray();
+			}
+			contents.put(name, content);
+		}
+		return content;
+	}
+
+	private static void add(String name, String publicId, String systemId) {
+		publicIds.put(publicId, name);
+		systemIds.put(normalize(systemId), name);
+	}
+
+	/**
+	 * Normalizes the system identifier so that the secure scheme matches the plain one.
+	 */
+	private static String normalize(String systemId) {
+		if (systemId.startsWith("https:")) {
+			return "http:" + systemId.substring("https:".length());
+		}
+		return systemId;
+	}
+
+	private DtdCatalog() {
+	}
+}
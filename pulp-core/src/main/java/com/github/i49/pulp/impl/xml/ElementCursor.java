@@ -0,0 +1,283 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.xml;
+
+import static com.github.i49.pulp.impl.base.Messages.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Cursor moving forward over the elements of an XML document read by {@link XMLStreamReader}.
+ *
+ * <p>The cursor is always positioned at the start or the end of an element
+ * while the document is parsed, and keeps track of the depth of the element,
+ * so that the elements not consumed by the parsers can be skipped.</p>
+ *
+ * <p>The failures detected by the parsers should be reported only after 
+ * the whole document was read by {@link #finish()},
+ * because the document which is not well-formed must be reported as such 
+ * in the same way as the parsers building the DOM trees.
+ * The parsers reading only a part of the document may {@link #close()} the cursor instead.</p>
+ */
+public class ElementCursor {
+
+	/**
+	 * Handler of the child elements.
+	 */
+	@FunctionalInterface
+	public static interface ChildHandler {
+		
+		/**
+		 * Handles the child element at which the cursor is positioned.
+		 * The cursor may be left at any position inside the child.
+		 * 
+		 * @param index the index of the child among the children handled.
+		 * @throws XMLStreamException if the document is not well-formed.
+		 */
+		void handle(int index) throws XMLStreamException;
+	}
+	
+	private final XMLStreamReader reader;
+	private final String documentURI;
+	// the number of the elements open at the current position.
+	private int depth;
+	
+	/**
+	 * Constructs this cursor and moves it to the start of the root element.
+	 * 
+	 * @param reader the reader of the document.
+	 * @param documentURI the URI of the document, used in the messages.
+	 * @throws XMLStreamException if the document is not well-formed.
+	 */
+	ElementCursor(XMLStreamReader reader, String documentURI) throws XMLStreamException {
+		this.reader = reader;
+		this.documentURI = documentURI;
+		while (reader.next() != XMLStreamConstants.START_ELEMENT) {
+		}
+		this.depth = 1;
+	}
+	
+	/**
+	 * Returns the URI of the document.
+	 * 
+	 * @return the URI of the document.
+	 */
+	public String getDocumentURI() {
+		return documentURI;
+	}
+	
+	/**
+	 * Returns the depth of the current element, which is 1 for the root element.
+	 * 
+	 * @return the depth of the current element.
+	 */
+	public int getDepth() {
+		return (reader.getEventType() == XMLStreamConstants.END_ELEMENT) ? depth + 1 : depth;
+	}
+	
+	public String getLocalName() {
+		return reader.getLocalName();
+	}
+	
+	public String getNamespaceURI() {
+		String namespaceURI = reader.getNamespaceURI();
+		return (namespaceURI == null || namespaceURI.isEmpty()) ? null : namespaceURI;
+	}
+	
+	/**
+	 * Returns the name of the current element including its prefix.
+	 * 
+	 * @return the qualified name of the element.
+	 */
+	public String getTagName() {
+		String prefix = reader.getPrefix();
+		if (prefix == null || prefix.isEmpty()) {
+			return reader.getLocalName();
+		}
+		return prefix + ":" + reader.getLocalName();
+	}
+	
+	/**
+	 * Returns the value of the attribute without namespace on the current element.
+	 * 
+	 * @param localName the name of the attribute.
+	 * @return the value of the attribute, or {@code null} if the attribute does not exist.
+	 */
+	public String getAttribute(String localName) {
+		int count = reader.getAttributeCount();
+		for (int i = 0; i < count; i++) {
+			String namespaceURI = reader.getAttributeNamespace(i);
+			if ((namespaceURI == null || namespaceURI.isEmpty()) && localName.equals(reader.getAttributeLocalName(i))) {
+				return reader.getAttributeValue(i);
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Moves this cursor to the start of the next child of the element at the specified depth.
+	 * The descendants of the children not consumed are skipped.
+	 * 
+	 * @param parentDepth the depth of the parent element.
+	 * @return {@code true} if the cursor is at the start of a child, 
+	 *         {@code false} if it is at the end of the parent.
+	 * @throws XMLStreamException if the document is not well-formed.
+	 */
+	public boolean nextChild(int parentDepth) throws XMLStreamException {
+		if (reader.getEventType() == XMLStreamConstants.END_ELEMENT && depth < parentDepth) {
+			return false;
+		}
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				if (++depth == parentDepth + 1) {
+					return true;
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				if (--depth < parentDepth) {
+					return false;
+				}
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Handles the children of the current element which are in the same namespace as the element,
+	 * and verifies that the element contains all the children required.
+	 * Once a handler failed, the remaining children are only checked for their existence,
+	 * and the failure is thrown after the required children are found. 
+	 * 
+	 * @param required the local names of the children required.
+	 * @param handler the handler of the children.
+	 * @throws AssertionFailureException if any of the required children is missing.
+	 * @throws XMLStreamException if the document is not well-formed.
+	 */
+	public void forEachChild(String[] required, ChildHandler handler) throws XMLStreamException {
+		String localName = getLocalName();
+		String namespaceURI = getNamespaceURI();
+		int parentDepth = getDepth();
+		Set<String> missing = new HashSet<>(Arrays.asList(required));
+		RuntimeException failure = null;
+		int index = 0;
+		while (nextChild(parentDepth)) {
+			if (!Objects.equals(namespaceURI, getNamespaceURI())) {
+				continue;
+			}
+			missing.remove(getLocalName());
+			if (failure == null) {
+				try {
+					handler.handle(index++);
+				} catch (RuntimeException e) {
+					failure = e;
+				}
+			}
+		}
+		if (!missing.isEmpty()) {
+			throw new AssertionFailureException(XML_ELEMENT_MISSING(documentURI, localName, missing));
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+	
+	/**
+	 * Moves this cursor to the start of the first child of the current element
+	 * which is in the same namespace as the element.
+	 * The siblings following the child are not read.
+	 * 
+	 * @param required the local name of the child required.
+	 * @throws AssertionFailureException if the element has no children in the namespace.
+	 * @throws XMLStreamException if the document is not well-formed.
+	 */
+	public void firstChild(String required) throws XMLStreamException {
+		String localName = getLocalName();
+		String namespaceURI = getNamespaceURI();
+		int parentDepth = getDepth();
+		while (nextChild(parentDepth)) {
+			if (Objects.equals(namespaceURI, getNamespaceURI())) {
+				return;
+			}
+		}
+		throw new AssertionFailureException(XML_ELEMENT_MISSING(documentURI, localName, Collections.singleton(required)));
+	}
+	
+	/**
+	 * Reads all the text contained in the current element and its descendants.
+	 * The cursor is moved to the end of the element.
+	 * 
+	 * @return the text content of the element.
+	 * @throws XMLStreamException if the document is not well-formed.
+	 */
+	public String getTextContent() throws XMLStreamException {
+		int elementDepth = getDepth();
+		StringBuilder b = new StringBuilder();
+		while (reader.hasNext()) {
+			int event = reader.next();
+			switch (event) {
+			case XMLStreamConstants.START_ELEMENT:
+				depth++;
+				break;
+			case XMLStreamConstants.END_ELEMENT:
+				if (--depth < elementDepth) {
+					return b.toString();
+				}
+				break;
+			case XMLStreamConstants.CHARACTERS:
+			case XMLStreamConstants.CDATA:
+			case XMLStreamConstants.SPACE:
+				b.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+				break;
+			default:
+				break;
+			}
+		}
+		return b.toString();
+	}
+	
+	/**
+	 * Reads the rest of the document and closes the reader.
+	 * 
+	 * @throws XMLStreamException if the document is not well-formed.
+	 */
+	public void finish() throws XMLStreamException {
+		try {
+			while (reader.hasNext()) {
+				reader.next();
+			}
+		} finally {
+			reader.close();
+		}
+	}
+	
+	/**
+	 * Closes the reader leaving the rest of the document unread.
+	 * 
+	 * @throws XMLStreamException if an error has occurred while closing the reader.
+	 */
+	public void close() throws XMLStreamException {
+		reader.close();
+	}
+}
@@ -0,0 +1,186 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.xml;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * A writer of XML document which writes the elements directly to the stream
+ * without building the document tree.
+ *
+ * <p>If indentation is enabled, each element starts on a new line indented by its depth,
+ * in the same layout as {@link DocumentSerializer}.
+ * The elements having only text are written in a single line.</p>
+ *
+ * <p>Note that an instance of this class is not thread-safe.</p>
+ */
+public class ElementWriter implements AutoCloseable {
+
+	private static final String INDENT = "    ";
+
+	private final XMLStreamWriter writer;
+	private final boolean indent;
+	// whether each element being written has any child elements, from the innermost.
+	private final Deque<Boolean> open = new ArrayDeque<>();
+
+	/**
+	 * Constructs this writer.
+	 *
+	 * @param writer the writer of the stream.
+	 * @param indent {@code true} if the elements are indented.
+	 */
+	ElementWriter(XMLStreamWriter writer, boolean indent) {
+		this.writer = writer;
+		this.indent = indent;
+	}
+
+	/**
+	 * Writes the XML declaration.
+	 *
+	 * @throws XMLStreamException if an error has occurred while writing.
+	 */
+	public void startDocument() throws XMLStreamException {
+		writer.writeStartDocument("UTF-8", "1.0");
+		writer.writeCharacters("\n");
+	}
+
+	/**
+	 * Starts an element, which must be ended by {@link #endElement()}.
+	 * The attributes and the namespaces of the element must be written before its content.
+	 *
+	 * @param name the qualified name of the element.
+	 * @throws XMLStreamException if an error has occurred while writing.
+	 */
+	public void startElement(String name) throws XMLStreamException {
+		startLine();
+		writer.writeStartElement(name);
+		open.push(Boolean.FALSE);
+	}
+
+	/**
+	 * Writes an element which has no content.
+	 * The attributes and the namespaces of the element must be written after this method.
+	 *
+	 * @param name the qualified name of the element.
+	 * @throws XMLStreamException if an error has occurred while writing.
+	 */
+	public void emptyElement(String name) throws XMLStreamException {
+		startLine();
+		writer.writeEmptyElement(name);
+	}
+
+	/**
+	 * Writes an attribute of the element just started.
+	 *
+	 * @param name the qualified name of the attribute.
+	 * @param value the value of the attribute.
+	 * @throws XMLStreamException if an error has occurred while writing.
+	 */
+	public void attribute(String name, String value) throws XMLStreamException {
+		writer.writeAttribute(name, value);
+	}
+
+	/**
+	 * Declares the default namespace on the element just started.
+	 *
+	 * @param namespaceURI the URI of the namespace.
+	 * @throws XMLStreamException if an error has occurred while writing.
+	 */
+	public void defaultNamespace(String namespaceURI) throws XMLStreamException {
+		writer.writeDefaultNamespace(namespaceURI);
+	}
+
+	/**
+	 * Declares a namespace on the element just started.
+	 *
+	 * @param prefix the prefix of the namespace.
+	 * @param namespaceURI the URI of the namespace.
+	 * @throws XMLStreamException if an error has occurred while writing.
+	 */
+	public void namespace(String prefix, String namespaceURI) throws XMLStreamException {
+		writer.writeNamespace(prefix, namespaceURI);
+	}
+
+	/**
+	 * Writes the text of the element started.
+	 * The element having only text is not indented inside.
+	 *
+	 * @param text the text to write.
+	 * @throws XMLStreamException if an error has occurred while writing.
+	 */
+	public void text(String text) throws XMLStreamException {
+		writer.writeCharacters(text);
+	}
+
+	/**
+	 * Ends the element started last.
+	 *
+	 * @throws XMLStreamException if an error has occurred while writing.
+	 */
+	public void endElement() throws XMLStreamException {
+		boolean hasChildren = open.pop();
+		if (indent && hasChildren) {
+			newLine();
+		}
+		writer.writeEndElement();
+	}
+
+	/**
+	 * Ends the document and flushes the stream.
+	 *
+	 * @throws XMLStreamException if an error has occurred while writing.
+	 */
+	public void endDocument() throws XMLStreamException {
+		writer.writeEndDocument();
+		if (indent) {
+			writer.writeCharacters("\n");
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Closes this writer.
+	 * The underlying stream is not closed.
+	 *
+	 * @throws XMLStreamException if an error has occurred while closing.
+	 */
+	@Override
+	public void close() throws XMLStreamException {
+		writer.close();
+	}
+
+	private void startLine() throws XMLStreamException {
+		if (!open.isEmpty()) {
+			open.pop();
+			open.push(Boolean.TRUE);
+		}
+		if (indent && !open.isEmpty()) {
+			newLine();
+		}
+	}
+
+	private void newLine() throws XMLStreamException {
+		writer.writeCharacters("\n");
+		for (int i = 0; i < open.size(); i++) {
+			writer.writeCharacters(INDENT);
+		}
+	}
+}
@@ -0,0 +1,108 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.xml;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import javax.xml.stream.XMLResolver;
+import javax.xml.stream.XMLStreamException;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.EntityResolver2;
+
+/**
+ * The resolver of the external entities which never fetches them from the network.
+ *
+ * <p>The DTDs found in {@link DtdCatalog} are read from the bundled files,
+ * and any other external entities are resolved as empty.
+ * The resolver without DTDs resolves any external DTD to the character entities of XHTML,
+ * which skips the DTDs but still accepts the documents referencing the named character entities.</p>
+ *
+ * <p>The instances of this class are immutable and thread-safe.</p>
+ */
+final class OfflineEntityResolver implements EntityResolver2 {
+
+	/**
+	 * The resolver reading the DTDs from the catalog.
+	 */
+	static final OfflineEntityResolver CATALOG = new OfflineEntityResolver(true);
+
+	/**
+	 * The resolver providing only the character entities in place of the DTDs.
+	 */
+	static final OfflineEntityResolver CHARACTER_ENTITIES = new OfflineEntityResolver(false);
+
+	// the name given to the external subset of DTD by EntityResolver2.
+	private static final String EXTERNAL_SUBSET = "[dtd]";
+	private static final byte[] EMPTY = new byte[0];
+
+	private final boolean loadingDtds;
+
+	private OfflineEntityResolver(boolean loadingDtds) {
+		this.loadingDtds = loadingDtds;
+	}
+
+	@Override
+	public InputSource getExternalSubset(String name, String baseURI) {
+		// Documents without DOCTYPE do not have any DTD.
+		return null;
+	}
+
+	@Override
+	public InputSource resolveEntity(String name, String publicId, String baseURI, String systemId) throws IOException {
+		InputSource source = new InputSource(new ByteArrayInputStream(resolve(name, publicId, systemId)));
+		source.setPublicId(publicId);
+		source.setSystemId(systemId);
+		return source;
+	}
+
+	@Override
+	public InputSource resolveEntity(String publicId, String systemId) throws SAXException, IOException {
+		return resolveEntity(null, publicId, null, systemId);
+	}
+
+	/**
+	 * Returns this resolver as the one for the streaming parsers.
+	 * The streaming parsers do not tell the DTDs from the other entities,
+	 * so the resolver without DTDs provides the character entities for all of them.
+	 *
+	 * @return the resolver for {@link javax.xml.stream.XMLInputFactory}.
+	 */
+	XMLResolver asXmlResolver() {
+		return (publicId, systemId, baseURI, namespace)->{
+			try {
+				return new ByteArrayInputStream(resolve(null, publicId, systemId));
+			} catch (IOException e) {
+				throw new XMLStreamException(e);
+			}
+		};
+	}
+
+	private byte[] resolve(String name, String publicId, String systemId) throws IOException {
+		byte[] content;
+		if (loadingDtds) {
+			content = DtdCatalog.find(publicId, systemId);
+		} else if (name == null || EXTERNAL_SUBSET.equals(name)) {
+			content = DtdCatalog.getCharacterEntities();
+		} else {
+			content = null;
+		}
+		return (content != null) ? content : EMPTY;
+	}
+}
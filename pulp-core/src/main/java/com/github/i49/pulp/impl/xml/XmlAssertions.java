@@ -23,6 +23,10 @@ public final class XmlAssertions {
 	public static ElementAssertion assertOn(Element actual) {
 		return new ElementAssertion(actual);
 	}
+	
+	public static CursorAssertion assertOn(ElementCursor actual) {
+		return new CursorAssertion(actual);
+	}
 
 	private XmlAssertions() {
 	}
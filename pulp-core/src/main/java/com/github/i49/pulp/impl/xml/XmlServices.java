@@ -16,11 +16,18 @@
 
 package com.github.i49.pulp.impl.xml;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerFactory;
 
@@ -33,6 +40,9 @@ import com.github.i49.pulp.impl.base.Messages;
 
 /**
  * Utility class for creating XML services.
+ *
+ * <p>The builders and the serializers are created once for each thread and reused,
+ * which are reset whenever they are returned by this class.</p>
  */
 public final class XmlServices {
 
@@ -44,40 +54,147 @@ public final class XmlServices {
 	private static final ThreadLocal<TransformerFactory> transformerFactory = 
 			ThreadLocal.withInitial(TransformerFactory::newInstance);
 	
+	// DocumentBuilder reading the DTDs for each thread.
+	private static final ThreadLocal<DocumentBuilder> catalogBuilder = 
+			ThreadLocal.withInitial(XmlServices::createBuilder);
+
+	// DocumentBuilder resolving only the character entities for each thread.
+	private static final ThreadLocal<DocumentBuilder> characterEntityBuilder = 
+			ThreadLocal.withInitial(XmlServices::createBuilder);
+
+	// DocumentSerializer for each thread.
+	private static final ThreadLocal<DocumentSerializer> documentSerializer = 
+			ThreadLocal.withInitial(XmlServices::createSerializer);
+	
+	// XMLInputFactory for each thread.
+	private static final ThreadLocal<XMLInputFactory> inputFactory = 
+			ThreadLocal.withInitial(XmlServices::createInputFactory);
+	
+	// XMLOutputFactory for each thread.
+	private static final ThreadLocal<XMLOutputFactory> outputFactory = 
+			ThreadLocal.withInitial(XMLOutputFactory::newInstance);
+	
+	// the label of the original message in XMLStreamException.
+	private static final String PARSE_ERROR_MESSAGE = "Message: ";
+	
 	private static final DefaultSaxErrorHandler DEFAULT_SAX_ERROR_HANDLER = new DefaultSaxErrorHandler();
 	
 	/**
-	 * Creates a new instance of {@link DocumentBuilder}.
+	 * Returns the instance of {@link DocumentBuilder} reused by the current thread.
+	 * The DTDs referenced by the documents are read from the catalog bundled in this library
+	 * and never fetched from the network.
 	 * This method is thread-safe.
 	 * 
-	 * @return created instance of {@link DocumentBuilder}, which is not thread-safe.
+	 * @return the instance of {@link DocumentBuilder} reset for the next document,
+	 *         which must be used only by the current thread.
 	 * @throws EpubException if a configuration error has occurred.
 	 */
-	public static DocumentBuilder newBuilder() {
+	public static DocumentBuilder getBuilder() {
+		return getBuilder(true);
+	}
+	
+	/**
+	 * Returns the instance of {@link DocumentBuilder} reused by the current thread.
+	 * If the DTDs are not loaded, any DTD referenced by the documents is replaced 
+	 * with the named character entities of XHTML, which is faster than reading the DTDs.
+	 * This method is thread-safe.
+	 * 
+	 * @param loadingDtds {@code true} if the DTDs are read from the bundled catalog,
+	 *                    {@code false} if only the character entities are resolved.
+	 * @return the instance of {@link DocumentBuilder} reset for the next document,
+	 *         which must be used only by the current thread.
+	 * @throws EpubException if a configuration error has occurred.
+	 */
+	public static DocumentBuilder getBuilder(boolean loadingDtds) {
+		DocumentBuilder builder = loadingDtds ? catalogBuilder.get() : characterEntityBuilder.get();
+		// Restores the settings which may be changed by the last user.
+		builder.reset();
+		builder.setErrorHandler(DEFAULT_SAX_ERROR_HANDLER);
+		builder.setEntityResolver(loadingDtds ? OfflineEntityResolver.CATALOG : OfflineEntityResolver.CHARACTER_ENTITIES);
+		return builder;
+	}
+	
+	/**
+	 * Creates a new cursor reading the XML document from the stream.
+	 * This method is thread-safe.
+	 * 
+	 * @param in the stream providing the document, which is not closed by the cursor.
+	 * @param documentURI the URI of the document.
+	 * @return created cursor positioned at the start of the root element, which is not thread-safe.
+	 * @throws XMLStreamException if the document is not well-formed.
+	 */
+	public static ElementCursor newCursor(InputStream in, String documentURI) throws XMLStreamException {
+		XMLStreamReader reader = inputFactory.get().createXMLStreamReader(in);
 		try {
-			DocumentBuilder builder = builderFactory.get().newDocumentBuilder();
-			builder.setErrorHandler(DEFAULT_SAX_ERROR_HANDLER);
-			return builder;
-		} catch (ParserConfigurationException e) {
-			throw new EpubException(Messages.XML_PARSER_MISCONFIGURED(), e);
+			return new ElementCursor(reader, documentURI);
+		} catch (XMLStreamException | RuntimeException e) {
+			reader.close();
+			throw e;
 		}
 	}
 	
 	/**
-	 * Creates a new instance of {@link DocumentSerializer}.
+	 * Creates a new writer writing the XML document to the stream.
 	 * This method is thread-safe.
 	 * 
-	 * @return created instance of {@link DocumentSerializer}, which is not thread-safe.
+	 * @param out the stream to which the document is written in UTF-8, which is not closed by the writer.
+	 * @param indent {@code true} if the elements are indented.
+	 * @return created writer, which is not thread-safe.
+	 * @throws XMLStreamException if an error has occurred while creating the writer.
+	 */
+	public static ElementWriter newWriter(OutputStream out, boolean indent) throws XMLStreamException {
+		XMLStreamWriter writer = outputFactory.get().createXMLStreamWriter(out, "UTF-8");
+		return new ElementWriter(writer, indent);
+	}
+	
+	/**
+	 * Converts the exception thrown by {@link XMLStreamReader} into the one
+	 * thrown by {@link DocumentBuilder} for the same problem.
+	 * 
+	 * @param e the exception thrown by {@link XMLStreamReader}.
+	 * @param documentURI the URI of the document.
+	 * @return the exception converted.
+	 */
+	public static SAXParseException toParseException(XMLStreamException e, String documentURI) {
+		String message = e.getMessage();
+		// Removes the location prepended to the original message.
+		int index = (message != null) ? message.indexOf(PARSE_ERROR_MESSAGE) : -1;
+		if (message != null && message.startsWith("ParseError") && index >= 0) {
+			message = message.substring(index + PARSE_ERROR_MESSAGE.length());
+		}
+		Location location = e.getLocation();
+		if (location == null) {
+			return new SAXParseException(message, null, documentURI, -1, -1, e);
+		}
+		return new SAXParseException(message, location.getPublicId(), documentURI, 
+				location.getLineNumber(), location.getColumnNumber(), e);
+	}
+	
+	/**
+	 * Returns the instance of {@link DocumentSerializer} reused by the current thread.
+	 * This method is thread-safe.
+	 * 
+	 * @return the instance of {@link DocumentSerializer} reset for the next document,
+	 *         which must be used only by the current thread.
 	 * @throws EpubException if a configuration error has occurred.
 	 */
-	public static DocumentSerializer newSerializer() {
+	public static DocumentSerializer getSerializer() {
+		DocumentSerializer serializer = documentSerializer.get();
+		serializer.reset();
+		return serializer;
+	}
+
+	private static DocumentBuilder createBuilder() {
 		try {
-			Transformer t = transformerFactory.get().newTransformer();
-			t.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-			t.setOutputProperty(OutputKeys.INDENT, "yes");
-			t.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
-			t.setOutputProperty(OutputKeys.METHOD, "xml");
-			return new DocumentSerializer(t);
+			return builderFactory.get().newDocumentBuilder();
+		} catch (ParserConfigurationException e) {
+			throw new EpubException(Messages.XML_PARSER_MISCONFIGURED(), e);
+		}
+	}
+
+	private static DocumentSerializer createSerializer() {
+		try {
+			return new DocumentSerializer(transformerFactory.get().newTransformer());
 		} catch (TransformerConfigurationException e) {
 			throw new EpubException(Messages.XML_TRANSFORMER_MISCONFIGURED(), e);
 		}
@@ -89,6 +206,14 @@ public final class XmlServices {
 		return builderFactory;
 	}
 
+	private static XMLInputFactory createInputFactory() {
+		XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+		inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+		// The package documents do not need any DTD.
+		inputFactory.setXMLResolver(OfflineEntityResolver.CHARACTER_ENTITIES.asXmlResolver());
+		return inputFactory;
+	}
+
 	private XmlServices() {
 	}
 	
@@ -0,0 +1,106 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.zip;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * {@link ZipSource} reading the ZIP file from a {@link ByteBuffer}, 
+ * which is typically a {@link MappedByteBuffer}.
+ */
+class BufferZipSource extends ZipSource {
+
+	private final ByteBuffer buffer;
+	private final boolean mapped;
+	
+	/**
+	 * Constructs this source.
+	 * 
+	 * @param buffer the buffer holding the whole ZIP file.
+	 *               The bytes between the position and the limit of the buffer are used.
+	 */
+	BufferZipSource(ByteBuffer buffer) {
+		this.buffer = buffer.slice().asReadOnlyBuffer();
+		this.mapped = (buffer instanceof MappedByteBuffer);
+	}
+
+	@Override
+	long size() {
+		return buffer.capacity();
+	}
+
+	@Override
+	void readFully(ByteBuffer target, long position) throws IOException {
+		int length = target.remaining();
+		if (position < 0 || position + length > size()) {
+			throw new EOFException();
+		}
+		target.put(region(position, length));
+	}
+
+	@Override
+	InputStream openStream(long position, long length) throws IOException {
+		if (length > Integer.MAX_VALUE) {
+			throw new EOFException();
+		}
+		return new ByteBufferInputStream(slice(position, (int)length));
+	}
+
+	@Override
+	ByteBuffer slice(long position, int length) throws IOException {
+		if (position < 0 || position + length > size()) {
+			throw new EOFException();
+		}
+		return region(position, length).slice();
+	}
+	
+	@Override
+	void transferTo(long position, long length, WritableByteChannel target) throws IOException {
+		if (length > Integer.MAX_VALUE) {
+			throw new EOFException();
+		}
+		ByteBuffer region = slice(position, (int)length);
+		while (region.hasRemaining()) {
+			target.write(region);
+		}
+	}
+	
+	@Override
+	boolean isMapped() {
+		return mapped;
+	}
+
+	/**
+	 * Does nothing. The mapping will be released when the buffer is garbage-collected.
+	 */
+	@Override
+	public void close() {
+	}
+	
+	private ByteBuffer region(long position, int length) {
+		// duplicates the buffer to keep this source thread-safe.
+		ByteBuffer region = buffer.duplicate();
+		region.position((int)position);
+		region.limit((int)position + length);
+		return region;
+	}
+}
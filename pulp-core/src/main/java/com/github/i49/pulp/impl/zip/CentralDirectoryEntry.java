@@ -17,28 +17,23 @@
 package com.github.i49.pulp.impl.zip;
 
 /**
- * An entry of the Central Directory in a ZIP file.
+ * An entry of the Central Directory in a ZIP file,
+ * which is a view of the entry held in {@link CentralDirectoryIndex}.
  */
 class CentralDirectoryEntry {
 	
-	private final String fileName;
-	private final long position;
-	private final long compressedSize;
-	private final long uncompressedSize;
+	private final CentralDirectoryIndex index;
+	private final int entryIndex;
 	
 	/**
 	 * Constructs this entry.
 	 * 
-	 * @param fileName the file name of the entry.
-	 * @param position the file offset of the entry from the beginning of the file.
-	 * @param compressedSize the size of the entry in bytes after compression.
-	 * @param uncompressedSize the size of the entry in bytes before compression.
+	 * @param index the index holding the entry.
+	 * @param entryIndex the position of the entry in the index.
 	 */
-	public CentralDirectoryEntry(String fileName, long position, long compressedSize, long uncompressedSize) {
-		this.fileName = fileName;
-		this.position = position;
-		this.compressedSize = compressedSize;
-		this.uncompressedSize = uncompressedSize;
+	CentralDirectoryEntry(CentralDirectoryIndex index, int entryIndex) {
+		this.index = index;
+		this.entryIndex = entryIndex;
 	}
 	
 	/**
@@ -47,7 +42,7 @@ class CentralDirectoryEntry {
 	 * @return the file name in the ZIP file.
 	 */
 	public String getFileName() {
-		return fileName;
+		return index.getName(entryIndex);
 	}
 
 	/**
@@ -56,7 +51,25 @@ class CentralDirectoryEntry {
 	 * @return the offset from the beginning of the file.
 	 */
 	public long getPosition() {
-		return position;
+		return index.getPosition(entryIndex);
+	}
+	
+	/**
+	 * Returns the compression method of the entry.
+	 * 
+	 * @return the compression method, such as {@link java.util.zip.ZipEntry#DEFLATED}.
+	 */
+	public int getMethod() {
+		return index.getMethod(entryIndex);
+	}
+	
+	/**
+	 * Returns the CRC-32 checksum of the uncompressed entry data.
+	 * 
+	 * @return the CRC-32 checksum.
+	 */
+	public long getCrc() {
+		return index.getCrc(entryIndex);
 	}
 	
 	/**
@@ -65,7 +78,7 @@ class CentralDirectoryEntry {
 	 * @return the size of the entry in bytes.
 	 */
 	public long getCompressedSize() {
-		return compressedSize;
+		return index.getCompressedSize(entryIndex);
 	}
 	
 	/**
@@ -74,6 +87,24 @@ class CentralDirectoryEntry {
 	 * @return the size of the entry in bytes.
 	 */
 	public long getUncompressedSize() {
-		return uncompressedSize;
+		return index.getUncompressedSize(entryIndex);
+	}
+
+	/**
+	 * Returns the offset of the entry data, which follows the local file header.
+	 * 
+	 * @return the offset from the beginning of the file, or -1 if not resolved yet.
+	 */
+	long getDataPosition() {
+		return index.getDataPosition(entryIndex);
+	}
+	
+	/**
+	 * Assigns the offset of the entry data.
+	 * 
+	 * @param dataPosition the offset from the beginning of the file.
+	 */
+	void setDataPosition(long dataPosition) {
+		index.setDataPosition(entryIndex, dataPosition);
 	}
-}
\ No newline at end of file
+}
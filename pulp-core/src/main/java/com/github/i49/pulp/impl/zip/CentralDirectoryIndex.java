@@ -0,0 +1,448 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.zip;
+
+import static com.github.i49.pulp.impl.base.Messages.*;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.ZipException;
+
+/**
+ * Compact index of the entries in the Central Directory of a ZIP file.
+ * 
+ * <p>The attributes of the entries are held in parallel arrays of primitive types
+ * sorted by the positions of the entries in the ZIP file. 
+ * The file names are kept in a single block of UTF-8 bytes, 
+ * and decoded into strings only when requested.
+ * The entries are looked up by their names through an open-addressing hash table.
+ * When multiple entries have the same name, the last one in the ZIP file is found.</p>
+ * 
+ * <p>Instances of this class are safe for use by multiple concurrent threads.</p>
+ */
+class CentralDirectoryIndex {
+
+	private final int size;
+	private final long[] positions;
+	private final long[] compressedSizes;
+	private final long[] uncompressedSizes;
+	private final int[] crcs;
+	private final short[] methods;
+	// the offsets of the entry data from the local file headers, or zero if not resolved yet.
+	private final int[] dataOffsets;
+	private final byte[] names;
+	// the start offsets of the names in the block, followed by the end of the last name.
+	private final int[] nameOffsets;
+	// the indices of the entries plus one, or zero for empty slots.
+	private final int[] slots;
+	
+	private CentralDirectoryIndex(Builder b, int[] order) {
+		int size = b.size;
+		this.size = size;
+		this.positions = new long[size];
+		this.compressedSizes = new long[size];
+		this.uncompressedSizes = new long[size];
+		this.crcs = new int[size];
+		this.methods = new short[size];
+		this.dataOffsets = new int[size];
+		this.nameOffsets = new int[size + 1];
+		this.names = new byte[b.nameLength];
+		int nameOffset = 0;
+		for (int i = 0; i < size; i++) {
+			int j = (order != null) ? order[i] : i;
+			this.positions[i] = b.positions[j];
+			this.compressedSizes[i] = b.compressedSizes[j];
+			this.uncompressedSizes[i] = b.uncompressedSizes[j];
+			this.crcs[i] = b.crcs[j];
+			this.methods[i] = b.methods[j];
+			int start = b.nameOffsets[j];
+			int length = b.nameOffsets[j + 1] - start;
+			System.arraycopy(b.names, start, this.names, nameOffset, length);
+			this.nameOffsets[i] = nameOffset;
+			nameOffset += length;
+		}
+		this.nameOffsets[size] = nameOffset;
+		this.slots = new int[tableSize(size)];
+		for (int i = 0; i < size; i++) {
+			insert(i);
+		}
+	}
+	
+	private CentralDirectoryIndex(int size, long[] positions, long[] compressedSizes, long[] uncompressedSizes,
+			int[] crcs, short[] methods, int[] dataOffsets, byte[] names, int[] nameOffsets) {
+		this.size = size;
+		this.positions = positions;
+		this.compressedSizes = compressedSizes;
+		this.uncompressedSizes = uncompressedSizes;
+		this.crcs = crcs;
+		this.methods = methods;
+		this.dataOffsets = dataOffsets;
+		this.names = names;
+		this.nameOffsets = nameOffsets;
+		this.slots = new int[tableSize(size)];
+		for (int i = 0; i < size; i++) {
+			insert(i);
+		}
+	}
+	
+	/**
+	 * Reads the index written by {@link #writeTo(ByteBuffer)}.
+	 * The hash table is rebuilt from the names read.
+	 * 
+	 * @param buffer the buffer from which the index will be read.
+	 * @return the index read.
+	 * @throws ZipException if the data read is not a valid index.
+	 */
+	static CentralDirectoryIndex readFrom(ByteBuffer buffer) throws ZipException {
+		try {
+			int size = buffer.getInt();
+			if (size < 0 || (long)size * 38 > buffer.remaining()) {
+				throw new ZipException(ZIP_INDEX_CACHE_BROKEN());
+			}
+			long[] positions = new long[size];
+			long[] compressedSizes = new long[size];
+			long[] uncompressedSizes = new long[size];
+			int[] crcs = new int[size];
+			short[] methods = new short[size];
+			int[] dataOffsets = new int[size];
+			int[] nameOffsets = new int[size + 1];
+			getLongs(buffer, positions);
+			getLongs(buffer, compressedSizes);
+			getLongs(buffer, uncompressedSizes);
+			getInts(buffer, crcs);
+			buffer.asShortBuffer().get(methods);
+			buffer.position(buffer.position() + size * 2);
+			getInts(buffer, dataOffsets);
+			getInts(buffer, nameOffsets);
+			int nameLength = nameOffsets[size];
+			if (nameOffsets[0] != 0 || nameLength < 0 || nameLength > buffer.remaining()) {
+				throw new ZipException(ZIP_INDEX_CACHE_BROKEN());
+			}
+			byte[] names = new byte[nameLength];
+			buffer.get(names);
+			for (int i = 0; i < size; i++) {
+				if (positions[i] < 0 || compressedSizes[i] < 0 || uncompressedSizes[i] < 0 || dataOffsets[i] < 0 ||
+				    nameOffsets[i] > nameOffsets[i + 1] || (i > 0 && positions[i - 1] > positions[i])) {
+					throw new ZipException(ZIP_INDEX_CACHE_BROKEN());
+				}
+			}
+			return new CentralDirectoryIndex(size, positions, compressedSizes, uncompressedSizes, 
+					crcs, methods, dataOffsets, names, nameOffsets);
+		} catch (BufferUnderflowException e) {
+			throw new ZipException(ZIP_INDEX_CACHE_BROKEN());
+		}
+	}
+	
+	/**
+	 * Returns the number of bytes written by {@link #writeTo(ByteBuffer)}.
+	 * 
+	 * @return the number of bytes required to write this index.
+	 */
+	int getSerializedSize() {
+		return 4 + size * 38 + 4 + names.length;
+	}
+	
+	/**
+	 * Writes this index except the hash table,
+	 * so that it can be restored later by {@link #readFrom(ByteBuffer)}.
+	 * 
+	 * @param buffer the buffer to which this index will be written.
+	 * @throws java.nio.BufferOverflowException if the remaining space of {@code buffer} is insufficient.
+	 */
+	void writeTo(ByteBuffer buffer) {
+		buffer.putInt(size);
+		putLongs(buffer, positions);
+		putLongs(buffer, compressedSizes);
+		putLongs(buffer, uncompressedSizes);
+		putInts(buffer, crcs);
+		buffer.asShortBuffer().put(methods);
+		buffer.position(buffer.position() + methods.length * 2);
+		putInts(buffer, dataOffsets);
+		putInts(buffer, nameOffsets);
+		buffer.put(names);
+	}
+	
+	/**
+	 * Returns the number of the entries.
+	 * 
+	 * @return the number of the entries.
+	 */
+	int size() {
+		return size;
+	}
+	
+	/**
+	 * Finds the entry by name.
+	 * 
+	 * @param name the name of the entry, can be {@code null}.
+	 * @return the index of the entry found, or -1 if the entry does not exist.
+	 */
+	int find(String name) {
+		if (name == null) {
+			return -1;
+		}
+		byte[] key = name.getBytes(StandardCharsets.UTF_8);
+		int mask = slots.length - 1;
+		int slot = hash(key, 0, key.length) & mask;
+		int value;
+		while ((value = slots[slot]) != 0) {
+			int index = value - 1;
+			if (nameEquals(index, key, 0, key.length)) {
+				return index;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Returns the entry at the specified index.
+	 * 
+	 * @param index the index of the entry.
+	 * @return the entry, which is a view of this index.
+	 * @throws IndexOutOfBoundsException if the index is out of range.
+	 */
+	CentralDirectoryEntry getEntry(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException();
+		}
+		return new CentralDirectoryEntry(this, index);
+	}
+	
+	String getName(int index) {
+		int start = nameOffsets[index];
+		return new String(names, start, nameOffsets[index + 1] - start, StandardCharsets.UTF_8);
+	}
+	
+	long getPosition(int index) {
+		return positions[index];
+	}
+	
+	int getMethod(int index) {
+		return methods[index] & 0xffff;
+	}
+	
+	long getCrc(int index) {
+		return crcs[index] & 0xffffffffL;
+	}
+	
+	long getCompressedSize(int index) {
+		return compressedSizes[index];
+	}
+
+	long getUncompressedSize(int index) {
+		return uncompressedSizes[index];
+	}
+	
+	long getDataPosition(int index) {
+		// Reading an int is atomic, and the value once resolved never changes.
+		int offset = dataOffsets[index];
+		return (offset == 0) ? -1 : positions[index] + offset;
+	}
+
+	void setDataPosition(int index, long dataPosition) {
+		dataOffsets[index] = (int)(dataPosition - positions[index]);
+	}
+	
+	private void insert(int index) {
+		int start = nameOffsets[index];
+		int length = nameOffsets[index + 1] - start;
+		int mask = slots.length - 1;
+		int slot = hash(names, start, length) & mask;
+		int value;
+		while ((value = slots[slot]) != 0) {
+			if (nameEquals(value - 1, names, start, length)) {
+				// replaces the entry with the same name.
+				break;
+			}
+			slot = (slot + 1) & mask;
+		}
+		slots[slot] = index + 1;
+	}
+	
+	private boolean nameEquals(int index, byte[] key, int offset, int length) {
+		int start = nameOffsets[index];
+		if (nameOffsets[index + 1] - start != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (names[start + i] != key[offset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private static void getLongs(ByteBuffer buffer, long[] values) {
+		buffer.asLongBuffer().get(values);
+		buffer.position(buffer.position() + values.length * 8);
+	}
+
+	private static void getInts(ByteBuffer buffer, int[] values) {
+		buffer.asIntBuffer().get(values);
+		buffer.position(buffer.position() + values.length * 4);
+	}
+	
+	private static void putLongs(ByteBuffer buffer, long[] values) {
+		buffer.asLongBuffer().put(values);
+		buffer.position(buffer.position() + values.length * 8);
+	}
+
+	private static void putInts(ByteBuffer buffer, int[] values) {
+		buffer.asIntBuffer().put(values);
+		buffer.position(buffer.position() + values.length * 4);
+	}
+	
+	/**
+	 * Computes FNV-1a hash of the bytes.
+	 */
+	private static int hash(byte[] b, int offset, int length) {
+		int h = 0x811c9dc5;
+		for (int i = offset; i < offset + length; i++) {
+			h = (h ^ (b[i] & 0xff)) * 0x01000193;
+		}
+		return h ^ (h >>> 16);
+	}
+	
+	/**
+	 * Returns the size of the hash table, 
+	 * which is a power of two and keeps the load factor at most 0.5.
+	 */
+	private static int tableSize(int size) {
+		int tableSize = 2;
+		while (tableSize < size * 2) {
+			tableSize <<= 1;
+		}
+		return tableSize;
+	}
+	
+	/**
+	 * Builder of {@link CentralDirectoryIndex}.
+	 */
+	static class Builder {
+		
+		private final Charset charset;
+		private int size;
+		private long[] positions = new long[16];
+		private long[] compressedSizes = new long[16];
+		private long[] uncompressedSizes = new long[16];
+		private int[] crcs = new int[16];
+		private short[] methods = new short[16];
+		private int[] nameOffsets = new int[17];
+		private byte[] names = new byte[16 * 32];
+		private int nameLength;
+		
+		/**
+		 * Constructs this builder.
+		 * 
+		 * @param charset the encoding of the names in the ZIP file.
+		 */
+		Builder(Charset charset) {
+			this.charset = charset;
+		}
+		
+		/**
+		 * Adds an entry.
+		 * 
+		 * @param s the structure containing the encoded name.
+		 * @param nameOffset the offset of the name in the structure.
+		 * @param nameLength the length of the name in bytes.
+		 * @param position the file offset of the entry from the beginning of the file.
+		 * @param method the compression method of the entry.
+		 * @param crc the CRC-32 checksum of the uncompressed entry data.
+		 * @param compressedSize the size of the entry in bytes after compression.
+		 * @param uncompressedSize the size of the entry in bytes before compression.
+		 * @return this builder.
+		 */
+		Builder add(ZipStructure s, int nameOffset, int nameLength, 
+				long position, int method, long crc, long compressedSize, long uncompressedSize) {
+			if (size == positions.length) {
+				grow();
+			}
+			positions[size] = position;
+			compressedSizes[size] = compressedSize;
+			uncompressedSizes[size] = uncompressedSize;
+			crcs[size] = (int)crc;
+			methods[size] = (short)method;
+			if (StandardCharsets.UTF_8.equals(charset)) {
+				ensureNameCapacity(nameLength);
+				s.getBytes(nameOffset, names, this.nameLength, nameLength);
+				this.nameLength += nameLength;
+			} else {
+				byte[] encoded = s.getString(nameOffset, nameLength, charset).getBytes(StandardCharsets.UTF_8);
+				ensureNameCapacity(encoded.length);
+				System.arraycopy(encoded, 0, names, this.nameLength, encoded.length);
+				this.nameLength += encoded.length;
+			}
+			nameOffsets[++size] = this.nameLength;
+			return this;
+		}
+		
+		/**
+		 * Builds the index sorted by the positions of the entries.
+		 * 
+		 * @return the index built.
+		 */
+		CentralDirectoryIndex build() {
+			return new CentralDirectoryIndex(this, sortedOrder());
+		}
+		
+		/**
+		 * Returns the order of the entries sorted by their positions.
+		 * 
+		 * @return the order of the entries, or {@code null} if already sorted.
+		 */
+		private int[] sortedOrder() {
+			boolean sorted = true;
+			for (int i = 1; i < size && sorted; i++) {
+				sorted = positions[i - 1] <= positions[i];
+			}
+			if (sorted) {
+				return null;
+			}
+			Integer[] order = new Integer[size];
+			for (int i = 0; i < size; i++) {
+				order[i] = i;
+			}
+			Arrays.sort(order, (i1, i2)->Long.compare(positions[i1], positions[i2]));
+			int[] result = new int[size];
+			for (int i = 0; i < size; i++) {
+				result[i] = order[i];
+			}
+			return result;
+		}
+		
+		private void grow() {
+			int capacity = positions.length * 2;
+			positions = Arrays.copyOf(positions, capacity);
+			compressedSizes = Arrays.copyOf(compressedSizes, capacity);
+			uncompressedSizes = Arrays.copyOf(uncompressedSizes, capacity);
+			crcs = Arrays.copyOf(crcs, capacity);
+			methods = Arrays.copyOf(methods, capacity);
+			nameOffsets = Arrays.copyOf(nameOffsets, capacity + 1);
+		}
+		
+		private void ensureNameCapacity(int length) {
+			if (nameLength + length > names.length) {
+				names = Arrays.copyOf(names, Math.max(names.length * 2, nameLength + length));
+			}
+		}
+	}
+}
@@ -0,0 +1,174 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.zip;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link ZipSource} reading the ZIP file through a {@link FileChannel}
+ * with positional reads.
+ * 
+ * <p>The channel shared by all threads is closed when any of the threads is interrupted while reading it.
+ * The other threads reopen the channel from the path of the file and retry their reads,
+ * so that the interrupt does not break the readers other than the one interrupted.</p>
+ */
+class ChannelZipSource extends ZipSource {
+
+	private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+	
+	private final Path path;
+	private volatile FileChannel channel;
+	private volatile boolean closed;
+	
+	/**
+	 * Constructs this source.
+	 * 
+	 * @param path the path to the ZIP file, which is used to reopen the channel.
+	 * @param channel the channel of the ZIP file, which will be closed by this source.
+	 */
+	ChannelZipSource(Path path, FileChannel channel) {
+		this.path = path;
+		this.channel = channel;
+	}
+
+	@Override
+	long size() throws IOException {
+		return call(c->c.size());
+	}
+
+	@Override
+	void readFully(ByteBuffer target, long position) throws IOException {
+		long offset = position;
+		while (target.hasRemaining()) {
+			int bytesRead = read(target, offset);
+			if (bytesRead < 0) {
+				throw new EOFException();
+			}
+			offset += bytesRead;
+		}
+	}
+
+	/**
+	 * Reads bytes from this source at the specified position.
+	 * 
+	 * @param target the buffer to which the bytes will be transferred.
+	 * @param position the offset from the beginning of the file.
+	 * @return the number of bytes read, or -1 if the position is at the end of the file.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	int read(ByteBuffer target, long position) throws IOException {
+		return call(c->c.read(target, position));
+	}
+
+	@Override
+	InputStream openStream(long position, long length) {
+		return new EntryInputStream(this, position, length);
+	}
+
+	@Override
+	ByteBuffer slice(long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		readFully(buffer, position);
+		buffer.flip();
+		return buffer.asReadOnlyBuffer();
+	}
+	
+	@Override
+	void transferTo(long position, long length, WritableByteChannel target) throws IOException {
+		long offset = position;
+		long remaining = length;
+		while (remaining > 0) {
+			long from = offset;
+			long count = remaining;
+			long bytesTransferred = call(c->c.transferTo(from, count, target));
+			if (bytesTransferred <= 0) {
+				if (offset >= size()) {
+					throw new EOFException();
+				}
+				// Falls back to the copy through a buffer.
+				ByteBuffer buffer = slice(offset, (int)Math.min(remaining, TRANSFER_BUFFER_SIZE));
+				while (buffer.hasRemaining()) {
+					target.write(buffer);
+				}
+				bytesTransferred = buffer.limit();
+			}
+			offset += bytesTransferred;
+			remaining -= bytesTransferred;
+		}
+	}
+	
+	@Override
+	boolean isMapped() {
+		return false;
+	}
+	
+	@Override
+	public synchronized void close() throws IOException {
+		closed = true;
+		channel.close();
+	}
+	
+	/**
+	 * Performs the operation on the channel, 
+	 * reopening the channel if it was closed by the interrupt of another thread.
+	 * 
+	 * @param operation the operation to perform.
+	 * @return the result of the operation.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	private <T> T call(ChannelOperation<T> operation) throws IOException {
+		FileChannel current = this.channel;
+		while (true) {
+			try {
+				return operation.apply(current);
+			} catch (ClosedChannelException e) {
+				current = reopen(current, e);
+			}
+		}
+	}
+	
+	private synchronized FileChannel reopen(FileChannel failed, ClosedChannelException e) throws IOException {
+		// The channel is not reopened if this source was closed, if the exception was thrown 
+		// for the other channel, or if the current thread itself was interrupted.
+		if (closed || failed.isOpen() || Thread.currentThread().isInterrupted()) {
+			throw e;
+		}
+		if (this.channel == failed) {
+			this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		}
+		return this.channel;
+	}
+	
+	/**
+	 * Operation performed on the channel.
+	 *
+	 * @param <T> the type of the result.
+	 */
+	@FunctionalInterface
+	private interface ChannelOperation<T> {
+		
+		T apply(FileChannel channel) throws IOException;
+	}
+}
@@ -0,0 +1,356 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.zip;
+
+import static com.github.i49.pulp.impl.base.Messages.*;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+/**
+ * Content of a ZIP entry prepared in advance of being written to the ZIP file.
+ * The content is either compressed with DEFLATE method or stored as it is.
+ * 
+ * <p>The data are kept in memory as long as the {@link MemoryBudget} allows,
+ * and moved to a temporary file otherwise. 
+ * The content must be disposed after use to release the memory or the file.</p>
+ */
+class CompressedContent {
+
+	private static final int CHUNK_SIZE = 64 * 1024;
+	
+	private final int method;
+	private final long crc;
+	private final long compressedSize;
+	private final long uncompressedSize;
+	private final SpillableBuffer buffer;
+	
+	private CompressedContent(Builder builder) {
+		this.method = builder.method;
+		this.crc = builder.crc.getValue();
+		this.compressedSize = builder.buffer.size;
+		this.uncompressedSize = builder.uncompressedSize;
+		this.buffer = builder.buffer;
+	}
+	
+	/**
+	 * Returns the compression method of the content.
+	 * 
+	 * @return the compression method, either {@link ZipEntry#STORED} or {@link ZipEntry#DEFLATED}.
+	 */
+	int getMethod() {
+		return method;
+	}
+	
+	long getCrc() {
+		return crc;
+	}
+	
+	long getCompressedSize() {
+		return compressedSize;
+	}
+
+	long getUncompressedSize() {
+		return uncompressedSize;
+	}
+
+	/**
+	 * Returns the size of the data stored in the temporary file.
+	 * 
+	 * @return the size of the data in bytes, or 0 if the data are held in memory.
+	 */
+	long getSpilledSize() {
+		return buffer.getSpilledSize();
+	}
+	
+	/**
+	 * Writes the data to the stream.
+	 * 
+	 * @param out the stream to which the data will be written.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	void writeTo(OutputStream out) throws IOException {
+		buffer.writeTo(out);
+	}
+	
+	/**
+	 * Opens a new stream to read the data.
+	 * Any number of streams can read the same content at the same time.
+	 * 
+	 * @return newly created {@link InputStream}.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	InputStream openStream() throws IOException {
+		return buffer.openStream();
+	}
+	
+	/**
+	 * Releases the memory or the temporary file holding the data.
+	 * 
+	 * @throws IOException if an I/O error has occurred while deleting the file.
+	 */
+	void dispose() throws IOException {
+		buffer.dispose();
+	}
+	
+	/**
+	 * Output stream building a {@link CompressedContent} from the content written.
+	 * The CRC of the content is calculated while the content is written.
+	 */
+	static class Builder extends OutputStream {
+		
+		private final int method;
+		// the deflater, or null if the content is stored.
+		private final Deflater deflater;
+		private final CRC32 crc = new CRC32();
+		private final SpillableBuffer buffer;
+		private final byte[] output;
+		private long uncompressedSize;
+		private boolean closed;
+		
+		/**
+		 * Constructs this builder compressing the content with DEFLATE method.
+		 * 
+		 * @param level the compression level.
+		 * @param budget the budget of memory for the compressed data.
+		 */
+		Builder(int level, MemoryBudget budget) {
+			this(ZipEntry.DEFLATED, level, budget);
+		}
+		
+		/**
+		 * Constructs this builder.
+		 * 
+		 * @param method the compression method, either {@link ZipEntry#STORED} or {@link ZipEntry#DEFLATED}.
+		 * @param level the compression level, which is ignored for {@link ZipEntry#STORED}.
+		 * @param budget the budget of memory for the data.
+		 */
+		Builder(int method, int level, MemoryBudget budget) {
+			this.method = method;
+			if (method == ZipEntry.DEFLATED) {
+				this.deflater = new Deflater(level, true);
+				this.output = new byte[CHUNK_SIZE];
+			} else {
+				this.deflater = null;
+				this.output = null;
+			}
+			this.buffer = new SpillableBuffer(budget);
+		}
+		
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] {(byte)b}, 0, 1);
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (closed) {
+				throw new IOException(STREAM_CLOSED());
+			}
+			if (off < 0 || len < 0 || len > b.length - off) {
+				throw new IndexOutOfBoundsException();
+			}
+			if (len == 0) {
+				return;
+			}
+			crc.update(b, off, len);
+			uncompressedSize += len;
+			if (deflater == null) {
+				buffer.write(b, off, len);
+				return;
+			}
+			deflater.setInput(b, off, len);
+			while (!deflater.needsInput()) {
+				deflate();
+			}
+		}
+		
+		/**
+		 * Returns the size of the content written so far before compression.
+		 * 
+		 * @return the size of the content in bytes.
+		 */
+		long getUncompressedSize() {
+			return uncompressedSize;
+		}
+		
+		/**
+		 * Returns the size of the data written so far to the temporary file.
+		 * 
+		 * @return the size of the data in bytes, or 0 if the data are held in memory.
+		 */
+		long getSpilledSize() {
+			return buffer.getSpilledSize();
+		}
+		
+		/**
+		 * Finishes the content and returns the content built.
+		 * 
+		 * @return the content built.
+		 * @throws IOException if an I/O error has occurred.
+		 */
+		CompressedContent build() throws IOException {
+			if (closed) {
+				throw new IllegalStateException();
+			}
+			if (deflater != null) {
+				deflater.finish();
+				while (!deflater.finished()) {
+					deflate();
+				}
+				deflater.end();
+			}
+			buffer.close();
+			closed = true;
+			return new CompressedContent(this);
+		}
+		
+		/**
+		 * Abandons the content being built.
+		 */
+		@Override
+		public void close() throws IOException {
+			if (!closed) {
+				closed = true;
+				if (deflater != null) {
+					deflater.end();
+				}
+				buffer.close();
+				buffer.dispose();
+			}
+		}
+		
+		private void deflate() throws IOException {
+			int len = deflater.deflate(output, 0, output.length);
+			if (len > 0) {
+				buffer.write(output, 0, len);
+			}
+		}
+	}
+	
+	/**
+	 * Buffer of chunks moved to a temporary file when the budget is exhausted.
+	 */
+	private static class SpillableBuffer {
+
+		private final MemoryBudget budget;
+		private final List<byte[]> chunks = new ArrayList<>();
+		private long size;
+		private Path file;
+		private OutputStream fileStream;
+		
+		SpillableBuffer(MemoryBudget budget) {
+			this.budget = budget;
+		}
+		
+		void write(byte[] b, int off, int len) throws IOException {
+			if (fileStream == null) {
+				while (len > 0) {
+					int offsetInChunk = (int)(size % CHUNK_SIZE);
+					if (size == (long)chunks.size() * CHUNK_SIZE) {
+						if (!budget.tryAcquire(CHUNK_SIZE)) {
+							spill();
+							break;
+						}
+						chunks.add(new byte[CHUNK_SIZE]);
+					}
+					byte[] chunk = chunks.get(chunks.size() - 1);
+					int length = Math.min(len, CHUNK_SIZE - offsetInChunk);
+					System.arraycopy(b, off, chunk, offsetInChunk, length);
+					off += length;
+					len -= length;
+					size += length;
+				}
+			}
+			if (fileStream != null && len > 0) {
+				fileStream.write(b, off, len);
+				size += len;
+			}
+		}
+		
+		long getSpilledSize() {
+			return (file != null) ? size : 0;
+		}
+		
+		void writeTo(OutputStream out) throws IOException {
+			if (file != null) {
+				Files.copy(file, out);
+				return;
+			}
+			long remaining = size;
+			for (byte[] chunk: chunks) {
+				int length = (int)Math.min(chunk.length, remaining);
+				out.write(chunk, 0, length);
+				remaining -= length;
+			}
+		}
+		
+		InputStream openStream() throws IOException {
+			if (file != null) {
+				return Files.newInputStream(file);
+			}
+			List<InputStream> streams = new ArrayList<>(chunks.size());
+			long remaining = size;
+			for (byte[] chunk: chunks) {
+				int length = (int)Math.min(chunk.length, remaining);
+				streams.add(new ByteArrayInputStream(chunk, 0, length));
+				remaining -= length;
+			}
+			return new SequenceInputStream(Collections.enumeration(streams));
+		}
+		
+		void close() throws IOException {
+			if (fileStream != null) {
+				fileStream.close();
+				fileStream = null;
+			}
+		}
+		
+		void dispose() throws IOException {
+			budget.release((long)chunks.size() * CHUNK_SIZE);
+			chunks.clear();
+			if (file != null) {
+				Files.deleteIfExists(file);
+			}
+		}
+		
+		private void spill() throws IOException {
+			file = Files.createTempFile("pulp", ".tmp");
+			fileStream = new BufferedOutputStream(Files.newOutputStream(file), CHUNK_SIZE);
+			long remaining = size;
+			for (byte[] chunk: chunks) {
+				int length = (int)Math.min(chunk.length, remaining);
+				fileStream.write(chunk, 0, length);
+				remaining -= length;
+			}
+			budget.release((long)chunks.size() * CHUNK_SIZE);
+			chunks.clear();
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.zip;
+
+import java.util.zip.Deflater;
+
+/**
+ * Estimates whether the content is worth compressing or not
+ * by compressing a sample taken from the beginning of the content.
+ */
+final class Compressibility {
+
+	/**
+	 * The size of the sample in bytes.
+	 */
+	static final int SAMPLE_SIZE = 64 * 1024;
+	
+	// the sample smaller than this size is always regarded as compressible.
+	private static final int MIN_SAMPLE_SIZE = 512;
+	// the maximum ratio of the compressed size to the original size.
+	private static final double MAX_RATIO = 0.9;
+	
+	private Compressibility() {
+	}
+	
+	/**
+	 * Returns whether the sample is compressible or not.
+	 * The sample is compressed with the fastest level of DEFLATE method.
+	 * 
+	 * @param b the array containing the sample.
+	 * @param off the offset of the sample in the array.
+	 * @param len the length of the sample.
+	 * @return {@code true} if the sample is compressible enough, {@code false} otherwise.
+	 */
+	static boolean isCompressible(byte[] b, int off, int len) {
+		if (len < MIN_SAMPLE_SIZE) {
+			return true;
+		}
+		long limit = (long)(len * MAX_RATIO);
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+		try {
+			deflater.setInput(b, off, len);
+			deflater.finish();
+			byte[] output = new byte[8 * 1024];
+			while (!deflater.finished()) {
+				deflater.deflate(output);
+				if (deflater.getBytesWritten() > limit) {
+					return false;
+				}
+			}
+			return true;
+		} finally {
+			deflater.end();
+		}
+	}
+}
@@ -0,0 +1,116 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.zip;
+
+import static com.github.i49.pulp.impl.base.Messages.*;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipException;
+
+/**
+ * {@link InputStream} verifying the size and the CRC of the content of a ZIP entry
+ * when the end of the content is reached.
+ */
+class EntryCheckedInputStream extends FilterInputStream {
+
+	private static final int SKIP_BUFFER_SIZE = 512;
+	
+	private final CentralDirectoryEntry entry;
+	private final CRC32 crc = new CRC32();
+	private long bytesRead;
+	private boolean verified;
+	
+	/**
+	 * Constructs this stream.
+	 * 
+	 * @param in the stream providing the decoded content of the entry.
+	 * @param entry the entry in the Central Directory.
+	 */
+	EntryCheckedInputStream(InputStream in, CentralDirectoryEntry entry) {
+		super(in);
+		this.entry = entry;
+	}
+	
+	@Override
+	public int read() throws IOException {
+		byte[] b = new byte[1];
+		int len = read(b, 0, 1);
+		return (len < 0) ? -1 : (b[0] & 0xff);
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int n = in.read(b, off, len);
+		if (n > 0) {
+			crc.update(b, off, n);
+			bytesRead += n;
+			if (bytesRead > entry.getUncompressedSize()) {
+				throw new ZipException(ZIP_ENTRY_SIZE_MISMATCH(entry.getFileName(), entry.getUncompressedSize()));
+			}
+		} else if (n < 0) {
+			verify();
+		}
+		return n;
+	}
+
+	/**
+	 * Skips over the content by reading it, so that the CRC can be computed.
+	 */
+	@Override
+	public long skip(long n) throws IOException {
+		byte[] buffer = new byte[(int)Math.min(Math.max(n, 0), SKIP_BUFFER_SIZE)];
+		long skipped = 0;
+		while (skipped < n) {
+			int len = read(buffer, 0, (int)Math.min(n - skipped, buffer.length));
+			if (len < 0) {
+				break;
+			}
+			skipped += len;
+		}
+		return skipped;
+	}
+	
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	@Override
+	public synchronized void mark(int readlimit) {
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		throw new IOException(STREAM_MARK_UNSUPPORTED());
+	}
+
+	private void verify() throws ZipException {
+		if (verified) {
+			return;
+		}
+		verified = true;
+		if (bytesRead != entry.getUncompressedSize()) {
+			throw new ZipException(ZIP_ENTRY_SIZE_MISMATCH(entry.getFileName(), entry.getUncompressedSize()));
+		}
+		if (crc.getValue() != entry.getCrc()) {
+			throw new ZipException(ZIP_ENTRY_CRC_MISMATCH(entry.getFileName(), entry.getCrc(), crc.getValue()));
+		}
+	}
+}
@@ -0,0 +1,165 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.zip;
+
+import static com.github.i49.pulp.impl.base.Messages.*;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Decoder of ZIP entries which drives {@link Inflater} directly.
+ * 
+ * <p>The decoder uses the sizes recorded in the Central Directory 
+ * to write the content into a buffer of the exact size,
+ * and verifies the size and the CRC of the decoded content.
+ * Instances of this class are safe for use by multiple concurrent threads.</p>
+ */
+class EntryDecoder {
+
+	private static final int INPUT_BUFFER_SIZE = 16 * 1024;
+	private static final int OUTPUT_BUFFER_SIZE = 16 * 1024;
+	
+	private final ZipSource source;
+	private final InflaterPool pool;
+	
+	/**
+	 * Constructs this decoder.
+	 * 
+	 * @param source the source of the ZIP file.
+	 * @param pool the pool of inflaters.
+	 */
+	EntryDecoder(ZipSource source, InflaterPool pool) {
+		this.source = source;
+		this.pool = pool;
+	}
+	
+	/**
+	 * Returns the pool of inflaters used by this decoder.
+	 * 
+	 * @return the pool of inflaters.
+	 */
+	InflaterPool getPool() {
+		return pool;
+	}
+	
+	/**
+	 * Decodes the content of the entry into the target buffer.
+	 * The content is written at the current position of the buffer,
+	 * and the position is advanced by the size of the content.
+	 * 
+	 * @param entry the entry to decode.
+	 * @param dataPosition the offset of the entry data from the beginning of the file.
+	 * @param target the buffer to which the content will be written.
+	 * @throws BufferOverflowException if the remaining space of {@code target} is insufficient.
+	 * @throws ZipException if the entry is broken.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	void decode(CentralDirectoryEntry entry, long dataPosition, ByteBuffer target) throws IOException {
+		if (target.remaining() < entry.getUncompressedSize()) {
+			throw new BufferOverflowException();
+		}
+		ByteBuffer output = target.slice();
+		output.limit((int)entry.getUncompressedSize());
+		switch (entry.getMethod()) {
+		case ZipEntry.STORED:
+			copy(entry, dataPosition, output);
+			break;
+		case ZipEntry.DEFLATED:
+			inflate(entry, dataPosition, output);
+			break;
+		default:
+			throw new ZipException(ZIP_ENTRY_METHOD_UNSUPPORTED(entry.getFileName(), entry.getMethod()));
+		}
+		output.flip();
+		verifyCrc(entry, output);
+		target.position(target.position() + output.limit());
+	}
+	
+	private void copy(CentralDirectoryEntry entry, long dataPosition, ByteBuffer output) throws IOException {
+		if (entry.getCompressedSize() != entry.getUncompressedSize()) {
+			throw new ZipException(ZIP_ENTRY_SIZE_MISMATCH(entry.getFileName(), entry.getUncompressedSize()));
+		}
+		source.readFully(output, dataPosition);
+	}
+	
+	private void inflate(CentralDirectoryEntry entry, long dataPosition, ByteBuffer output) throws IOException {
+		long remaining = entry.getCompressedSize();
+		long position = dataPosition;
+		byte[] input = new byte[(int)Math.max(1, Math.min(remaining, INPUT_BUFFER_SIZE))];
+		byte[] chunk = output.hasArray() ? null : new byte[Math.min(output.remaining(), OUTPUT_BUFFER_SIZE)];
+		byte[] probe = new byte[1];
+		boolean dummyFed = false;
+		Inflater inflater = pool.acquire();
+		try {
+			while (!inflater.finished()) {
+				if (inflater.needsInput()) {
+					if (remaining > 0) {
+						int length = (int)Math.min(remaining, input.length);
+						source.readFully(ByteBuffer.wrap(input, 0, length), position);
+						position += length;
+						remaining -= length;
+						inflater.setInput(input, 0, length);
+					} else if (!dummyFed) {
+						// The inflater in nowrap mode requires an extra dummy byte.
+						input[0] = 0;
+						inflater.setInput(input, 0, 1);
+						dummyFed = true;
+					} else {
+						throw new ZipException(ZIP_ENTRY_CORRUPTED(entry.getFileName()));
+					}
+				} else if (inflater.needsDictionary()) {
+					throw new ZipException(ZIP_ENTRY_CORRUPTED(entry.getFileName()));
+				}
+				if (!output.hasRemaining()) {
+					// The entry is larger than expected if any byte is still produced.
+					if (inflater.inflate(probe) > 0) {
+						throw new ZipException(ZIP_ENTRY_SIZE_MISMATCH(entry.getFileName(), entry.getUncompressedSize()));
+					}
+				} else if (chunk == null) {
+					int offset = output.arrayOffset() + output.position();
+					int bytesInflated = inflater.inflate(output.array(), offset, output.remaining());
+					output.position(output.position() + bytesInflated);
+				} else {
+					int bytesInflated = inflater.inflate(chunk, 0, Math.min(chunk.length, output.remaining()));
+					output.put(chunk, 0, bytesInflated);
+				}
+			}
+		} catch (DataFormatException e) {
+			throw new ZipException(ZIP_ENTRY_CORRUPTED(entry.getFileName()));
+		} finally {
+			pool.release(inflater);
+		}
+		if (output.hasRemaining()) {
+			throw new ZipException(ZIP_ENTRY_SIZE_MISMATCH(entry.getFileName(), entry.getUncompressedSize()));
+		}
+	}
+
+	private static void verifyCrc(CentralDirectoryEntry entry, ByteBuffer content) throws ZipException {
+		CRC32 crc = new CRC32();
+		crc.update(content.duplicate());
+		if (crc.getValue() != entry.getCrc()) {
+			throw new ZipException(ZIP_ENTRY_CRC_MISMATCH(entry.getFileName(), entry.getCrc(), crc.getValue()));
+		}
+	}
+}
@@ -0,0 +1,80 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.zip;
+
+import static com.github.i49.pulp.impl.base.Messages.*;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * {@link InflaterInputStream} decompressing the raw DEFLATED data of a ZIP entry.
+ * The inflater is borrowed from the pool and returned to it when the stream is closed.
+ */
+class EntryInflaterInputStream extends InflaterInputStream {
+
+	private static final int BUFFER_SIZE = 8 * 1024;
+
+	private final InflaterPool pool;
+	private boolean eof;
+	private boolean closed;
+
+	/**
+	 * Constructs this stream.
+	 *
+	 * @param in the stream providing the compressed data of the entry.
+	 * @param compressedSize the size of the entry in bytes after compression.
+	 * @param pool the pool of inflaters.
+	 */
+	EntryInflaterInputStream(InputStream in, long compressedSize, InflaterPool pool) {
+		super(in, pool.acquire(), bufferSize(compressedSize));
+		this.pool = pool;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (!this.closed) {
+			this.closed = true;
+			this.pool.release(this.inf);
+			super.close();
+		}
+	}
+
+	@Override
+	protected void fill() throws IOException {
+		if (this.eof) {
+			throw new EOFException(ZIP_ENTRY_UNEXPECTED_END());
+		}
+		this.len = this.in.read(this.buf, 0, this.buf.length);
+		if (this.len == -1) {
+			// The inflater in nowrap mode requires an extra dummy byte.
+			this.buf[0] = 0;
+			this.len = 1;
+			this.eof = true;
+		}
+		this.inf.setInput(this.buf, 0, this.len);
+	}
+
+	private static int bufferSize(long compressedSize) {
+		if (compressedSize <= 0) {
+			return 64;
+		}
+		return (int)Math.min(compressedSize, BUFFER_SIZE);
+	}
+}
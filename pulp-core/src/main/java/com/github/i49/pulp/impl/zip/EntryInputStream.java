@@ -0,0 +1,95 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.zip;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link InputStream} reading a region of the file through a shared {@link ChannelZipSource}.
+ *
+ * <p>This stream uses positional reads only and never changes the position of the channel,
+ * so that any number of streams can read the same channel at the same time.
+ * Closing this stream does not close the channel.</p>
+ */
+class EntryInputStream extends InputStream {
+
+	private final ChannelZipSource source;
+	private long position;
+	private long remaining;
+
+	/**
+	 * Constructs this stream.
+	 *
+	 * @param source the source shared by all entries.
+	 * @param position the offset of the region from the beginning of the file.
+	 * @param length the length of the region in bytes.
+	 */
+	EntryInputStream(ChannelZipSource source, long position, long length) {
+		this.source = source;
+		this.position = position;
+		this.remaining = length;
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] b = new byte[1];
+		int bytesRead = read(b, 0, 1);
+		return (bytesRead < 0) ? -1 : (b[0] & 0xff);
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (off < 0 || len < 0 || len > b.length - off) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (this.remaining <= 0) {
+			return -1;
+		}
+		if (len == 0) {
+			return 0;
+		}
+		if (len > this.remaining) {
+			len = (int)this.remaining;
+		}
+		int bytesRead = source.read(ByteBuffer.wrap(b, off, len), this.position);
+		if (bytesRead < 0) {
+			throw new EOFException();
+		}
+		this.position += bytesRead;
+		this.remaining -= bytesRead;
+		return bytesRead;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		if (n <= 0) {
+			return 0;
+		}
+		long skipped = Math.min(n, this.remaining);
+		this.position += skipped;
+		this.remaining -= skipped;
+		return skipped;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return (int)Math.min(this.remaining, Integer.MAX_VALUE);
+	}
+}
@@ -0,0 +1,91 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.zip;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Inflater;
+
+/**
+ * Pool of {@link Inflater} instances decoding raw DEFLATED data.
+ * 
+ * <p>Creating an inflater allocates native memory, 
+ * so the inflaters released are reset and kept for later use, up to the capacity of the pool.
+ * Instances of this class are safe for use by multiple concurrent threads.</p>
+ */
+class InflaterPool {
+
+	private static final int DEFAULT_CAPACITY = 32;
+	
+	// the pool shared by all ZIP loaders.
+	private static final InflaterPool SHARED = new InflaterPool(DEFAULT_CAPACITY);
+	
+	private final BlockingQueue<Inflater> idle;
+	
+	/**
+	 * Returns the pool shared by all ZIP loaders.
+	 * 
+	 * @return the shared pool.
+	 */
+	static InflaterPool shared() {
+		return SHARED;
+	}
+	
+	/**
+	 * Constructs this pool.
+	 * 
+	 * @param capacity the maximum number of idle inflaters to be kept.
+	 */
+	InflaterPool(int capacity) {
+		this.idle = new ArrayBlockingQueue<>(capacity);
+	}
+	
+	/**
+	 * Acquires an inflater from this pool, or creates a new one if the pool is empty.
+	 * 
+	 * @return the inflater which must be released after use.
+	 */
+	Inflater acquire() {
+		Inflater inflater = idle.poll();
+		if (inflater == null) {
+			inflater = new Inflater(true);
+		}
+		return inflater;
+	}
+	
+	/**
+	 * Returns the inflater to this pool.
+	 * The inflater is ended immediately if the pool is already full.
+	 * 
+	 * @param inflater the inflater acquired from this pool.
+	 */
+	void release(Inflater inflater) {
+		inflater.reset();
+		if (!idle.offer(inflater)) {
+			inflater.end();
+		}
+	}
+	
+	/**
+	 * Returns the number of idle inflaters in this pool.
+	 * 
+	 * @return the number of idle inflaters.
+	 */
+	int getNumberOfIdle() {
+		return idle.size();
+	}
+}
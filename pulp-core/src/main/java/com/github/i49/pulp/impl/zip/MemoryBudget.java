@@ -0,0 +1,73 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.zip;
+
+/**
+ * Budget of memory shared by the buffers holding compressed data.
+ * 
+ * <p>The buffers never wait for the budget to be released; 
+ * they fall back to temporary files instead, 
+ * so that any buffer can always be completed regardless of the others.
+ * Instances of this class are safe for use by multiple concurrent threads.</p>
+ */
+class MemoryBudget {
+
+	private final long limit;
+	private long used;
+	
+	/**
+	 * Constructs this budget.
+	 * 
+	 * @param limit the maximum number of bytes in total.
+	 */
+	MemoryBudget(long limit) {
+		this.limit = limit;
+	}
+	
+	/**
+	 * Acquires the specified bytes from this budget if available.
+	 * 
+	 * @param bytes the number of bytes to acquire.
+	 * @return {@code true} if the bytes were acquired, {@code false} otherwise.
+	 */
+	synchronized boolean tryAcquire(long bytes) {
+		if (used + bytes > limit) {
+			return false;
+		}
+		used += bytes;
+		return true;
+	}
+	
+	/**
+	 * Releases the bytes acquired.
+	 * 
+	 * @param bytes the number of bytes to release.
+	 */
+	synchronized void release(long bytes) {
+		used -= bytes;
+		assert(used >= 0);
+	}
+	
+	/**
+	 * Returns the number of bytes currently acquired.
+	 * 
+	 * @return the number of bytes in use.
+	 */
+	synchronized long getUsed() {
+		return used;
+	}
+}
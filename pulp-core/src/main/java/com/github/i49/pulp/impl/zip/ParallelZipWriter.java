@@ -0,0 +1,496 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.zip;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+
+/**
+ * ZIP file writer compressing the entries in parallel.
+ * 
+ * <p>The entries submitted are compressed by the pool of worker threads, 
+ * and then appended to the ZIP file by a single sequencer thread 
+ * in the order of submission, so that the output is the same as {@link ZipWriter} produces.
+ * The compressed data waiting to be written are held in memory up to the specified limit,
+ * and in temporary files beyond the limit.</p>
+ * 
+ * <p>The methods of this class must be called by a single thread.</p>
+ */
+public class ParallelZipWriter implements Closeable {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final AtomicInteger threadNumber = new AtomicInteger();
+	
+	private final ZipWriter writer;
+	private final ExecutorService workers;
+	private final ExecutorService sequencer;
+	private final MemoryBudget budget;
+	// limits the number of entries waiting to be written.
+	private final Semaphore backlog;
+	private Future<?> lastTask;
+	private volatile IOException failure;
+	// whether the entries not written yet are discarded.
+	private volatile boolean aborted;
+	
+	/**
+	 * Content of an entry to be opened by a worker thread.
+	 */
+	@FunctionalInterface
+	public interface ContentOpener {
+		
+		/**
+		 * Opens the content of the entry.
+		 * 
+		 * @return the stream providing the uncompressed content, which will be closed by the caller.
+		 * @throws IOException if an I/O error has occurred.
+		 */
+		InputStream open() throws IOException;
+	}
+	
+	/**
+	 * Constructs this writer.
+	 * 
+	 * @param writer the writer to which the entries will be written.
+	 * @param parallelism the number of worker threads.
+	 * @param memoryLimit the maximum size in bytes of the compressed data held in memory.
+	 */
+	public ParallelZipWriter(ZipWriter writer, int parallelism, long memoryLimit) {
+		this.writer = writer;
+		this.workers = Executors.newFixedThreadPool(parallelism, ParallelZipWriter::newThread);
+		this.sequencer = Executors.newSingleThreadExecutor(ParallelZipWriter::newThread);
+		this.budget = new MemoryBudget(memoryLimit);
+		this.backlog = new Semaphore(parallelism * 4);
+	}
+	
+	/**
+	 * Writes an entry stored without compression.
+	 * 
+	 * @param entryName the name of the entry.
+	 * @param content the content of the entry.
+	 * @throws IOException if an I/O error has occurred while writing any entry.
+	 */
+	public void writeStored(String entryName, byte[] content) throws IOException {
+		enqueue(()->{
+			if (!isAborted()) {
+				writer.writeStored(entryName, content);
+			}
+		});
+	}
+	
+	/**
+	 * Opens a stream to write an entry stored without compression.
+	 * The entry is appended to the ZIP file after the stream is closed.
+	 * 
+	 * @param entryName the name of the entry.
+	 * @return the stream to write the content of the entry, which must be closed by the caller.
+	 * @throws IOException if an I/O error has occurred while writing any entry.
+	 */
+	public OutputStream openStored(String entryName) throws IOException {
+		checkFailure();
+		return newBuilder(entryName, ZipEntry.STORED, 0);
+	}
+	
+	/**
+	 * Opens a stream to write an entry compressed with DEFLATE method by the calling thread.
+	 * The entry is appended to the ZIP file after the stream is closed.
+	 * 
+	 * @param entryName the name of the entry.
+	 * @param level the compression level.
+	 * @return the stream to write the content of the entry, which must be closed by the caller.
+	 * @throws IOException if an I/O error has occurred while writing any entry.
+	 */
+	public OutputStream openDeflated(String entryName, int level) throws IOException {
+		checkFailure();
+		return newBuilder(entryName, ZipEntry.DEFLATED, level);
+	}
+
+	/**
+	 * Opens a stream to write an entry either compressed with DEFLATE method or stored without compression.
+	 * The method is chosen by compressing the sample at the beginning of the content.
+	 * The entry is appended to the ZIP file after the stream is closed.
+	 * 
+	 * @param entryName the name of the entry.
+	 * @param level the compression level.
+	 * @return the stream to write the content of the entry, which must be closed by the caller.
+	 * @throws IOException if an I/O error has occurred while writing any entry.
+	 */
+	public OutputStream openProbed(String entryName, int level) throws IOException {
+		checkFailure();
+		return new ProbingOutputStream(compressible->
+			newBuilder(entryName, compressible ? ZipEntry.DEFLATED : ZipEntry.STORED, level));
+	}
+	
+	/**
+	 * Copies an entry of another ZIP file without decompressing it.
+	 * 
+	 * @param loader the loader of the ZIP file to copy from.
+	 * @param sourceName the name of the entry to copy.
+	 * @param entryName the name of the entry in this ZIP file.
+	 * @throws IOException if an I/O error has occurred while writing any entry.
+	 */
+	public void copyEntry(ZipLoader loader, String sourceName, String entryName) throws IOException {
+		enqueue(()->{
+			if (!isAborted()) {
+				writer.copyEntry(loader, sourceName, entryName);
+			}
+		});
+	}
+	
+	/**
+	 * Submits an entry to be stored without compression.
+	 * The content is read by the thread writing the entries.
+	 * 
+	 * @param entryName the name of the entry.
+	 * @param opener the opener of the content.
+	 * @throws IOException if an I/O error has occurred while writing any entry.
+	 */
+	public void submitStored(String entryName, ContentOpener opener) throws IOException {
+		enqueue(()->{
+			if (isAborted()) {
+				return;
+			}
+			byte[] buffer = new byte[BUFFER_SIZE];
+			try (InputStream in = opener.open(); OutputStream out = writer.openStored(entryName)) {
+				int len = 0;
+				while ((len = in.read(buffer)) != -1) {
+					out.write(buffer, 0, len);
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Submits an entry to be compressed with DEFLATE method by a worker thread.
+	 * This method blocks while too many entries are waiting to be written.
+	 * 
+	 * @param entryName the name of the entry.
+	 * @param level the compression level.
+	 * @param opener the opener of the content.
+	 * @throws IOException if an I/O error has occurred while writing any entry.
+	 */
+	public void submitDeflated(String entryName, int level, ContentOpener opener) throws IOException {
+		submit(entryName, opener, level, false);
+	}
+	
+	/**
+	 * Submits an entry to be either compressed with DEFLATE method or stored without compression
+	 * by a worker thread. 
+	 * The method is chosen by compressing the sample at the beginning of the content.
+	 * This method blocks while too many entries are waiting to be written.
+	 * 
+	 * @param entryName the name of the entry.
+	 * @param level the compression level.
+	 * @param opener the opener of the content.
+	 * @throws IOException if an I/O error has occurred while writing any entry.
+	 */
+	public void submitProbed(String entryName, int level, ContentOpener opener) throws IOException {
+		submit(entryName, opener, level, true);
+	}
+	
+	private void submit(String entryName, ContentOpener opener, int level, boolean probed) throws IOException {
+		checkFailure();
+		try {
+			backlog.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+		Future<CompressedContent> future;
+		try {
+			future = workers.submit(()->build(opener, level, probed));
+		} catch (RuntimeException e) {
+			backlog.release();
+			throw e;
+		}
+		enqueue(()->{
+			try {
+				writeCompressed(entryName, await(future));
+			} finally {
+				backlog.release();
+			}
+		});
+	}
+	
+	/**
+	 * Waits until all the entries submitted are written.
+	 * 
+	 * @throws IOException if an I/O error has occurred while writing any entry.
+	 */
+	public void flush() throws IOException {
+		if (lastTask != null) {
+			try {
+				lastTask.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			} catch (ExecutionException e) {
+				// The failure is recorded by the task itself.
+			}
+		}
+		checkFailure();
+	}
+	
+	/**
+	 * Writes all the entries submitted and closes the ZIP file.
+	 * If any entry failed to be written, the ZIP file is closed without being finished,
+	 * so that the partial archive is never mistaken for a valid one.
+	 * 
+	 * @throws IOException if an I/O error has occurred while writing any entry.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		} catch (Throwable e) {
+			try {
+				abort();
+			} catch (Throwable suppressed) {
+				e.addSuppressed(suppressed);
+			}
+			throw e;
+		}
+		workers.shutdownNow();
+		sequencer.shutdownNow();
+		writer.close();
+	}
+	
+	/**
+	 * Discards the entries not written yet and closes the ZIP file without finishing it.
+	 * The tasks remaining are run to release their contents, but do not write anything.
+	 * 
+	 * @throws IOException if an I/O error has occurred while closing the file.
+	 */
+	private void abort() throws IOException {
+		aborted = true;
+		workers.shutdown();
+		sequencer.shutdown();
+		// The file must not be closed while the sequencer is still writing to it.
+		awaitTermination(workers);
+		awaitTermination(sequencer);
+		writer.abort();
+	}
+	
+	private boolean isAborted() {
+		return aborted || failure != null;
+	}
+	
+	private CompressedContent build(ContentOpener opener, int level, boolean probed) throws IOException {
+		if (isAborted()) {
+			return null;
+		}
+		byte[] buffer = new byte[BUFFER_SIZE];
+		WorkerBuilder builder = new WorkerBuilder(level, probed);
+		try (InputStream in = opener.open()) {
+			int len = 0;
+			while ((len = in.read(buffer)) != -1) {
+				builder.write(buffer, 0, len);
+			}
+			return builder.build();
+		} catch (IOException | RuntimeException e) {
+			builder.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Creates a builder which appends the entry to the ZIP file when closed.
+	 */
+	private OutputStream newBuilder(String entryName, int method, int level) {
+		return new CompressedContent.Builder(method, level, budget) {
+			
+			private boolean built;
+			
+			@Override
+			public void close() throws IOException {
+				if (built) {
+					return;
+				}
+				built = true;
+				CompressedContent content = buildOrRelease();
+				try {
+					enqueue(()->writeCompressed(entryName, content));
+				} catch (IOException | RuntimeException e) {
+					content.dispose();
+					throw e;
+				}
+			}
+			
+			private CompressedContent buildOrRelease() throws IOException {
+				CompressedContent content = null;
+				try {
+					content = build();
+				} finally {
+					if (content == null) {
+						// Releases the buffer of the content failed to be built.
+						super.close();
+					}
+				}
+				return content;
+			}
+		};
+	}
+	
+	private void writeCompressed(String entryName, CompressedContent content) throws IOException {
+		if (content == null) {
+			return;
+		}
+		try {
+			if (!isAborted()) {
+				writer.writeCompressed(entryName, content);
+			}
+		} finally {
+			content.dispose();
+		}
+	}
+	
+	private static CompressedContent await(Future<CompressedContent> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException)cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			} else if (cause instanceof Error) {
+				throw (Error)cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+	
+	/**
+	 * Appends the task to the sequence of the tasks executed by the sequencer.
+	 * 
+	 * @param task the task writing an entry.
+	 * @throws IOException if an I/O error has occurred while writing any entry.
+	 */
+	private void enqueue(WriteTask task) throws IOException {
+		checkFailure();
+		lastTask = sequencer.submit(()->{
+			try {
+				task.run();
+			} catch (IOException e) {
+				recordFailure(e);
+			} catch (RuntimeException e) {
+				recordFailure(new IOException(e));
+			}
+		});
+	}
+	
+	private void recordFailure(IOException e) {
+		if (failure == null) {
+			failure = e;
+		}
+	}
+	
+	private void checkFailure() throws IOException {
+		IOException e = failure;
+		if (e != null) {
+			throw e;
+		}
+	}
+	
+	/**
+	 * Waits until the executor terminates even if the current thread is interrupted.
+	 */
+	private static void awaitTermination(ExecutorService executor) {
+		boolean interrupted = false;
+		for (;;) {
+			try {
+				if (executor.awaitTermination(1, TimeUnit.MINUTES)) {
+					break;
+				}
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	private static Thread newThread(Runnable r) {
+		Thread thread = new Thread(r, "pulp-zip-writer-" + threadNumber.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	}
+	
+	@FunctionalInterface
+	private interface WriteTask {
+		void run() throws IOException;
+	}
+	
+	/**
+	 * Builder of the content used by worker threads.
+	 */
+	private class WorkerBuilder {
+		
+		// the stream probing the content, or null if the content is always compressed.
+		private final ProbingOutputStream probe;
+		private CompressedContent.Builder builder;
+		
+		WorkerBuilder(int level, boolean probed) {
+			if (probed) {
+				this.probe = new ProbingOutputStream(compressible->{
+					int method = compressible ? ZipEntry.DEFLATED : ZipEntry.STORED;
+					builder = new CompressedContent.Builder(method, level, budget);
+					return builder;
+				});
+			} else {
+				this.probe = null;
+				this.builder = new CompressedContent.Builder(level, budget);
+			}
+		}
+
+		void write(byte[] b, int off, int len) throws IOException {
+			if (probe != null) {
+				probe.write(b, off, len);
+			} else {
+				builder.write(b, off, len);
+			}
+		}
+
+		CompressedContent build() throws IOException {
+			if (probe != null) {
+				probe.decide();
+			}
+			return builder.build();
+		}
+
+		void close() throws IOException {
+			if (builder != null) {
+				builder.close();
+			}
+		}
+	}
+}
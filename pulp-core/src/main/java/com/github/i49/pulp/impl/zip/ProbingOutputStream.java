@@ -0,0 +1,115 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.zip;
+
+import static com.github.i49.pulp.impl.base.Messages.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream choosing whether to compress the content or not
+ * by probing the sample at the beginning of the content.
+ * 
+ * <p>The sample is held by this stream until it is filled or this stream is closed,
+ * and then the target stream is opened and receives the whole content.</p>
+ */
+class ProbingOutputStream extends OutputStream {
+
+	/**
+	 * Opener of the stream which receives the content.
+	 */
+	@FunctionalInterface
+	interface Target {
+		
+		/**
+		 * Opens the stream which receives the content.
+		 * 
+		 * @param compressible {@code true} if the content should be compressed.
+		 * @return the stream opened.
+		 * @throws IOException if an I/O error has occurred.
+		 */
+		OutputStream open(boolean compressible) throws IOException;
+	}
+	
+	private final Target target;
+	private byte[] sample = new byte[Compressibility.SAMPLE_SIZE];
+	private int sampleSize;
+	private OutputStream out;
+	private boolean closed;
+	
+	/**
+	 * Constructs this stream.
+	 * 
+	 * @param target the opener of the stream which receives the content.
+	 */
+	ProbingOutputStream(Target target) {
+		this.target = target;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[] {(byte)b}, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (closed) {
+			throw new IOException(STREAM_CLOSED());
+		}
+		if (off < 0 || len < 0 || len > b.length - off) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (out == null) {
+			int length = Math.min(len, sample.length - sampleSize);
+			System.arraycopy(b, off, sample, sampleSize, length);
+			sampleSize += length;
+			off += length;
+			len -= length;
+			if (sampleSize < sample.length) {
+				return;
+			}
+			decide();
+		}
+		if (len > 0) {
+			out.write(b, off, len);
+		}
+	}
+	
+	/**
+	 * Opens the target stream if not opened yet, and returns it.
+	 * 
+	 * @return the target stream which received all the content written so far.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	OutputStream decide() throws IOException {
+		if (out == null) {
+			out = target.open(Compressibility.isCompressible(sample, 0, sampleSize));
+			out.write(sample, 0, sampleSize);
+			sample = null;
+		}
+		return out;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (!closed) {
+			closed = true;
+			decide().close();
+		}
+	}
+}
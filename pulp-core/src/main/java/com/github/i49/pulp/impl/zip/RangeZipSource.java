@@ -0,0 +1,308 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.zip;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link ZipSource} reading the ZIP file through a {@link SeekableByteChannel}
+ * where each read may be expensive, such as a channel fetching ranges from a remote storage.
+ *
+ * <p>Small reads are served from the blocks of the read-ahead size aligned in the file,
+ * and the blocks recently fetched are kept, so that the reads of adjacent regions,
+ * such as the entries following each other, are served by a single fetch.
+ * The consecutive blocks missing in a read are fetched at once.
+ * Large reads bypass the blocks and are fetched in a single range.</p>
+ *
+ * <p>The numbers of the fetches and the bytes fetched are counted,
+ * which can be compared with the size of the file.</p>
+ */
+class RangeZipSource extends ZipSource {
+
+	/**
+	 * The default size of the blocks fetched.
+	 */
+	static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+	private static final int MAX_CACHED_BLOCKS = 16;
+	// reads larger than this number of blocks are not cached.
+	private static final int MAX_BLOCKS_PER_READ = MAX_CACHED_BLOCKS / 2;
+
+	private final SeekableByteChannel channel;
+	private final boolean closeChannel;
+	private final int blockSize;
+	private final long fileSize;
+	// the blocks recently fetched keyed by their indices, in the access order.
+	private final Map<Long, ByteBuffer> blocks;
+	private final AtomicLong fetches = new AtomicLong();
+	private final AtomicLong bytesFetched = new AtomicLong();
+
+	/**
+	 * Constructs this source.
+	 *
+	 * @param channel the channel of the ZIP file.
+	 * @param closeChannel {@code true} if the channel will be closed by this source.
+	 * @param blockSize the size of the blocks fetched.
+	 * @throws IOException if an I/O error has occurred while getting the size of the file.
+	 */
+	RangeZipSource(SeekableByteChannel channel, boolean closeChannel, int blockSize) throws IOException {
+		this.channel = channel;
+		this.closeChannel = closeChannel;
+		this.blockSize = blockSize;
+		this.fileSize = channel.size();
+		this.blocks = new LinkedHashMap<Long, ByteBuffer>(MAX_CACHED_BLOCKS * 2, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, ByteBuffer> eldest) {
+				return size() > MAX_CACHED_BLOCKS;
+			}
+		};
+	}
+
+	/**
+	 * Returns the number of the reads issued to the channel.
+	 *
+	 * @return the number of the fetches.
+	 */
+	long getNumberOfFetches() {
+		return fetches.get();
+	}
+
+	/**
+	 * Returns the total number of the bytes read from the channel.
+	 *
+	 * @return the number of the bytes fetched.
+	 */
+	long getBytesFetched() {
+		return bytesFetched.get();
+	}
+
+	@Override
+	long size() {
+		return fileSize;
+	}
+
+	@Override
+	synchronized void readFully(ByteBuffer target, long position) throws IOException {
+		int length = target.remaining();
+		if (position < 0 || position + length > fileSize) {
+			throw new EOFException();
+		}
+		if (length == 0) {
+			return;
+		}
+		if (length > blockSize * MAX_BLOCKS_PER_READ) {
+			fetch(target, position);
+			return;
+		}
+		long first = position / blockSize;
+		long last = (position + length - 1) / blockSize;
+		ByteBuffer[] found = findBlocks(first, (int)(last - first + 1));
+		for (int i = 0; i < found.length; i++) {
+			ByteBuffer block = found[i].duplicate();
+			long blockPosition = (first + i) * blockSize;
+			int from = (int)Math.max(0, position - blockPosition);
+			int to = (int)Math.min(block.limit(), position + length - blockPosition);
+			block.limit(to);
+			block.position(from);
+			target.put(block);
+		}
+	}
+
+	@Override
+	InputStream openStream(long position, long length) {
+		return new RangeInputStream(position, length);
+	}
+
+	@Override
+	ByteBuffer slice(long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		readFully(buffer, position);
+		buffer.flip();
+		return buffer.asReadOnlyBuffer();
+	}
+
+	@Override
+	void transferTo(long position, long length, WritableByteChannel target) throws IOException {
+		long offset = position;
+		long remaining = length;
+		while (remaining > 0) {
+			ByteBuffer buffer = slice(offset, (int)Math.min(remaining, blockSize));
+			while (buffer.hasRemaining()) {
+				target.write(buffer);
+			}
+			offset += buffer.limit();
+			remaining -= buffer.limit();
+		}
+	}
+
+	@Override
+	boolean isMapped() {
+		return false;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		blocks.clear();
+		if (closeChannel) {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Finds the consecutive blocks, fetching the missing ones.
+	 *
+	 * @param first the index of the first block.
+	 * @param count the number of the blocks.
+	 * @return the blocks found.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	private ByteBuffer[] findBlocks(long first, int count) throws IOException {
+		ByteBuffer[] found = new ByteBuffer[count];
+		for (int i = 0; i < count; i++) {
+			found[i] = blocks.get(first + i);
+		}
+		int i = 0;
+		while (i < count) {
+			if (found[i] != null) {
+				i++;
+				continue;
+			}
+			// Coalesces the missing blocks into a single fetch.
+			int end = i + 1;
+			while (end < count && found[end] == null) {
+				end++;
+			}
+			fetchBlocks(first + i, found, i, end - i);
+			i = end;
+		}
+		return found;
+	}
+
+	/**
+	 * Returns the number of the bytes which can be read from the cached blocks without fetching.
+	 *
+	 * @param position the offset from the beginning of the file.
+	 * @param length the maximum number of the bytes to count.
+	 * @return the number of the contiguous bytes cached from the position.
+	 */
+	private synchronized long countCachedBytes(long position, long length) {
+		long end = Math.min(position + length, fileSize);
+		long current = position;
+		// Does not use get() which changes the access order of the blocks.
+		while (current < end && blocks.containsKey(current / blockSize)) {
+			current = (current / blockSize + 1) * blockSize;
+		}
+		return Math.max(0, Math.min(current, end) - position);
+	}
+
+	private void fetchBlocks(long index, ByteBuffer[] found, int offset, int count) throws IOException {
+		long position = index * blockSize;
+		int length = (int)Math.min((long)count * blockSize, fileSize - position);
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		fetch(buffer, position);
+		for (int i = 0; i < count; i++) {
+			buffer.limit(Math.min(length, (i + 1) * blockSize));
+			buffer.position(i * blockSize);
+			ByteBuffer block = buffer.slice();
+			blocks.put(index + i, block);
+			found[offset + i] = block;
+			buffer.limit(length);
+		}
+	}
+
+	private void fetch(ByteBuffer target, long position) throws IOException {
+		int length = target.remaining();
+		channel.position(position);
+		while (target.hasRemaining()) {
+			if (channel.read(target) < 0) {
+				throw new EOFException();
+			}
+		}
+		fetches.incrementAndGet();
+		bytesFetched.addAndGet(length);
+	}
+
+	/**
+	 * {@link InputStream} reading a region of this source.
+	 */
+	private class RangeInputStream extends InputStream {
+
+		private long position;
+		private long remaining;
+
+		RangeInputStream(long position, long length) {
+			this.position = position;
+			this.remaining = length;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			int bytesRead = read(b, 0, 1);
+			return (bytesRead < 0) ? -1 : (b[0] & 0xff);
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (off < 0 || len < 0 || len > b.length - off) {
+				throw new IndexOutOfBoundsException();
+			}
+			if (this.remaining <= 0) {
+				return -1;
+			}
+			if (len == 0) {
+				return 0;
+			}
+			if (len > this.remaining) {
+				len = (int)this.remaining;
+			}
+			readFully(ByteBuffer.wrap(b, off, len), this.position);
+			this.position += len;
+			this.remaining -= len;
+			return len;
+		}
+
+		@Override
+		public long skip(long n) {
+			if (n <= 0) {
+				return 0;
+			}
+			long skipped = Math.min(n, this.remaining);
+			this.position += skipped;
+			this.remaining -= skipped;
+			return skipped;
+		}
+
+		/**
+		 * Returns the number of the bytes already held in the cached blocks,
+		 * which can be read without fetching from the channel.
+		 */
+		@Override
+		public int available() {
+			return (int)Math.min(countCachedBytes(this.position, this.remaining), Integer.MAX_VALUE);
+		}
+	}
+}
@@ -0,0 +1,288 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.zip;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipException;
+
+/**
+ * Cache of the indices of the Central Directories parsed from ZIP files.
+ *
+ * <p>The indices are kept in memory up to the specified number of ZIP files,
+ * and the least recently used ones are evicted first.
+ * If a directory is specified, the indices are also stored in the directory as binary files,
+ * so that they can be reused after the process is restarted.</p>
+ *
+ * <p>Each index is identified by the real path of the ZIP file and the character set of the entry names,
+ * and is reused only if the size, the last modified time, and the bytes at the end of the file
+ * are the same as those at the time when the index was created.
+ * The bytes at the end of the file include End of Central Directory,
+ * which changes whenever any entry in the ZIP file is modified.</p>
+ *
+ * <p>Instances of this class are safe for use by multiple concurrent threads.</p>
+ */
+public class ZipIndexCache {
+
+	// "PZI" followed by the version of the format.
+	private static final int MAGIC = 0x505a4902;
+	private static final int TAIL_SIZE = 64;
+	private static final String FILE_SUFFIX = ".idx";
+
+	private final Path directory;
+	private final Map<String, CachedIndex> indices;
+
+	/**
+	 * Constructs this cache.
+	 *
+	 * @param capacity the maximum number of the indices kept in memory.
+	 * @param directory the directory where the indices are stored, can be {@code null}.
+	 * @throws IllegalArgumentException if {@code capacity} is not positive.
+	 */
+	public ZipIndexCache(int capacity, Path directory) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be positive.");
+		}
+		this.directory = directory;
+		this.indices = new LinkedHashMap<String, CachedIndex>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedIndex> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Returns the directory where the indices are stored.
+	 *
+	 * @return the directory, or {@code null} if the indices are kept only in memory.
+	 */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Returns the index of the ZIP file, which is parsed only if not found in this cache.
+	 *
+	 * @param path the path to the ZIP file.
+	 * @param source the source opened for the ZIP file.
+	 * @param charset the character set to be used to decode the ZIP entry name.
+	 * @return the index of the entries in the Central Directory.
+	 * @throws ZipException if a ZIP format error has occurred.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	CentralDirectoryIndex get(Path path, ZipSource source, Charset charset) throws IOException {
+		FileIdentity identity = FileIdentity.of(path, source);
+		if (identity == null) {
+			// The file is being modified.
+			return new ZipParser(source, charset).parse();
+		}
+		String key = identity.path + '\0' + charset.name();
+		CachedIndex cached;
+		synchronized (indices) {
+			cached = indices.get(key);
+		}
+		if (cached != null && cached.identity.matches(identity)) {
+			return cached.index;
+		}
+		CentralDirectoryIndex index = (directory != null) ? loadIndex(key, identity) : null;
+		if (index == null) {
+			index = new ZipParser(source, charset).parse();
+			if (directory != null) {
+				storeIndex(key, identity, index);
+			}
+		}
+		synchronized (indices) {
+			indices.put(key, new CachedIndex(identity, index));
+		}
+		return index;
+	}
+
+	/**
+	 * Loads the index stored in the directory.
+	 * The stored file which is broken or outdated is just ignored.
+	 *
+	 * @param key the key of the index.
+	 * @param identity the identity of the ZIP file.
+	 * @return the index loaded, or {@code null} if not found.
+	 */
+	private CentralDirectoryIndex loadIndex(String key, FileIdentity identity) {
+		Path cachePath = directory.resolve(fileNameOf(key));
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(cachePath));
+			if (buffer.getInt() != MAGIC) {
+				return null;
+			}
+			byte[] storedKey = new byte[buffer.getShort() & 0xffff];
+			buffer.get(storedKey);
+			if (!key.equals(new String(storedKey, StandardCharsets.UTF_8))) {
+				return null;
+			}
+			long size = buffer.getLong();
+			long lastModified = buffer.getLong();
+			byte[] tail = new byte[buffer.get() & 0xff];
+			buffer.get(tail);
+			if (size != identity.size || lastModified != identity.lastModified || !Arrays.equals(tail, identity.tail)) {
+				return null;
+			}
+			return CentralDirectoryIndex.readFrom(buffer);
+		} catch (IOException | BufferUnderflowException e) {
+			// The index will be parsed again and overwrite the broken file.
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the index into the directory.
+	 * The index is written to a temporary file first,
+	 * which is renamed after all bytes are written,
+	 * so that other processes never see the incomplete file.
+	 * The failure in storing the index is ignored.
+	 *
+	 * @param key the key of the index.
+	 * @param identity the identity of the ZIP file.
+	 * @param index the index to store.
+	 */
+	private void storeIndex(String key, FileIdentity identity, CentralDirectoryIndex index) {
+		byte[] encodedKey = key.getBytes(StandardCharsets.UTF_8);
+		if (encodedKey.length > 0xffff) {
+			return;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(
+				4 + 2 + encodedKey.length + 8 + 8 + 1 + identity.tail.length + index.getSerializedSize());
+		buffer.putInt(MAGIC);
+		buffer.putShort((short)encodedKey.length);
+		buffer.put(encodedKey);
+		buffer.putLong(identity.size);
+		buffer.putLong(identity.lastModified);
+		buffer.put((byte)identity.tail.length);
+		buffer.put(identity.tail);
+		index.writeTo(buffer);
+		Path cachePath = directory.resolve(fileNameOf(key));
+		Path tempPath = null;
+		try {
+			Files.createDirectories(directory);
+			tempPath = Files.createTempFile(directory, "pulp", ".tmp");
+			Files.write(tempPath, buffer.array());
+			try {
+				Files.move(tempPath, cachePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempPath, cachePath, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			if (tempPath != null) {
+				try {
+					Files.deleteIfExists(tempPath);
+				} catch (IOException e2) {
+					e.addSuppressed(e2);
+				}
+			}
+		}
+	}
+
+	private static String fileNameOf(String key) {
+		return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString() + FILE_SUFFIX;
+	}
+
+	/**
+	 * The attributes identifying the content of a ZIP file.
+	 */
+	private static class FileIdentity {
+
+		private final String path;
+		private final long size;
+		private final long lastModified;
+		// the key of the file provided by the file system, can be null.
+		private final Object fileKey;
+		private final byte[] tail;
+
+		/**
+		 * Retrieves the identity of the ZIP file.
+		 * The size and the bytes at the end are read from the opened source,
+		 * in order to detect the file replaced after the source was opened.
+		 *
+		 * @param path the path to the ZIP file.
+		 * @param source the source opened for the ZIP file.
+		 * @return the identity of the file, or {@code null} if the file is being modified.
+		 * @throws IOException if an I/O error has occurred.
+		 */
+		static FileIdentity of(Path path, ZipSource source) throws IOException {
+			BasicFileAttributes attributes;
+			Path realPath;
+			try {
+				realPath = path.toRealPath();
+				attributes = Files.readAttributes(realPath, BasicFileAttributes.class);
+			} catch (NoSuchFileException e) {
+				// The file was removed or renamed.
+				return null;
+			}
+			long size = source.size();
+			if (size != attributes.size()) {
+				return null;
+			}
+			byte[] tail = new byte[(int)Math.min(size, TAIL_SIZE)];
+			source.readFully(ByteBuffer.wrap(tail), size - tail.length);
+			long lastModified = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+			return new FileIdentity(realPath.toString(), size, lastModified, attributes.fileKey(), tail);
+		}
+
+		private FileIdentity(String path, long size, long lastModified, Object fileKey, byte[] tail) {
+			this.path = path;
+			this.size = size;
+			this.lastModified = lastModified;
+			this.fileKey = fileKey;
+			this.tail = tail;
+		}
+
+		boolean matches(FileIdentity other) {
+			return size == other.size &&
+				   lastModified == other.lastModified &&
+				   Objects.equals(fileKey, other.fileKey) &&
+				   Arrays.equals(tail, other.tail);
+		}
+	}
+
+	/**
+	 * An index cached in memory.
+	 */
+	private static class CachedIndex {
+
+		private final FileIdentity identity;
+		private final CentralDirectoryIndex index;
+
+		CachedIndex(FileIdentity identity, CentralDirectoryIndex index) {
+			this.identity = identity;
+			this.index = index;
+		}
+	}
+}
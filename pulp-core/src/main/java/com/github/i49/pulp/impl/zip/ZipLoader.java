@@ -17,29 +17,46 @@
 package com.github.i49.pulp.impl.zip;
 
 import static com.github.i49.pulp.impl.base.Messages.*;
+import static com.github.i49.pulp.impl.base.Limits.MAX_ARRAY_SIZE;
 
+import java.io.Closeable;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
-import java.util.zip.ZipInputStream;
 
 /**
  * ZIP entry loader.
+ * 
+ * <p>The loader opens the ZIP file only once and reads all entries 
+ * through the shared {@link FileChannel} with positional reads,
+ * or from the memory-mapped image of the file if requested.
+ * Instances of this class are safe for use by multiple concurrent threads.</p> 
  */
-public class ZipLoader {
+public class ZipLoader implements Closeable {
 
+	private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+	private static final int LOCAL_FILE_HEADER_SIZE = 30;
+	private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+	// DEFLATE cannot expand the data more than this ratio.
+	private static final long MAX_DEFLATE_RATIO = 1032;
+	
 	private final Path path;
-	private final Map<String, CentralDirectoryEntry> entryMap;
-	private final List<CentralDirectoryEntry> orderedEntries;
+	private final ZipSource source;
+	private final EntryDecoder decoder;
+	private final CentralDirectoryIndex index;
 	
 	/**
 	 * Creates a new instance of this class.
@@ -52,55 +69,203 @@ public class ZipLoader {
 	 * @throws ZipException if a ZIP format error has occurred.
 	 */
 	public static ZipLoader create(Path path, Charset charset) throws IOException {
+		return create(path, charset, 0);
+	}
+
+	/**
+	 * Creates a new instance of this class which maps the ZIP file into memory
+	 * if the size of the file does not exceed the specified limit.
+	 * Larger files are read through the file channel.
+	 * 
+	 * @param path the path to the ZIP file.
+	 * @param charset the character set to be used to decode the ZIP entry name.
+	 * @param maxMappedSize the maximum size of the file in bytes to be memory-mapped.
+	 *                      Zero means that the file will never be mapped.
+	 * @return newly created instance of this class.
+	 * @throws IllegalArgumentException if {@code path} is {@code null}.
+	 * @throws IOException if an I/O error has occurred.
+	 * @throws ZipException if a ZIP format error has occurred.
+	 */
+	public static ZipLoader create(Path path, Charset charset, long maxMappedSize) throws IOException {
+		return create(path, charset, maxMappedSize, null);
+	}
+
+	/**
+	 * Creates a new instance of this class which reuses the index of the entries
+	 * cached for the same ZIP file.
+	 * 
+	 * @param path the path to the ZIP file.
+	 * @param charset the character set to be used to decode the ZIP entry name.
+	 * @param maxMappedSize the maximum size of the file in bytes to be memory-mapped.
+	 *                      Zero means that the file will never be mapped.
+	 * @param cache the cache of the indices, can be {@code null}.
+	 * @return newly created instance of this class.
+	 * @throws IllegalArgumentException if {@code path} is {@code null}.
+	 * @throws IOException if an I/O error has occurred.
+	 * @throws ZipException if a ZIP format error has occurred.
+	 */
+	public static ZipLoader create(Path path, Charset charset, long maxMappedSize, ZipIndexCache cache) throws IOException {
 		if (path == null) {
 			throw new IllegalArgumentException("path is null.");
 		}
-		List<CentralDirectoryEntry> entries = null;
-		try (ZipParser parser = new ZipParser(path, charset)) {
-			entries = parser.parse();
+		if (charset == null) {
+			charset = StandardCharsets.UTF_8;
+		}
+		ZipSource source = openSource(path, maxMappedSize);
+		try {
+			CentralDirectoryIndex index;
+			if (cache != null) {
+				index = cache.get(path, source, charset);
+			} else {
+				index = new ZipParser(source, charset).parse();
+			}
+			return new ZipLoader(path, source, index);
+		} catch (IOException | RuntimeException e) {
+			source.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Creates a new instance of this class reading the ZIP file held in the buffer.
+	 * The bytes between the position and the limit of the buffer are used,
+	 * and the stored entries are served as slices of the buffer without copying.
+	 * The content of the buffer must not be modified while the loader is in use.
+	 * 
+	 * @param buffer the buffer holding the whole ZIP file.
+	 * @param charset the character set to be used to decode the ZIP entry name.
+	 * @return newly created instance of this class.
+	 * @throws IllegalArgumentException if {@code buffer} is {@code null}.
+	 * @throws IOException if an I/O error has occurred.
+	 * @throws ZipException if a ZIP format error has occurred.
+	 */
+	public static ZipLoader create(ByteBuffer buffer, Charset charset) throws IOException {
+		if (buffer == null) {
+			throw new IllegalArgumentException("buffer is null.");
+		}
+		if (charset == null) {
+			charset = StandardCharsets.UTF_8;
+		}
+		ZipSource source = new BufferZipSource(buffer);
+		CentralDirectoryIndex index = new ZipParser(source, charset).parse();
+		return new ZipLoader(null, source, index);
+	}
+	
+	/**
+	 * Creates a new instance of this class reading the ZIP file through the channel.
+	 * Only the regions of the file actually needed are fetched from the channel,
+	 * which are the end of the file, the central directory, and the entries loaded.
+	 * The channel is not closed by the loader and must remain open while the loader is in use.
+	 * 
+	 * @param channel the channel of the ZIP file.
+	 * @param charset the character set to be used to decode the ZIP entry name.
+	 * @return newly created instance of this class.
+	 * @throws IllegalArgumentException if {@code channel} is {@code null}.
+	 * @throws IOException if an I/O error has occurred.
+	 * @throws ZipException if a ZIP format error has occurred.
+	 */
+	public static ZipLoader create(SeekableByteChannel channel, Charset charset) throws IOException {
+		if (channel == null) {
+			throw new IllegalArgumentException("channel is null.");
+		}
+		if (charset == null) {
+			charset = StandardCharsets.UTF_8;
+		}
+		ZipSource source = new RangeZipSource(channel, false, RangeZipSource.DEFAULT_BLOCK_SIZE);
+		CentralDirectoryIndex index = new ZipParser(source, charset).parse();
+		return new ZipLoader(null, source, index);
+	}
+	
+	private static ZipSource openSource(Path path, long maxMappedSize) throws IOException {
+		if (path.getFileSystem() != FileSystems.getDefault()) {
+			// The file systems provided by others may not support file channels.
+			return new RangeZipSource(Files.newByteChannel(path), true, RangeZipSource.DEFAULT_BLOCK_SIZE);
+		}
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			if (size == 0 || size > maxMappedSize || size > Integer.MAX_VALUE) {
+				return new ChannelZipSource(path, channel);
+			}
+			// The mapping remains valid after the channel is closed.
+			try (FileChannel c = channel) {
+				MappedByteBuffer buffer = c.map(FileChannel.MapMode.READ_ONLY, 0, size);
+				return new BufferZipSource(buffer);
+			}
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
 		}
-		return new ZipLoader(path, entries);
 	}
 	
 	/**
 	 * Constructs this loader.
 	 * 
-	 * @param path the path to the ZIP file.
-	 * @param entries the list of entries in Central Directory of the ZIP file.
+	 * @param path the path to the ZIP file, or {@code null} if the file is not specified by a path.
+	 * @param source the source of the ZIP file.
+	 * @param index the index of entries in Central Directory of the ZIP file.
 	 */
-	private ZipLoader(Path path, List<CentralDirectoryEntry> entries) {
+	private ZipLoader(Path path, ZipSource source, CentralDirectoryIndex index) {
 		this.path = path;
-		this.entryMap = new HashMap<>();
-		for (CentralDirectoryEntry entry: entries) {
-			this.entryMap.put(entry.getFileName(), entry);
-		}
-		this.orderedEntries = new ArrayList<>(entries);
-		Collections.sort(this.orderedEntries, (e1, e2)->{
-			if (e1.getPosition() < e2.getPosition()) {
-				return -1;
-			} else if (e1.getPosition() > e2.getPosition()) {
-				return 1;
-			}
-			return 0;
-		});
+		this.source = source;
+		this.decoder = new EntryDecoder(source, InflaterPool.shared());
+		this.index = index;
 	}
 	
 	/**
 	 * Returns the path of the ZIP file.
 	 * 
-	 * @return the path of the ZIP file.
+	 * @return the path of the ZIP file, or {@code null} if the file is not specified by a path.
 	 */
 	public Path getPath() {
 		return path;
 	}
 	
+	/**
+	 * Returns whether the ZIP file is mapped into memory or not.
+	 * 
+	 * @return {@code true} if the ZIP file is memory-mapped, {@code false} otherwise.
+	 */
+	public boolean isMapped() {
+		return source.isMapped();
+	}
+	
+	/**
+	 * Returns the number of the reads issued to the underlying storage
+	 * when the ZIP file is read through a channel with range reads.
+	 * 
+	 * @return the number of the reads, or -1 if the ZIP file is not read with range reads.
+	 * @see #create(SeekableByteChannel, Charset)
+	 */
+	public long getNumberOfFetches() {
+		if (source instanceof RangeZipSource) {
+			return ((RangeZipSource)source).getNumberOfFetches();
+		}
+		return -1;
+	}
+	
+	/**
+	 * Returns the total number of the bytes read from the underlying storage
+	 * when the ZIP file is read through a channel with range reads.
+	 * This number can be compared with the size of the ZIP file.
+	 * 
+	 * @return the number of the bytes read, or -1 if the ZIP file is not read with range reads.
+	 * @see #create(SeekableByteChannel, Charset)
+	 */
+	public long getBytesFetched() {
+		if (source instanceof RangeZipSource) {
+			return ((RangeZipSource)source).getBytesFetched();
+		}
+		return -1;
+	}
+	
 	/**
 	 * Returns the total number of entries in the ZIP file.
 	 * 
 	 * @return the total number of entries in the ZIP file.
 	 */
 	public int getNumberOfEntries() {
-		return this.entryMap.size();
+		return this.index.size();
 	}
 	
 	/**
@@ -124,12 +289,13 @@ public class ZipLoader {
 	}
 
 	/**
-	 * Loads the content of the ZIP entry.
+	 * Loads the content of the ZIP entry into a newly allocated array of the exact size.
 	 * 
 	 * @param entryName the name of the entry.
 	 * @return loaded bytes.
 	 * @throws IllegalArgumentException if {@code entryName} is {@code null}.
 	 * @throws FileNotFoundException if the specified entry was not found in the ZIP file.
+	 * @throws ZipException if the entry is too large or broken.
 	 * @throws IOException if an I/O error has occurred.
 	 */
 	public byte[] load(String entryName) throws IOException {
@@ -137,21 +303,143 @@ public class ZipLoader {
 			throw new IllegalArgumentException("entryName is null.");
 		}
 		CentralDirectoryEntry entry = getEntry(entryName);
-		final int contentSize = (int)entry.getUncompressedSize();
-		byte[] content = new byte[contentSize];
-		try (InputStream stream = openToLoad(entryName)) {
-			int offset = 0;
-			while (offset < content.length) {
-				int bytesRead = stream.read(content, offset, content.length - offset);
-				if (bytesRead < 0) {
-					break;
-				}
-				offset += bytesRead;
-			}
-		}
+		byte[] content = new byte[checkedContentSize(entry)];
+		decoder.decode(entry, locateData(entry), ByteBuffer.wrap(content));
 		return content;
 	}
 	
+	/**
+	 * Loads the content of the ZIP entry into the buffer supplied by the caller.
+	 * The content is written at the current position of the buffer,
+	 * and the position is advanced by the size of the content.
+	 * 
+	 * @param entryName the name of the entry.
+	 * @param target the buffer to which the content will be written.
+	 * @throws IllegalArgumentException if any of arguments is {@code null}.
+	 * @throws java.nio.BufferOverflowException if the remaining space of {@code target} is insufficient.
+	 * @throws java.nio.ReadOnlyBufferException if {@code target} is read-only.
+	 * @throws FileNotFoundException if the specified entry was not found in the ZIP file.
+	 * @throws ZipException if the entry is broken.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	public void load(String entryName, ByteBuffer target) throws IOException {
+		if (entryName == null) {
+			throw new IllegalArgumentException("entryName is null.");
+		}
+		if (target == null) {
+			throw new IllegalArgumentException("target is null.");
+		}
+		CentralDirectoryEntry entry = getEntry(entryName);
+		decoder.decode(entry, locateData(entry), target);
+	}
+	
+	/**
+	 * Returns the size of the content of the ZIP entry.
+	 * 
+	 * @param entryName the name of the entry.
+	 * @return the size of the entry in bytes before compression.
+	 * @throws IllegalArgumentException if {@code entryName} is {@code null}.
+	 * @throws FileNotFoundException if the specified entry was not found in the ZIP file.
+	 */
+	public long getContentSize(String entryName) throws FileNotFoundException {
+		if (entryName == null) {
+			throw new IllegalArgumentException("entryName is null.");
+		}
+		return getEntry(entryName).getUncompressedSize();
+	}
+	
+	/**
+	 * Returns the compression method of the ZIP entry.
+	 * 
+	 * @param entryName the name of the entry.
+	 * @return the compression method, such as {@link java.util.zip.ZipEntry#STORED} 
+	 *         or {@link java.util.zip.ZipEntry#DEFLATED}.
+	 * @throws IllegalArgumentException if {@code entryName} is {@code null}.
+	 * @throws FileNotFoundException if the specified entry was not found in the ZIP file.
+	 */
+	public int getCompressionMethod(String entryName) throws FileNotFoundException {
+		if (entryName == null) {
+			throw new IllegalArgumentException("entryName is null.");
+		}
+		return getEntry(entryName).getMethod();
+	}
+	
+	/**
+	 * Returns the size of the data of the ZIP entry in the ZIP file.
+	 * 
+	 * @param entryName the name of the entry.
+	 * @return the size of the entry in bytes after compression.
+	 * @throws IllegalArgumentException if {@code entryName} is {@code null}.
+	 * @throws FileNotFoundException if the specified entry was not found in the ZIP file.
+	 */
+	public long getCompressedSize(String entryName) throws FileNotFoundException {
+		if (entryName == null) {
+			throw new IllegalArgumentException("entryName is null.");
+		}
+		return getEntry(entryName).getCompressedSize();
+	}
+	
+	/**
+	 * Returns the CRC-32 checksum of the content of the ZIP entry.
+	 * 
+	 * @param entryName the name of the entry.
+	 * @return the checksum recorded in the Central Directory.
+	 * @throws IllegalArgumentException if {@code entryName} is {@code null}.
+	 * @throws FileNotFoundException if the specified entry was not found in the ZIP file.
+	 */
+	public long getCrc(String entryName) throws FileNotFoundException {
+		if (entryName == null) {
+			throw new IllegalArgumentException("entryName is null.");
+		}
+		return getEntry(entryName).getCrc();
+	}
+	
+	/**
+	 * Returns the position of the data of the ZIP entry, which follows the local file header.
+	 * The local file header is read only once for each entry.
+	 * 
+	 * @param entryName the name of the entry.
+	 * @return the offset of the entry data from the beginning of the ZIP file.
+	 * @throws IllegalArgumentException if {@code entryName} is {@code null}.
+	 * @throws FileNotFoundException if the specified entry was not found in the ZIP file.
+	 * @throws ZipException if the local file header is broken.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	public long getDataOffset(String entryName) throws IOException {
+		if (entryName == null) {
+			throw new IllegalArgumentException("entryName is null.");
+		}
+		return locateData(getEntry(entryName));
+	}
+	
+	/**
+	 * Loads the content of the ZIP entry as a buffer.
+	 * If the entry is stored without compression in the memory-mapped ZIP file, 
+	 * the buffer returned is a read-only view of the file and no bytes are copied.
+	 * The CRC of such an entry is not verified because its content is never read by this method.
+	 * 
+	 * @param entryName the name of the entry.
+	 * @return loaded bytes.
+	 * @throws IllegalArgumentException if {@code entryName} is {@code null}.
+	 * @throws FileNotFoundException if the specified entry was not found in the ZIP file.
+	 * @throws ZipException if the entry is too large or broken.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	public ByteBuffer loadBuffer(String entryName) throws IOException {
+		if (entryName == null) {
+			throw new IllegalArgumentException("entryName is null.");
+		}
+		CentralDirectoryEntry entry = getEntry(entryName);
+		int size = checkedContentSize(entry);
+		if (source.isMapped() && entry.getMethod() == ZipEntry.STORED && entry.getCompressedSize() == size) {
+			return source.slice(locateData(entry), size);
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+		decoder.decode(entry, locateData(entry), buffer);
+		buffer.flip();
+		return buffer;
+	}
+	
 	/**
 	 * Opens a new {@link InputStream} to load an entry of ZIP file.
 	 * 
@@ -166,29 +454,151 @@ public class ZipLoader {
 			throw new IllegalArgumentException("entryName is null.");
 		}
 		CentralDirectoryEntry entry = getEntry(entryName);
-		InputStream stream = Files.newInputStream(this.path);
-		stream.skip(entry.getPosition());
-		ZipInputStream zstream = new ZipInputStream(stream);
-		zstream.getNextEntry();
-		return zstream;
+		int method = entry.getMethod();
+		if (method != ZipEntry.STORED && method != ZipEntry.DEFLATED) {
+			throw new ZipException(ZIP_ENTRY_METHOD_UNSUPPORTED(entryName, method));
+		}
+		InputStream stream = source.openStream(locateData(entry), entry.getCompressedSize());
+		if (method == ZipEntry.DEFLATED) {
+			stream = new EntryInflaterInputStream(stream, entry.getCompressedSize(), decoder.getPool());
+		}
+		return new EntryCheckedInputStream(stream, entry);
+	}
+	
+	/**
+	 * Writes the content of the ZIP entry to the channel.
+	 * If the entry is stored without compression, its bytes are transferred directly from the ZIP file,
+	 * which may be done by the operating system without copying them into the application.
+	 * The CRC of such an entry is not verified because its content is never read by this method.
+	 * 
+	 * @param entryName the name of the entry.
+	 * @param target the channel to which the content will be written.
+	 * @return the number of bytes written.
+	 * @throws IllegalArgumentException if {@code entryName} or {@code target} is {@code null}.
+	 * @throws FileNotFoundException if the specified entry was not found in the ZIP file.
+	 * @throws ZipException if the entry is broken.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	public long transferTo(String entryName, WritableByteChannel target) throws IOException {
+		if (entryName == null) {
+			throw new IllegalArgumentException("entryName is null.");
+		}
+		if (target == null) {
+			throw new IllegalArgumentException("target is null.");
+		}
+		CentralDirectoryEntry entry = getEntry(entryName);
+		long size = entry.getUncompressedSize();
+		if (entry.getMethod() == ZipEntry.STORED && entry.getCompressedSize() == size) {
+			source.transferTo(locateData(entry), size, target);
+			return size;
+		}
+		long total = 0;
+		try (InputStream in = openToLoad(entryName)) {
+			byte[] buffer = new byte[TRANSFER_BUFFER_SIZE];
+			int len = 0;
+			while ((len = in.read(buffer)) != -1) {
+				ByteBuffer wrapped = ByteBuffer.wrap(buffer, 0, len);
+				while (wrapped.hasRemaining()) {
+					target.write(wrapped);
+				}
+				total += len;
+			}
+		}
+		return total;
+	}
+	
+	/**
+	 * Closes the ZIP file shared by all entries.
+	 * Any streams opened by this loader cannot be read after this method was called.
+	 * 
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	@Override
+	public void close() throws IOException {
+		this.source.close();
+	}
+	
+	/**
+	 * Finds the position of the entry data by reading the local file header.
+	 * 
+	 * @param entry the entry in the Central Directory.
+	 * @return the offset of the entry data from the beginning of the file.
+	 * @throws ZipException if the local file header is broken.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	private long locateData(CentralDirectoryEntry entry) throws IOException {
+		long dataPosition = entry.getDataPosition();
+		if (dataPosition >= 0) {
+			return dataPosition;
+		}
+		byte[] header = new byte[LOCAL_FILE_HEADER_SIZE];
+		source.readFully(ByteBuffer.wrap(header), entry.getPosition());
+		ZipStructure s = ZipStructure.wrap(header);
+		if (s.getUint32(0) != LOCAL_FILE_HEADER_SIGNATURE) {
+			throw new ZipException(LOCAL_FILE_HEADER_BROKEN(entry.getFileName()));
+		}
+		dataPosition = entry.getPosition() + LOCAL_FILE_HEADER_SIZE + s.getUint16(26) + s.getUint16(28);
+		entry.setDataPosition(dataPosition);
+		return dataPosition;
+	}
+	
+	/**
+	 * Returns the size of the content declared by the entry, 
+	 * which is checked against the size of the ZIP file before allocating the array for the content.
+	 * 
+	 * @param entry the entry in the Central Directory.
+	 * @return the size of the content.
+	 * @throws ZipException if the size is too large or cannot be of the compressed data in this file.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	private int checkedContentSize(CentralDirectoryEntry entry) throws IOException {
+		long size = entry.getUncompressedSize();
+		long compressedSize = entry.getCompressedSize();
+		long maxSize;
+		if (entry.getMethod() == ZipEntry.STORED) {
+			maxSize = compressedSize;
+		} else if (entry.getMethod() == ZipEntry.DEFLATED) {
+			maxSize = (compressedSize < Long.MAX_VALUE / MAX_DEFLATE_RATIO) ? compressedSize * MAX_DEFLATE_RATIO : Long.MAX_VALUE;
+		} else {
+			maxSize = Long.MAX_VALUE;
+		}
+		if (compressedSize > source.size() || size > maxSize) {
+			throw new ZipException(ZIP_ENTRY_CORRUPTED(entry.getFileName()));
+		}
+		if (size > MAX_ARRAY_SIZE) {
+			throw new ZipException(ZIP_ENTRY_TOO_LARGE(entry.getFileName(), size));
+		}
+		return (int)size;
 	}
 	
-	private CentralDirectoryEntry getEntry(String entryName) throws FileNotFoundException {
+	/**
+	 * Transfers the compressed data of the entry to the channel as it is.
+	 * 
+	 * @param entry the entry in the Central Directory.
+	 * @param target the channel to which the data will be written.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	void transferRaw(CentralDirectoryEntry entry, WritableByteChannel target) throws IOException {
+		source.transferTo(locateData(entry), entry.getCompressedSize(), target);
+	}
+	
+	CentralDirectoryEntry getEntry(String entryName) throws FileNotFoundException {
 		CentralDirectoryEntry entry = getNullableEntry(entryName);
 		if (entry == null) {
-			throw new FileNotFoundException(ZIP_ENTRY_NOT_FOUND(entryName, getPath()));
+			if (path == null) {
+				throw new FileNotFoundException(ZIP_ARCHIVE_ENTRY_NOT_FOUND(entryName));
+			}
+			throw new FileNotFoundException(ZIP_ENTRY_NOT_FOUND(entryName, path));
 		}
 		return entry;
 	}
 	
 	private CentralDirectoryEntry getNullableEntry(String entryName) {
-		return this.entryMap.get(entryName);
+		int found = this.index.find(entryName);
+		return (found >= 0) ? this.index.getEntry(found) : null;
 	}
 
 	private CentralDirectoryEntry getEntryAt(int index) {
-		if (index < 0 || index >= getNumberOfEntries()) {
-			throw new IndexOutOfBoundsException();
-		}
-		return this.orderedEntries.get(index);
+		return this.index.getEntry(index);
 	}
 }
@@ -18,20 +18,16 @@ package com.github.i49.pulp.impl.zip;
 
 import static com.github.i49.pulp.impl.base.Messages.*;
 
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.zip.ZipException;
 
 /**
  * ZIP file parser.
  */
-class ZipParser implements AutoCloseable {
+class ZipParser {
 
 	/**
 	 * End of Central Directory in ZIP file.
@@ -42,42 +38,46 @@ class ZipParser implements AutoCloseable {
 	}
 	
 	private final Charset charset;
-	private final RandomAccessFile file;
+	private final ZipSource source;
 	
 	private static final int MIN_SIZE_OF_CENTRAL_DIRECTORY_END = 22;
+	private static final int SIZE_OF_ZIP64_END_LOCATOR = 20;
+	private static final int MIN_SIZE_OF_ZIP64_END = 56;
+	private static final int MIN_SIZE_OF_CENTRAL_DIRECTORY_ENTRY = 46;
+	private static final long ZIP64_END_LOCATOR_SIGNATURE = 0x07064b50L;
+	private static final long ZIP64_END_SIGNATURE = 0x06064b50L;
+	private static final int ZIP64_EXTRA_FIELD_ID = 0x0001;
+	private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
 	
 	/**
 	 * Constructs this parser.
-	 * @param path the path of the ZIP file to parse.
-	 * @throws FileNotFoundException if the ZIP file was not found.
+	 * The source given is not closed by this parser.
+	 * 
+	 * @param source the source of the ZIP file to parse.
 	 */
-	public ZipParser(Path path) throws FileNotFoundException {
-		this(path, StandardCharsets.UTF_8);
+	public ZipParser(ZipSource source) {
+		this(source, StandardCharsets.UTF_8);
 	}
 
 	/**
 	 * Constructs this parser.
-	 * @param path the path of the ZIP file to parse.
+	 * The source given is not closed by this parser.
+	 * 
+	 * @param source the source of the ZIP file to parse.
 	 * @param charset the encoding to be used to decode the entry names in the ZIP file. 
-	 * @throws FileNotFoundException if the ZIP file was not found.
 	 */
-	public ZipParser(Path path, Charset charset) throws FileNotFoundException {
+	public ZipParser(ZipSource source, Charset charset) {
 		this.charset = (charset == null) ? StandardCharsets.UTF_8 : charset;
-		this.file = new RandomAccessFile(path.toString(), "r");
+		this.source = source;
 	}
 	
-	@Override
-	public void close() throws IOException {
-		file.close();
-	}
-
 	/**
 	 * Parses the central directory of a ZIP file.
-	 * @return the list of entries in the central directory. 
+	 * @return the index of entries in the central directory. 
 	 * @throws ZipException if the parsed file was not a valid ZIP file.
 	 * @throws IOException if I/O error has occurred while reading the content of the file.
 	 */
-	public List<CentralDirectoryEntry> parse() throws IOException {
+	public CentralDirectoryIndex parse() throws IOException {
 		CentralDirectoryEnd end = findCentralDirectoryEnd();
 		if (end == null) {
 			throw new ZipException(END_OF_CENTRAL_DIRECTORY_NOT_FOUND());
@@ -87,7 +87,7 @@ class ZipParser implements AutoCloseable {
 	
 	private CentralDirectoryEnd findCentralDirectoryEnd() throws IOException {
 
-		final long fileLength = file.length();
+		final long fileLength = source.size();
 		if (fileLength < MIN_SIZE_OF_CENTRAL_DIRECTORY_END) {
 			return null;
 		}
@@ -96,9 +96,9 @@ class ZipParser implements AutoCloseable {
 			bufferSize = (int)fileLength;
 		}
 
+		final long bufferPosition = fileLength - bufferSize;
 		byte[] buffer = new byte[bufferSize];
-		file.seek(fileLength - bufferSize);
-		file.readFully(buffer); 
+		readFully(buffer, bufferPosition);
 		
 		final byte[] signature = {0x50, 0x4B, 0x05, 0x06}; 
 		int step = 3;
@@ -108,7 +108,7 @@ class ZipParser implements AutoCloseable {
 				if (--step < 0) {
 					ZipStructure s = ZipStructure.wrap(buffer, pos);
 					if (22 + s.getUint16(20) == s.length()) {
-						return parseEndOfCentralDirectory(s);
+						return parseEndOfCentralDirectory(s, bufferPosition + pos);
 					} else {
 						step = 3;
 					}
@@ -120,23 +120,72 @@ class ZipParser implements AutoCloseable {
 		return null;
 	}
 	
-	private CentralDirectoryEnd parseEndOfCentralDirectory(ZipStructure s) {
+	private CentralDirectoryEnd parseEndOfCentralDirectory(ZipStructure s, long position) throws IOException {
+		CentralDirectoryEnd end = parseZip64EndOfCentralDirectory(position);
+		if (end == null) {
+			end = new CentralDirectoryEnd();
+			end.centralDirectoryLength = s.getUint32(12);
+			end.centralDirectoryPosition = s.getUint32(16);
+		}
+		return end;
+	}
+	
+	/**
+	 * Parses ZIP64 End of Central Directory Record if the locator precedes
+	 * End of Central Directory at the specified position.
+	 * 
+	 * @param position the position of End of Central Directory.
+	 * @return parsed record, or {@code null} if the file is not in ZIP64 format.
+	 * @throws ZipException if the record is broken.
+	 * @throws IOException if I/O error has occurred.
+	 */
+	private CentralDirectoryEnd parseZip64EndOfCentralDirectory(long position) throws IOException {
+		long locatorPosition = position - SIZE_OF_ZIP64_END_LOCATOR;
+		if (locatorPosition < 0) {
+			return null;
+		}
+		byte[] locator = new byte[SIZE_OF_ZIP64_END_LOCATOR];
+		readFully(locator, locatorPosition);
+		ZipStructure s = ZipStructure.wrap(locator);
+		if (s.getUint32(0) != ZIP64_END_LOCATOR_SIGNATURE) {
+			return null;
+		}
+		long recordPosition = s.getUint64(8);
+		if (recordPosition < 0 || recordPosition + MIN_SIZE_OF_ZIP64_END > locatorPosition) {
+			throw new ZipException(ZIP64_END_OF_CENTRAL_DIRECTORY_BROKEN());
+		}
+		byte[] record = new byte[MIN_SIZE_OF_ZIP64_END];
+		readFully(record, recordPosition);
+		s = ZipStructure.wrap(record);
+		if (s.getUint32(0) != ZIP64_END_SIGNATURE) {
+			throw new ZipException(ZIP64_END_OF_CENTRAL_DIRECTORY_BROKEN());
+		}
 		CentralDirectoryEnd end = new CentralDirectoryEnd();
-		end.centralDirectoryLength = s.getUint32(12);
-		end.centralDirectoryPosition = s.getUint32(16);
+		end.centralDirectoryLength = s.getUint64(40);
+		end.centralDirectoryPosition = s.getUint64(48);
+		if (end.centralDirectoryLength < 0 || end.centralDirectoryPosition < 0 ||
+		    end.centralDirectoryPosition + end.centralDirectoryLength > recordPosition) {
+			throw new ZipException(ZIP64_END_OF_CENTRAL_DIRECTORY_BROKEN());
+		}
 		return end;
 	}
 	
-	private List<CentralDirectoryEntry> parseCentralDirectory(long offset, long length) throws IOException {
-		List<CentralDirectoryEntry> entries = new ArrayList<>();
-		file.seek(offset);
+	private CentralDirectoryIndex parseCentralDirectory(long offset, long length) throws IOException {
+		if (offset < 0 || length < 0 || offset + length > source.size()) {
+			throw new ZipException(END_OF_CENTRAL_DIRECTORY_BROKEN());
+		}
+		if (length > Integer.MAX_VALUE) {
+			throw new ZipException(CENTRAL_DIRECTORY_TOO_LARGE(length));
+		}
+		CentralDirectoryIndex.Builder entries = new CentralDirectoryIndex.Builder(this.charset);
 		int bufferSize = (int)length;
 		byte[] buffer = new byte[bufferSize];
-		file.readFully(buffer);
+		readFully(buffer, offset);
 		final byte[] signature = {0x50, 0x4B, 0x01, 0x02}; 
 		int pos = 0;
 		while (pos < bufferSize) {
-			if (buffer[pos] != signature[0] ||
+			if (bufferSize - pos < MIN_SIZE_OF_CENTRAL_DIRECTORY_ENTRY ||
+			    buffer[pos] != signature[0] ||
 			    buffer[pos + 1] != signature[1] ||
 			    buffer[pos + 2] != signature[2] ||
 			    buffer[pos + 3] != signature[3]) {
@@ -144,19 +193,80 @@ class ZipParser implements AutoCloseable {
 			}
 			pos += parseCentralDirectoryEntry(ZipStructure.wrap(buffer, pos), entries);
 		}
-		return entries;
+		return entries.build();
 	}
 	
-	private int parseCentralDirectoryEntry(ZipStructure s, List<CentralDirectoryEntry> entries) {
+	private int parseCentralDirectoryEntry(ZipStructure s, CentralDirectoryIndex.Builder entries) throws ZipException {
+		int method = s.getUint16(10);
+		long crc = s.getUint32(16);
 		long compressedSize = s.getUint32(20);
 		long uncompressedSize = s.getUint32(24);
 		int n = s.getUint16(28);
 		int m = s.getUint16(30);
 		int k = s.getUint16(32);
 		long position = s.getUint32(42);
-		String fileName = s.getString(46, n, this.charset); 
-		CentralDirectoryEntry entry = new CentralDirectoryEntry(fileName, position, compressedSize, uncompressedSize);
-		entries.add(entry);
-		return 46 + n + m + k;
+		int entryLength = MIN_SIZE_OF_CENTRAL_DIRECTORY_ENTRY + n + m + k;
+		if (entryLength > s.length()) {
+			throw new ZipException(CENTRAL_DIRECTORY_ENTRY_BROKEN());
+		}
+		if (uncompressedSize == ZIP64_MAGIC || compressedSize == ZIP64_MAGIC || position == ZIP64_MAGIC) {
+			ZipStructure extra = findExtraField(s, 46 + n, m, ZIP64_EXTRA_FIELD_ID);
+			if (extra == null) {
+				throw new ZipException(CENTRAL_DIRECTORY_ENTRY_BROKEN());
+			}
+			// The values present in the field are only those marked in the entry.
+			int offset = 0;
+			try {
+				if (uncompressedSize == ZIP64_MAGIC) {
+					uncompressedSize = extra.getUint64(offset);
+					offset += 8;
+				}
+				if (compressedSize == ZIP64_MAGIC) {
+					compressedSize = extra.getUint64(offset);
+					offset += 8;
+				}
+				if (position == ZIP64_MAGIC) {
+					position = extra.getUint64(offset);
+					offset += 8;
+				}
+			} catch (IndexOutOfBoundsException e) {
+				throw new ZipException(CENTRAL_DIRECTORY_ENTRY_BROKEN());
+			}
+			if (uncompressedSize < 0 || compressedSize < 0 || position < 0) {
+				throw new ZipException(CENTRAL_DIRECTORY_ENTRY_BROKEN());
+			}
+		}
+		entries.add(s, 46, n, position, method, crc, compressedSize, uncompressedSize);
+		return entryLength;
+	}
+	
+	/**
+	 * Finds the data of the extra field specified by its header ID.
+	 * 
+	 * @param s the structure containing the extra fields.
+	 * @param offset the offset of the first extra field.
+	 * @param length the total length of the extra fields.
+	 * @param id the header ID of the field to find.
+	 * @return the data of the field found, or {@code null} if the field does not exist.
+	 */
+	private static ZipStructure findExtraField(ZipStructure s, int offset, int length, int id) {
+		int end = offset + length;
+		while (offset + 4 <= end) {
+			int fieldId = s.getUint16(offset);
+			int fieldLength = s.getUint16(offset + 2);
+			offset += 4;
+			if (offset + fieldLength > end) {
+				break;
+			}
+			if (fieldId == id) {
+				return s.slice(offset, fieldLength);
+			}
+			offset += fieldLength;
+		}
+		return null;
+	}
+	
+	private void readFully(byte[] buffer, long position) throws IOException {
+		source.readFully(ByteBuffer.wrap(buffer), position);
 	}
 }
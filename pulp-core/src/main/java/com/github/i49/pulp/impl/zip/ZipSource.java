@@ -0,0 +1,88 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.zip;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The source of the bytes in a ZIP file, which can be read at random positions.
+ * 
+ * <p>All implementations of this class must be safe for use by multiple concurrent threads.</p>
+ */
+abstract class ZipSource implements Closeable {
+
+	/**
+	 * Returns the size of the ZIP file.
+	 * 
+	 * @return the size of the ZIP file in bytes.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	abstract long size() throws IOException;
+	
+	/**
+	 * Reads bytes from this source until the buffer is filled.
+	 * 
+	 * @param target the buffer to which the bytes will be transferred.
+	 * @param position the offset from the beginning of the file.
+	 * @throws java.io.EOFException if the end of the file was reached before the buffer is filled.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	abstract void readFully(ByteBuffer target, long position) throws IOException;
+
+	/**
+	 * Opens a new stream that reads the specified region of this source.
+	 * 
+	 * @param position the offset of the region from the beginning of the file.
+	 * @param length the length of the region in bytes.
+	 * @return newly created {@link InputStream}.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	abstract InputStream openStream(long position, long length) throws IOException;
+	
+	/**
+	 * Returns the specified region of this source as a buffer.
+	 * The buffer returned may share its content with this source and is read-only.
+	 * 
+	 * @param position the offset of the region from the beginning of the file.
+	 * @param length the length of the region in bytes.
+	 * @return the buffer containing the region.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	abstract ByteBuffer slice(long position, int length) throws IOException;
+	
+	/**
+	 * Transfers the specified region of this source to the channel.
+	 * 
+	 * @param position the offset of the region from the beginning of the file.
+	 * @param length the length of the region in bytes.
+	 * @param target the channel to which the bytes will be written.
+	 * @throws java.io.EOFException if the end of the file was reached before the region is transferred.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	abstract void transferTo(long position, long length, WritableByteChannel target) throws IOException;
+	
+	/**
+	 * Returns whether the whole file is mapped into memory or not.
+	 * 
+	 * @return {@code true} if this source is memory-mapped, {@code false} otherwise.
+	 */
+	abstract boolean isMapped();
+}
@@ -0,0 +1,319 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.zip;
+
+import static com.github.i49.pulp.impl.base.Messages.*;
+import static com.github.i49.pulp.impl.base.Limits.MAX_ARRAY_SIZE;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+
+/**
+ * ZIP entry loader reading a ZIP file from a stream which cannot be read twice.
+ *
+ * <p>The loader reads through the stream only once in the order of the local file headers,
+ * and holds the contents of all entries after decompression.
+ * The contents are kept in memory as long as the specified limit allows,
+ * and moved to temporary files otherwise.
+ * The entries specified as pinned are always kept in memory regardless of the limit,
+ * though their total size is capped by a fixed ceiling far above the size of any sane package document.
+ * The total size of the temporary files is also limited, so that a malicious stream cannot exhaust the disk.
+ * Instances of this class are safe for use by multiple concurrent threads.</p>
+ */
+public class ZipStreamLoader implements Closeable {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	// the maximum total size of the pinned entries.
+	private static final long PINNED_LIMIT = 64 * 1024 * 1024;
+
+	// the names of the entries in the order of the local file headers.
+	private final List<String> names = new ArrayList<>();
+	private final Map<String, CompressedContent> contents = new HashMap<>();
+
+	/**
+	 * Creates a new instance of this class by reading all entries from the stream.
+	 * The stream is not closed by this method.
+	 *
+	 * @param stream the stream providing the ZIP file.
+	 * @param memoryLimit the maximum number of bytes of the contents held in memory.
+	 * @param spillLimit the maximum number of bytes of the contents stored in temporary files.
+	 * @param pinned the policy deciding the entries always held in memory.
+	 * @return newly created instance of this class.
+	 * @throws IllegalArgumentException if {@code stream} or {@code pinned} is {@code null}.
+	 * @throws IOException if an I/O error has occurred.
+	 * @throws ZipException if a ZIP format error has occurred, 
+	 *                      or the contents exceeded the limit of the temporary files or the pinned entries.
+	 */
+	public static ZipStreamLoader create(InputStream stream, long memoryLimit, long spillLimit, PinningPolicy pinned) throws IOException {
+		if (stream == null) {
+			throw new IllegalArgumentException("stream is null.");
+		}
+		if (pinned == null) {
+			throw new IllegalArgumentException("pinned is null.");
+		}
+		ZipStreamLoader loader = new ZipStreamLoader();
+		try {
+			loader.readAll(stream, new MemoryBudget(memoryLimit), spillLimit, pinned);
+		} catch (IOException | RuntimeException e) {
+			loader.close();
+			throw e;
+		}
+		return loader;
+	}
+
+	private ZipStreamLoader() {
+	}
+
+	/**
+	 * Returns the total number of entries in the ZIP file.
+	 * The entries having the same name are counted as one.
+	 *
+	 * @return the total number of entries in the ZIP file.
+	 */
+	public int getNumberOfEntries() {
+		return names.size();
+	}
+
+	/**
+	 * Returns whether the entry specified by name exists in the ZIP file or not.
+	 *
+	 * @param entryName the name of the entry.
+	 * @return {@code true} if the entry exists, {@code false} otherwise.
+	 */
+	public boolean findEntry(String entryName) {
+		return contents.containsKey(entryName);
+	}
+
+	/**
+	 * Returns the name of the ZIP entry located at specified index.
+	 *
+	 * @param index the index of the entry.
+	 * @return the name of the entry.
+	 */
+	public String getEntryName(int index) {
+		return names.get(index);
+	}
+
+	/**
+	 * Loads the content of the ZIP entry into a newly allocated array of the exact size.
+	 *
+	 * @param entryName the name of the entry.
+	 * @return loaded bytes.
+	 * @throws IllegalArgumentException if {@code entryName} is {@code null}.
+	 * @throws FileNotFoundException if the specified entry was not found in the ZIP file.
+	 * @throws ZipException if the entry is too large.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	public byte[] load(String entryName) throws IOException {
+		if (entryName == null) {
+			throw new IllegalArgumentException("entryName is null.");
+		}
+		CompressedContent content = getContent(entryName);
+		long size = content.getUncompressedSize();
+		if (size > MAX_ARRAY_SIZE) {
+			throw new ZipException(ZIP_ENTRY_TOO_LARGE(entryName, size));
+		}
+		byte[] bytes = new byte[(int)size];
+		try (InputStream in = content.openStream()) {
+			int offset = 0;
+			while (offset < bytes.length) {
+				int bytesRead = in.read(bytes, offset, bytes.length - offset);
+				if (bytesRead < 0) {
+					throw new ZipException(ZIP_ENTRY_SIZE_MISMATCH(entryName, size));
+				}
+				offset += bytesRead;
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * Loads the content of the ZIP entry as a buffer.
+	 *
+	 * @param entryName the name of the entry.
+	 * @return loaded bytes.
+	 * @throws IllegalArgumentException if {@code entryName} is {@code null}.
+	 * @throws FileNotFoundException if the specified entry was not found in the ZIP file.
+	 * @throws ZipException if the entry is too large.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	public ByteBuffer loadBuffer(String entryName) throws IOException {
+		return ByteBuffer.wrap(load(entryName));
+	}
+
+	/**
+	 * Returns the size of the content of the ZIP entry.
+	 *
+	 * @param entryName the name of the entry.
+	 * @return the size of the entry in bytes before compression.
+	 * @throws IllegalArgumentException if {@code entryName} is {@code null}.
+	 * @throws FileNotFoundException if the specified entry was not found in the ZIP file.
+	 */
+	public long getContentSize(String entryName) throws FileNotFoundException {
+		if (entryName == null) {
+			throw new IllegalArgumentException("entryName is null.");
+		}
+		return getContent(entryName).getUncompressedSize();
+	}
+
+	/**
+	 * Opens a new {@link InputStream} to load an entry of ZIP file.
+	 *
+	 * @param entryName the filename of the entry to load.
+	 * @return newly created {@link InputStream} that must be closed by the caller.
+	 * @throws IllegalArgumentException if {@code entryName} is {@code null}.
+	 * @throws FileNotFoundException if the specified entry was not found in the ZIP file.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	public InputStream openToLoad(String entryName) throws IOException {
+		if (entryName == null) {
+			throw new IllegalArgumentException("entryName is null.");
+		}
+		return getContent(entryName).openStream();
+	}
+
+	/**
+	 * Releases the memory and deletes the temporary files holding the contents.
+	 *
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	@Override
+	public void close() throws IOException {
+		IOException thrown = null;
+		for (CompressedContent content: contents.values()) {
+			try {
+				content.dispose();
+			} catch (IOException e) {
+				if (thrown == null) {
+					thrown = e;
+				} else {
+					thrown.addSuppressed(e);
+				}
+			}
+		}
+		contents.clear();
+		if (thrown != null) {
+			throw thrown;
+		}
+	}
+
+	private void readAll(InputStream stream, MemoryBudget budget, long spillLimit, PinningPolicy pinned) throws IOException {
+		MemoryBudget unlimited = new MemoryBudget(Long.MAX_VALUE);
+		// the total size of the contents stored in temporary files.
+		long spilled = 0;
+		// the total size of the pinned contents, including the ones replaced by the entries of the same name.
+		long pinnedSize = 0;
+		// The stream given must not be closed.
+		ZipInputStream in = new ZipInputStream(new FilterInputStream(stream) {
+			@Override
+			public void close() {
+			}
+		}, StandardCharsets.UTF_8);
+		try {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			ZipEntry entry;
+			while ((entry = in.getNextEntry()) != null) {
+				String name = entry.getName();
+				boolean pinning = pinned.isPinned(name);
+				CompressedContent.Builder builder =
+						new CompressedContent.Builder(ZipEntry.STORED, 0, pinning ? unlimited : budget);
+				CompressedContent content;
+				try {
+					int len;
+					while ((len = in.read(buffer)) != -1) {
+						builder.write(buffer, 0, len);
+						if (spilled + builder.getSpilledSize() > spillLimit) {
+							throw new ZipException(ZIP_STREAM_SPILL_LIMIT_EXCEEDED(name, spillLimit));
+						}
+						if (pinning && pinnedSize + builder.getUncompressedSize() > PINNED_LIMIT) {
+							throw new ZipException(ZIP_STREAM_PINNED_LIMIT_EXCEEDED(name, PINNED_LIMIT));
+						}
+					}
+					content = builder.build();
+				} catch (IOException | RuntimeException e) {
+					builder.close();
+					throw e;
+				}
+				spilled += content.getSpilledSize();
+				if (pinning) {
+					pinnedSize += content.getUncompressedSize();
+				}
+				CompressedContent replaced = contents.put(name, content);
+				if (replaced != null) {
+					// The last entry of the same name is used.
+					spilled -= replaced.getSpilledSize();
+					replaced.dispose();
+					names.remove(name);
+				}
+				names.add(name);
+				if (pinning) {
+					try (InputStream loaded = content.openStream()) {
+						pinned.loaded(name, loaded);
+					}
+				}
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	private CompressedContent getContent(String entryName) throws FileNotFoundException {
+		CompressedContent content = contents.get(entryName);
+		if (content == null) {
+			throw new FileNotFoundException(ZIP_STREAM_ENTRY_NOT_FOUND(entryName));
+		}
+		return content;
+	}
+
+	/**
+	 * Policy deciding the entries always held in memory.
+	 */
+	public interface PinningPolicy {
+
+		/**
+		 * Returns whether the entry should be held in memory regardless of the limit.
+		 * This method is called when the local file header of the entry is read.
+		 *
+		 * @param entryName the name of the entry.
+		 * @return {@code true} if the entry is pinned, {@code false} otherwise.
+		 */
+		boolean isPinned(String entryName);
+
+		/**
+		 * Receives the content of the pinned entry after the entry was read entirely.
+		 * The default implementation does nothing.
+		 *
+		 * @param entryName the name of the entry.
+		 * @param content the stream providing the content of the entry, which is closed by the loader.
+		 * @throws IOException if an I/O error has occurred.
+		 */
+		default void loaded(String entryName, InputStream content) throws IOException {
+		}
+	}
+}
@@ -80,6 +80,20 @@ class ZipStructure {
 		return length;
 	}
 	
+	/**
+	 * Creates a structure which is a part of this structure.
+	 * @param offset the relative position to the start of this structure.
+	 * @param length the length of the new structure.
+	 * @return created structure.
+	 * @throws IndexOutOfBoundsException if the part is out of this structure.
+	 */
+	public ZipStructure slice(int offset, int length) {
+		if (offset < 0 || length < 0 || offset + length > this.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		return new ZipStructure(this.buffer, this.offset + offset, length);
+	}
+	
 	/**
 	 * Retrieves an unsigned 8bit integer from this structure.
 	 * @param offset the relative position to the start of the structure.
@@ -128,6 +142,35 @@ class ZipStructure {
 		return (b4 << 24) | (b3 << 16) | (b2 << 8) | b1;
 	}
 
+	/**
+	 * Retrieves an unsigned 64bit integer from this structure.
+	 * The values not representable by {@code long} are returned as negative values.
+	 * @param offset the relative position to the start of the structure.
+	 * @return retrieved value.
+	 * @throws IndexOutOfBoundsException if the position is out of the structure.
+	 */
+	public long getUint64(int offset) {
+		if (offset < 0 || offset + 8 > this.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		return (getUint32(offset + 4) << 32) | getUint32(offset);
+	}
+
+	/**
+	 * Copies the bytes of this structure into the array.
+	 * @param offset the relative position to the start of the structure.
+	 * @param target the array to which the bytes will be copied.
+	 * @param targetOffset the position in the target array.
+	 * @param length the number of the bytes to copy.
+	 * @throws IndexOutOfBoundsException if the position is out of the structure or the target array.
+	 */
+	public void getBytes(int offset, byte[] target, int targetOffset, int length) {
+		if (offset < 0 || offset + length > this.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		System.arraycopy(this.buffer, this.offset + offset, target, targetOffset, length);
+	}
+
 	/**
 	 * Retrieves a string from this structure.
 	 * @param offset the relative position to the start of the structure.
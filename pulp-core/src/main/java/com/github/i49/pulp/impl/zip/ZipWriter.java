@@ -0,0 +1,770 @@
+/* 
+ * Copyright 2017 The Pulp Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.i49.pulp.impl.zip;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import com.github.i49.pulp.impl.base.Messages;
+
+/**
+ * ZIP file writer.
+ * 
+ * <p>The writer switches to ZIP64 format automatically 
+ * when the sizes or offsets of the entries exceed 4 GiB, 
+ * or when the number of the entries exceeds 65,534.
+ * Instances of this class are not safe for use by multiple concurrent threads.</p>
+ */
+public class ZipWriter implements Closeable {
+
+	private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+	private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+	private static final int CENTRAL_DIRECTORY_ENTRY_SIGNATURE = 0x02014b50;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE = 0x07064b50;
+	private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+	
+	private static final int ZIP64_EXTRA_FIELD_ID = 0x0001;
+	// the values indicating that the actual values are in ZIP64 structures.
+	private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+	private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+	private static final int VERSION_STORED = 10;
+	private static final int VERSION_DEFLATED = 20;
+	private static final int VERSION_ZIP64 = 45;
+	
+	private static final int FLAG_DATA_DESCRIPTOR = 0x0008;
+	private static final int FLAG_UTF8 = 0x0800;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	// the maximum size of the stored entries held in memory when the target is not seekable.
+	private static final long STORED_MEMORY_LIMIT = 16 * 1024 * 1024;
+	
+	private final WritableByteChannel targetChannel;
+	// the file being written, or null if the target is not seekable.
+	private final FileChannel fileChannel;
+	private final CountingOutputStream out;
+	private final Charset charset;
+	private final List<WrittenEntry> entries = new ArrayList<>();
+	// the names of the entries already started.
+	private final Set<String> names = new HashSet<>();
+	private MemoryBudget storedBudget;
+	private OutputStream currentEntry;
+	private boolean finished;
+	
+	/**
+	 * Constructs this writer which creates a new ZIP file at the specified path
+	 * and encodes the entry names in UTF-8.
+	 * The file is replaced if it already exists.
+	 * 
+	 * @param path the path to the ZIP file to write.
+	 * @throws IOException if an I/O error has occurred while opening the file.
+	 */
+	public ZipWriter(Path path) throws IOException {
+		this(FileChannel.open(path, 
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+	}
+	
+	/**
+	 * Constructs this writer which encodes the entry names in UTF-8.
+	 * 
+	 * @param out the stream to which the ZIP file will be written.
+	 */
+	public ZipWriter(OutputStream out) {
+		this(out, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Constructs this writer.
+	 * 
+	 * @param out the stream to which the ZIP file will be written.
+	 * @param charset the character set to be used to encode the entry names.
+	 */
+	public ZipWriter(OutputStream out, Charset charset) {
+		this(out, Channels.newChannel(out), null, charset);
+	}
+
+	private ZipWriter(FileChannel channel) {
+		this(Channels.newOutputStream(channel), channel, channel, StandardCharsets.UTF_8);
+	}
+	
+	private ZipWriter(OutputStream target, WritableByteChannel targetChannel, FileChannel fileChannel, Charset charset) {
+		this.targetChannel = targetChannel;
+		this.fileChannel = fileChannel;
+		this.out = new CountingOutputStream(new BufferedOutputStream(target, BUFFER_SIZE));
+		this.charset = charset;
+	}
+	
+	/**
+	 * Writes an entry stored without compression.
+	 * 
+	 * @param entryName the name of the entry.
+	 * @param content the content of the entry.
+	 * @throws IllegalArgumentException if any of arguments is {@code null}.
+	 * @throws IllegalStateException if any other entry is being written or this writer is already finished.
+	 * @throws ZipException if the entry of the same name was already written.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	public void writeStored(String entryName, byte[] content) throws IOException {
+		if (entryName == null) {
+			throw new IllegalArgumentException("entryName is null.");
+		}
+		if (content == null) {
+			throw new IllegalArgumentException("content is null.");
+		}
+		checkState();
+		CRC32 crc = new CRC32();
+		crc.update(content);
+		WrittenEntry entry = newEntry(entryName, ZipEntry.STORED, 0);
+		entry.crc = crc.getValue();
+		entry.compressedSize = content.length;
+		entry.uncompressedSize = content.length;
+		writeLocalFileHeader(entry);
+		out.write(content);
+		entries.add(entry);
+	}
+	
+	/**
+	 * Opens a stream to write an entry stored without compression.
+	 * The CRC of the entry is calculated while the content is written.
+	 * If this writer writes to a file, the content is written directly to the file 
+	 * and the local header of the entry is updated when the stream returned is closed.
+	 * Otherwise the content is held in memory or in a temporary file until the stream is closed,
+	 * because the readers of the ZIP file do not allow stored entries with data descriptor.
+	 * The entry written directly to the file cannot exceed 4 GiB.
+	 * 
+	 * @param entryName the name of the entry.
+	 * @return the stream to write the content of the entry, which must be closed by the caller.
+	 * @throws IllegalArgumentException if {@code entryName} is {@code null}.
+	 * @throws IllegalStateException if any other entry is being written or this writer is already finished.
+	 * @throws ZipException if the entry of the same name was already written.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	public OutputStream openStored(String entryName) throws IOException {
+		if (entryName == null) {
+			throw new IllegalArgumentException("entryName is null.");
+		}
+		checkState();
+		if (fileChannel != null) {
+			WrittenEntry entry = newEntry(entryName, ZipEntry.STORED, 0);
+			// The CRC and the sizes will be updated later.
+			writeLocalFileHeader(entry);
+			this.currentEntry = new EntryStoredOutputStream(entry);
+		} else {
+			if (names.contains(entryName)) {
+				throw new ZipException(Messages.ZIP_ENTRY_DUPLICATE(entryName));
+			}
+			if (storedBudget == null) {
+				storedBudget = new MemoryBudget(STORED_MEMORY_LIMIT);
+			}
+			this.currentEntry = new CompressedContent.Builder(ZipEntry.STORED, 0, storedBudget) {
+				
+				private boolean built;
+				
+				@Override
+				public void close() throws IOException {
+					if (built) {
+						return;
+					}
+					built = true;
+					currentEntry = null;
+					CompressedContent content = null;
+					try {
+						content = build();
+					} finally {
+						if (content == null) {
+							// Releases the buffer of the content failed to be built.
+							super.close();
+						}
+					}
+					try {
+						writeCompressed(entryName, content);
+					} finally {
+						content.dispose();
+					}
+				}
+			};
+		}
+		return this.currentEntry;
+	}
+	
+	/**
+	 * Opens a stream to write an entry compressed with DEFLATE method.
+	 * The sizes and the CRC of the entry are written after the data
+	 * when the stream returned is closed.
+	 * 
+	 * @param entryName the name of the entry.
+	 * @param level the compression level from 0 to 9, 
+	 *              or {@link Deflater#DEFAULT_COMPRESSION}.
+	 * @return the stream to write the content of the entry, which must be closed by the caller.
+	 * @throws IllegalArgumentException if {@code entryName} is {@code null}.
+	 * @throws IllegalStateException if any other entry is being written or this writer is already finished.
+	 * @throws ZipException if the entry of the same name was already written.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	public OutputStream openDeflated(String entryName, int level) throws IOException {
+		if (entryName == null) {
+			throw new IllegalArgumentException("entryName is null.");
+		}
+		checkState();
+		WrittenEntry entry = newEntry(entryName, ZipEntry.DEFLATED, FLAG_DATA_DESCRIPTOR);
+		writeLocalFileHeader(entry);
+		this.currentEntry = new EntryDeflaterOutputStream(entry, level);
+		return this.currentEntry;
+	}
+	
+	/**
+	 * Opens a stream to write an entry either compressed with DEFLATE method or stored without compression.
+	 * The method is chosen by compressing the sample at the beginning of the content.
+	 * 
+	 * @param entryName the name of the entry.
+	 * @param level the compression level from 0 to 9, 
+	 *              or {@link Deflater#DEFAULT_COMPRESSION}.
+	 * @return the stream to write the content of the entry, which must be closed by the caller.
+	 * @throws IllegalArgumentException if {@code entryName} is {@code null}.
+	 * @throws IllegalStateException if any other entry is being written or this writer is already finished.
+	 * @throws ZipException if the entry of the same name was already written.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	public OutputStream openProbed(String entryName, int level) throws IOException {
+		if (entryName == null) {
+			throw new IllegalArgumentException("entryName is null.");
+		}
+		checkState();
+		this.currentEntry = new ProbingOutputStream(compressible->{
+			this.currentEntry = null;
+			return compressible ? openDeflated(entryName, level) : openStored(entryName);
+		});
+		return this.currentEntry;
+	}
+	
+	/**
+	 * Copies an entry of another ZIP file without decompressing it.
+	 * The compressed data, the CRC and the sizes of the entry are copied verbatim.
+	 * 
+	 * @param loader the loader of the ZIP file to copy from.
+	 * @param sourceName the name of the entry to copy.
+	 * @param entryName the name of the entry in this ZIP file.
+	 * @throws IllegalArgumentException if any of arguments is {@code null}.
+	 * @throws IllegalStateException if any other entry is being written or this writer is already finished.
+	 * @throws java.io.FileNotFoundException if the entry to copy was not found.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	public void copyEntry(ZipLoader loader, String sourceName, String entryName) throws IOException {
+		if (loader == null) {
+			throw new IllegalArgumentException("loader is null.");
+		}
+		if (sourceName == null) {
+			throw new IllegalArgumentException("sourceName is null.");
+		}
+		if (entryName == null) {
+			throw new IllegalArgumentException("entryName is null.");
+		}
+		checkState();
+		CentralDirectoryEntry source = loader.getEntry(sourceName);
+		WrittenEntry entry = newEntry(entryName, source.getMethod(), 0);
+		entry.crc = source.getCrc();
+		entry.compressedSize = source.getCompressedSize();
+		entry.uncompressedSize = source.getUncompressedSize();
+		writeLocalFileHeader(entry);
+		// Writes the data directly to the channel bypassing the buffer.
+		out.flush();
+		loader.transferRaw(source, targetChannel);
+		out.skip(entry.compressedSize);
+		entries.add(entry);
+	}
+	
+	/**
+	 * Writes an entry whose content was prepared in advance.
+	 * 
+	 * @param entryName the name of the entry.
+	 * @param content the content of the entry.
+	 * @throws IllegalStateException if any other entry is being written or this writer is already finished.
+	 * @throws ZipException if the entry of the same name was already written.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	void writeCompressed(String entryName, CompressedContent content) throws IOException {
+		checkState();
+		WrittenEntry entry = newEntry(entryName, content.getMethod(), 0);
+		entry.crc = content.getCrc();
+		entry.compressedSize = content.getCompressedSize();
+		entry.uncompressedSize = content.getUncompressedSize();
+		writeLocalFileHeader(entry);
+		content.writeTo(out);
+		entries.add(entry);
+	}
+	
+	/**
+	 * Returns the number of the entries written.
+	 * 
+	 * @return the number of the entries written.
+	 */
+	public int getNumberOfEntries() {
+		return entries.size();
+	}
+	
+	/**
+	 * Writes the Central Directory and finishes the ZIP file 
+	 * without closing the underlying stream.
+	 * 
+	 * @throws IllegalStateException if any entry is being written.
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	public void finish() throws IOException {
+		if (finished) {
+			return;
+		}
+		if (currentEntry != null) {
+			throw new IllegalStateException("Entry is not closed.");
+		}
+		long centralDirectoryPosition = out.getCount();
+		for (WrittenEntry entry: entries) {
+			writeCentralDirectoryEntry(entry);
+		}
+		long centralDirectoryLength = out.getCount() - centralDirectoryPosition;
+		writeEndOfCentralDirectory(centralDirectoryPosition, centralDirectoryLength);
+		out.flush();
+		finished = true;
+	}
+	
+	/**
+	 * Finishes the ZIP file and closes the underlying stream.
+	 * 
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			if (currentEntry != null) {
+				currentEntry.close();
+			}
+			finish();
+		} finally {
+			out.close();
+		}
+	}
+	
+	/**
+	 * Closes the underlying stream without writing the Central Directory.
+	 * The ZIP file left is incomplete and cannot be read as a valid ZIP file.
+	 * 
+	 * @throws IOException if an I/O error has occurred.
+	 */
+	public void abort() throws IOException {
+		finished = true;
+		currentEntry = null;
+		out.close();
+	}
+	
+	private void checkState() {
+		if (finished) {
+			throw new IllegalStateException("ZIP file is already finished.");
+		}
+		if (currentEntry != null) {
+			throw new IllegalStateException("Entry is not closed.");
+		}
+	}
+	
+	/**
+	 * Starts a new entry to be written at the current position.
+	 * 
+	 * @param entryName the name of the entry.
+	 * @param method the compression method of the entry.
+	 * @param flags the general purpose flags of the entry.
+	 * @return the entry started.
+	 * @throws ZipException if the entry of the same name was already written.
+	 */
+	private WrittenEntry newEntry(String entryName, int method, int flags) throws ZipException {
+		if (!names.add(entryName)) {
+			throw new ZipException(Messages.ZIP_ENTRY_DUPLICATE(entryName));
+		}
+		return new WrittenEntry(encode(entryName), method, flags, out.getCount());
+	}
+	
+	private byte[] encode(String entryName) {
+		return entryName.getBytes(charset);
+	}
+	
+	private int flags() {
+		return StandardCharsets.UTF_8.equals(charset) ? FLAG_UTF8 : 0;
+	}
+	
+	private void writeLocalFileHeader(WrittenEntry entry) throws IOException {
+		// The values for the entry with data descriptor are all zero.
+		boolean zip64 = entry.compressedSize >= ZIP64_MAGIC || entry.uncompressedSize >= ZIP64_MAGIC;
+		int extraLength = zip64 ? 20 : 0;
+		ByteBuffer b = allocate(30 + entry.name.length + extraLength);
+		b.putInt(LOCAL_FILE_HEADER_SIGNATURE);
+		b.putShort((short)(zip64 ? VERSION_ZIP64 : entry.version()));
+		b.putShort((short)(entry.flags | flags()));
+		b.putShort((short)entry.method);
+		b.putInt(entry.dosTime);
+		b.putInt((int)entry.crc);
+		b.putInt(zip64 ? (int)ZIP64_MAGIC : (int)entry.compressedSize);
+		b.putInt(zip64 ? (int)ZIP64_MAGIC : (int)entry.uncompressedSize);
+		b.putShort((short)entry.name.length);
+		b.putShort((short)extraLength);
+		b.put(entry.name);
+		if (zip64) {
+			b.putShort((short)ZIP64_EXTRA_FIELD_ID);
+			b.putShort((short)16);
+			b.putLong(entry.uncompressedSize);
+			b.putLong(entry.compressedSize);
+		}
+		write(b);
+	}
+	
+	private void writeDataDescriptor(WrittenEntry entry) throws IOException {
+		boolean zip64 = entry.compressedSize >= ZIP64_MAGIC || entry.uncompressedSize >= ZIP64_MAGIC;
+		ByteBuffer b = allocate(zip64 ? 24 : 16);
+		b.putInt(DATA_DESCRIPTOR_SIGNATURE);
+		b.putInt((int)entry.crc);
+		if (zip64) {
+			b.putLong(entry.compressedSize);
+			b.putLong(entry.uncompressedSize);
+		} else {
+			b.putInt((int)entry.compressedSize);
+			b.putInt((int)entry.uncompressedSize);
+		}
+		write(b);
+	}
+	
+	private void writeCentralDirectoryEntry(WrittenEntry entry) throws IOException {
+		boolean largeUncompressed = entry.uncompressedSize >= ZIP64_MAGIC;
+		boolean largeCompressed = entry.compressedSize >= ZIP64_MAGIC;
+		boolean largePosition = entry.position >= ZIP64_MAGIC;
+		int extraLength = 0;
+		if (largeUncompressed || largeCompressed || largePosition) {
+			extraLength = 4 
+					+ (largeUncompressed ? 8 : 0) 
+					+ (largeCompressed ? 8 : 0) 
+					+ (largePosition ? 8 : 0);
+		}
+		int version = (extraLength > 0) ? VERSION_ZIP64 : entry.version(); 
+		ByteBuffer b = allocate(46 + entry.name.length + extraLength);
+		b.putInt(CENTRAL_DIRECTORY_ENTRY_SIGNATURE);
+		b.putShort((short)version);
+		b.putShort((short)version);
+		b.putShort((short)(entry.flags | flags()));
+		b.putShort((short)entry.method);
+		b.putInt(entry.dosTime);
+		b.putInt((int)entry.crc);
+		b.putInt(largeCompressed ? (int)ZIP64_MAGIC : (int)entry.compressedSize);
+		b.putInt(largeUncompressed ? (int)ZIP64_MAGIC : (int)entry.uncompressedSize);
+		b.putShort((short)entry.name.length);
+		b.putShort((short)extraLength);
+		b.putShort((short)0); // comment
+		b.putShort((short)0); // disk number
+		b.putShort((short)0); // internal attributes
+		b.putInt(0); // external attributes
+		b.putInt(largePosition ? (int)ZIP64_MAGIC : (int)entry.position);
+		b.put(entry.name);
+		if (extraLength > 0) {
+			b.putShort((short)ZIP64_EXTRA_FIELD_ID);
+			b.putShort((short)(extraLength - 4));
+			if (largeUncompressed) {
+				b.putLong(entry.uncompressedSize);
+			}
+			if (largeCompressed) {
+				b.putLong(entry.compressedSize);
+			}
+			if (largePosition) {
+				b.putLong(entry.position);
+			}
+		}
+		write(b);
+	}
+	
+	private void writeEndOfCentralDirectory(long position, long length) throws IOException {
+		int total = entries.size();
+		boolean zip64 = total >= ZIP64_MAGIC_COUNT || position >= ZIP64_MAGIC || length >= ZIP64_MAGIC; 
+		if (zip64) {
+			long recordPosition = out.getCount();
+			ByteBuffer b = allocate(56 + 20);
+			b.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+			b.putLong(44); // size of the remaining record
+			b.putShort((short)VERSION_ZIP64);
+			b.putShort((short)VERSION_ZIP64);
+			b.putInt(0); // number of this disk
+			b.putInt(0); // disk where the Central Directory starts
+			b.putLong(total);
+			b.putLong(total);
+			b.putLong(length);
+			b.putLong(position);
+			b.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE);
+			b.putInt(0); // disk where the record starts
+			b.putLong(recordPosition);
+			b.putInt(1); // total number of disks
+			write(b);
+		}
+		ByteBuffer b = allocate(22);
+		b.putInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+		b.putShort((short)0);
+		b.putShort((short)0);
+		b.putShort((short)Math.min(total, ZIP64_MAGIC_COUNT));
+		b.putShort((short)Math.min(total, ZIP64_MAGIC_COUNT));
+		b.putInt((int)Math.min(length, ZIP64_MAGIC));
+		b.putInt((int)Math.min(position, ZIP64_MAGIC));
+		b.putShort((short)0); // comment
+		write(b);
+	}
+	
+	private static ByteBuffer allocate(int size) {
+		return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+	}
+	
+	private void write(ByteBuffer b) throws IOException {
+		assert(!b.hasRemaining());
+		out.write(b.array(), 0, b.position());
+	}
+	
+	private static int toDosTime(LocalDateTime t) {
+		if (t.getYear() < 1980) {
+			return (1 << 21) | (1 << 16);
+		}
+		return ((t.getYear() - 1980) << 25) 
+				| (t.getMonthValue() << 21) 
+				| (t.getDayOfMonth() << 16) 
+				| (t.getHour() << 11) 
+				| (t.getMinute() << 5) 
+				| (t.getSecond() >> 1);
+	}
+	
+	/**
+	 * An entry written to the ZIP file, which will be recorded in the Central Directory.
+	 */
+	private static class WrittenEntry {
+		
+		private final byte[] name;
+		private final int method;
+		private final int flags;
+		private final long position;
+		private final int dosTime;
+		private long crc;
+		private long compressedSize;
+		private long uncompressedSize;
+		
+		WrittenEntry(byte[] name, int method, int flags, long position) {
+			this.name = name;
+			this.method = method;
+			this.flags = flags;
+			this.position = position;
+			this.dosTime = toDosTime(LocalDateTime.now());
+		}
+		
+		int version() {
+			return (method == ZipEntry.DEFLATED) ? VERSION_DEFLATED : VERSION_STORED;
+		}
+	}
+	
+	/**
+	 * Output stream compressing the content of an entry.
+	 */
+	private class EntryDeflaterOutputStream extends OutputStream {
+
+		private final WrittenEntry entry;
+		private final Deflater deflater;
+		private final CRC32 crc = new CRC32();
+		private final byte[] buffer = new byte[BUFFER_SIZE];
+		private final long startPosition;
+		private boolean closed;
+
+		EntryDeflaterOutputStream(WrittenEntry entry, int level) {
+			this.entry = entry;
+			this.deflater = new Deflater(level, true);
+			this.startPosition = out.getCount();
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] {(byte)b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (closed) {
+				throw new IOException(Messages.STREAM_CLOSED());
+			}
+			if (off < 0 || len < 0 || len > b.length - off) {
+				throw new IndexOutOfBoundsException();
+			}
+			if (len == 0) {
+				return;
+			}
+			crc.update(b, off, len);
+			deflater.setInput(b, off, len);
+			while (!deflater.needsInput()) {
+				deflate();
+			}
+		}
+
+		/**
+		 * Finishes the compressed data and writes the data descriptor of the entry.
+		 */
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			try {
+				deflater.finish();
+				while (!deflater.finished()) {
+					deflate();
+				}
+				entry.crc = crc.getValue();
+				entry.uncompressedSize = deflater.getBytesRead();
+				entry.compressedSize = out.getCount() - startPosition;
+				writeDataDescriptor(entry);
+				entries.add(entry);
+			} finally {
+				deflater.end();
+				currentEntry = null;
+			}
+		}
+		
+		private void deflate() throws IOException {
+			int len = deflater.deflate(buffer, 0, buffer.length);
+			if (len > 0) {
+				out.write(buffer, 0, len);
+			}
+		}
+	}
+	
+	/**
+	 * Output stream writing the content of an entry stored without compression
+	 * directly to the file.
+	 */
+	private class EntryStoredOutputStream extends OutputStream {
+
+		private final WrittenEntry entry;
+		private final CRC32 crc = new CRC32();
+		private long size;
+		private boolean closed;
+		
+		EntryStoredOutputStream(WrittenEntry entry) {
+			this.entry = entry;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] {(byte)b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (closed) {
+				throw new IOException(Messages.STREAM_CLOSED());
+			}
+			if (off < 0 || len < 0 || len > b.length - off) {
+				throw new IndexOutOfBoundsException();
+			}
+			crc.update(b, off, len);
+			out.write(b, off, len);
+			size += len;
+		}
+		
+		/**
+		 * Updates the local header of the entry with the CRC and the sizes.
+		 */
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			currentEntry = null;
+			if (size >= ZIP64_MAGIC) {
+				// The local header has no room for ZIP64 extra field.
+				throw new ZipException(Messages.ZIP_ENTRY_STORED_TOO_LARGE(new String(entry.name, charset)));
+			}
+			entry.crc = crc.getValue();
+			entry.compressedSize = size;
+			entry.uncompressedSize = size;
+			out.flush();
+			ByteBuffer b = allocate(12);
+			b.putInt((int)entry.crc);
+			b.putInt((int)size);
+			b.putInt((int)size);
+			b.flip();
+			// The CRC is at offset 14 in the local header.
+			long position = entry.position + 14;
+			while (b.hasRemaining()) {
+				position += fileChannel.write(b, position);
+			}
+			entries.add(entry);
+		}
+	}
+	
+	/**
+	 * Output stream counting the bytes written.
+	 */
+	private static class CountingOutputStream extends FilterOutputStream {
+		
+		private long count;
+		
+		CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+		
+		long getCount() {
+			return count;
+		}
+		
+		/**
+		 * Counts the bytes written directly to the underlying stream.
+		 * 
+		 * @param n the number of the bytes written.
+		 */
+		void skip(long n) {
+			count += n;
+		}
+		
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+	}
+}
@@ -15,6 +15,6 @@
  */
 
 /**
- * Provides ZIP file reader.
+ * Provides ZIP file reader and writer.
  */
 package com.github.i49.pulp.impl.zip;
\ No newline at end of file